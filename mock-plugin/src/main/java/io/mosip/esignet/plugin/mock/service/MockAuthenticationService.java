@@ -6,6 +6,7 @@
 package io.mosip.esignet.plugin.mock.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.mosip.esignet.plugin.mock.dto.KycExchangeRequestDtoV3;
 import io.mosip.esignet.plugin.mock.dto.KycExchangeResponseDto;
 import io.mosip.esignet.api.dto.*;
@@ -16,6 +17,8 @@ import io.mosip.esignet.api.spi.Authenticator;
 import io.mosip.esignet.api.util.ErrorConstants;
 import io.mosip.esignet.plugin.mock.dto.KycExchangeRequestDto;
 import io.mosip.esignet.plugin.mock.dto.KycExchangeRequestDtoV2;
+import io.mosip.esignet.plugin.mock.util.IsoLanguageCodes;
+import io.mosip.esignet.plugin.mock.util.KycSigningCertificateCache;
 import io.mosip.kernel.core.http.ResponseWrapper;
 import io.mosip.kernel.core.util.StringUtils;
 import io.mosip.kernel.keymanagerservice.dto.AllCertificatesDataResponseDto;
@@ -35,11 +38,13 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
 
 
 @ConditionalOnProperty(value = "mosip.esignet.integration.authenticator", havingValue = "MockAuthenticationService")
@@ -58,6 +63,15 @@ public class MockAuthenticationService implements Authenticator {
     @Value("${mosip.esignet.mock.authenticator.kyc-exchange-v3-url}")
     private String kycExchangeV3Url;
 
+    @Value("${mosip.esignet.mock.authenticator.certificate-cache.ttl-seconds:1800}")
+    private long certificateCacheTtlSeconds;
+
+    @Value("${mosip.esignet.mock.authenticator.certificate-cache.refresh-ahead-seconds:120}")
+    private long certificateCacheRefreshAheadSeconds;
+
+    @Value("${mosip.esignet.mock.authenticator.certificate-cache.max-stale-seconds:86400}")
+    private long certificateCacheMaxStaleSeconds;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -70,6 +84,25 @@ public class MockAuthenticationService implements Authenticator {
     @Autowired
     private RestTemplate restTemplate;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private KycSigningCertificateCache certificateCache;
+
+    @PostConstruct
+    public void init() {
+        certificateCache = new KycSigningCertificateCache(this::loadKycSigningCertificates,
+                Duration.ofSeconds(certificateCacheTtlSeconds), Duration.ofSeconds(certificateCacheRefreshAheadSeconds),
+                Duration.ofSeconds(certificateCacheMaxStaleSeconds));
+        IsoLanguageCodes.bindTo(meterRegistry, "mock.claim.locales.unknown");
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if(certificateCache != null)
+            certificateCache.shutdown();
+    }
+
 
     @Validated
     @Override
@@ -140,6 +173,16 @@ public class MockAuthenticationService implements Authenticator {
 
     @Override
     public List<KycSigningCertificateData> getAllKycSigningCertificates() {
+        try {
+            return certificateCache.get();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<KycSigningCertificateData> loadKycSigningCertificates(List<KycSigningCertificateData> current) {
         List<KycSigningCertificateData> certs = new ArrayList<>();
         AllCertificatesDataResponseDto allCertificatesDataResponseDto = keymanagerService.getAllCertificates(APPLICATION_ID,
                 Optional.empty());
@@ -205,16 +248,6 @@ public class MockAuthenticationService implements Authenticator {
 
     //Converts an array of two-letter language codes to their corresponding ISO 639-2/T language codes.
     protected List<String> convertLangCodesToISO3LanguageCodes(String[] langCodes) {
-        if(langCodes == null || langCodes.length == 0)
-            return List.of();
-        return Arrays.stream(langCodes)
-                .map(langCode -> {
-                    try {
-                        return org.springframework.util.StringUtils.isEmpty(langCode) ? null : new Locale(langCode).getISO3Language();
-                    } catch (MissingResourceException ex) {}
-                    return null;
-                })
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        return IsoLanguageCodes.toISO3(langCodes);
     }
 }
@@ -0,0 +1,97 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mock.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Two-letter ISO 639-1 to three-letter ISO 639-2/T language codes, resolved once from the JDK locale data.
+ * Returns the same codes as Locale.getISO3Language, without building a Locale or throwing for unknown codes.
+ */
+@Slf4j
+public final class IsoLanguageCodes {
+
+    //Codes the JDK renames between its old and new forms (he/iw, yi/ji, id/in), resolved both ways
+    private static final String[] RENAMED_LANGUAGES = {"he", "iw", "yi", "ji", "id", "in"};
+    private static final Map<String, String> ISO3_LANGUAGES;
+    private static final LongAdder unknownCodes = new LongAdder();
+
+    static {
+        Map<String, String> iso3Languages = new HashMap<>();
+        List<String> languages = new ArrayList<>(List.of(Locale.getISOLanguages()));
+        languages.addAll(List.of(RENAMED_LANGUAGES));
+        for(String language : languages) {
+            try {
+                iso3Languages.put(language, new Locale(language).getISO3Language());
+            } catch (MissingResourceException e) {
+                log.warn("No ISO3 language code available for {}", language);
+            }
+        }
+        ISO3_LANGUAGES = Map.copyOf(iso3Languages);
+    }
+
+    private IsoLanguageCodes() {}
+
+    /**
+     * @param langCode ISO 639-1 or ISO 639-2 language code, case-insensitive
+     * @return ISO 639-2/T language code, null if the code is empty or unknown
+     */
+    public static String toISO3(String langCode) {
+        if(langCode == null || langCode.isEmpty())
+            return null;
+
+        String language = langCode.toLowerCase(Locale.ROOT);
+        //Locale returns three letter codes as is
+        if(language.length() == 3)
+            return language;
+
+        String iso3Language = ISO3_LANGUAGES.get(language);
+        if(iso3Language == null) {
+            unknownCodes.increment();
+            log.debug("Unknown language code : {}", langCode);
+        }
+        return iso3Language;
+    }
+
+    /**
+     * @return codes converted to ISO 639-2/T, empty and unknown codes are left out
+     */
+    public static List<String> toISO3(String[] langCodes) {
+        if(langCodes == null || langCodes.length == 0)
+            return List.of();
+
+        List<String> iso3Languages = new ArrayList<>(langCodes.length);
+        for(String langCode : langCodes) {
+            String iso3Language = toISO3(langCode);
+            if(iso3Language != null)
+                iso3Languages.add(iso3Language);
+        }
+        return iso3Languages;
+    }
+
+    public static long getUnknownCount() {
+        return unknownCodes.sum();
+    }
+
+    /**
+     * Registers the count of unknown codes passed to toISO3 as a counter with the given name.
+     */
+    public static void bindTo(MeterRegistry registry, String name) {
+        FunctionCounter.builder(name, unknownCodes, LongAdder::sum)
+                .description("Claim locales left out of kyc-exchange requests as unknown language codes")
+                .register(registry);
+    }
+}
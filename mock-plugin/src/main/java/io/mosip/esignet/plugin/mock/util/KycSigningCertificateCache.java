@@ -0,0 +1,159 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mock.util;
+
+import io.mosip.esignet.api.dto.KycSigningCertificateData;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the KYC signing certificate set for the ttl and reloads it in the background ahead of expiry.
+ * Once expired, the previous set is still served for up to maxStale while a reload runs in the
+ * background, so callers are not held up when the source is slow or unreachable. Concurrent loads are
+ * merged into one, and a reload that returns the same certificates keeps the previous instances.
+ * <p>
+ * The mosip-identity, mock and sunbird-rc plugins each carry an identical copy of this class and its test,
+ * the plugins are built and released on their own with no module in common. Change all three together.
+ */
+@Slf4j
+public class KycSigningCertificateCache {
+
+    @FunctionalInterface
+    public interface Loader {
+        /**
+         * @param current certificates held now, null before the first load. Returning the same list
+         *                marks them as still valid.
+         */
+        List<KycSigningCertificateData> load(List<KycSigningCertificateData> current) throws Exception;
+    }
+
+    private static final long MIN_RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Loader loader;
+    private final long ttlNanos;
+    private final long refreshAheadNanos;
+    private final long maxStaleNanos;
+    private final long retryNanos;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicReference<CompletableFuture<Entry>> inFlight = new AtomicReference<>();
+    private volatile Entry entry;
+    private volatile long lastFailureAt;
+    private ScheduledFuture<?> scheduledRefresh;
+
+    public KycSigningCertificateCache(Loader loader, Duration ttl, Duration refreshAhead, Duration maxStale) {
+        this.loader = loader;
+        this.ttlNanos = ttl.toNanos();
+        this.refreshAheadNanos = Math.min(refreshAhead.toNanos(), ttlNanos);
+        this.maxStaleNanos = maxStale.toNanos();
+        this.retryNanos = Math.max(refreshAheadNanos / 4, MIN_RETRY_NANOS);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kyc-signing-cert-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.lastFailureAt = System.nanoTime() - retryNanos;
+    }
+
+    public List<KycSigningCertificateData> get() throws Exception {
+        Entry current = entry;
+        if(current != null) {
+            long age = System.nanoTime() - current.loadedAt;
+            if(age < ttlNanos)
+                return new ArrayList<>(current.certificates);
+            if(age < ttlNanos + maxStaleNanos) {
+                refreshInBackground();
+                return new ArrayList<>(current.certificates);
+            }
+        }
+        return new ArrayList<>(refresh().certificates);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private Entry refresh() throws Exception {
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = inFlight.compareAndExchange(null, future);
+        if(existing != null)
+            return await(existing);
+
+        try {
+            Entry current = entry;
+            List<KycSigningCertificateData> certificates = loader.load(current == null ? null : current.certificates);
+            if(current != null && certificates.equals(current.certificates))
+                certificates = current.certificates;
+            Entry loaded = new Entry(certificates, System.nanoTime());
+            entry = loaded;
+            schedule(ttlNanos - refreshAheadNanos);
+            future.complete(loaded);
+            return loaded;
+        } catch (Exception e) {
+            lastFailureAt = System.nanoTime();
+            if(entry != null)
+                schedule(retryNanos);
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    private void refreshInBackground() {
+        if(inFlight.get() != null || System.nanoTime() - lastFailureAt < retryNanos)
+            return;
+        try {
+            scheduler.execute(this::refreshQuietly);
+        } catch (RuntimeException e) {
+            log.debug("KYC signing certificate refresh not scheduled", e);
+        }
+    }
+
+    //only the latest load decides when the next one runs
+    private synchronized void schedule(long delayNanos) {
+        if(ttlNanos <= 0 || scheduler.isShutdown())
+            return;
+        if(scheduledRefresh != null)
+            scheduledRefresh.cancel(false);
+        scheduledRefresh = scheduler.schedule(this::refreshQuietly, Math.max(delayNanos, 0), TimeUnit.NANOSECONDS);
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("KYC signing certificate refresh failed, serving the previous certificates", e);
+        }
+    }
+
+    private static Entry await(CompletableFuture<Entry> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    private static final class Entry {
+        private final List<KycSigningCertificateData> certificates;
+        private final long loadedAt;
+
+        private Entry(List<KycSigningCertificateData> certificates, long loadedAt) {
+            this.certificates = certificates;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package io.mosip.esignet.plugin.mock.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.mosip.esignet.api.dto.*;
 import io.mosip.esignet.api.exception.KycAuthException;
 import io.mosip.esignet.api.exception.SendOtpException;
@@ -10,6 +11,7 @@ import io.mosip.esignet.plugin.mock.dto.KycExchangeResponseDto;
 import io.mosip.esignet.api.exception.KycExchangeException;
 import io.mosip.esignet.api.util.ErrorConstants;
 import io.mosip.esignet.plugin.mock.dto.KycExchangeRequestDtoV2;
+import io.mosip.esignet.plugin.mock.util.IsoLanguageCodes;
 import io.mosip.kernel.core.http.ResponseWrapper;
 import io.mosip.kernel.keymanagerservice.dto.AllCertificatesDataResponseDto;
 import io.mosip.kernel.keymanagerservice.dto.CertificateDataResponseDto;
@@ -181,11 +183,47 @@ public class MockAuthenticationServiceTest {
         allCertificatesDataResponseDto.getAllCertificates()[1]= certificateDataResponseDto1;
 
         Mockito.when(keymanagerService.getAllCertificates(Mockito.anyString(),Mockito.any())).thenReturn(allCertificatesDataResponseDto);
+        ReflectionTestUtils.setField(mockAuthenticationService, "meterRegistry", new SimpleMeterRegistry());
+        mockAuthenticationService.init();
         List<KycSigningCertificateData> allKycSigningCertificates = mockAuthenticationService.getAllKycSigningCertificates();
         Assert.assertNotNull(allKycSigningCertificates);
         Assert.assertEquals(allKycSigningCertificates.size(), 2);
     }
 
+    @Test
+    public void init_thenRegisterUnknownClaimLocalesCounter() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(mockAuthenticationService, "meterRegistry", meterRegistry);
+        mockAuthenticationService.init();
+        try {
+            Assert.assertEquals(List.of("eng"), mockAuthenticationService.convertLangCodesToISO3LanguageCodes(new String[]{"en", "e1"}));
+            Assert.assertEquals(IsoLanguageCodes.getUnknownCount(),
+                    meterRegistry.get("mock.claim.locales.unknown").functionCounter().count(), 0);
+        } finally {
+            mockAuthenticationService.destroy();
+        }
+    }
+
+    @Test
+    public void getAllKycSigningCertificates_withLoadFailureAfterTtl_thenServeStaleCertificates() throws Exception {
+        ReflectionTestUtils.setField(mockAuthenticationService, "certificateCacheMaxStaleSeconds", 60L);
+        ReflectionTestUtils.setField(mockAuthenticationService, "meterRegistry", new SimpleMeterRegistry());
+        mockAuthenticationService.init();
+        AllCertificatesDataResponseDto allCertificatesDataResponseDto = new AllCertificatesDataResponseDto();
+        CertificateDataResponseDto certificateDataResponseDto = new CertificateDataResponseDto();
+        certificateDataResponseDto.setKeyId("keyId");
+        allCertificatesDataResponseDto.setAllCertificates(new CertificateDataResponseDto[] { certificateDataResponseDto });
+        Mockito.when(keymanagerService.getAllCertificates(Mockito.anyString(),Mockito.any()))
+                .thenReturn(allCertificatesDataResponseDto)
+                .thenThrow(new RuntimeException("keymanager unavailable"));
+        try {
+            Assert.assertEquals("keyId", mockAuthenticationService.getAllKycSigningCertificates().get(0).getKeyId());
+            Assert.assertEquals("keyId", mockAuthenticationService.getAllKycSigningCertificates().get(0).getKeyId());
+        } finally {
+            mockAuthenticationService.destroy();
+        }
+    }
+
     @Test
     public void doKycAuth_withValidDetails_thenPass() throws KycAuthException {
         String relyingPartyId = "testRelyingPartyId";
@@ -0,0 +1,60 @@
+package io.mosip.esignet.plugin.mock.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.MissingResourceException;
+
+public class IsoLanguageCodesTest {
+
+    @Test
+    public void toISO3_matchesLocaleForAllLanguages_thenPass() {
+        for(String language : Locale.getISOLanguages()) {
+            Assert.assertEquals(language, getISO3Language(language), IsoLanguageCodes.toISO3(language));
+            Assert.assertEquals(language, getISO3Language(language.toUpperCase(Locale.ROOT)),
+                    IsoLanguageCodes.toISO3(language.toUpperCase(Locale.ROOT)));
+        }
+        for(String language : new String[]{"he", "iw", "yi", "ji", "id", "in", "eng", "KHM", "xyz"}) {
+            Assert.assertEquals(language, getISO3Language(language), IsoLanguageCodes.toISO3(language));
+        }
+    }
+
+    @Test
+    public void toISO3_withUnknownCodes_thenRecordWithoutException() {
+        long unknownCount = IsoLanguageCodes.getUnknownCount();
+        Assert.assertNull(IsoLanguageCodes.toISO3("e1"));
+        Assert.assertNull(IsoLanguageCodes.toISO3("en-US"));
+        Assert.assertNull(IsoLanguageCodes.toISO3(""));
+        Assert.assertNull(IsoLanguageCodes.toISO3((String) null));
+        Assert.assertEquals(unknownCount + 2, IsoLanguageCodes.getUnknownCount());
+    }
+
+    @Test
+    public void bindTo_thenReportUnknownCodes() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        IsoLanguageCodes.bindTo(meterRegistry, "claim.locales.unknown");
+        FunctionCounter counter = meterRegistry.get("claim.locales.unknown").functionCounter();
+        double count = counter.count();
+        IsoLanguageCodes.toISO3(new String[]{"en", "e1", "e2"});
+        Assert.assertEquals(count + 2, counter.count(), 0);
+    }
+
+    @Test
+    public void toISO3_withCodeArray_thenPass() {
+        Assert.assertEquals(List.of("eng", "khm", "ara"), IsoLanguageCodes.toISO3(new String[]{"en", "", "km", "e1", null, "ar"}));
+        Assert.assertTrue(IsoLanguageCodes.toISO3((String[]) null).isEmpty());
+        Assert.assertTrue(IsoLanguageCodes.toISO3(new String[]{}).isEmpty());
+    }
+
+    private static String getISO3Language(String language) {
+        try {
+            return new Locale(language).getISO3Language();
+        } catch (MissingResourceException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package io.mosip.esignet.plugin.mock.util;
+
+import io.mosip.esignet.api.dto.KycSigningCertificateData;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class KycSigningCertificateCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private KycSigningCertificateCache cache;
+
+    @After
+    public void tearDown() {
+        if(cache != null)
+            cache.shutdown();
+    }
+
+    @Test
+    public void get_withinTtl_thenLoadOnce() throws Exception {
+        cache = new KycSigningCertificateCache(current -> certificates("key-" + loads.incrementAndGet()),
+                Duration.ofMinutes(5), Duration.ofSeconds(10), Duration.ofMinutes(5));
+        Assert.assertEquals("key-1", cache.get().get(0).getKeyId());
+        Assert.assertEquals("key-1", cache.get().get(0).getKeyId());
+        Assert.assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void get_afterTtlWithLoadFailure_thenServeStale() throws Exception {
+        cache = new KycSigningCertificateCache(current -> {
+            if(loads.incrementAndGet() > 1)
+                throw new IllegalStateException("unavailable");
+            return certificates("key-1");
+        }, Duration.ZERO, Duration.ZERO, Duration.ofMinutes(5));
+        Assert.assertEquals("key-1", cache.get().get(0).getKeyId());
+        Assert.assertEquals("key-1", cache.get().get(0).getKeyId());
+    }
+
+    @Test
+    public void get_afterMaxStaleWithLoadFailure_thenThrow() throws Exception {
+        cache = new KycSigningCertificateCache(current -> {
+            if(loads.incrementAndGet() > 1)
+                throw new IllegalStateException("unavailable");
+            return certificates("key-1");
+        }, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+        cache.get();
+        Assert.assertThrows(IllegalStateException.class, () -> cache.get());
+    }
+
+    @Test
+    public void get_beforeExpiry_thenRefreshedInBackground() throws Exception {
+        CountDownLatch reloaded = new CountDownLatch(1);
+        cache = new KycSigningCertificateCache(current -> {
+            if(loads.incrementAndGet() > 1)
+                reloaded.countDown();
+            return certificates("key-" + loads.get());
+        }, Duration.ofMillis(200), Duration.ofMillis(150), Duration.ofMinutes(5));
+        Assert.assertEquals("key-1", cache.get().get(0).getKeyId());
+        Assert.assertTrue(reloaded.await(5, TimeUnit.SECONDS));
+        //the reloaded entry is published just after the loader returns
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!"key-2".equals(cache.get().get(0).getKeyId()) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals("key-2", cache.get().get(0).getKeyId());
+    }
+
+    @Test
+    public void get_withUnchangedCertificates_thenKeepPreviousInstances() throws Exception {
+        List<List<KycSigningCertificateData>> seen = new ArrayList<>();
+        cache = new KycSigningCertificateCache(current -> {
+            seen.add(current);
+            return certificates("key-1");
+        }, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+        KycSigningCertificateData first = cache.get().get(0);
+        Assert.assertSame(first, cache.get().get(0));
+        Assert.assertNull(seen.get(0));
+        Assert.assertEquals(certificates("key-1"), seen.get(1));
+    }
+
+    @Test
+    public void get_concurrentFirstLoad_thenLoadOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        cache = new KycSigningCertificateCache(current -> {
+            loads.incrementAndGet();
+            release.await();
+            return certificates("key-1");
+        }, Duration.ofMinutes(5), Duration.ofSeconds(10), Duration.ofMinutes(5));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<KycSigningCertificateData>>> results = new ArrayList<>();
+            for(int i=0; i<4; i++) {
+                results.add(executor.submit(() -> cache.get()));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for(Future<List<KycSigningCertificateData>> result : results) {
+                Assert.assertEquals("key-1", result.get(5, TimeUnit.SECONDS).get(0).getKeyId());
+            }
+            Assert.assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<KycSigningCertificateData> certificates(String keyId) {
+        List<KycSigningCertificateData> certificates = new ArrayList<>();
+        certificates.add(new KycSigningCertificateData(keyId, "certificate-" + keyId, null, null));
+        return certificates;
+    }
+}
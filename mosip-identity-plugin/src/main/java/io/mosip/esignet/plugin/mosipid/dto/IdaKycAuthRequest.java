@@ -8,7 +8,11 @@ package io.mosip.esignet.plugin.mosipid.dto;
 import java.util.List;
 import java.util.Map;
 
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.util.RawValue;
 import lombok.Data;
 
 @Data
@@ -26,9 +30,12 @@ public class IdaKycAuthRequest {
     private String domainUri;
     private String env;
     private boolean consentObtained;
-    private String request;
-    private String requestHMAC;
-    private String requestSessionKey;
+    @JsonSerialize(using = UrlSafeBase64Serializer.class)
+    private byte[] request;
+    @JsonSerialize(using = UrlSafeBase64Serializer.class)
+    private byte[] requestHMAC;
+    @JsonSerialize(using = UrlSafeBase64Serializer.class)
+    private byte[] requestSessionKey;
     private Map<String, Object> metadata;
     private List<String> allowedKycAttributes;
     private Boolean claimMetadataRequired;
@@ -38,9 +45,19 @@ public class IdaKycAuthRequest {
         private String otp;
         private String staticPin;
         private String timestamp;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
         private List<Biometric> biometrics;
         private List<KeyBindedToken> keyBindedTokens;
         private String password;
+
+        //Biometric capture embedded verbatim as the biometrics value, set instead of biometrics
+        @JsonIgnore
+        private RawValue rawBiometrics;
+
+        @JsonAnyGetter
+        public Map<String, Object> getRawProperties() {
+            return rawBiometrics == null ? Map.of() : Map.of("biometrics", rawBiometrics);
+        }
     }
 
     @Data
@@ -7,9 +7,11 @@ package io.mosip.esignet.plugin.mosipid.dto;
 
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 @Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class IdaKycExchangeRequest {
 
     private String id;
@@ -0,0 +1,28 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.dto;
+
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes byte arrays as unpadded URL-safe base64 directly into the JSON output.
+ */
+public class UrlSafeBase64Serializer extends StdSerializer<byte[]> {
+
+    public UrlSafeBase64Serializer() {
+        super(byte[].class);
+    }
+
+    @Override
+    public void serialize(byte[] value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeBinary(Base64Variants.MODIFIED_FOR_URL, value, 0, value.length);
+    }
+}
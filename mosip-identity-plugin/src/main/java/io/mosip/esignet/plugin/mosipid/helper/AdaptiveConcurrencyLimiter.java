@@ -0,0 +1,101 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit that follows the latency of the upstream, after the gradient algorithm. Every
+ * completed call compares its round trip with a slow moving average of past round trips:
+ * <ul>
+ *     <li>round trips near the average let the limit grow by about its square root</li>
+ *     <li>round trips above rttTolerance times the average mean requests are queueing upstream, the
+ *     limit shrinks in proportion, by at most half per call</li>
+ *     <li>dropped calls (I/O errors, 429, 503, 504) cut the limit by a tenth</li>
+ * </ul>
+ * The limit only grows while the calls in flight actually use it, and stays within [minLimit, maxLimit].
+ * Calls over the limit are rejected straight away.
+ */
+final class AdaptiveConcurrencyLimiter {
+
+    private static final double DROP_DECREASE_FACTOR = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+    private final double longRttFactor;
+
+    private double limit;
+    private double longRttNanos;
+    private int inFlight;
+
+    private final LongAdder rejected = new LongAdder();
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double rttTolerance, double smoothing,
+                               int longWindow) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.longRttFactor = 2.0 / (longWindow + 1);
+    }
+
+    /**
+     * @return the calls in flight including this one, or -1 if the call is over the limit. An accepted call
+     * must be reported with onSample, or with onIgnore if it was never made.
+     */
+    synchronized int tryAcquire() {
+        if(inFlight >= (int) limit) {
+            rejected.increment();
+            return -1;
+        }
+        return ++inFlight;
+    }
+
+    synchronized void onIgnore() {
+        inFlight--;
+    }
+
+    synchronized void onSample(long rttNanos, int inFlightAtStart, boolean dropped) {
+        inFlight--;
+        if(dropped) {
+            limit = Math.max(minLimit, limit * DROP_DECREASE_FACTOR);
+            return;
+        }
+        if(rttNanos <= 0)
+            return;
+
+        if(longRttNanos == 0)
+            longRttNanos = rttNanos;
+        else
+            longRttNanos += (rttNanos - longRttNanos) * longRttFactor;
+        //let the average catch up quickly once latency drops back, instead of over a whole window
+        if(longRttNanos > 2 * rttNanos)
+            longRttNanos *= 0.95;
+
+        //an under used limit says nothing about how far it could grow
+        if(inFlightAtStart < limit / 2)
+            return;
+
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / rttNanos));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        limit = Math.min(maxLimit, Math.max(minLimit, limit * (1 - smoothing) + newLimit * smoothing));
+    }
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    long getRejectedCalls() {
+        return rejected.sum();
+    }
+}
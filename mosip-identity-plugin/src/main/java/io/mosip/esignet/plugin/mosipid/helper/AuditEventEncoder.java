@@ -0,0 +1,275 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.io.SerializedString;
+import io.mosip.esignet.api.dto.AuditDTO;
+import io.mosip.esignet.api.util.Action;
+import io.mosip.esignet.api.util.ActionStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Writes the auditmanager request for an audit event, the audit fields in their request wrapper, in one pass
+ * into a per-thread buffer. The fields that never change and the fields derived from the action and the
+ * status are encoded to JSON up front. The description, a JSON object of the non-null audit fields, is
+ * written into a reusable buffer and embedded as a string. The host name and IP are resolved once, see
+ * {@link #resolveHost(long)}.
+ */
+@Slf4j
+public final class AuditEventEncoder {
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    //a buffer grown past this by an unusually large event is not kept for the next one
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+    private static final String NO_USER = "no-user";
+    private static final String LOCALHOST = "localhost";
+
+    private static final SerializedString REQUEST_TIME = new SerializedString("requesttime");
+    private static final SerializedString REQUEST = new SerializedString("request");
+    private static final SerializedString ACTION_TIME_STAMP = new SerializedString("actionTimeStamp");
+    private static final SerializedString SESSION_USER_ID = new SerializedString("sessionUserId");
+    private static final SerializedString SESSION_USER_NAME = new SerializedString("sessionUserName");
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString ID_TYPE = new SerializedString("idType");
+    private static final SerializedString DESCRIPTION = new SerializedString("description");
+    private static final SerializedString CLIENT_ID = new SerializedString("clientId");
+    private static final SerializedString RELYING_PARTY_ID = new SerializedString("relyingPartyId");
+    private static final SerializedString STATE = new SerializedString("state");
+    private static final SerializedString CODE_HASH = new SerializedString("codeHash");
+    private static final SerializedString ACCESS_TOKEN_HASH = new SerializedString("accessTokenHash");
+    private static final SerializedString LINK_CODE_HASH = new SerializedString("linkCodeHash");
+    private static final SerializedString LINK_TRANSACTION_ID = new SerializedString("linkTransactionId");
+    private static final SerializedString AUTH_TRANSACTION_ID = new SerializedString("authTransactionId");
+
+    private final SerializableString envelopeFields;
+    private final SerializableString constantFields;
+    private final Map<Action, SerializableString> actionFields = new EnumMap<>(Action.class);
+    private final Map<ActionStatus, SerializableString> statusFields = new EnumMap<>(ActionStatus.class);
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    public AuditEventEncoder(String requestId, String applicationId, String createdBy, Host host) {
+        //each fragment ends with a separator, so the generator writes the field after it as if it were the first
+        this.envelopeFields = new Fragment()
+                .field("id", requestId)
+                .field("version", null)
+                .field("metadata", null)
+                .build();
+        this.constantFields = new Fragment()
+                .field("hostName", host.getName())
+                .field("hostIp", host.getIp())
+                .field("applicationId", applicationId)
+                .field("applicationName", applicationId)
+                .field("createdBy", createdBy)
+                .build();
+        for(Action action : Action.values()) {
+            actionFields.put(action, new Fragment()
+                    .field("eventId", action.name())
+                    .field("eventName", action.name())
+                    .field("moduleName", action.getModule())
+                    .field("moduleId", action.getModule())
+                    .build());
+        }
+        for(ActionStatus status : ActionStatus.values()) {
+            statusFields.put(status, new Fragment().field("eventType", status.name()).build());
+        }
+    }
+
+    /**
+     * Looks up the local host on a thread of its own, a slow or failing name service costs at most timeoutMs.
+     *
+     * @return the local host, or localhost if it could not be resolved in time
+     */
+    public static Host resolveHost(long timeoutMs) {
+        return resolveHost(InetAddress::getLocalHost, timeoutMs);
+    }
+
+    static Host resolveHost(Callable<InetAddress> lookup, long timeoutMs) {
+        CompletableFuture<Host> host = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                InetAddress address = lookup.call();
+                host.complete(new Host(address.getHostName(), address.getHostAddress()));
+            } catch (Exception e) {
+                host.completeExceptionally(e);
+            }
+        }, "ida-audit-host-lookup");
+        thread.setDaemon(true);
+        thread.start();
+        try {
+            return host.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Failed to resolve the local host name in {}ms, auditing as {}", timeoutMs, LOCALHOST, e);
+        }
+        return new Host(LOCALHOST, LOCALHOST);
+    }
+
+    public String encode(String username, Action action, ActionStatus status, AuditDTO audit) throws IOException {
+        Buffers buffers = this.buffers.get();
+        buffers.reset();
+        String now = UtcDateTimeClock.now();
+        String user = username == null || username.isEmpty() ? NO_USER : username;
+
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(buffers.description)) {
+            writeDescription(generator, audit);
+        }
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(buffers.body, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeRaw(envelopeFields);
+            generator.writeFieldName(REQUEST_TIME);
+            generator.writeString(now);
+            generator.writeFieldName(REQUEST);
+            generator.writeStartObject();
+            generator.writeRaw(actionFields.get(action));
+            generator.writeRaw(statusFields.get(status));
+            generator.writeRaw(constantFields);
+            generator.writeFieldName(ACTION_TIME_STAMP);
+            generator.writeString(now);
+            generator.writeFieldName(SESSION_USER_ID);
+            generator.writeString(user);
+            generator.writeFieldName(SESSION_USER_NAME);
+            generator.writeString(user);
+            generator.writeFieldName(ID);
+            generator.writeString(audit.getTransactionId());
+            generator.writeFieldName(ID_TYPE);
+            generator.writeString(audit.getIdType());
+            generator.writeFieldName(DESCRIPTION);
+            generator.writeString(buffers.description.chars, 0, buffers.description.length);
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+        return new String(buffers.body.array(), 0, buffers.body.size(), StandardCharsets.UTF_8);
+    }
+
+    //null fields are left out
+    private static void writeDescription(JsonGenerator generator, AuditDTO audit) throws IOException {
+        generator.writeStartObject();
+        writeField(generator, CLIENT_ID, audit.getClientId());
+        writeField(generator, RELYING_PARTY_ID, audit.getRelyingPartyId());
+        writeField(generator, STATE, audit.getState());
+        writeField(generator, CODE_HASH, audit.getCodeHash());
+        writeField(generator, ACCESS_TOKEN_HASH, audit.getAccessTokenHash());
+        writeField(generator, LINK_CODE_HASH, audit.getLinkedCodeHash());
+        writeField(generator, LINK_TRANSACTION_ID, audit.getLinkedTransactionId());
+        writeField(generator, AUTH_TRANSACTION_ID, audit.getAuthTransactionId());
+        generator.writeEndObject();
+    }
+
+    private static void writeField(JsonGenerator generator, SerializedString name, String value) throws IOException {
+        if(value == null)
+            return;
+        generator.writeFieldName(name);
+        generator.writeString(value);
+    }
+
+    public static final class Host {
+        private final String name;
+        private final String ip;
+
+        public Host(String name, String ip) {
+            this.name = name;
+            this.ip = ip;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getIp() {
+            return ip;
+        }
+    }
+
+    private static final class Fragment {
+        private final ByteArrayOutputStream json = new ByteArrayOutputStream();
+
+        private Fragment field(String name, String value) {
+            byte[] quotedName = new SerializedString(name).asQuotedUTF8();
+            json.write('"');
+            json.write(quotedName, 0, quotedName.length);
+            json.write('"');
+            json.write(':');
+            if(value == null) {
+                json.write("null".getBytes(StandardCharsets.US_ASCII), 0, 4);
+            }
+            else {
+                byte[] quotedValue = new SerializedString(value).asQuotedUTF8();
+                json.write('"');
+                json.write(quotedValue, 0, quotedValue.length);
+                json.write('"');
+            }
+            json.write(',');
+            return this;
+        }
+
+        private SerializableString build() {
+            return new RawJsonBytes(json.toByteArray());
+        }
+    }
+
+    private static final class Buffers {
+        private ReusableByteArrayOutputStream body = new ReusableByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        private final CharBuffer description = new CharBuffer();
+
+        private void reset() {
+            if(body.capacity() > MAX_RETAINED_BUFFER_SIZE)
+                body = new ReusableByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+            body.reset();
+            description.reset();
+        }
+    }
+
+    //growable char buffer the description is written into, read back without copying
+    private static final class CharBuffer extends Writer {
+        private char[] chars = new char[256];
+        private int length;
+
+        @Override
+        public void write(char[] source, int offset, int count) {
+            if(length + count > chars.length)
+                chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + count));
+            System.arraycopy(source, offset, chars, length, count);
+            length += count;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private void reset() {
+            if(chars.length > MAX_RETAINED_BUFFER_SIZE)
+                chars = new char[256];
+            length = 0;
+        }
+    }
+}
@@ -0,0 +1,548 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal of audit events, kept until auditmanager has accepted them. Events are appended to
+ * numbered segment files, each one written as its length, a CRC32 of its content and the event, with a
+ * single write into the page cache, so an append costs no more than a memory copy and survives the process
+ * being killed. The segment and the acknowledged position are fsynced every fsyncInterval, and when a
+ * segment is rolled.
+ * <p>
+ * Events are read back in the order they were appended, reading can be rewound to the last acknowledged
+ * event to replay what was not accepted. Segments that only hold acknowledged events are deleted. On open,
+ * reading resumes from the acknowledged position, a record torn by a crash at the end of a segment is
+ * truncated. A record found corrupt while reading is skipped with the rest of its segment, and the events
+ * pending are counted again from the read and acknowledged positions.
+ * <p>
+ * The journal holds an exclusive lock on its directory while open, a second journal on the same directory,
+ * from this process or another one, fails to open.
+ */
+@Slf4j
+public final class AuditJournal {
+
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String ACK_FILE = "audit-journal.ack";
+    private static final String LOCK_FILE = "audit-journal.lock";
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int ACK_BYTES = 2 * Long.BYTES + Integer.BYTES;
+
+    private final Path dir;
+    private final FileChannel lockChannel;
+    private final long segmentSizeBytes;
+    private final long maxSizeBytes;
+    private final ScheduledExecutorService syncScheduler;
+
+    //segment id -> size, guarded by this
+    private final TreeMap<Long, Long> segments = new TreeMap<>();
+    private long totalBytes;
+    private long writeSegment;
+    private long writeOffset;
+    private FileChannel writeChannel;
+    private boolean dirty;
+    private long unacked;
+    private long unread;
+    private int waiters;
+
+    //only used by the reading thread
+    private long readSegment;
+    private long readOffset;
+    private FileChannel readChannel;
+    private long readChannelSegment = -1;
+    private long ackSegment;
+    private long ackOffset;
+    private final FileChannel ackChannel;
+
+    public AuditJournal(Path dir, long segmentSizeBytes, long maxSizeBytes, long fsyncIntervalMs) throws IOException {
+        this.dir = dir;
+        this.segmentSizeBytes = segmentSizeBytes;
+        this.maxSizeBytes = maxSizeBytes;
+        Files.createDirectories(dir);
+        this.lockChannel = FileChannel.open(dir.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        //released when the channel is closed
+        lock(lockChannel, dir);
+        try {
+            this.ackChannel = FileChannel.open(dir.resolve(ACK_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            closeQuietly(lockChannel);
+            throw e;
+        }
+        try {
+            recover();
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(writeChannel);
+            closeQuietly(ackChannel);
+            closeQuietly(lockChannel);
+            throw e;
+        }
+        this.syncScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ida-audit-journal-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, fsyncIntervalMs);
+        this.syncScheduler.scheduleWithFixedDelay(this::syncQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return false if the journal is full and the event was not appended
+     */
+    public synchronized boolean append(AuditPipeline.Event event) throws IOException {
+        if(totalBytes >= maxSizeBytes)
+            return false;
+
+        byte[] payload = event.toBytes();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        record.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+
+        if(writeOffset > 0 && writeOffset + record.remaining() > segmentSizeBytes)
+            roll();
+        try {
+            while(record.hasRemaining()) {
+                writeChannel.write(record);
+            }
+        } catch (IOException e) {
+            //do not leave a partial record for the next one to be appended after
+            writeChannel.truncate(writeOffset);
+            writeChannel.position(writeOffset);
+            throw e;
+        }
+        writeOffset += record.limit();
+        totalBytes += record.limit();
+        segments.put(writeSegment, writeOffset);
+        dirty = true;
+        unacked++;
+        unread++;
+        if(waiters > 0)
+            notifyAll();
+        return true;
+    }
+
+    /**
+     * Waits up to timeout for at least count events to be available to read.
+     *
+     * @return the number of events available to read
+     */
+    public synchronized long await(long count, long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        waiters++;
+        try {
+            long remaining = timeoutNanos;
+            while(unread < count && remaining > 0) {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                remaining = deadline - System.nanoTime();
+            }
+            return unread;
+        } finally {
+            waiters--;
+        }
+    }
+
+    /**
+     * Reads up to max events following the ones already read, must only be called by one thread.
+     */
+    public List<Entry> read(int max) throws IOException {
+        long endSegment;
+        long endOffset;
+        synchronized (this) {
+            endSegment = writeSegment;
+            endOffset = writeOffset;
+        }
+        //appends only go past the end taken above, so the records up to it are read without holding the lock
+        List<Entry> entries = new ArrayList<>();
+        boolean skipped = false;
+        while(entries.size() < max && (readSegment < endSegment || readOffset < endOffset)) {
+            if(readSegment < endSegment && readOffset >= getSegmentSize(readSegment)) {
+                nextReadSegment();
+                continue;
+            }
+            long segmentEnd = readSegment < endSegment ? getSegmentSize(readSegment) : endOffset;
+            FileChannel channel = getReadChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header, readOffset);
+            int length = header.getInt(0);
+            ByteBuffer payload = null;
+            if(length > 0 && readOffset + HEADER_BYTES + length <= segmentEnd) {
+                payload = ByteBuffer.allocate(length);
+                readFully(channel, payload, readOffset + HEADER_BYTES);
+            }
+            if(payload == null || crc(payload.array()) != header.getInt(Integer.BYTES)) {
+                log.error("Corrupt audit event in journal segment {} at {}, skipping the rest of the segment",
+                        readSegment, readOffset);
+                //events appended after it would be skipped with it
+                if(readSegment == endSegment)
+                    rollFrom(readSegment);
+                readOffset = getSegmentSize(readSegment);
+                skipped = true;
+                continue;
+            }
+            readOffset += HEADER_BYTES + length;
+            entries.add(new Entry(AuditPipeline.Event.fromBytes(payload.array()), readSegment, readOffset));
+        }
+        synchronized (this) {
+            if(skipped)
+                recount();
+            else
+                unread -= entries.size();
+        }
+        return entries;
+    }
+
+    /**
+     * Acknowledges the read events up to and including the given entry, count being how many of them
+     * were not acknowledged yet. Segments left with only acknowledged events are deleted.
+     */
+    public void acknowledge(Entry last, int count) throws IOException {
+        ackSegment = last.segment;
+        ackOffset = last.endOffset;
+        ByteBuffer ack = ByteBuffer.allocate(ACK_BYTES);
+        ack.putLong(ackSegment).putLong(ackOffset).putInt(crc(ack.array(), 2 * Long.BYTES)).flip();
+        while(ack.hasRemaining()) {
+            ackChannel.write(ack, ack.position());
+        }
+
+        List<Long> compacted = new ArrayList<>();
+        synchronized (this) {
+            unacked -= count;
+            dirty = true;
+            while(!segments.isEmpty() && segments.firstKey() < ackSegment) {
+                compacted.add(segments.firstKey());
+                totalBytes -= segments.pollFirstEntry().getValue();
+            }
+        }
+        for(Long segment : compacted) {
+            Files.deleteIfExists(segmentPath(segment));
+        }
+    }
+
+    /**
+     * Reads again from the first event not acknowledged.
+     */
+    public void rewind() {
+        readSegment = ackSegment;
+        readOffset = ackOffset;
+        synchronized (this) {
+            unread = unacked;
+        }
+    }
+
+    /**
+     * @return the number of events appended and not acknowledged
+     */
+    public synchronized long getPendingEvents() {
+        return unacked;
+    }
+
+    public synchronized long getSizeBytes() {
+        return totalBytes;
+    }
+
+    public void sync() throws IOException {
+        FileChannel channel;
+        synchronized (this) {
+            if(!dirty)
+                return;
+            dirty = false;
+            channel = writeChannel;
+        }
+        //outside the lock, appends carry on while the segment is forced to disk
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            //rolled meanwhile, the segment was forced when it was closed
+        }
+        ackChannel.force(false);
+    }
+
+    public void close() {
+        syncScheduler.shutdownNow();
+        try {
+            synchronized (this) {
+                dirty = true;
+            }
+            sync();
+        } catch (IOException e) {
+            log.error("Failed to sync the audit journal", e);
+        }
+        closeQuietly(readChannel);
+        synchronized (this) {
+            closeQuietly(writeChannel);
+        }
+        closeQuietly(ackChannel);
+        closeQuietly(lockChannel);
+    }
+
+    private static void lock(FileChannel channel, Path dir) throws IOException {
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+        if(lock == null) {
+            closeQuietly(channel);
+            throw new IOException("Audit journal " + dir + " is already in use");
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for(Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    ids.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    log.warn("Ignoring unexpected file {} in the audit journal", file);
+                }
+            }
+        }
+        ids.sort(Long::compare);
+        readAck(ids.isEmpty() ? 0 : ids.get(0));
+
+        for(Long id : ids) {
+            if(id < ackSegment) {
+                //compacted before a crash, but not yet deleted
+                Files.deleteIfExists(segmentPath(id));
+                continue;
+            }
+            long size = scan(id);
+            segments.put(id, size);
+            totalBytes += size;
+        }
+        if(segments.isEmpty() || segments.firstKey() > ackSegment || getSegmentSize(ackSegment) < ackOffset) {
+            if(ackOffset > 0 || (!segments.isEmpty() && segments.firstKey() > ackSegment))
+                log.warn("Audit journal acknowledged position not found, replaying all events in the journal");
+            ackSegment = segments.isEmpty() ? ackSegment : segments.firstKey();
+            ackOffset = 0;
+            unacked = 0;
+            for(Long id : segments.keySet()) {
+                unacked += countRecords(id, 0);
+            }
+        }
+        else {
+            for(Long id : segments.keySet()) {
+                unacked += countRecords(id, id == ackSegment ? ackOffset : 0);
+            }
+        }
+        unread = unacked;
+        readSegment = ackSegment;
+        readOffset = ackOffset;
+
+        writeSegment = segments.isEmpty() ? ackSegment : segments.lastKey();
+        writeChannel = FileChannel.open(segmentPath(writeSegment), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        writeOffset = segments.getOrDefault(writeSegment, 0L);
+        writeChannel.position(writeOffset);
+        segments.put(writeSegment, writeOffset);
+        if(unacked > 0)
+            log.info("Audit journal has {} events not yet accepted by auditmanager, replaying them", unacked);
+    }
+
+    private void readAck(long defaultSegment) throws IOException {
+        ackSegment = defaultSegment;
+        ackOffset = 0;
+        if(ackChannel.size() < ACK_BYTES)
+            return;
+        ByteBuffer ack = ByteBuffer.allocate(ACK_BYTES);
+        readFully(ackChannel, ack, 0);
+        if(crc(ack.array(), 2 * Long.BYTES) != ack.getInt(2 * Long.BYTES)) {
+            log.warn("Audit journal acknowledged position is corrupt, replaying all events in the journal");
+            return;
+        }
+        ackSegment = ack.getLong(0);
+        ackOffset = ack.getLong(Long.BYTES);
+    }
+
+    //returns the size of the valid records in the segment, truncating anything after them
+    private long scan(long id) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(id), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long offset = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while(offset + HEADER_BYTES <= size) {
+                header.clear();
+                readFully(channel, header, offset);
+                int length = header.getInt(0);
+                if(length <= 0 || offset + HEADER_BYTES + length > size)
+                    break;
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(channel, payload, offset + HEADER_BYTES);
+                if(crc(payload.array()) != header.getInt(Integer.BYTES))
+                    break;
+                offset += HEADER_BYTES + length;
+            }
+            if(offset < size) {
+                log.warn("Truncating {} bytes of incomplete audit events at the end of journal segment {}", size - offset, id);
+                channel.truncate(offset);
+                channel.force(true);
+            }
+            return offset;
+        }
+    }
+
+    private long countRecords(long id, long from) throws IOException {
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(segmentPath(id), StandardOpenOption.READ)) {
+            long size = segments.get(id);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            for(long offset = from; offset + HEADER_BYTES <= size; count++) {
+                header.clear();
+                readFully(channel, header, offset);
+                offset += HEADER_BYTES + header.getInt(0);
+            }
+        }
+        return count;
+    }
+
+    private synchronized void rollFrom(long segment) throws IOException {
+        if(writeSegment == segment)
+            roll();
+    }
+
+    //called with the lock held, the skipped events are neither read nor acknowledged
+    private void recount() throws IOException {
+        unacked = countReadableRecords(ackSegment, ackOffset);
+        unread = countReadableRecords(readSegment, readOffset);
+    }
+
+    //the records read would return from the given position, a corrupt record ends its segment
+    private long countReadableRecords(long fromSegment, long fromOffset) throws IOException {
+        long count = 0;
+        for(Long id : segments.tailMap(fromSegment).keySet()) {
+            try (FileChannel channel = FileChannel.open(segmentPath(id), StandardOpenOption.READ)) {
+                long size = segments.get(id);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                for(long offset = id == fromSegment ? fromOffset : 0; offset + HEADER_BYTES <= size; count++) {
+                    header.clear();
+                    readFully(channel, header, offset);
+                    int length = header.getInt(0);
+                    if(length <= 0 || offset + HEADER_BYTES + length > size)
+                        break;
+                    ByteBuffer payload = ByteBuffer.allocate(length);
+                    readFully(channel, payload, offset + HEADER_BYTES);
+                    if(crc(payload.array()) != header.getInt(Integer.BYTES))
+                        break;
+                    offset += HEADER_BYTES + length;
+                }
+            }
+        }
+        return count;
+    }
+
+    //called with the lock held
+    private void roll() throws IOException {
+        writeChannel.force(false);
+        writeChannel.close();
+        writeSegment++;
+        writeOffset = 0;
+        writeChannel = FileChannel.open(segmentPath(writeSegment), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segments.put(writeSegment, 0L);
+    }
+
+    private synchronized long getSegmentSize(long id) {
+        return segments.getOrDefault(id, 0L);
+    }
+
+    private void nextReadSegment() {
+        closeQuietly(readChannel);
+        readChannel = null;
+        readSegment++;
+        readOffset = 0;
+    }
+
+    private FileChannel getReadChannel() throws IOException {
+        if(readChannel == null || readChannelSegment != readSegment) {
+            closeQuietly(readChannel);
+            readChannel = FileChannel.open(segmentPath(readSegment), StandardOpenOption.READ);
+            readChannelSegment = readSegment;
+        }
+        return readChannel;
+    }
+
+    private Path segmentPath(long id) {
+        return dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            log.error("Failed to sync the audit journal", e);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while(buffer.hasRemaining()) {
+            if(channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("Unexpected end of audit journal file");
+        }
+    }
+
+    private static int crc(byte[] bytes) {
+        return crc(bytes, bytes.length);
+    }
+
+    private static int crc(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            if(channel != null)
+                channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close audit journal file", e);
+        }
+    }
+
+    /**
+     * An event read from the journal, with the position following it.
+     */
+    public static final class Entry {
+        private final AuditPipeline.Event event;
+        private final long segment;
+        private final long endOffset;
+
+        private Entry(AuditPipeline.Event event, long segment, long endOffset) {
+            this.event = event;
+            this.segment = segment;
+            this.endOffset = endOffset;
+        }
+
+        public AuditPipeline.Event getEvent() {
+            return event;
+        }
+    }
+}
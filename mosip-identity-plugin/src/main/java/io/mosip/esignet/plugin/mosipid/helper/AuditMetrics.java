@@ -0,0 +1,124 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters of the audit path. Events are counted per action and status as they are accepted,
+ * sent, failed, dropped or spilled, and the time from being queued to being accepted by auditmanager is
+ * recorded for each one. The meters of an action and status are registered the first time it is audited.
+ */
+public final class AuditMetrics implements AuditPipeline.Listener {
+
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary batchSize;
+    private final Timer batchDuration;
+    //action -> status -> meters
+    private final ConcurrentMap<String, ConcurrentMap<String, EventMeters>> eventMeters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Counter> responses = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Counter> tokenPurges = new ConcurrentHashMap<>();
+
+    public AuditMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.batchSize = DistributionSummary.builder("ida.audit.batch.size")
+                .baseUnit("events").description("Audit events sent together by the dispatcher")
+                .register(meterRegistry);
+        this.batchDuration = Timer.builder("ida.audit.batch.duration")
+                .description("Time to send a batch of audit events").register(meterRegistry);
+    }
+
+    public void monitor(AuditPipeline pipeline) {
+        Gauge.builder("ida.audit.queue.depth", pipeline, AuditPipeline::getQueueSize)
+                .description("Audit events waiting to be sent").register(meterRegistry);
+        FunctionCounter.builder("ida.audit.sends.deferred", pipeline, AuditPipeline::getDeferredSends)
+                .description("Audit sends rejected by the IDA client over the route's limit and made again later")
+                .register(meterRegistry);
+    }
+
+    public void onAccepted(AuditPipeline.Event event) {
+        getEventMeters(event).accepted.increment();
+    }
+
+    public void onSent(AuditPipeline.Event event) {
+        EventMeters meters = getEventMeters(event);
+        meters.sent.increment();
+        meters.latency.record(Math.max(0, System.currentTimeMillis() - event.getCreatedAtMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    public void onFailed(AuditPipeline.Event event) {
+        getEventMeters(event).failed.increment();
+    }
+
+    public void onResponse(HttpStatus status) {
+        responses.computeIfAbsent(status.value(), code -> Counter.builder("ida.audit.responses")
+                .tags("code", String.valueOf(code)).description("auditmanager responses by status code")
+                .register(meterRegistry)).increment();
+    }
+
+    public void onTokenPurged(HttpStatus status) {
+        tokenPurges.computeIfAbsent(status.value(), code -> Counter.builder("ida.audit.token.purges")
+                .tags("code", String.valueOf(code)).description("Auth-tokens dropped after auditmanager rejected them")
+                .register(meterRegistry)).increment();
+    }
+
+    @Override
+    public void onBatch(int size, long durationNanos) {
+        batchSize.record(size);
+        batchDuration.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onDropped(AuditPipeline.Event event) {
+        getEventMeters(event).dropped.increment();
+    }
+
+    @Override
+    public void onSpilled(AuditPipeline.Event event) {
+        getEventMeters(event).spilled.increment();
+    }
+
+    private EventMeters getEventMeters(AuditPipeline.Event event) {
+        return eventMeters.computeIfAbsent(event.getAction(), action -> new ConcurrentHashMap<>())
+                .computeIfAbsent(event.getStatus(), status -> new EventMeters(event.getAction(), status));
+    }
+
+    private final class EventMeters {
+        private final Counter accepted;
+        private final Counter sent;
+        private final Counter failed;
+        private final Counter dropped;
+        private final Counter spilled;
+        private final Timer latency;
+
+        private EventMeters(String action, String status) {
+            Tags tags = Tags.of("action", action, "status", status);
+            accepted = Counter.builder("ida.audit.events.accepted").tags(tags)
+                    .description("Audit events queued").register(meterRegistry);
+            sent = Counter.builder("ida.audit.events.sent").tags(tags)
+                    .description("Audit events accepted by auditmanager").register(meterRegistry);
+            failed = Counter.builder("ida.audit.events.failed").tags(tags)
+                    .description("Audit event sends that failed").register(meterRegistry);
+            dropped = Counter.builder("ida.audit.events.dropped").tags(tags)
+                    .description("Audit events dropped without being sent").register(meterRegistry);
+            spilled = Counter.builder("ida.audit.events.spilled").tags(tags)
+                    .description("Audit events spilled to disk from the full queue").register(meterRegistry);
+            latency = Timer.builder("ida.audit.events.latency").tags(tags)
+                    .description("Time from queuing an audit event to auditmanager accepting it").register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,572 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntSupplier;
+
+/**
+ * Takes audit events off the request thread. Events go into a bounded queue and a single dispatcher thread
+ * sends them in batches: once flushSize events are waiting or flushInterval after the first one, whichever
+ * comes first. The events of a batch are sent over the pooled keep-alive connections of the audit route,
+ * no more at a time than the route takes in flight (maxInFlight, read before every send), and the next batch
+ * starts when the whole batch has completed. Sends the IDA client rejected for want of capacity, see
+ * {@link IdaCallRejectedException.Kind#isTransient()}, are not failures: they are sent again after a short pause,
+ * at most MAX_DEFERRALS times per batch. Sends rejected because the circuit is open are failures, with the
+ * journal they are kept in it and sent once the dispatcher retries.
+ * <p>
+ * When the queue is full the overflow policy applies:
+ * <ul>
+ *     <li>BLOCK waits up to blockTimeout for room, then drops the event</li>
+ *     <li>DROP_OLDEST drops the longest waiting event to make room</li>
+ *     <li>SPILL appends the event to a local spill file, replayed in order once the queue has drained</li>
+ * </ul>
+ * On shutdown the queue is drained for up to drainTimeout, what is left is spilled (SPILL) or dropped.
+ * <p>
+ * With an {@link AuditJournal} the journal takes the place of the queue: every event is appended to it
+ * and the dispatcher sends them from it in order, acknowledging the ones accepted. When a send fails the
+ * dispatcher backs off, doubling up to retryMaxBackoff, and replays from the first event not accepted, so
+ * events are kept on disk for as long as auditmanager is unavailable and sent at least once. Events still
+ * in the journal at shutdown are sent after the next start.
+ */
+@Slf4j
+public final class AuditPipeline {
+
+    public enum OverflowPolicy { BLOCK, DROP_OLDEST, SPILL }
+
+    @FunctionalInterface
+    public interface Sender {
+        /**
+         * @return completes once auditmanager has accepted the event, exceptionally if it did not
+         */
+        CompletableFuture<?> send(Event event);
+    }
+
+    /**
+     * Told about what happens to events in the pipeline, called on the thread that caused it.
+     */
+    public interface Listener {
+        Listener NONE = new Listener() {};
+
+        default void onBatch(int size, long durationNanos) {}
+
+        default void onDropped(Event event) {}
+
+        default void onSpilled(Event event) {}
+    }
+
+    /**
+     * Completes a send when auditmanager refused the event itself, sending it again would not help.
+     */
+    public static final class RejectedEventException extends RuntimeException {
+        public RejectedEventException(String message) {
+            super(message);
+        }
+    }
+
+    private static final long MIN_RETRY_BACKOFF_MS = 100;
+    private static final long MAX_DEFERRED_BACKOFF_MS = 1000;
+    private static final int MAX_DEFERRALS = 10;
+
+    //outcome of each send of a batch
+    private static final byte UNSENT = 0;
+    private static final byte SENT = 1;
+    private static final byte REFUSED = 2;
+    private static final byte FAILED = 3;
+    //not sent, kept in the journal for the next retry
+    private static final byte HELD = 4;
+
+    private final Sender sender;
+    private final IntSupplier maxInFlight;
+    private final Listener listener;
+    private final BlockingQueue<Event> queue;
+    private final int flushSize;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMs;
+    private final long drainTimeoutMs;
+    private final AuditSpillFile spillFile;
+    private final AuditJournal journal;
+    private final long retryMaxBackoffMs;
+    private final Thread dispatcher;
+    private volatile boolean stopping;
+    private final Object sendWindow = new Object();
+    private int inFlight;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+
+    public AuditPipeline(Sender sender, IntSupplier maxInFlight, Listener listener, int capacity, int flushSize, long flushIntervalMs,
+                         OverflowPolicy overflowPolicy, long blockTimeoutMs, long drainTimeoutMs, Path spillDir) throws IOException {
+        this.sender = sender;
+        this.maxInFlight = maxInFlight;
+        this.listener = listener;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.flushSize = Math.max(1, flushSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.drainTimeoutMs = drainTimeoutMs;
+        //events spilled before a restart are replayed as well
+        this.spillFile = overflowPolicy == OverflowPolicy.SPILL ? new AuditSpillFile(spillDir.resolve("audit-spill.dat")) : null;
+        this.journal = null;
+        this.retryMaxBackoffMs = 0;
+        this.dispatcher = new Thread(this::dispatch, "ida-audit-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    public AuditPipeline(Sender sender, IntSupplier maxInFlight, Listener listener, AuditJournal journal, int flushSize,
+                         long flushIntervalMs, long retryMaxBackoffMs, long drainTimeoutMs) {
+        this.sender = sender;
+        this.maxInFlight = maxInFlight;
+        this.listener = listener;
+        this.queue = null;
+        this.flushSize = Math.max(1, flushSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.overflowPolicy = null;
+        this.blockTimeoutMs = 0;
+        this.drainTimeoutMs = drainTimeoutMs;
+        this.spillFile = null;
+        this.journal = journal;
+        this.retryMaxBackoffMs = Math.max(MIN_RETRY_BACKOFF_MS, retryMaxBackoffMs);
+        this.dispatcher = new Thread(this::dispatchJournal, "ida-audit-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Queues the event, never throws. Only blocks the caller with the BLOCK policy while the queue is full.
+     */
+    public void offer(Event event) {
+        accepted.increment();
+        if(journal != null) {
+            append(event);
+            return;
+        }
+        if(queue.offer(event))
+            return;
+
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    if(queue.offer(event, blockTimeoutMs, TimeUnit.MILLISECONDS))
+                        return;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                drop(event);
+                return;
+            case DROP_OLDEST:
+                while(!queue.offer(event)) {
+                    Event oldest = queue.poll();
+                    if(oldest != null)
+                        drop(oldest);
+                }
+                return;
+            default:
+                spill(event);
+        }
+    }
+
+    public void shutdown() {
+        stopping = true;
+        LockSupport.unpark(dispatcher);
+        try {
+            dispatcher.join(Math.max(1, drainTimeoutMs));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dispatcher.interrupt();
+        if(journal != null) {
+            journal.close();
+            log.info("Audit pipeline stopped, sent : {} failed : {} dropped : {} left in journal : {}", sent.sum(),
+                    failed.sum(), dropped.sum(), journal.getPendingEvents());
+            return;
+        }
+        List<Event> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for(Event event : remaining) {
+            if(spillFile != null)
+                spill(event);
+            else
+                drop(event);
+        }
+        if(spillFile != null)
+            spillFile.close();
+        log.info("Audit pipeline stopped, sent : {} failed : {} dropped : {} spilled : {}", sent.sum(), failed.sum(),
+                dropped.sum(), spilled.sum());
+    }
+
+    private void dispatch() {
+        List<Event> batch = new ArrayList<>(flushSize);
+        List<Event> unsent = new ArrayList<>();
+        boolean replaying = false;
+        try {
+            while(true) {
+                boolean draining = stopping;
+                //while spilled events are being replayed, only wait when there is nothing left to replay
+                Event first = draining || replaying ? queue.poll() : queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if(first == null) {
+                    if(draining)
+                        return;
+                    replaying = replaySpilled(batch, unsent);
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while(batch.size() < flushSize && !stopping) {
+                    queue.drainTo(batch, flushSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if(batch.size() >= flushSize || remaining <= 0)
+                        break;
+                    Event next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if(next == null)
+                        break;
+                    batch.add(next);
+                }
+                queue.drainTo(batch, flushSize - batch.size());
+                send(batch, unsent);
+                keep(unsent);
+            }
+        } catch (InterruptedException e) {
+            log.warn("Audit dispatcher interrupted with {} events queued", queue.size());
+        }
+    }
+
+    private void dispatchJournal() {
+        List<AuditJournal.Entry> entries = new ArrayList<>(flushSize);
+        List<Event> batch = new ArrayList<>(flushSize);
+        long backoffMs = 0;
+        try {
+            for(int deferrals=0; ; deferrals++) {
+                boolean draining = stopping;
+                try {
+                    if(journal.await(1, draining ? 0 : flushIntervalNanos) == 0) {
+                        if(draining)
+                            return;
+                        continue;
+                    }
+                    if(!draining)
+                        journal.await(flushSize, flushIntervalNanos);
+                    entries.addAll(journal.read(flushSize));
+                    entries.forEach(entry -> batch.add(entry.getEvent()));
+                    //events left unsent stay in the journal
+                    int handled = send(batch, new ArrayList<>());
+                    if(handled > 0)
+                        journal.acknowledge(entries.get(handled - 1), handled);
+                    if(handled == entries.size()) {
+                        backoffMs = 0;
+                        continue;
+                    }
+                    log.warn("Audit events not accepted by auditmanager, {} kept in journal",
+                            journal.getPendingEvents());
+                } catch (IOException | RuntimeException e) {
+                    log.error("Audit dispatcher failed to read the journal, {} events left in it",
+                            journal.getPendingEvents(), e);
+                } finally {
+                    entries.clear();
+                    batch.clear();
+                }
+                //replay from the first event not accepted, the ones after it are sent again as well
+                journal.rewind();
+                if(stopping)
+                    return;
+                backoffMs = Math.min(retryMaxBackoffMs, Math.max(MIN_RETRY_BACKOFF_MS, backoffMs * 2));
+                log.info("Retrying audit events from the journal in {}ms", backoffMs);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMs);
+                while(!stopping && deadline - System.nanoTime() > 0) {
+                    LockSupport.parkNanos(deadline - System.nanoTime());
+                }
+            }
+        } catch (InterruptedException e) {
+            log.warn("Audit dispatcher interrupted with {} events in journal", journal.getPendingEvents());
+        }
+    }
+
+    private boolean replaySpilled(List<Event> batch, List<Event> unsent) {
+        if(spillFile == null)
+            return false;
+        try {
+            batch.addAll(spillFile.poll(flushSize));
+        } catch (IOException e) {
+            log.error("Failed to read spilled audit events", e);
+            return false;
+        }
+        if(batch.isEmpty())
+            return false;
+        send(batch, unsent);
+        keep(unsent);
+        return true;
+    }
+
+    /**
+     * Sends the batch through the send window. Sends rejected by the IDA client for want of capacity are made
+     * again after a pause, doubled up to MAX_DEFERRED_BACKOFF_MS while no send gets through, until none is
+     * rejected, MAX_DEFERRALS is reached or the dispatcher is interrupted. Sends still rejected then are
+     * failures, or held in the journal.
+     * @return how many events from the start of the batch were accepted, or refused as invalid. Events not
+     * sent before the dispatcher was interrupted are added to unsent, the interrupt is kept for the caller.
+     */
+    private int send(List<Event> batch, List<Event> unsent) {
+        long start = System.nanoTime();
+        byte[] outcomes = new byte[batch.size()];
+        List<Integer> toSend = new ArrayList<>(batch.size());
+        for(int i=0; i<batch.size(); i++) {
+            toSend.add(i);
+        }
+        long backoffMs = 0;
+        try {
+            for(int deferrals=0; ; deferrals++) {
+                List<CompletableFuture<?>> futures = new ArrayList<>(toSend.size());
+                try {
+                    for(int index : toSend) {
+                        acquireSendWindow();
+                        futures.add(send(batch.get(index), outcomes, index));
+                    }
+                } finally {
+                    CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).handle((result, e) -> null).join();
+                }
+                int attempted = toSend.size();
+                toSend.clear();
+                for(int i=0; i<outcomes.length; i++) {
+                    if(outcomes[i] == UNSENT)
+                        toSend.add(i);
+                }
+                if(toSend.isEmpty())
+                    break;
+                if(deferrals == MAX_DEFERRALS) {
+                    log.warn("{} audit sends still rejected by the IDA client after {} attempts", toSend.size(),
+                            deferrals + 1);
+                    for(int index : toSend) {
+                        hold(outcomes, index);
+                    }
+                    break;
+                }
+                backoffMs = toSend.size() < attempted ? MIN_RETRY_BACKOFF_MS :
+                        Math.min(MAX_DEFERRED_BACKOFF_MS, Math.max(MIN_RETRY_BACKOFF_MS, backoffMs * 2));
+                log.debug("{} audit sends rejected by the IDA client, sending them again in {}ms", toSend.size(), backoffMs);
+                Thread.sleep(backoffMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        listener.onBatch(batch.size(), System.nanoTime() - start);
+        int handled = 0;
+        while(handled < outcomes.length && (outcomes[handled] == SENT || outcomes[handled] == REFUSED)) {
+            handled++;
+        }
+        for(int i=0; i<outcomes.length; i++) {
+            if(outcomes[i] == UNSENT)
+                unsent.add(batch.get(i));
+        }
+        batch.clear();
+        return handled;
+    }
+
+    //the outcome is read by the dispatcher once the future has completed
+    private CompletableFuture<?> send(Event event, byte[] outcomes, int index) {
+        CompletableFuture<?> future;
+        try {
+            future = sender.send(event);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((result, e) -> {
+            releaseSendWindow();
+            if(e == null) {
+                sent.increment();
+                outcomes[index] = SENT;
+                return;
+            }
+            Throwable cause = IdaHttpClient.unwrap(e);
+            if(cause instanceof IdaCallRejectedException) {
+                if(((IdaCallRejectedException) cause).getKind().isTransient()) {
+                    deferred.increment();
+                    return;
+                }
+                hold(outcomes, index);
+                log.error("LogAudit failed with error : {}", cause.getMessage());
+                return;
+            }
+            failed.increment();
+            outcomes[index] = cause instanceof RejectedEventException ? REFUSED : FAILED;
+            log.error("LogAudit failed with error : {}", cause.getMessage());
+        });
+    }
+
+    //a send not to be made again within the batch, the journal keeps the event for the dispatcher's retry
+    private void hold(byte[] outcomes, int index) {
+        failed.increment();
+        outcomes[index] = journal != null ? HELD : FAILED;
+    }
+
+    private void acquireSendWindow() throws InterruptedException {
+        synchronized (sendWindow) {
+            //the limit is read again on every release, it follows the route's concurrency limit
+            while(inFlight >= Math.max(1, maxInFlight.getAsInt())) {
+                sendWindow.wait();
+            }
+            inFlight++;
+        }
+    }
+
+    private void releaseSendWindow() {
+        synchronized (sendWindow) {
+            inFlight--;
+            sendWindow.notifyAll();
+        }
+    }
+
+    //events the dispatcher was interrupted before sending
+    private void keep(List<Event> unsent) {
+        for(Event event : unsent) {
+            if(spillFile != null)
+                spill(event);
+            else
+                drop(event);
+        }
+        unsent.clear();
+    }
+
+    private void drop(Event event) {
+        dropped.increment();
+        listener.onDropped(event);
+        log.warn("Dropped {} {} audit event", event.getAction(), event.getStatus());
+    }
+
+    private void append(Event event) {
+        try {
+            if(journal.append(event))
+                return;
+            log.warn("Audit journal full at {} bytes", journal.getSizeBytes());
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to append audit event to the journal", e);
+        }
+        drop(event);
+    }
+
+    private void spill(Event event) {
+        try {
+            spillFile.append(event);
+            spilled.increment();
+            listener.onSpilled(event);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to spill audit event", e);
+            drop(event);
+        }
+    }
+
+    public int getQueueSize() {
+        return journal != null ? (int) Math.min(Integer.MAX_VALUE, journal.getPendingEvents()) : queue.size();
+    }
+
+    public long getAcceptedEvents() {
+        return accepted.sum();
+    }
+
+    public long getSentEvents() {
+        return sent.sum();
+    }
+
+    public long getFailedEvents() {
+        return failed.sum();
+    }
+
+    /**
+     * @return sends rejected by the IDA client without being made, and made again later
+     */
+    public long getDeferredSends() {
+        return deferred.sum();
+    }
+
+    public long getDroppedEvents() {
+        return dropped.sum();
+    }
+
+    public long getSpilledEvents() {
+        return spilled.sum();
+    }
+
+    /**
+     * An audit request ready to send, the body is the complete auditmanager request.
+     */
+    public static final class Event {
+        private final String action;
+        private final String status;
+        private final String body;
+        private final long createdAtMillis;
+
+        public Event(String action, String status, String body) {
+            this(action, status, body, System.currentTimeMillis());
+        }
+
+        Event(String action, String status, String body, long createdAtMillis) {
+            this.action = action;
+            this.status = status;
+            this.body = body;
+            this.createdAtMillis = createdAtMillis;
+        }
+
+        public String getAction() {
+            return action;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        /**
+         * @return when the event was queued, kept when it is spilled or journaled
+         */
+        public long getCreatedAtMillis() {
+            return createdAtMillis;
+        }
+
+        byte[] toBytes() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length() + 32);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeLong(createdAtMillis);
+                out.writeUTF(action);
+                out.writeUTF(status);
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+            return bytes.toByteArray();
+        }
+
+        static Event fromBytes(byte[] bytes) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            long createdAtMillis = in.readLong();
+            String action = in.readUTF();
+            String status = in.readUTF();
+            return new Event(action, status, new String(in.readAllBytes(), StandardCharsets.UTF_8), createdAtMillis);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Append-only file of audit events that did not fit in the queue, each one written as its length followed
+ * by creation time, action, status and body. Events are read back in the order they were written, and the file is removed
+ * once everything in it has been read.
+ */
+@Slf4j
+final class AuditSpillFile {
+
+    private final Path file;
+    private DataOutputStream out;
+    private long readOffset;
+
+    AuditSpillFile(Path file) throws IOException {
+        this.file = file;
+        Files.createDirectories(file.getParent());
+        if(Files.exists(file))
+            log.info("Replaying {} bytes of audit events spilled before restart", Files.size(file));
+    }
+
+    synchronized void append(AuditPipeline.Event event) throws IOException {
+        byte[] record = event.toBytes();
+        if(out == null)
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND)));
+        out.writeInt(record.length);
+        out.write(record);
+        out.flush();
+    }
+
+    /**
+     * @return up to max events following the ones already read
+     */
+    synchronized List<AuditPipeline.Event> poll(int max) throws IOException {
+        if(!Files.exists(file))
+            return Collections.emptyList();
+
+        List<AuditPipeline.Event> events = new ArrayList<>();
+        long length;
+        try (RandomAccessFile in = new RandomAccessFile(file.toFile(), "r")) {
+            length = in.length();
+            while(events.size() < max && readOffset + Integer.BYTES <= length) {
+                in.seek(readOffset);
+                int recordLength = in.readInt();
+                if(recordLength < 0 || readOffset + Integer.BYTES + recordLength > length) {
+                    //torn write at a crash, nothing after it can be read
+                    log.warn("Discarding incomplete audit event at the end of the spill file");
+                    readOffset = length;
+                    break;
+                }
+                byte[] record = new byte[recordLength];
+                in.readFully(record);
+                readOffset += Integer.BYTES + recordLength;
+                events.add(AuditPipeline.Event.fromBytes(record));
+            }
+        }
+        if(readOffset + Integer.BYTES > length)
+            reset();
+        return events;
+    }
+
+    synchronized void close() {
+        try {
+            if(out != null)
+                out.close();
+        } catch (IOException e) {
+            log.error("Failed to close the audit spill file", e);
+        }
+        out = null;
+    }
+
+    private void reset() throws IOException {
+        close();
+        Files.deleteIfExists(file);
+        readOffset = 0;
+    }
+}
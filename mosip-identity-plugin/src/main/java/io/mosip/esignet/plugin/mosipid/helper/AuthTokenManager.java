@@ -0,0 +1,185 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the authmanager token until it expires, as read from the JWT exp claim, and fetches the next one
+ * in the background once refreshAt of its lifetime has passed. The current token is served until it
+ * expires or is rejected, so callers only wait when there is no usable token. Concurrent fetches are
+ * merged into one.
+ */
+@Slf4j
+final class AuthTokenManager {
+
+    @FunctionalInterface
+    interface Loader {
+        String load() throws Exception;
+    }
+
+    private static final long MIN_RETRY_MILLIS = 1000;
+
+    private final Loader loader;
+    private final ObjectMapper objectMapper;
+    private final double refreshAt;
+    private final long fallbackLifetimeMillis;
+    private final long expiryMarginMillis;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicReference<CompletableFuture<Token>> inFlight = new AtomicReference<>();
+    private final AtomicReference<Token> token = new AtomicReference<>();
+    private ScheduledFuture<?> scheduledRefresh;
+
+    AuthTokenManager(Loader loader, ObjectMapper objectMapper, double refreshAt, Duration fallbackLifetime,
+                     Duration expiryMargin) {
+        this(loader, objectMapper, refreshAt, fallbackLifetime, expiryMargin, Clock.systemUTC());
+    }
+
+    AuthTokenManager(Loader loader, ObjectMapper objectMapper, double refreshAt, Duration fallbackLifetime,
+                     Duration expiryMargin, Clock clock) {
+        this.loader = loader;
+        this.objectMapper = objectMapper;
+        this.refreshAt = Math.max(0, Math.min(1, refreshAt));
+        this.fallbackLifetimeMillis = fallbackLifetime.toMillis();
+        this.expiryMarginMillis = expiryMargin.toMillis();
+        this.clock = clock;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "auth-token-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    String get() throws Exception {
+        Token current = token.get();
+        if(current != null && clock.millis() < current.expiresAt)
+            return current.value;
+        return refresh(current).value;
+    }
+
+    /**
+     * Drops the token if it is still the current one, the next call fetches a new token.
+     */
+    void invalidate(String rejectedToken) {
+        Token current = token.get();
+        if(current != null && current.value.equals(rejectedToken) && token.compareAndSet(current, null))
+            log.info("Auth-token rejected, fetching a new one on next use");
+    }
+
+    /**
+     * Drops the current token whatever it is, the next call fetches a new token.
+     */
+    void invalidate() {
+        if(token.getAndSet(null) != null)
+            log.info("Auth-token dropped, fetching a new one on next use");
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    //seen is the token the caller found unusable, a newer one fetched meanwhile is shared instead of fetching again
+    private Token refresh(Token seen) throws Exception {
+        CompletableFuture<Token> future = new CompletableFuture<>();
+        CompletableFuture<Token> existing = inFlight.compareAndExchange(null, future);
+        if(existing != null)
+            return await(existing);
+
+        try {
+            Token latest = token.get();
+            if(latest != null && latest != seen && clock.millis() < latest.expiresAt) {
+                future.complete(latest);
+                return latest;
+            }
+            long fetchedAt = clock.millis();
+            String value = loader.load();
+            if(value == null)
+                throw new IllegalStateException("No auth-token returned by authmanager");
+            Token loaded = toToken(value, fetchedAt);
+            token.set(loaded);
+            schedule(Math.max(MIN_RETRY_MILLIS, loaded.refreshAt - clock.millis()));
+            future.complete(loaded);
+            return loaded;
+        } catch (Exception e) {
+            //retry in the background while the current token is still served, callers fetch it once expired
+            Token current = token.get();
+            long remaining = current == null ? 0 : current.expiresAt - clock.millis();
+            if(remaining > 0)
+                schedule(Math.max(MIN_RETRY_MILLIS, remaining / 4));
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    private Token toToken(String value, long fetchedAt) {
+        long expiresAt = fetchedAt + fallbackLifetimeMillis;
+        try {
+            String[] parts = value.split("\\.");
+            JsonNode exp = objectMapper.readTree(Base64.getUrlDecoder().decode(parts[1])).get("exp");
+            if(exp != null && exp.canConvertToLong())
+                expiresAt = TimeUnit.SECONDS.toMillis(exp.asLong());
+            else
+                log.warn("Auth-token has no exp claim, assuming a lifetime of {}ms", fallbackLifetimeMillis);
+        } catch (Exception e) {
+            log.warn("Auth-token is not a readable JWT, assuming a lifetime of {}ms", fallbackLifetimeMillis);
+        }
+        expiresAt = Math.max(fetchedAt, expiresAt - expiryMarginMillis);
+        return new Token(value, fetchedAt + (long) ((expiresAt - fetchedAt) * refreshAt), expiresAt);
+    }
+
+    //only the latest fetch decides when the next one runs
+    private synchronized void schedule(long delayMillis) {
+        if(scheduler.isShutdown())
+            return;
+        if(scheduledRefresh != null)
+            scheduledRefresh.cancel(false);
+        scheduledRefresh = scheduler.schedule(this::refreshQuietly, Math.max(delayMillis, 0), TimeUnit.MILLISECONDS);
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh(token.get());
+        } catch (Exception e) {
+            log.warn("Auth-token refresh failed, serving the current token until it expires", e);
+        }
+    }
+
+    private static Token await(CompletableFuture<Token> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    private static final class Token {
+        private final String value;
+        private final long refreshAt;
+        private final long expiresAt;
+
+        private Token(String value, long refreshAt, long expiresAt) {
+            this.value = value;
+            this.refreshAt = refreshAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -5,13 +5,12 @@
  */
 package io.mosip.esignet.plugin.mosipid.helper;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 import io.mosip.esignet.plugin.mosipid.dto.ClientIdSecretKeyRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
 import org.springframework.http.RequestEntity;
@@ -26,19 +25,32 @@ import io.mosip.kernel.core.http.RequestWrapper;
 import io.mosip.kernel.core.http.ResponseWrapper;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+/**
+ * Provides the authmanager token for IDA calls that need one (audit, KYC signing certificates), through
+ * {@link AuthTokenManager}: fetched once, refreshed in the background ahead of its expiry and dropped
+ * when IDA rejects it.
+ */
 @Component
 @Slf4j
 public class AuthTransactionHelper {
-	
-    private static final String AUTH_TOKEN_CACHE = "authtokens";
-	
-    public static final String AUTH_TOKEN_CACHE_KEY = "auth_token";
 
+    /**
+     * @deprecated the token is no longer kept in a Spring cache, use {@link #purgeAuthTokenCache()}
+     */
+    @Deprecated
+    public static final String AUTH_TOKEN_CACHE_KEY = "auth_token";
+	
     @Autowired
     private ObjectMapper objectMapper;
 	
     @Autowired
     private RestTemplate restTemplate;
+
+    @Autowired
+    private IdaHttpClient idaHttpClient;
 	
     @Value("${mosip.esignet.authenticator.ida.auth-token-url}")
     private String authTokenUrl;
@@ -51,9 +63,51 @@ public class AuthTransactionHelper {
     
     @Value("${mosip.esignet.authenticator.ida.app-id}")
     private String appId;
-	
-    @Cacheable(value = AUTH_TOKEN_CACHE, key = "#root.target.AUTH_TOKEN_CACHE_KEY")
+
+    @Value("${mosip.esignet.authenticator.ida.auth-token.refresh-at:0.8}")
+    private double refreshAt;
+
+    @Value("${mosip.esignet.authenticator.ida.auth-token.fallback-lifetime-seconds:1800}")
+    private long fallbackLifetimeSeconds;
+
+    @Value("${mosip.esignet.authenticator.ida.auth-token.expiry-margin-seconds:30}")
+    private long expiryMarginSeconds;
+
+    private AuthTokenManager authTokenManager;
+
+    @PostConstruct
+    public void init() {
+        authTokenManager = new AuthTokenManager(this::requestAuthToken, objectMapper, refreshAt,
+                Duration.ofSeconds(fallbackLifetimeSeconds), Duration.ofSeconds(expiryMarginSeconds));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if(authTokenManager != null)
+            authTokenManager.shutdown();
+    }
+
     public String getAuthToken() throws Exception {
+        return authTokenManager.get();
+    }
+
+    /**
+     * Drops the current token, the next caller fetches a new one and concurrent callers wait for that fetch.
+     */
+    public void purgeAuthTokenCache() {
+        log.info("Evicting auth-token");
+        authTokenManager.invalidate();
+    }
+
+    /**
+     * Drops the token rejected by IDA, unless it was already replaced.
+     */
+    public void purgeAuthTokenCache(String authToken) {
+        log.info("Evicting rejected auth-token");
+        authTokenManager.invalidate(authToken);
+    }
+
+    private String requestAuthToken() throws Exception {
     	log.info("Started to get auth-token with appId : {} && clientId : {}",
                 appId, clientId);
     	
@@ -67,16 +121,12 @@ public class AuthTransactionHelper {
                  .post(UriComponentsBuilder.fromUriString(authTokenUrl).build().toUri())
                  .contentType(MediaType.APPLICATION_JSON)
                  .body(requestBody);
-        ResponseEntity<ResponseWrapper> responseEntity = restTemplate.exchange(requestEntity,
-                 new ParameterizedTypeReference<ResponseWrapper>() {});
+        //issuing a token has no side effect, so it is safe to retry
+        ResponseEntity<ResponseWrapper> responseEntity = idaHttpClient.getRetryPolicy().execute(() ->
+                 restTemplate.exchange(requestEntity, new ParameterizedTypeReference<ResponseWrapper>() {}));
         
         String authToken = responseEntity.getHeaders().getFirst("authorization");
         return authToken;
      }
-    
-    @CacheEvict(value = AUTH_TOKEN_CACHE, allEntries = true)
-    public void purgeAuthTokenCache() {
-    	log.info("Evicting entry from AUTH_TOKEN_CACHE");
-    }
 
 }
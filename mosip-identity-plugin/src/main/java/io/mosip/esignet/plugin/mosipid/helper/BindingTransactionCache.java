@@ -0,0 +1,73 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import io.mosip.esignet.plugin.mosipid.service.HelperService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Binding transaction ids keyed by the hash of the individual id, so that send-binding-otp and the
+ * key-binding request that follows it share one IDA transaction. Bounded in size and expired after
+ * write; once full, least recently used entries are evicted first. Hit, miss and eviction counts are
+ * published under the "bindingtransaction" cache name.
+ */
+@Component
+@Slf4j
+public class BindingTransactionCache {
+
+    @Value("${mosip.esignet.authenticator.ida.binding-transaction-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${mosip.esignet.authenticator.ida.binding-transaction-cache.expire-after-write-seconds:600}")
+    private long expireAfterWriteSeconds;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, String> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, HelperService.BINDING_TRANSACTION);
+        log.info("Initialized binding transaction cache with max size : {} && expire after write : {}s", maxSize,
+                expireAfterWriteSeconds);
+    }
+
+    /**
+     * @param idHash hash of the individual id
+     * @param transactionIdSupplier generates the transaction id on a miss, invoked once per key even with concurrent callers
+     * @return cached or newly generated transaction id
+     */
+    public String get(String idHash, Supplier<String> transactionIdSupplier) {
+        try {
+            return cache.get(idHash, transactionIdSupplier::get);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public long size() {
+        cache.cleanUp();
+        return cache.size();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Count based circuit breaker. The outcome of the last slidingWindowSize calls is kept; once at least
+ * minimumCalls are recorded and the failure rate reaches the threshold, the circuit opens and calls
+ * are rejected without being attempted. After the open duration, halfOpenCalls trial calls are let
+ * through: if all of them succeed the circuit closes, a single failure opens it again.
+ */
+final class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier nanoClock;
+
+    private final boolean[] window;
+    private int windowPosition;
+    private int recordedCalls;
+    private int failedCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    private final LongAdder rejected = new LongAdder();
+
+    CircuitBreaker(int failureRateThreshold, int slidingWindowSize, int minimumCalls, long openDurationMs,
+                   int halfOpenCalls) {
+        this(failureRateThreshold, slidingWindowSize, minimumCalls, openDurationMs, halfOpenCalls, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureRateThreshold, int slidingWindowSize, int minimumCalls, long openDurationMs,
+                   int halfOpenCalls, LongSupplier nanoClock) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.window = new boolean[slidingWindowSize];
+        this.minimumCalls = Math.min(minimumCalls, slidingWindowSize);
+        this.openDurationNanos = openDurationMs * 1_000_000L;
+        this.halfOpenCalls = halfOpenCalls;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * @return true if the call may go ahead, its outcome must then be reported with onSuccess or onFailure, or
+     * with onIgnore if the call never reached IDA
+     */
+    synchronized boolean tryAcquire() {
+        if(state == State.OPEN && nanoClock.getAsLong() - openedAt >= openDurationNanos) {
+            state = State.HALF_OPEN;
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if(halfOpenPermits > 0) {
+                    halfOpenPermits--;
+                    return true;
+                }
+                //no trial call left, rejected until the trials complete
+            default:
+                rejected.increment();
+                return false;
+        }
+    }
+
+    synchronized void onSuccess() {
+        if(state == State.HALF_OPEN) {
+            if(++halfOpenSuccesses >= halfOpenCalls)
+                close();
+            return;
+        }
+        record(false);
+    }
+
+    synchronized void onFailure() {
+        if(state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+    }
+
+    synchronized void onIgnore() {
+        if(state == State.HALF_OPEN)
+            halfOpenPermits++;
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    synchronized float getFailureRate() {
+        return recordedCalls < minimumCalls ? -1 : failedCalls * 100f / recordedCalls;
+    }
+
+    long getRejectedCalls() {
+        return rejected.sum();
+    }
+
+    private void record(boolean failed) {
+        if(state != State.CLOSED)
+            return;
+        if(recordedCalls == window.length) {
+            if(window[windowPosition])
+                failedCalls--;
+        } else {
+            recordedCalls++;
+        }
+        window[windowPosition] = failed;
+        if(failed)
+            failedCalls++;
+        windowPosition = (windowPosition + 1) % window.length;
+        if(recordedCalls >= minimumCalls && failedCalls * 100 >= failureRateThreshold * recordedCalls)
+            open();
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoClock.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        windowPosition = 0;
+        recordedCalls = 0;
+        failedCalls = 0;
+    }
+}
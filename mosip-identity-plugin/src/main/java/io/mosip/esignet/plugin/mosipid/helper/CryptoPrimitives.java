@@ -0,0 +1,158 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.MGF1ParameterSpec;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pooled Cipher and MessageDigest instances, so the JCA provider lookup happens once per instance
+ * rather than once per call. Instances are borrowed by one caller at a time and returned after use;
+ * pools are shared across threads instead of thread-local, which keeps reuse effective on virtual threads.
+ * The SecureRandom instances drawing IVs are pooled the same way, so concurrent callers do not contend on one.
+ * Outputs match the kernel CryptoUtil, CryptoCore and HMACUtils2 methods they replace.
+ */
+public final class CryptoPrimitives {
+
+    public static final String SYMMETRIC_ALGORITHM = "AES/GCM/PKCS5Padding";
+    public static final String DEFAULT_ASYMMETRIC_ALGORITHM = "RSA/ECB/OAEPWITHSHA-256ANDMGF1PADDING";
+    public static final String SHA_256 = "SHA-256";
+    public static final String SHA3_256 = "SHA3-256";
+    private static final int GCM_TAG_LENGTH = 128;
+    private static final int MAX_IDLE_INSTANCES = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final byte[] HEX_DIGITS = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    //OAEP parameters of each supported asymmetric algorithm, as CryptoCore uses them (MGF1 with SHA-256, not the JCA default SHA-1)
+    private static final Map<String, OAEPParameterSpec> OAEP_PARAMETER_SPECS = Map.of(
+            DEFAULT_ASYMMETRIC_ALGORITHM.toUpperCase(Locale.ROOT), new OAEPParameterSpec("SHA-256", "MGF1",
+                    MGF1ParameterSpec.SHA256, PSource.PSpecified.DEFAULT));
+
+    private static final ConcurrentMap<String, BlockingQueue<Cipher>> cipherPools = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, BlockingQueue<MessageDigest>> digestPools = new ConcurrentHashMap<>();
+    private static final BlockingQueue<SecureRandom> randomPool = new ArrayBlockingQueue<>(MAX_IDLE_INSTANCES);
+
+    private CryptoPrimitives() {}
+
+    /**
+     * Same output as CryptoUtil.symmetricEncrypt, AES/GCM with 128 bit tag and the IV appended to the cipher text.
+     */
+    public static byte[] symmetricEncrypt(SecretKey key, byte[] data, int length) throws GeneralSecurityException {
+        Cipher cipher = borrowCipher(SYMMETRIC_ALGORITHM);
+        byte[] iv = new byte[cipher.getBlockSize()];
+        SecureRandom secureRandom = borrowRandom();
+        secureRandom.nextBytes(iv);
+        randomPool.offer(secureRandom);
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+        byte[] output = new byte[cipher.getOutputSize(length) + iv.length];
+        int written = cipher.doFinal(data, 0, length, output, 0);
+        releaseCipher(SYMMETRIC_ALGORITHM, cipher);
+        System.arraycopy(iv, 0, output, written, iv.length);
+        return written + iv.length == output.length ? output : Arrays.copyOf(output, written + iv.length);
+    }
+
+    /**
+     * Same output as CryptoCore.asymmetricEncrypt, OAEP with the parameters of the algorithm, see {@link #isPooledAsymmetricAlgorithm}.
+     */
+    public static byte[] asymmetricEncrypt(String algorithm, PublicKey publicKey, byte[] data) throws GeneralSecurityException {
+        OAEPParameterSpec parameterSpec = getOaepParameterSpec(algorithm);
+        Cipher cipher = borrowCipher(algorithm);
+        cipher.init(Cipher.ENCRYPT_MODE, publicKey, parameterSpec);
+        byte[] output = cipher.doFinal(data);
+        releaseCipher(algorithm, cipher);
+        return output;
+    }
+
+    /**
+     * True when the asymmetric algorithm is one whose OAEP parameters are known, others are left to CryptoCore.
+     */
+    public static boolean isPooledAsymmetricAlgorithm(String algorithm) {
+        return algorithm != null && OAEP_PARAMETER_SPECS.containsKey(algorithm.toUpperCase(Locale.ROOT));
+    }
+
+    public static byte[] digest(String algorithm, byte[] data) throws NoSuchAlgorithmException {
+        return digest(algorithm, data, 0, data.length);
+    }
+
+    public static byte[] digest(String algorithm, byte[] data, int offset, int length) throws NoSuchAlgorithmException {
+        MessageDigest messageDigest = borrowDigest(algorithm);
+        messageDigest.update(data, offset, length);
+        byte[] hash = messageDigest.digest();
+        releaseDigest(algorithm, messageDigest);
+        return hash;
+    }
+
+    /**
+     * Same output as HMACUtils2.digestAsPlainText, SHA-256 as upper case hex, without the intermediate String.
+     */
+    public static byte[] digestAsUpperHex(byte[] data, int length) throws NoSuchAlgorithmException {
+        byte[] hash = digest(SHA_256, data, 0, length);
+        byte[] hex = new byte[hash.length * 2];
+        for(int i=0; i<hash.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0x0F];
+            hex[i * 2 + 1] = HEX_DIGITS[hash[i] & 0x0F];
+        }
+        return hex;
+    }
+
+    static int idleCiphers(String algorithm) {
+        BlockingQueue<Cipher> pool = cipherPools.get(algorithm);
+        return pool == null ? 0 : pool.size();
+    }
+
+    static int idleDigests(String algorithm) {
+        BlockingQueue<MessageDigest> pool = digestPools.get(algorithm);
+        return pool == null ? 0 : pool.size();
+    }
+
+    private static OAEPParameterSpec getOaepParameterSpec(String algorithm) throws NoSuchAlgorithmException {
+        OAEPParameterSpec parameterSpec = algorithm == null ? null : OAEP_PARAMETER_SPECS.get(algorithm.toUpperCase(Locale.ROOT));
+        if(parameterSpec == null)
+            throw new NoSuchAlgorithmException("Unsupported asymmetric algorithm : " + algorithm + ", supported : " +
+                    DEFAULT_ASYMMETRIC_ALGORITHM);
+        return parameterSpec;
+    }
+
+    private static SecureRandom borrowRandom() {
+        SecureRandom secureRandom = randomPool.poll();
+        return secureRandom != null ? secureRandom : new SecureRandom();
+    }
+
+    //Instances are only returned after a successful operation, one that failed midway is left to the GC
+    private static Cipher borrowCipher(String algorithm) throws NoSuchAlgorithmException, NoSuchPaddingException {
+        Cipher cipher = cipherPools.computeIfAbsent(algorithm, k -> new ArrayBlockingQueue<>(MAX_IDLE_INSTANCES)).poll();
+        return cipher != null ? cipher : Cipher.getInstance(algorithm);
+    }
+
+    private static void releaseCipher(String algorithm, Cipher cipher) {
+        cipherPools.get(algorithm).offer(cipher);
+    }
+
+    private static MessageDigest borrowDigest(String algorithm) throws NoSuchAlgorithmException {
+        MessageDigest messageDigest = digestPools.computeIfAbsent(algorithm, k -> new ArrayBlockingQueue<>(MAX_IDLE_INSTANCES)).poll();
+        return messageDigest != null ? messageDigest : MessageDigest.getInstance(algorithm);
+    }
+
+    private static void releaseDigest(String algorithm, MessageDigest messageDigest) {
+        digestPools.get(algorithm).offer(messageDigest);
+    }
+}
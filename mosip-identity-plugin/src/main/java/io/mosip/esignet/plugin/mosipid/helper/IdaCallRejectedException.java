@@ -0,0 +1,65 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+/**
+ * Raised when an IDA call is not attempted because the route's circuit is open, its bulkhead is full, its
+ * concurrency limit is reached or no connection is free, see {@link Kind}. Thrown on every call while IDA is unavailable, so no stack trace is captured.
+ */
+public class IdaCallRejectedException extends RuntimeException {
+
+    public static final String CONCURRENCY_LIMIT_EXCEEDED = "ida_concurrency_limit_exceeded";
+
+    public enum Kind {
+        BULKHEAD_FULL("bulkhead full", null, true),
+        CONCURRENCY_LIMIT("concurrency limit reached", CONCURRENCY_LIMIT_EXCEEDED, true),
+        NO_FREE_CONNECTION("no free connection", null, true),
+        CIRCUIT_OPEN("circuit open", null, false);
+
+        private final String reason;
+        private final String errorCode;
+        private final boolean transientRejection;
+
+        Kind(String reason, String errorCode, boolean transientRejection) {
+            this.reason = reason;
+            this.errorCode = errorCode;
+            this.transientRejection = transientRejection;
+        }
+
+        /**
+         * @return true when the call was turned away for want of local capacity, which frees up as the calls
+         * in flight complete. An open circuit stays open until IDA is probed again and found working.
+         */
+        public boolean isTransient() {
+            return transientRejection;
+        }
+    }
+
+    private final Kind kind;
+
+    public IdaCallRejectedException(IdaRoute route, Kind kind) {
+        super("IDA " + route.getKey() + " call rejected, " + kind.reason, null, false, false);
+        this.kind = kind;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getErrorCode() {
+        return kind.errorCode;
+    }
+
+    /**
+     * @return the error code of the rejection that caused the failure if it has one, else defaultErrorCode
+     */
+    public static String getErrorCode(Throwable e, String defaultErrorCode) {
+        Throwable cause = IdaHttpClient.unwrap(e);
+        if(cause instanceof IdaCallRejectedException && ((IdaCallRejectedException) cause).getErrorCode() != null)
+            return ((IdaCallRejectedException) cause).getErrorCode();
+        return defaultErrorCode;
+    }
+}
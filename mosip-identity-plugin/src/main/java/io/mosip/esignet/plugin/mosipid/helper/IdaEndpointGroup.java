@@ -0,0 +1,207 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * IDA base URLs of one route, e.g. one per zone. Each call goes to the healthy endpoint with the fewest
+ * calls outstanding (LEAST_OUTSTANDING), or with the lowest moving average latency weighted by the calls
+ * outstanding (EWMA_LATENCY), ties are broken at random. An endpoint that fails ejectionFailures calls in
+ * a row (I/O errors, 5xx) is ejected until a health probe on it succeeds. If every endpoint is ejected,
+ * calls are spread over all of them rather than failed locally.
+ */
+@Slf4j
+public final class IdaEndpointGroup {
+
+    public enum Selection { LEAST_OUTSTANDING, EWMA_LATENCY }
+
+    private static final double EWMA_WEIGHT = 0.3;
+
+    private final IdaRoute route;
+    private final List<Endpoint> endpoints;
+    private final Selection selection;
+    private final int ejectionFailures;
+
+    IdaEndpointGroup(IdaRoute route, List<String> baseUrls, Selection selection, int ejectionFailures, String probePath) {
+        if(baseUrls.isEmpty())
+            throw new IllegalArgumentException("No endpoint configured for IDA route : " + route.getKey());
+        this.route = route;
+        this.selection = selection;
+        this.ejectionFailures = Math.max(1, ejectionFailures);
+        List<Endpoint> list = new ArrayList<>();
+        for(String baseUrl : baseUrls) {
+            list.add(new Endpoint(baseUrl, toProbeUri(baseUrl, probePath)));
+        }
+        this.endpoints = Collections.unmodifiableList(list);
+    }
+
+    Endpoint select() {
+        Endpoint selected = select(true);
+        if(selected == null)
+            selected = select(false);
+        selected.onStart();
+        return selected;
+    }
+
+    private Endpoint select(boolean healthyOnly) {
+        Endpoint selected = null;
+        double bestScore = Double.MAX_VALUE;
+        int ties = 0;
+        for(Endpoint endpoint : endpoints) {
+            if(healthyOnly && endpoint.isEjected())
+                continue;
+            double score = endpoint.score(selection);
+            if(score < bestScore) {
+                selected = endpoint;
+                bestScore = score;
+                ties = 1;
+            }
+            else if(score == bestScore && ThreadLocalRandom.current().nextInt(++ties) == 0) {
+                selected = endpoint;
+            }
+        }
+        return selected;
+    }
+
+    void onComplete(Endpoint endpoint, long rttNanos, ResponseEntity<?> responseEntity, Throwable e) {
+        boolean failed = isFailure(responseEntity, e);
+        if(endpoint.onComplete(rttNanos, failed, ejectionFailures))
+            log.warn("Ejected IDA {} endpoint {} after {} failed calls in a row", route.getKey(), endpoint.getBaseUrl(),
+                    ejectionFailures);
+    }
+
+    /**
+     * Probes the ejected endpoints and brings back the ones that answer with 2xx.
+     */
+    void probe(HttpClient httpClient, Duration timeout) {
+        for(Endpoint endpoint : endpoints) {
+            if(!endpoint.isEjected())
+                continue;
+            try {
+                HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(endpoint.getProbeUri())
+                        .timeout(timeout).GET().build(), HttpResponse.BodyHandlers.discarding());
+                if(response.statusCode() >= 200 && response.statusCode() < 300) {
+                    endpoint.reinstate();
+                    log.info("IDA {} endpoint {} is healthy again", route.getKey(), endpoint.getBaseUrl());
+                }
+            } catch (IOException e) {
+                log.debug("Health probe of IDA {} endpoint {} failed", route.getKey(), endpoint.getBaseUrl(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static boolean isFailure(ResponseEntity<?> responseEntity, Throwable e) {
+        if(e != null) {
+            Throwable cause = IdaHttpClient.unwrap(e);
+            return cause instanceof IOException || cause instanceof ResourceAccessException ||
+                    cause instanceof HttpServerErrorException;
+        }
+        return responseEntity == null || responseEntity.getStatusCode().is5xxServerError();
+    }
+
+    private static URI toProbeUri(String baseUrl, String probePath) {
+        URI uri = URI.create(baseUrl);
+        try {
+            return new URI(uri.getScheme(), null, uri.getHost(), uri.getPort(), probePath, null, null);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid IDA endpoint : " + baseUrl, e);
+        }
+    }
+
+    IdaRoute getRoute() {
+        return route;
+    }
+
+    List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    static final class Endpoint {
+
+        private final String baseUrl;
+        private final URI probeUri;
+        private int outstanding;
+        private double ewmaRttNanos;
+        private int consecutiveFailures;
+        private volatile boolean ejected;
+
+        private Endpoint(String baseUrl, URI probeUri) {
+            this.baseUrl = baseUrl;
+            this.probeUri = probeUri;
+        }
+
+        private synchronized double score(Selection selection) {
+            //endpoints not measured yet are tried first
+            return selection == Selection.EWMA_LATENCY && ewmaRttNanos > 0 ? ewmaRttNanos * (outstanding + 1) : outstanding;
+        }
+
+        private synchronized void onStart() {
+            outstanding++;
+        }
+
+        /**
+         * @return true if this call ejected the endpoint
+         */
+        private synchronized boolean onComplete(long rttNanos, boolean failed, int ejectionFailures) {
+            outstanding--;
+            if(!failed) {
+                ewmaRttNanos = ewmaRttNanos == 0 ? rttNanos : ewmaRttNanos + (rttNanos - ewmaRttNanos) * EWMA_WEIGHT;
+                consecutiveFailures = 0;
+                //only reached while every endpoint is ejected
+                ejected = false;
+                return false;
+            }
+            if(++consecutiveFailures < ejectionFailures || ejected)
+                return false;
+            ejected = true;
+            return true;
+        }
+
+        private synchronized void reinstate() {
+            consecutiveFailures = 0;
+            ejected = false;
+        }
+
+        String getBaseUrl() {
+            return baseUrl;
+        }
+
+        URI getProbeUri() {
+            return probeUri;
+        }
+
+        boolean isEjected() {
+            return ejected;
+        }
+
+        synchronized int getOutstanding() {
+            return outstanding;
+        }
+
+        synchronized double getEwmaRttMillis() {
+            return ewmaRttNanos / 1_000_000;
+        }
+    }
+}
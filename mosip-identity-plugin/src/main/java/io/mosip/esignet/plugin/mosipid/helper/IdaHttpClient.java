@@ -0,0 +1,540 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking transport for IDA calls on the JDK HttpClient. The calling thread is released as soon
+ * as the request is handed over; the response is read and mapped on the client's executor. Every
+ * {@link IdaRoute} gets its own pooled transport, configured by the defaults under
+ * mosip.esignet.authenticator.ida.http and overridden per route under
+ * mosip.esignet.authenticator.ida.http.&lt;route&gt;, e.g. mosip.esignet.authenticator.ida.http.kyc-auth.max-connections.
+ * Every route is also guarded by a circuit breaker, a bulkhead and an adaptive concurrency limit (see
+ * {@link IdaRouteGuard}), in both modes.
+ * Routes registered with {@link #setEndpoints} spread their calls over several IDA base URLs, see {@link IdaEndpointGroup}.
+ * Ejected endpoints are probed in the background and brought back once healthy.
+ * Calls on idempotent routes are retried under a retry budget shared by all IDA calls (see {@link RetryPolicy}).
+ * When disabled, requests go through the shared blocking RestTemplate and complete before the future
+ * is returned. Unlike RestTemplate, non 2xx responses are not thrown, they complete with the status and no body.
+ */
+@Component
+@Slf4j
+public class IdaHttpClient {
+
+    private static final String PROPERTY_PREFIX = "mosip.esignet.authenticator.ida.http.";
+
+    //Managed by HttpClient itself, not allowed to be set on the request
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    @Value("${mosip.esignet.authenticator.ida.http.async.enabled:true}")
+    private boolean asyncEnabled;
+
+    @Value("${mosip.esignet.authenticator.ida.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${mosip.esignet.authenticator.ida.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${mosip.esignet.authenticator.ida.http.request-timeout-ms:30000}")
+    private long requestTimeoutMs;
+
+    @Value("${mosip.esignet.authenticator.ida.http.http2-enabled:false}")
+    private boolean http2Enabled;
+
+    @Value("${mosip.esignet.authenticator.ida.http.bulkhead.max-concurrent-calls:100}")
+    private int maxConcurrentCalls;
+
+    @Value("${mosip.esignet.authenticator.ida.http.circuit-breaker.failure-rate-threshold:50}")
+    private int failureRateThreshold;
+
+    @Value("${mosip.esignet.authenticator.ida.http.circuit-breaker.sliding-window-size:20}")
+    private int slidingWindowSize;
+
+    @Value("${mosip.esignet.authenticator.ida.http.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${mosip.esignet.authenticator.ida.http.circuit-breaker.open-duration-ms:30000}")
+    private long openDurationMs;
+
+    @Value("${mosip.esignet.authenticator.ida.http.circuit-breaker.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    @Value("${mosip.esignet.authenticator.ida.http.concurrency-limit.enabled:true}")
+    private boolean concurrencyLimitEnabled;
+
+    @Value("${mosip.esignet.authenticator.ida.http.concurrency-limit.initial-limit:40}")
+    private int concurrencyLimitInitial;
+
+    @Value("${mosip.esignet.authenticator.ida.http.concurrency-limit.min-limit:5}")
+    private int concurrencyLimitMin;
+
+    @Value("${mosip.esignet.authenticator.ida.http.concurrency-limit.max-limit:50}")
+    private int concurrencyLimitMax;
+
+    @Value("${mosip.esignet.authenticator.ida.http.concurrency-limit.rtt-tolerance:1.5}")
+    private double concurrencyLimitRttTolerance;
+
+    @Value("${mosip.esignet.authenticator.ida.http.concurrency-limit.smoothing:0.2}")
+    private double concurrencyLimitSmoothing;
+
+    @Value("${mosip.esignet.authenticator.ida.http.concurrency-limit.long-window:600}")
+    private int concurrencyLimitLongWindow;
+
+    @Value("${mosip.esignet.authenticator.ida.endpoints.selection:LEAST_OUTSTANDING}")
+    private IdaEndpointGroup.Selection endpointSelection;
+
+    @Value("${mosip.esignet.authenticator.ida.endpoints.ejection-failures:5}")
+    private int endpointEjectionFailures;
+
+    @Value("${mosip.esignet.authenticator.ida.endpoints.probe-path:/idauthentication/v1/actuator/health}")
+    private String endpointProbePath;
+
+    @Value("${mosip.esignet.authenticator.ida.endpoints.probe-interval-ms:10000}")
+    private long endpointProbeIntervalMs;
+
+    @Value("${mosip.esignet.authenticator.ida.endpoints.probe-timeout-ms:2000}")
+    private long endpointProbeTimeoutMs;
+
+    @Value("${mosip.esignet.authenticator.ida.retry.max-attempts:3}")
+    private int retryMaxAttempts;
+
+    @Value("${mosip.esignet.authenticator.ida.retry.initial-backoff-ms:100}")
+    private long retryInitialBackoffMs;
+
+    @Value("${mosip.esignet.authenticator.ida.retry.max-backoff-ms:2000}")
+    private long retryMaxBackoffMs;
+
+    @Value("${mosip.esignet.authenticator.ida.retry.budget.ratio:0.1}")
+    private double retryBudgetRatio;
+
+    @Value("${mosip.esignet.authenticator.ida.retry.budget.min-retries-per-second:5}")
+    private int retryBudgetMinRetriesPerSecond;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JsonCodec jsonCodec;
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    private final Map<IdaRoute, IdaHttpTransport> transports = new EnumMap<>(IdaRoute.class);
+    private final Map<IdaRoute, IdaRouteGuard> guards = new EnumMap<>(IdaRoute.class);
+    private final Map<IdaRoute, IdaEndpointGroup> endpointGroups = new ConcurrentHashMap<>();
+    private ScheduledExecutorService endpointProbeScheduler;
+    private RetryPolicy retryPolicy;
+
+    @PostConstruct
+    public void init() {
+        retryPolicy = new RetryPolicy(retryMaxAttempts, retryInitialBackoffMs, retryMaxBackoffMs,
+                new RetryBudget(retryBudgetRatio, retryBudgetMinRetriesPerSecond));
+        registerMetrics(retryPolicy);
+
+        for(IdaRoute route : IdaRoute.values()) {
+            CircuitBreaker circuitBreaker = new CircuitBreaker(
+                    getSetting(route, "circuit-breaker.failure-rate-threshold", Integer.class, failureRateThreshold),
+                    getSetting(route, "circuit-breaker.sliding-window-size", Integer.class, slidingWindowSize),
+                    getSetting(route, "circuit-breaker.minimum-calls", Integer.class, minimumCalls),
+                    getSetting(route, "circuit-breaker.open-duration-ms", Long.class, openDurationMs),
+                    getSetting(route, "circuit-breaker.half-open-calls", Integer.class, halfOpenCalls));
+            AdaptiveConcurrencyLimiter limiter = !getSetting(route, "concurrency-limit.enabled", Boolean.class,
+                    concurrencyLimitEnabled) ? null : new AdaptiveConcurrencyLimiter(
+                    getSetting(route, "concurrency-limit.initial-limit", Integer.class, concurrencyLimitInitial),
+                    getSetting(route, "concurrency-limit.min-limit", Integer.class, concurrencyLimitMin),
+                    getConcurrencyLimitMax(route),
+                    getSetting(route, "concurrency-limit.rtt-tolerance", Double.class, concurrencyLimitRttTolerance),
+                    getSetting(route, "concurrency-limit.smoothing", Double.class, concurrencyLimitSmoothing),
+                    getSetting(route, "concurrency-limit.long-window", Integer.class, concurrencyLimitLongWindow));
+            IdaRouteGuard guard = new IdaRouteGuard(route, circuitBreaker,
+                    getSetting(route, "bulkhead.max-concurrent-calls", Integer.class, maxConcurrentCalls), limiter);
+            guards.put(route, guard);
+            registerMetrics(guard);
+        }
+
+        //transports start their own selector threads, so they are only built when used
+        if(asyncEnabled) {
+            for(IdaRoute route : IdaRoute.values()) {
+                IdaHttpTransport transport = new IdaHttpTransport(route,
+                        getSetting(route, "max-connections", Integer.class, maxConnections),
+                        getSetting(route, "connect-timeout-ms", Long.class, connectTimeoutMs),
+                        getSetting(route, "request-timeout-ms", Long.class, requestTimeoutMs),
+                        getSetting(route, "http2-enabled", Boolean.class, http2Enabled));
+                transports.put(route, transport);
+                registerMetrics(transport);
+                log.info("Initialized IDA route {} with max connections : {}", route.getKey(), transport.getMaxConnections());
+            }
+        }
+        log.info("Initialized IDA http client with async enabled : {}", asyncEnabled);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        synchronized (this) {
+            if(endpointProbeScheduler != null)
+                endpointProbeScheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Sets the IDA base URLs of the route, comma separated. Requests built with
+     * {@link #exchange(IdaRoute, Function, ParameterizedTypeReference)} go to one of them per call.
+     */
+    public void setEndpoints(IdaRoute route, String baseUrls) {
+        List<String> urls = new ArrayList<>();
+        for(String url : baseUrls.split(",")) {
+            if(!url.isBlank())
+                urls.add(url.trim());
+        }
+        IdaEndpointGroup endpointGroup = new IdaEndpointGroup(route, urls, endpointSelection, endpointEjectionFailures,
+                endpointProbePath);
+        if(endpointGroups.putIfAbsent(route, endpointGroup) != null)
+            throw new IllegalStateException("Endpoints already set for IDA route : " + route.getKey());
+        registerMetrics(endpointGroup);
+        if(urls.size() > 1)
+            startEndpointProbes();
+        log.info("Initialized IDA route {} with {} endpoints and {} selection", route.getKey(), urls.size(), endpointSelection);
+    }
+
+    private synchronized void startEndpointProbes() {
+        if(endpointProbeScheduler != null)
+            return;
+        HttpClient probeClient = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(endpointProbeTimeoutMs)).build();
+        endpointProbeScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ida-endpoint-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        endpointProbeScheduler.scheduleWithFixedDelay(() -> {
+            for(IdaEndpointGroup endpointGroup : endpointGroups.values()) {
+                endpointGroup.probe(probeClient, Duration.ofMillis(endpointProbeTimeoutMs));
+            }
+        }, endpointProbeIntervalMs, endpointProbeIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public <T> CompletableFuture<ResponseEntity<T>> exchange(IdaRoute route, RequestEntity<?> requestEntity,
+                                                             ParameterizedTypeReference<T> responseType) {
+        return call(route, () -> send(route, requestEntity, responseType));
+    }
+
+    public <T> CompletableFuture<ResponseEntity<T>> exchange(IdaRoute route, RequestEntity<?> requestEntity,
+                                                             Class<T> responseType) {
+        return call(route, () -> send(route, requestEntity, responseType));
+    }
+
+    /**
+     * Sends the request to one of the route's endpoints, the request is built for the selected base URL.
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> exchange(IdaRoute route, Function<String, RequestEntity<?>> request,
+                                                             ParameterizedTypeReference<T> responseType) {
+        IdaEndpointGroup endpointGroup = getEndpointGroup(route);
+        return call(route, () -> send(endpointGroup, request, requestEntity -> send(route, requestEntity, responseType)));
+    }
+
+    public <T> CompletableFuture<ResponseEntity<T>> exchange(IdaRoute route, Function<String, RequestEntity<?>> request,
+                                                             Class<T> responseType) {
+        IdaEndpointGroup endpointGroup = getEndpointGroup(route);
+        return call(route, () -> send(endpointGroup, request, requestEntity -> send(route, requestEntity, responseType)));
+    }
+
+    /**
+     * @return the calls the route takes in flight right now without rejecting any, the smallest of its
+     * concurrency limit, its bulkhead and its connection pool
+     */
+    public int getMaxInFlight(IdaRoute route) {
+        IdaRouteGuard guard = guards.get(route);
+        int maxInFlight = guard.getMaxConcurrentCalls();
+        if(guard.getLimiter() != null)
+            maxInFlight = Math.min(maxInFlight, guard.getLimiter().getLimit());
+        IdaHttpTransport transport = transports.get(route);
+        if(transport != null)
+            maxInFlight = Math.min(maxInFlight, transport.getMaxConnections());
+        return maxInFlight;
+    }
+
+    /**
+     * Retry policy of the IDA calls, for idempotent calls that do not go through this client.
+     */
+    RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    //every attempt passes the route guard, so retries count against the circuit and the bulkhead too
+    private <T> CompletableFuture<ResponseEntity<T>> call(IdaRoute route, Supplier<CompletableFuture<ResponseEntity<T>>> call) {
+        IdaRouteGuard guard = guards.get(route);
+        return route.isIdempotent() ? retryPolicy.executeAsync(() -> guard.call(call)) : guard.call(call);
+    }
+
+    private IdaEndpointGroup getEndpointGroup(IdaRoute route) {
+        IdaEndpointGroup endpointGroup = endpointGroups.get(route);
+        if(endpointGroup == null)
+            throw new IllegalStateException("No endpoints set for IDA route : " + route.getKey());
+        return endpointGroup;
+    }
+
+    private <T> CompletableFuture<ResponseEntity<T>> send(IdaEndpointGroup endpointGroup, Function<String, RequestEntity<?>> request,
+                                                          Function<RequestEntity<?>, CompletableFuture<ResponseEntity<T>>> transport) {
+        IdaEndpointGroup.Endpoint endpoint = endpointGroup.select();
+        long startNanos = System.nanoTime();
+        CompletableFuture<ResponseEntity<T>> future;
+        try {
+            future = transport.apply(request.apply(endpoint.getBaseUrl()));
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((responseEntity, e) ->
+                endpointGroup.onComplete(endpoint, System.nanoTime() - startNanos, responseEntity, e));
+    }
+
+    private <T> CompletableFuture<ResponseEntity<T>> send(IdaRoute route, RequestEntity<?> requestEntity,
+                                                          ParameterizedTypeReference<T> responseType) {
+        return asyncEnabled ? sendAsync(route, requestEntity, responseType.getType()) :
+                execute(() -> restTemplate.exchange(requestEntity, responseType));
+    }
+
+    private <T> CompletableFuture<ResponseEntity<T>> send(IdaRoute route, RequestEntity<?> requestEntity, Class<T> responseType) {
+        return asyncEnabled ? sendAsync(route, requestEntity, responseType) :
+                execute(() -> restTemplate.exchange(requestEntity, responseType));
+    }
+
+    private <T> CompletableFuture<ResponseEntity<T>> sendAsync(IdaRoute route, RequestEntity<?> requestEntity, Type responseType) {
+        HttpRequest.Builder requestBuilder;
+        try {
+            requestBuilder = toHttpRequest(requestEntity);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        ObjectReader reader = jsonCodec.reader(responseType);
+        return transports.get(route).send(requestBuilder)
+                .thenApply(httpResponse -> toResponseEntity(httpResponse, reader));
+    }
+
+    //a limit over the route's connections would only let calls through to be rejected for want of a connection
+    private int getConcurrencyLimitMax(IdaRoute route) {
+        int maxLimit = getSetting(route, "concurrency-limit.max-limit", Integer.class, concurrencyLimitMax);
+        if(!asyncEnabled)
+            return maxLimit;
+        int routeMaxConnections = getSetting(route, "max-connections", Integer.class, maxConnections);
+        if(maxLimit > routeMaxConnections) {
+            log.warn("IDA route {} concurrency max-limit {} is over its max-connections, capped at {}", route.getKey(),
+                    maxLimit, routeMaxConnections);
+            return routeMaxConnections;
+        }
+        return maxLimit;
+    }
+
+    private <T> T getSetting(IdaRoute route, String name, Class<T> type, T defaultValue) {
+        T value = environment.getProperty(PROPERTY_PREFIX + route.getKey() + "." + name, type);
+        return value != null ? value : defaultValue;
+    }
+
+    private void registerMetrics(IdaHttpTransport transport) {
+        Tags tags = Tags.of("route", transport.getRoute().getKey());
+        Gauge.builder("ida.http.connections.max", transport, IdaHttpTransport::getMaxConnections)
+                .tags(tags).description("Connections the route may open").register(meterRegistry);
+        Gauge.builder("ida.http.connections.active", transport, IdaHttpTransport::getActiveConnections)
+                .tags(tags).description("Connections carrying a request").register(meterRegistry);
+        FunctionCounter.builder("ida.http.connections.rejected", transport, IdaHttpTransport::getRejectedRequests)
+                .tags(tags).description("Requests rejected for want of a free connection").register(meterRegistry);
+    }
+
+    private void registerMetrics(IdaEndpointGroup endpointGroup) {
+        for(IdaEndpointGroup.Endpoint endpoint : endpointGroup.getEndpoints()) {
+            Tags tags = Tags.of("route", endpointGroup.getRoute().getKey(), "endpoint", endpoint.getProbeUri().getAuthority());
+            Gauge.builder("ida.endpoint.outstanding", endpoint, IdaEndpointGroup.Endpoint::getOutstanding)
+                    .tags(tags).description("Calls in flight to the endpoint").register(meterRegistry);
+            Gauge.builder("ida.endpoint.latency.ewma", endpoint, IdaEndpointGroup.Endpoint::getEwmaRttMillis)
+                    .tags(tags).description("Moving average round trip of the endpoint in milliseconds").register(meterRegistry);
+            Gauge.builder("ida.endpoint.ejected", endpoint, e -> e.isEjected() ? 1 : 0)
+                    .tags(tags).description("1 while the endpoint is ejected after failing").register(meterRegistry);
+        }
+    }
+
+    private void registerMetrics(RetryPolicy retryPolicy) {
+        FunctionCounter.builder("ida.retry.retries", retryPolicy, RetryPolicy::getRetries)
+                .description("Idempotent IDA calls retried").register(meterRegistry);
+        FunctionCounter.builder("ida.retry.budget.exhausted", retryPolicy.getBudget(), RetryBudget::getRejectedRetries)
+                .description("Retries not made because the retry budget was spent").register(meterRegistry);
+        Gauge.builder("ida.retry.budget.available", retryPolicy.getBudget(), RetryBudget::getAvailableRetries)
+                .description("Retries the budget still allows").register(meterRegistry);
+    }
+
+    private void registerMetrics(IdaRouteGuard guard) {
+        Tags tags = Tags.of("route", guard.getRoute().getKey());
+        CircuitBreaker circuitBreaker = guard.getCircuitBreaker();
+        for(CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            Gauge.builder("ida.circuitbreaker.state", circuitBreaker, breaker -> breaker.getState() == state ? 1 : 0)
+                    .tags(tags).tag("state", state.name().toLowerCase())
+                    .description("1 for the current state of the route's circuit").register(meterRegistry);
+        }
+        Gauge.builder("ida.circuitbreaker.failure.rate", circuitBreaker, CircuitBreaker::getFailureRate)
+                .tags(tags).description("Failure rate in percent over the sliding window, -1 until minimum calls")
+                .register(meterRegistry);
+        FunctionCounter.builder("ida.circuitbreaker.rejected", circuitBreaker, CircuitBreaker::getRejectedCalls)
+                .tags(tags).description("Calls rejected by the open circuit").register(meterRegistry);
+        Gauge.builder("ida.bulkhead.available", guard, IdaRouteGuard::getAvailableConcurrentCalls)
+                .tags(tags).description("Calls the route can still take").register(meterRegistry);
+        Gauge.builder("ida.bulkhead.max", guard, IdaRouteGuard::getMaxConcurrentCalls)
+                .tags(tags).description("Calls the route may have in flight").register(meterRegistry);
+        FunctionCounter.builder("ida.bulkhead.rejected", guard, IdaRouteGuard::getBulkheadRejectedCalls)
+                .tags(tags).description("Calls rejected by the full bulkhead").register(meterRegistry);
+        AdaptiveConcurrencyLimiter limiter = guard.getLimiter();
+        if(limiter == null)
+            return;
+        Gauge.builder("ida.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .tags(tags).description("Calls the route may have in flight, as learned from IDA latency").register(meterRegistry);
+        Gauge.builder("ida.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .tags(tags).description("Calls in flight counted against the concurrency limit").register(meterRegistry);
+        FunctionCounter.builder("ida.concurrency.rejected", limiter, AdaptiveConcurrencyLimiter::getRejectedCalls)
+                .tags(tags).description("Calls rejected over the concurrency limit").register(meterRegistry);
+    }
+
+    private HttpRequest.Builder toHttpRequest(RequestEntity<?> requestEntity) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(requestEntity.getUrl());
+        for(Map.Entry<String, List<String>> header : requestEntity.getHeaders().entrySet()) {
+            if(RESTRICTED_HEADERS.contains(header.getKey().toLowerCase()))
+                continue;
+            for(String value : header.getValue()) {
+                builder.header(header.getKey(), value);
+            }
+        }
+        String method = requestEntity.getMethod() == null ? "GET" : requestEntity.getMethod().name();
+        return builder.method(method, toBodyPublisher(requestEntity.getBody()));
+    }
+
+    private HttpRequest.BodyPublisher toBodyPublisher(Object body) throws IOException {
+        if(body == null)
+            return HttpRequest.BodyPublishers.noBody();
+        if(body instanceof byte[])
+            return HttpRequest.BodyPublishers.ofByteArray((byte[]) body);
+        if(body instanceof String)
+            return HttpRequest.BodyPublishers.ofString((String) body, StandardCharsets.UTF_8);
+        return HttpRequest.BodyPublishers.ofByteArray(jsonCodec.writer(body.getClass()).writeValueAsBytes(body));
+    }
+
+    private <T> ResponseEntity<T> toResponseEntity(HttpResponse<byte[]> httpResponse, ObjectReader reader) {
+        MultiValueMap<String, String> headers = new LinkedMultiValueMap<>();
+        httpResponse.headers().map().forEach(headers::put);
+        HttpStatus status = HttpStatus.resolve(httpResponse.statusCode());
+        byte[] body = httpResponse.body();
+        //as RestTemplate does, a status outside HttpStatus, e.g. from a proxy, fails the call
+        if(status == null) {
+            log.error("IDA request to {} failed with unknown status : {}", httpResponse.uri(), httpResponse.statusCode());
+            throw new UnknownHttpStatusCodeException(httpResponse.statusCode(), "", new HttpHeaders(headers), body,
+                    StandardCharsets.UTF_8);
+        }
+        if(!status.is2xxSuccessful() || body == null || body.length == 0) {
+            if(status.isError())
+                log.error("IDA request to {} failed with status : {}", httpResponse.uri(), status);
+            return new ResponseEntity<>(new HttpHeaders(headers), status);
+        }
+        try {
+            return new ResponseEntity<>(reader.readValue(body), new HttpHeaders(headers), status);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Adapts a response handler that throws checked exceptions for use in thenApply, the exception is
+     * carried as the cause of a CompletionException.
+     */
+    public static <T, R> Function<T, R> unchecked(ResponseHandler<T, R> handler) {
+        return value -> {
+            try {
+                return handler.handle(value);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        };
+    }
+
+    /**
+     * Waits for the future and rethrows its failure as thrown by the stage that raised it, unchecked
+     * exceptions and exceptions of the given type are unwrapped.
+     */
+    public static <T, E extends Exception> T await(CompletableFuture<T> future, Class<E> failureType) throws E {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if(failureType.isInstance(cause))
+                throw failureType.cast(cause);
+            if(cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if(cause instanceof Error)
+                throw (Error) cause;
+            throw e;
+        }
+    }
+
+    public static Throwable unwrap(Throwable throwable) {
+        while (throwable instanceof CompletionException && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        return throwable;
+    }
+
+    @FunctionalInterface
+    public interface ResponseHandler<T, R> {
+        R handle(T value) throws Exception;
+    }
+
+    private static <T> CompletableFuture<ResponseEntity<T>> execute(Supplier<ResponseEntity<T>> call) {
+        try {
+            return CompletableFuture.completedFuture(call.get());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
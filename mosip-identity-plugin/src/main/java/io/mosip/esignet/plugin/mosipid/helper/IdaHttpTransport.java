@@ -0,0 +1,75 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection pool of one IDA route. Each route owns a separate HttpClient and with it a separate set of
+ * keep-alive connections. Over HTTP/1.1 a connection carries one request at a time, so capping the
+ * requests in flight caps the connections the route opens; over HTTP/2 the cap applies to streams.
+ * A request that finds no free connection is rejected straight away with {@link IdaCallRejectedException}, the
+ * calling thread never waits for one.
+ */
+final class IdaHttpTransport {
+
+    private final IdaRoute route;
+    private final HttpClient httpClient;
+    private final int maxConnections;
+    private final Semaphore connections;
+    private final Duration requestTimeout;
+    private final LongAdder rejected = new LongAdder();
+
+    IdaHttpTransport(IdaRoute route, int maxConnections, long connectTimeoutMs, long requestTimeoutMs,
+                     boolean http2Enabled) {
+        this.route = route;
+        this.maxConnections = maxConnections;
+        this.connections = new Semaphore(maxConnections);
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.httpClient = HttpClient.newBuilder()
+                .version(http2Enabled ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+    }
+
+    CompletableFuture<HttpResponse<byte[]>> send(HttpRequest.Builder requestBuilder) {
+        if(!connections.tryAcquire()) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(new IdaCallRejectedException(route, IdaCallRejectedException.Kind.NO_FREE_CONNECTION));
+        }
+
+        try {
+            //the body is read in full before completion, so the connection is back in the pool on release
+            return httpClient.sendAsync(requestBuilder.timeout(requestTimeout).build(), HttpResponse.BodyHandlers.ofByteArray())
+                    .whenComplete((response, e) -> connections.release());
+        } catch (RuntimeException e) {
+            connections.release();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    IdaRoute getRoute() {
+        return route;
+    }
+
+    int getMaxConnections() {
+        return maxConnections;
+    }
+
+    int getActiveConnections() {
+        return maxConnections - connections.availablePermits();
+    }
+
+    long getRejectedRequests() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+/**
+ * IDA endpoints that get a transport of their own, so that a slow or saturated endpoint cannot hold the
+ * connections the others need. The key names the route in configuration and metric tags. Only idempotent
+ * routes are retried by the client.
+ */
+public enum IdaRoute {
+
+    KYC_AUTH("kyc-auth", false),
+    KYC_EXCHANGE("kyc-exchange", false),
+    SEND_OTP("send-otp", false),
+    KEY_BINDING("key-binding", false),
+    CERTIFICATE("certificate", true),
+    AUDIT("audit", false);
+
+    private final String key;
+    private final boolean idempotent;
+
+    IdaRoute(String key, boolean idempotent) {
+        this.key = key;
+        this.idempotent = idempotent;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+}
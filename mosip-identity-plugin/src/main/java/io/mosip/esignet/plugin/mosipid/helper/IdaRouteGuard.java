@@ -0,0 +1,128 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker and bulkhead of one IDA route. The bulkhead caps the calls in flight on the route and
+ * rejects the excess straight away instead of queueing it, so a slow IDA cannot hold more than its share
+ * of request threads. Transport failures and 5xx responses count as failures, 4xx responses do not. Calls
+ * rejected below the guard, e.g. for want of a free connection, never reached IDA and are not counted at all.
+ * Below the bulkhead, an optional {@link AdaptiveConcurrencyLimiter} keeps the calls in flight to what IDA
+ * currently sustains, judged by the round trip of the calls.
+ */
+final class IdaRouteGuard {
+
+    private final IdaRoute route;
+    private final CircuitBreaker circuitBreaker;
+    private final int maxConcurrentCalls;
+    private final Semaphore bulkhead;
+    private final LongAdder bulkheadRejected = new LongAdder();
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    IdaRouteGuard(IdaRoute route, CircuitBreaker circuitBreaker, int maxConcurrentCalls) {
+        this(route, circuitBreaker, maxConcurrentCalls, null);
+    }
+
+    IdaRouteGuard(IdaRoute route, CircuitBreaker circuitBreaker, int maxConcurrentCalls, AdaptiveConcurrencyLimiter limiter) {
+        this.route = route;
+        this.circuitBreaker = circuitBreaker;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.limiter = limiter;
+    }
+
+    <T> CompletableFuture<ResponseEntity<T>> call(Supplier<CompletableFuture<ResponseEntity<T>>> call) {
+        if(!bulkhead.tryAcquire()) {
+            bulkheadRejected.increment();
+            return CompletableFuture.failedFuture(new IdaCallRejectedException(route, IdaCallRejectedException.Kind.BULKHEAD_FULL));
+        }
+        int inFlight = limiter == null ? 0 : limiter.tryAcquire();
+        if(inFlight < 0) {
+            bulkhead.release();
+            return CompletableFuture.failedFuture(new IdaCallRejectedException(route,
+                    IdaCallRejectedException.Kind.CONCURRENCY_LIMIT));
+        }
+        if(!circuitBreaker.tryAcquire()) {
+            bulkhead.release();
+            if(limiter != null)
+                limiter.onIgnore();
+            return CompletableFuture.failedFuture(new IdaCallRejectedException(route, IdaCallRejectedException.Kind.CIRCUIT_OPEN));
+        }
+
+        long startNanos = System.nanoTime();
+        CompletableFuture<ResponseEntity<T>> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((responseEntity, e) -> {
+            bulkhead.release();
+            if(IdaHttpClient.unwrap(e) instanceof IdaCallRejectedException) {
+                if(limiter != null)
+                    limiter.onIgnore();
+                circuitBreaker.onIgnore();
+                return;
+            }
+            if(limiter != null)
+                limiter.onSample(System.nanoTime() - startNanos, inFlight, isDropped(responseEntity, e));
+            if(isFailure(responseEntity, e))
+                circuitBreaker.onFailure();
+            else
+                circuitBreaker.onSuccess();
+        });
+    }
+
+    //signs of an overloaded upstream, as opposed to a slow but working one
+    private static boolean isDropped(ResponseEntity<?> responseEntity, Throwable e) {
+        if(e != null)
+            return !(IdaHttpClient.unwrap(e) instanceof HttpClientErrorException);
+        if(responseEntity == null)
+            return true;
+        HttpStatus status = responseEntity.getStatusCode();
+        return status == HttpStatus.TOO_MANY_REQUESTS || status == HttpStatus.SERVICE_UNAVAILABLE ||
+                status == HttpStatus.GATEWAY_TIMEOUT;
+    }
+
+    private static boolean isFailure(ResponseEntity<?> responseEntity, Throwable e) {
+        if(e != null)
+            return !(IdaHttpClient.unwrap(e) instanceof HttpClientErrorException);
+        return responseEntity == null || responseEntity.getStatusCode().is5xxServerError();
+    }
+
+    IdaRoute getRoute() {
+        return route;
+    }
+
+    CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    int getAvailableConcurrentCalls() {
+        return bulkhead.availablePermits();
+    }
+
+    int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    long getBulkheadRejectedCalls() {
+        return bulkheadRejected.sum();
+    }
+
+    AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+}
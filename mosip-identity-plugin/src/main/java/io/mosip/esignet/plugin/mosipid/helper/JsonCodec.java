@@ -0,0 +1,139 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerBuilder;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.module.afterburner.deser.DeserializerModifier;
+import com.fasterxml.jackson.module.afterburner.ser.SerializerModifier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JSON binding for the plugin's IDA and ID-repo DTOs. Works on a copy of the application ObjectMapper so
+ * its settings are kept, resolves an ObjectReader / ObjectWriter once per type, and replaces reflective
+ * property access with generated accessors for the classes in the configured DTO packages.
+ */
+@Component
+@Slf4j
+public class JsonCodec {
+
+    @Value("${mosip.esignet.authenticator.ida.json.bytecode-accessors.enabled:true}")
+    private boolean bytecodeAccessorsEnabled;
+
+    @Value("${mosip.esignet.authenticator.ida.json.bytecode-accessors.packages:io.mosip.esignet.plugin.mosipid.dto,io.mosip.signup.plugin.mosipid.dto}")
+    private List<String> bytecodeAccessorPackages;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ObjectMapper mapper;
+    private final Map<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Type, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        mapper = objectMapper.copy();
+        if(bytecodeAccessorsEnabled)
+            mapper.registerModule(new BytecodeAccessorModule(bytecodeAccessorPackages));
+        log.info("Initialized json codec with bytecode accessors enabled : {} for packages : {}",
+                bytecodeAccessorsEnabled, bytecodeAccessorPackages);
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return mapper;
+    }
+
+    public JavaType constructType(Type type) {
+        return mapper.getTypeFactory().constructType(type);
+    }
+
+    public ObjectReader reader(Type type) {
+        return readers.computeIfAbsent(type, key -> mapper.readerFor(constructType(key)));
+    }
+
+    public ObjectReader reader(ParameterizedTypeReference<?> typeReference) {
+        return reader(typeReference.getType());
+    }
+
+    public ObjectWriter writer(Type type) {
+        return writers.computeIfAbsent(type, key -> mapper.writerFor(constructType(key)));
+    }
+
+    /**
+     * Afterburner's serializer and deserializer modifiers, applied only to beans declared in one of the
+     * given packages. Types from esignet and kernel keep the default binding.
+     */
+    static final class BytecodeAccessorModule extends Module {
+
+        private final List<String> packages;
+
+        BytecodeAccessorModule(List<String> packages) {
+            this.packages = packages;
+        }
+
+        @Override
+        public String getModuleName() {
+            return getClass().getSimpleName();
+        }
+
+        @Override
+        public Version version() {
+            return Version.unknownVersion();
+        }
+
+        @Override
+        public void setupModule(SetupContext context) {
+            //null class loader defines each accessor next to the bean it reads
+            SerializerModifier serializerModifier = new SerializerModifier(null);
+            DeserializerModifier deserializerModifier = new DeserializerModifier(null, true);
+            context.addBeanSerializerModifier(new BeanSerializerModifier() {
+                @Override
+                public List<BeanPropertyWriter> changeProperties(SerializationConfig config, BeanDescription beanDesc,
+                                                                 List<BeanPropertyWriter> beanProperties) {
+                    return isInScope(beanDesc) ? serializerModifier.changeProperties(config, beanDesc, beanProperties) :
+                            beanProperties;
+                }
+            });
+            context.addBeanDeserializerModifier(new BeanDeserializerModifier() {
+                @Override
+                public BeanDeserializerBuilder updateBuilder(DeserializationConfig config, BeanDescription beanDesc,
+                                                             BeanDeserializerBuilder builder) {
+                    return isInScope(beanDesc) ? deserializerModifier.updateBuilder(config, beanDesc, builder) : builder;
+                }
+            });
+        }
+
+        private boolean isInScope(BeanDescription beanDesc) {
+            String className = beanDesc.getBeanClass().getName();
+            for(String packageName : packages) {
+                if(className.startsWith(packageName + "."))
+                    return true;
+            }
+            return false;
+        }
+    }
+}
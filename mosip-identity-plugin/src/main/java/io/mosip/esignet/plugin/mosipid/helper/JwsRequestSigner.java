@@ -0,0 +1,170 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import io.mosip.kernel.core.keymanager.model.CertificateEntry;
+import io.mosip.kernel.core.util.DateUtils;
+import io.mosip.kernel.keymanagerservice.dto.SignatureCertificate;
+import io.mosip.kernel.keymanagerservice.service.KeymanagerService;
+import io.mosip.kernel.keymanagerservice.util.KeymanagerUtil;
+import io.mosip.kernel.signature.util.SignatureUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.jose4j.jca.ProviderContext;
+import org.jose4j.jwa.AlgorithmFactoryFactory;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jws.JsonWebSignatureAlgorithm;
+import org.jose4j.lang.JoseException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Produces the same detached JWS as keymanager's jwtSign (x5c, kid and alg headers in that order)
+ * without resolving the signing key through keymanager on every request. The key, certificate and
+ * encoded protected header are loaded once and re-resolved periodically to pick up key rotation.
+ */
+@Component
+@Slf4j
+public class JwsRequestSigner {
+
+    private static final ProviderContext PROVIDER_CONTEXT = new ProviderContext();
+    private static final Base64.Encoder urlSafeEncoder = Base64.getUrlEncoder().withoutPadding();
+
+    @Value("${mosip.esignet.authenticator.ida.in-process-signing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mosip.esignet.authenticator.ida.in-process-signing.key-check-interval-seconds:300}")
+    private long keyCheckIntervalSeconds;
+
+    @Value("${mosip.kernel.crypto.sign-algorithm-name:RS256}")
+    private String signAlgorithm;
+
+    @Value("${mosip.kernel.keymanager.jwtsign.include.keyid:true}")
+    private boolean includeKeyId;
+
+    @Autowired
+    private KeymanagerService keymanagerService;
+
+    @Autowired
+    private KeymanagerUtil keymanagerUtil;
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private volatile SigningKey signingKey;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Signs the request with the current key of the given application.
+     * @param applicationId keymanager application id
+     * @param referenceId keymanager reference id
+     * @param request payload to sign, not included in the output
+     * @return detached compact serialization, header..signature
+     */
+    public String sign(String applicationId, String referenceId, String request) throws JoseException {
+        return sign(applicationId, referenceId, request.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param request UTF-8 encoded payload to sign, not included in the output
+     */
+    public String sign(String applicationId, String referenceId, byte[] request) throws JoseException {
+        SigningKey key = getSigningKey(applicationId, referenceId);
+        String signingInput = key.encodedHeader + "." + urlSafeEncoder.encodeToString(request);
+        byte[] signature = key.algorithm.sign(key.privateKey, signingInput.getBytes(StandardCharsets.US_ASCII), PROVIDER_CONTEXT);
+        return key.encodedHeader + ".." + urlSafeEncoder.encodeToString(signature);
+    }
+
+    /**
+     * Drops the cached key, next sign call resolves it again from keymanager.
+     */
+    public void reset() {
+        signingKey = null;
+    }
+
+    private SigningKey getSigningKey(String applicationId, String referenceId) throws JoseException {
+        SigningKey key = signingKey;
+        long now = System.currentTimeMillis();
+        if(key != null && key.matches(applicationId, referenceId) && now < key.nextCheckAt)
+            return key;
+
+        if(key != null && key.matches(applicationId, referenceId) && now < key.notAfter) {
+            //Another thread is already reloading, keep signing with the current key while it is still valid
+            if(!reloadLock.tryLock())
+                return key;
+        }
+        else
+            reloadLock.lock();
+
+        try {
+            key = signingKey;
+            if(key != null && key.matches(applicationId, referenceId) && System.currentTimeMillis() < key.nextCheckAt)
+                return key;
+
+            key = loadSigningKey(applicationId, referenceId);
+            signingKey = key;
+            return key;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private SigningKey loadSigningKey(String applicationId, String referenceId) throws JoseException {
+        SignatureCertificate certificate = keymanagerService.getSignatureCertificate(applicationId,
+                Optional.of(referenceId), DateUtils.getUTCCurrentDateTimeString());
+        CertificateEntry<X509Certificate, PrivateKey> certificateEntry = certificate.getCertificateEntry();
+        keymanagerUtil.isCertificateValid(certificateEntry, DateUtils.parseUTCToDate(DateUtils.getUTCCurrentDateTimeString()));
+
+        X509Certificate x509Certificate = certificateEntry.getChain()[0];
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setCertificateChainHeaderValue(x509Certificate);
+        if(includeKeyId && certificate.getUniqueIdentifier() != null)
+            jws.setKeyIdHeaderValue(SignatureUtil.convertHexToBase64(certificate.getUniqueIdentifier()));
+        jws.setAlgorithmHeaderValue(signAlgorithm);
+
+        JsonWebSignatureAlgorithm algorithm = AlgorithmFactoryFactory.getInstance().getJwsAlgorithmFactory()
+                .getAlgorithm(signAlgorithm);
+        long notAfter = x509Certificate.getNotAfter().getTime();
+        long nextCheckAt = Math.min(notAfter, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(keyCheckIntervalSeconds));
+        log.info("Loaded signing key for {} with alias : {}", applicationId, certificate.getAlias());
+        return new SigningKey(applicationId, referenceId, certificateEntry.getPrivateKey(), algorithm,
+                jws.getHeaders().getEncodedHeader(), notAfter, nextCheckAt);
+    }
+
+    private static final class SigningKey {
+        private final String applicationId;
+        private final String referenceId;
+        private final PrivateKey privateKey;
+        private final JsonWebSignatureAlgorithm algorithm;
+        private final String encodedHeader;
+        private final long notAfter;
+        private final long nextCheckAt;
+
+        private SigningKey(String applicationId, String referenceId, PrivateKey privateKey, JsonWebSignatureAlgorithm algorithm,
+                           String encodedHeader, long notAfter, long nextCheckAt) {
+            this.applicationId = applicationId;
+            this.referenceId = referenceId;
+            this.privateKey = privateKey;
+            this.algorithm = algorithm;
+            this.encodedHeader = encodedHeader;
+            this.notAfter = notAfter;
+            this.nextCheckAt = nextCheckAt;
+        }
+
+        private boolean matches(String applicationId, String referenceId) {
+            return this.applicationId.equals(applicationId) && this.referenceId.equals(referenceId);
+        }
+    }
+}
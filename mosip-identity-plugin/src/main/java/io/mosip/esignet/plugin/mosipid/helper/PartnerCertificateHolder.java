@@ -0,0 +1,212 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import io.mosip.esignet.api.exception.KycAuthException;
+import io.mosip.esignet.plugin.mosipid.service.HelperService;
+import io.mosip.kernel.keymanagerservice.util.KeymanagerUtil;
+import io.mosip.kernel.partnercertservice.util.PartnerCertificateManagerUtil;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.URI;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the IDA partner certificate along with its public key and SHA-256 thumbprint.
+ * Concurrent misses share a single in-flight download, and the certificate is refreshed
+ * in the background ahead of its expiry. At most one background refresh is scheduled, each
+ * download replaces it.
+ */
+@Component
+@Slf4j
+public class PartnerCertificateHolder {
+
+    @Value("${mosip.esignet.authenticator.ida.cert-url}")
+    private String idaPartnerCertificateUrl;
+
+    @Value("${mosip.esignet.authenticator.ida.cert-refresh-ahead-seconds:86400}")
+    private long refreshAheadSeconds;
+
+    @Value("${mosip.esignet.authenticator.ida.cert-refresh-retry-seconds:300}")
+    private long refreshRetrySeconds;
+
+    @Autowired
+    private KeymanagerUtil keymanagerUtil;
+
+    @Autowired
+    private IdaHttpClient idaHttpClient;
+
+    private final AtomicReference<CompletableFuture<CertificateSnapshot>> inFlight = new AtomicReference<>();
+    private volatile CertificateSnapshot current;
+    private ScheduledThreadPoolExecutor scheduler;
+    //guarded by this
+    private ScheduledFuture<?> scheduledRefresh;
+
+    @PostConstruct
+    public void init() {
+        scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "ida-partner-cert-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if(scheduler != null)
+            scheduler.shutdownNow();
+    }
+
+    public CertificateSnapshot getSnapshot() throws KycAuthException {
+        CertificateSnapshot snapshot = current;
+        if(snapshot != null && snapshot.isValid())
+            return snapshot;
+
+        snapshot = refresh();
+        if(snapshot.isValid())
+            return snapshot;
+
+        log.info("PARTNER CERTIFICATE IS NOT VALID, Downloading the certificate again");
+        snapshot = refresh();
+        if(snapshot.isValid())
+            return snapshot;
+
+        throw new KycAuthException(HelperService.INVALID_PARTNER_CERTIFICATE);
+    }
+
+    public Certificate getCertificate() throws KycAuthException {
+        return getSnapshot().getCertificate();
+    }
+
+    private CertificateSnapshot refresh() throws KycAuthException {
+        CompletableFuture<CertificateSnapshot> future = new CompletableFuture<>();
+        CompletableFuture<CertificateSnapshot> existing = inFlight.compareAndExchange(null, future);
+        if(existing != null)
+            return await(existing);
+
+        try {
+            CertificateSnapshot snapshot = download();
+            current = snapshot;
+            scheduleRefresh(snapshot);
+            future.complete(snapshot);
+            return snapshot;
+        } catch (RuntimeException e) {
+            log.error("Failed to download IDA partner certificate", e);
+            KycAuthException exception = new KycAuthException(HelperService.INVALID_PARTNER_CERTIFICATE);
+            future.completeExceptionally(exception);
+            throw exception;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    private CertificateSnapshot download() {
+        log.info("Fetching IDA partner certificate from : {}", idaPartnerCertificateUrl);
+        ResponseEntity<String> responseEntity = IdaHttpClient.await(idaHttpClient.exchange(IdaRoute.CERTIFICATE,
+                RequestEntity.get(URI.create(idaPartnerCertificateUrl)).build(), String.class), RuntimeException.class);
+        if(!responseEntity.getStatusCode().is2xxSuccessful() || responseEntity.getBody() == null)
+            throw new IllegalStateException("IDA partner certificate download failed with status : " +
+                    responseEntity.getStatusCode());
+        Certificate certificate = keymanagerUtil.convertToCertificate(responseEntity.getBody());
+        return new CertificateSnapshot((X509Certificate) certificate);
+    }
+
+    //replaces the scheduled refresh, if any, so that only one is ever pending
+    private synchronized void scheduleRefresh(CertificateSnapshot snapshot) {
+        if(scheduledRefresh != null)
+            scheduledRefresh.cancel(false);
+        scheduledRefresh = null;
+        if(scheduler == null || scheduler.isShutdown())
+            return;
+
+        long expiresInMillis = snapshot.getCertificate().getNotAfter().getTime() - System.currentTimeMillis();
+        if(expiresInMillis <= 0)
+            return;
+
+        long delayMillis = Math.max(expiresInMillis - TimeUnit.SECONDS.toMillis(refreshAheadSeconds),
+                TimeUnit.SECONDS.toMillis(refreshRetrySeconds));
+        if(delayMillis >= expiresInMillis)
+            return;
+
+        log.debug("Scheduled IDA partner certificate refresh in {} ms", delayMillis);
+        scheduledRefresh = scheduler.schedule(this::refreshAhead, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void refreshAhead() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("Failed to refresh IDA partner certificate ahead of expiry", e);
+            CertificateSnapshot snapshot = current;
+            if(snapshot != null)
+                scheduleRefresh(snapshot);
+        }
+    }
+
+    //the downloading caller has logged the failure
+    private static CertificateSnapshot await(CompletableFuture<CertificateSnapshot> future) throws KycAuthException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KycAuthException(HelperService.INVALID_PARTNER_CERTIFICATE);
+        } catch (ExecutionException e) {
+            throw new KycAuthException(HelperService.INVALID_PARTNER_CERTIFICATE);
+        }
+    }
+
+    @Getter
+    public static final class CertificateSnapshot {
+        private final X509Certificate certificate;
+        private final PublicKey publicKey;
+        private final byte[] thumbprint;
+        private final String encodedThumbprint;
+
+        CertificateSnapshot(X509Certificate certificate) {
+            this.certificate = certificate;
+            this.publicKey = certificate.getPublicKey();
+            this.thumbprint = getCertificateThumbprint(certificate);
+            this.encodedThumbprint = Base64.getUrlEncoder().withoutPadding().encodeToString(thumbprint);
+        }
+
+        public byte[] getThumbprint() {
+            return thumbprint.clone();
+        }
+
+        boolean isValid() {
+            return PartnerCertificateManagerUtil.isCertificateDatesValid(certificate);
+        }
+
+        private static byte[] getCertificateThumbprint(Certificate certificate) {
+            try {
+                return CryptoPrimitives.digest(CryptoPrimitives.SHA_256, certificate.getEncoded());
+            } catch (CertificateEncodingException | NoSuchAlgorithmException e) {
+                log.error("Failed to get cert thumbprint", e);
+            }
+            return new byte[]{};
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Already validated UTF-8 encoded JSON, written verbatim by the generator when wrapped in a RawValue.
+ * Only the unquoted UTF-8 methods are on the write path, the others decode lazily.
+ */
+public final class RawJsonBytes implements SerializableString {
+
+    private final byte[] json;
+    private volatile String value;
+
+    public RawJsonBytes(byte[] json) {
+        this.json = json;
+    }
+
+    @Override
+    public String getValue() {
+        String str = value;
+        if(str == null) {
+            str = new String(json, StandardCharsets.UTF_8);
+            value = str;
+        }
+        return str;
+    }
+
+    @Override
+    public int charLength() {
+        return getValue().length();
+    }
+
+    @Override
+    public char[] asQuotedChars() {
+        return quoted().asQuotedChars();
+    }
+
+    @Override
+    public byte[] asUnquotedUTF8() {
+        return json;
+    }
+
+    @Override
+    public byte[] asQuotedUTF8() {
+        return quoted().asQuotedUTF8();
+    }
+
+    @Override
+    public int appendQuotedUTF8(byte[] buffer, int offset) {
+        return quoted().appendQuotedUTF8(buffer, offset);
+    }
+
+    @Override
+    public int appendQuoted(char[] buffer, int offset) {
+        return quoted().appendQuoted(buffer, offset);
+    }
+
+    @Override
+    public int appendUnquotedUTF8(byte[] buffer, int offset) {
+        if(offset + json.length > buffer.length)
+            return -1;
+        System.arraycopy(json, 0, buffer, offset, json.length);
+        return json.length;
+    }
+
+    @Override
+    public int appendUnquoted(char[] buffer, int offset) {
+        return quoted().appendUnquoted(buffer, offset);
+    }
+
+    @Override
+    public int writeQuotedUTF8(OutputStream out) throws IOException {
+        return quoted().writeQuotedUTF8(out);
+    }
+
+    @Override
+    public int writeUnquotedUTF8(OutputStream out) throws IOException {
+        out.write(json);
+        return json.length;
+    }
+
+    @Override
+    public int putQuotedUTF8(ByteBuffer buffer) throws IOException {
+        return quoted().putQuotedUTF8(buffer);
+    }
+
+    @Override
+    public int putUnquotedUTF8(ByteBuffer buffer) throws IOException {
+        if(json.length > buffer.remaining())
+            return -1;
+        buffer.put(json);
+        return json.length;
+    }
+
+    @Override
+    public String toString() {
+        return getValue();
+    }
+
+    private SerializedString quoted() {
+        return new SerializedString(getValue());
+    }
+}
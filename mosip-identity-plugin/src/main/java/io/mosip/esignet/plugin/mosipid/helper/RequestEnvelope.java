@@ -0,0 +1,99 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.util.NameTransformer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Request body template for one IDA operation. Fields that never change between requests (id, version,
+ * domainUri, env) are encoded to JSON once; each request only writes the current requestTime and the
+ * non-null fields of the request DTO after them. The static fields and requestTime must be left unset
+ * on the DTO, which relies on NON_NULL inclusion to leave them out.
+ */
+public final class RequestEnvelope {
+
+    private static final SerializedString REQUEST_TIME = new SerializedString("requestTime");
+
+    private final ObjectMapper objectMapper;
+    private final SerializableString staticFields;
+    private final JsonSerializer<Object> requestSerializer;
+
+    private RequestEnvelope(ObjectMapper objectMapper, SerializableString staticFields, JsonSerializer<Object> requestSerializer) {
+        this.objectMapper = objectMapper;
+        this.staticFields = staticFields;
+        this.requestSerializer = requestSerializer;
+    }
+
+    public static Builder builder(ObjectMapper objectMapper, Class<?> requestType) {
+        return new Builder(objectMapper, requestType);
+    }
+
+    /**
+     * @return UTF-8 encoded request body
+     */
+    public byte[] write(Object request) throws IOException {
+        SerializerProvider provider = objectMapper.getSerializerProviderInstance();
+        try (ByteArrayBuilder builder = new ByteArrayBuilder(objectMapper.getFactory()._getBufferRecycler())) {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(builder, JsonEncoding.UTF8)) {
+                generator.writeStartObject();
+                //the template ends with a separator, so requestTime is written as if it were the first field
+                generator.writeRaw(staticFields);
+                generator.writeFieldName(REQUEST_TIME);
+                generator.writeString(UtcDateTimeClock.now());
+                requestSerializer.serialize(request, generator, provider);
+                generator.writeEndObject();
+            }
+            byte[] body = builder.toByteArray();
+            //close does not hand the block back to the recycler
+            builder.release();
+            return body;
+        }
+    }
+
+    public static final class Builder {
+        private final ObjectMapper objectMapper;
+        private final Class<?> requestType;
+        private final ByteArrayOutputStream fragment = new ByteArrayOutputStream();
+
+        private Builder(ObjectMapper objectMapper, Class<?> requestType) {
+            this.objectMapper = objectMapper;
+            this.requestType = requestType;
+        }
+
+        /**
+         * Adds a static field to the template, fields with null value are left out.
+         */
+        public Builder field(String name, Object value) throws IOException {
+            if(value == null)
+                return this;
+            fragment.write('"');
+            fragment.write(new SerializedString(name).asQuotedUTF8());
+            fragment.write('"');
+            fragment.write(':');
+            fragment.write(objectMapper.writeValueAsBytes(value));
+            fragment.write(',');
+            return this;
+        }
+
+        public RequestEnvelope build() throws IOException {
+            JsonSerializer<Object> serializer = objectMapper.getSerializerProviderInstance()
+                    .findValueSerializer(requestType)
+                    .unwrappingSerializer(NameTransformer.NOP);
+            return new RequestEnvelope(objectMapper, new RawJsonBytes(fragment.toByteArray()), serializer);
+        }
+    }
+}
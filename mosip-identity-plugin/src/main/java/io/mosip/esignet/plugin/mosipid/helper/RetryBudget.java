@@ -0,0 +1,74 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Caps retries to a share of the calls made. Every call deposits ratio tokens and every retry takes one,
+ * on top of a trickle of minRetriesPerSecond so that a quiet service can still retry. While the upstream is
+ * down the calls fail and the bucket drains, so retries add at most ratio to the load instead of multiplying it.
+ */
+public final class RetryBudget {
+
+    private final double ratio;
+    private final double minRetriesPerSecond;
+    private final double maxTokens;
+    private final LongSupplier nanoClock;
+
+    private double tokens;
+    private long refilledAt;
+
+    private final LongAdder rejected = new LongAdder();
+
+    public RetryBudget(double ratio, int minRetriesPerSecond) {
+        this(ratio, minRetriesPerSecond, System::nanoTime);
+    }
+
+    RetryBudget(double ratio, int minRetriesPerSecond, LongSupplier nanoClock) {
+        this.ratio = ratio;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+        //ten seconds worth of the floor, enough to absorb a burst without saving up for an outage
+        this.maxTokens = Math.max(10, minRetriesPerSecond * 10);
+        this.nanoClock = nanoClock;
+        this.tokens = maxTokens;
+        this.refilledAt = nanoClock.getAsLong();
+    }
+
+    synchronized void onCall() {
+        refill();
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    /**
+     * @return true if a retry may be made, false once the budget is spent
+     */
+    synchronized boolean tryRetry() {
+        refill();
+        if(tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(maxTokens, tokens + (now - refilledAt) / 1e9 * minRetriesPerSecond);
+        refilledAt = now;
+    }
+
+    synchronized double getAvailableRetries() {
+        refill();
+        return tokens;
+    }
+
+    long getRejectedRetries() {
+        return rejected.sum();
+    }
+}
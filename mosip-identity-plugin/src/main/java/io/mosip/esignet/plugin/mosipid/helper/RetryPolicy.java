@@ -0,0 +1,151 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Retries idempotent calls that failed on the way to or from the upstream: I/O errors and 502, 503 and 504
+ * responses. Waits a random time between zero and an exponentially growing backoff before each retry
+ * (full jitter), and only retries while the shared {@link RetryBudget} allows it. Calls rejected locally
+ * by an open circuit or a full bulkhead are not retried.
+ * Only use it for calls that can safely be made twice, never for send-otp, kyc-auth or writes.
+ */
+@Slf4j
+public final class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final RetryBudget budget;
+
+    private final LongAdder retries = new LongAdder();
+
+    public RetryPolicy(int maxAttempts, long initialBackoffMs, long maxBackoffMs, RetryBudget budget) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.budget = budget;
+    }
+
+    /**
+     * Makes the blocking call, retrying it on the calling thread.
+     */
+    public <T> T execute(Supplier<T> call) {
+        CompletableFuture<T> future = executeAsync(() -> {
+            try {
+                return CompletableFuture.completedFuture(call.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Makes the call, retrying it once its future fails or completes with a retryable response. Calls that
+     * complete before returning are blocking calls and wait out the backoff on the calling thread.
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> call) {
+        budget.onCall();
+        return attempt(call, 1);
+    }
+
+    private <T> CompletableFuture<T> attempt(Supplier<CompletableFuture<T>> call, int attempt) {
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+
+        if(future.isDone()) {
+            if(!future.handle((result, e) -> shouldRetry(result, e, attempt)).join())
+                return future;
+            try {
+                Thread.sleep(backoffMs(attempt));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return future;
+            }
+            return attempt(call, attempt + 1);
+        }
+
+        CompletableFuture<T> pending = future;
+        return future.handle((result, e) -> shouldRetry(result, e, attempt) ?
+                CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(backoffMs(attempt), TimeUnit.MILLISECONDS))
+                        .thenCompose(ignored -> attempt(call, attempt + 1)) :
+                pending).thenCompose(Function.identity());
+    }
+
+    private boolean shouldRetry(Object result, Throwable e, int attempt) {
+        if(attempt >= maxAttempts || !(e != null ? isRetryable(e) : isRetryable(result)))
+            return false;
+        if(!budget.tryRetry()) {
+            log.warn("Retry budget exhausted, not retrying failed call after attempt {}", attempt);
+            return false;
+        }
+        retries.increment();
+        log.debug("Retrying failed call, attempt {} of {}", attempt + 1, maxAttempts);
+        return true;
+    }
+
+    /**
+     * @return a random wait up to initialBackoffMs * 2^(attempt - 1), capped at maxBackoffMs
+     */
+    long backoffMs(int attempt) {
+        long ceiling = initialBackoffMs << Math.min(attempt - 1, 30);
+        if(ceiling <= 0 || ceiling > maxBackoffMs)
+            ceiling = maxBackoffMs;
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    public static boolean isRetryable(Throwable e) {
+        Throwable cause = IdaHttpClient.unwrap(e);
+        if(cause instanceof IdaCallRejectedException || cause instanceof JsonProcessingException)
+            return false;
+        if(cause instanceof ResourceAccessException || cause instanceof IOException)
+            return true;
+        return cause instanceof HttpServerErrorException && isRetryable(((HttpServerErrorException) cause).getStatusCode());
+    }
+
+    private static boolean isRetryable(Object result) {
+        return result instanceof ResponseEntity && isRetryable(((ResponseEntity<?>) result).getStatusCode());
+    }
+
+    private static boolean isRetryable(HttpStatus status) {
+        return status == HttpStatus.BAD_GATEWAY || status == HttpStatus.SERVICE_UNAVAILABLE ||
+                status == HttpStatus.GATEWAY_TIMEOUT;
+    }
+
+    RetryBudget getBudget() {
+        return budget;
+    }
+
+    long getRetries() {
+        return retries.sum();
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * ByteArrayOutputStream that exposes its backing array, so the written bytes can be
+ * hashed and encrypted in place without copying them out with toByteArray().
+ */
+public class ReusableByteArrayOutputStream extends ByteArrayOutputStream {
+
+    public ReusableByteArrayOutputStream(int size) {
+        super(size);
+    }
+
+    /**
+     * @return backing array, only the first {@link #size()} bytes are valid
+     */
+    public byte[] array() {
+        return buf;
+    }
+
+    public int capacity() {
+        return buf.length;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.mosip.kernel.keygenerator.bouncycastle.util.KeyGeneratorUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of pre-generated one-time symmetric session keys used to encrypt the IDA auth request.
+ * Keys are generated by a single background producer and handed out exactly once; when the pool
+ * runs dry the key is generated inline on the caller's thread and counted as a miss.
+ */
+@Component
+@Slf4j
+public class SessionKeyPool {
+
+    @Value("${mosip.kernel.keygenerator.symmetric-algorithm-name}")
+    private String symmetricAlgorithm;
+
+    @Value("${mosip.kernel.keygenerator.symmetric-key-length}")
+    private int symmetricKeyLength;
+
+    @Value("${mosip.esignet.authenticator.ida.session-key-pool.size:64}")
+    private int poolSize;
+
+    @Value("${mosip.esignet.authenticator.ida.session-key-pool.refill-threshold:16}")
+    private int refillThreshold;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicBoolean refilling = new AtomicBoolean(false);
+    private final AtomicLong misses = new AtomicLong();
+    private BlockingQueue<SecretKey> pool;
+    private ExecutorService producer;
+    //Only accessed from the producer thread
+    private KeyGenerator producerKeyGenerator;
+
+    @PostConstruct
+    public void init() {
+        pool = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+        producer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ida-session-key-producer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("ida.session.key.pool.depth", pool, BlockingQueue::size)
+                .description("Number of pre-generated session keys available")
+                .register(meterRegistry);
+        FunctionCounter.builder("ida.session.key.pool.miss", misses, AtomicLong::get)
+                .description("Number of session keys generated inline as the pool was empty")
+                .register(meterRegistry);
+        log.info("Initialized IDA session key pool with size : {} && refill threshold : {}", poolSize, refillThreshold);
+        triggerRefill();
+    }
+
+    /**
+     * Removes a key from the pool, the returned key is never handed out again.
+     * @return fresh symmetric session key
+     */
+    public SecretKey take() {
+        SecretKey symmetricKey = pool.poll();
+        if(pool.size() <= refillThreshold)
+            triggerRefill();
+
+        if(symmetricKey != null)
+            return symmetricKey;
+
+        misses.incrementAndGet();
+        log.debug("Session key pool is empty, generating key inline");
+        return KeyGeneratorUtils.getKeyGenerator(symmetricAlgorithm, symmetricKeyLength).generateKey();
+    }
+
+    public int size() {
+        return pool.size();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        producer.shutdownNow();
+        pool.clear();
+    }
+
+    private void triggerRefill() {
+        if(!refilling.compareAndSet(false, true))
+            return;
+        try {
+            producer.execute(this::refill);
+        } catch (RejectedExecutionException e) {
+            refilling.set(false);
+        }
+    }
+
+    private void refill() {
+        try {
+            if(producerKeyGenerator == null)
+                producerKeyGenerator = KeyGeneratorUtils.getKeyGenerator(symmetricAlgorithm, symmetricKeyLength);
+
+            while (!Thread.currentThread().isInterrupted() && pool.remainingCapacity() > 0) {
+                if(!pool.offer(producerKeyGenerator.generateKey()))
+                    break;
+            }
+        } catch (Exception e) {
+            log.error("Failed to refill the session key pool", e);
+        } finally {
+            refilling.set(false);
+        }
+        //Keys taken while the flag was still set would not have triggered a refill
+        if(!producer.isShutdown() && pool.size() <= refillThreshold)
+            triggerRefill();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls with equal keys into one. The first caller makes the call, callers arriving
+ * while it is in flight get its outcome, success or failure. The key is released as soon as the call
+ * completes, so nothing is cached and a later call with the same key goes out again.
+ */
+public final class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder sharedCalls = new LongAdder();
+
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> promise = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, promise);
+        if(existing != null) {
+            sharedCalls.increment();
+            //a copy, so that one caller completing or cancelling its future does not affect the others
+            return existing.copy();
+        }
+
+        calls.increment();
+        CompletableFuture<V> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((value, e) -> {
+            inFlight.remove(key, promise);
+            if(e != null)
+                promise.completeExceptionally(e);
+            else
+                promise.complete(value);
+        });
+        return promise.copy();
+    }
+
+    /**
+     * @return calls made on behalf of their callers
+     */
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * @return calls answered with the outcome of an identical call already in flight
+     */
+    public long getSharedCalls() {
+        return sharedCalls.sum();
+    }
+
+    public int getInFlightCalls() {
+        return inFlight.size();
+    }
+}
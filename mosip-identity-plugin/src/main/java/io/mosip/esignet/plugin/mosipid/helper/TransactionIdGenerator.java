@@ -0,0 +1,125 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import io.mosip.esignet.plugin.mosipid.service.HelperService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Generates random transaction ids over the HelperService.CHARACTERS alphabet without funnelling every
+ * request thread through one SecureRandom.
+ * <ul>
+ *     <li>STRIPED - one character per draw from a SecureRandom picked by thread id out of a fixed set</li>
+ *     <li>THREAD_LOCAL - one character per draw from a SecureRandom owned by the calling thread</li>
+ *     <li>BULK - 8 bytes per draw from a striped SecureRandom, mapped to up to 10 characters</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class TransactionIdGenerator {
+
+    public enum Strategy { STRIPED, THREAD_LOCAL, BULK }
+
+    private static final char[] ALPHABET = HelperService.CHARACTERS.toCharArray();
+    //Largest power of the alphabet size that fits in 64 bits, 62^10
+    private static final int CHARS_PER_DRAW = 10;
+    private static final long DRAW_RANGE = pow(ALPHABET.length, CHARS_PER_DRAW);
+    //Draws at or above this bound are rejected so that every id in the range is equally likely
+    private static final long UNSIGNED_DRAW_BOUND = Long.divideUnsigned(-1L, DRAW_RANGE) * DRAW_RANGE;
+
+    @Value("${mosip.esignet.authenticator.ida.transaction-id.strategy:BULK}")
+    private Strategy strategy;
+
+    private SecureRandom[] stripes;
+    private int stripeMask;
+    private final ThreadLocal<SecureRandom> threadLocalRandom = ThreadLocal.withInitial(TransactionIdGenerator::newSecureRandom);
+
+    @PostConstruct
+    public void init() {
+        int stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        stripes = new SecureRandom[stripeCount];
+        for(int i=0; i<stripeCount; i++) {
+            stripes[i] = newSecureRandom();
+        }
+        stripeMask = stripeCount - 1;
+        log.info("Initialized transaction id generator with strategy : {} && stripes : {}", strategy, stripeCount);
+    }
+
+    public String generate(int length) {
+        char[] id = new char[length];
+        switch (strategy) {
+            case STRIPED:
+                fillPerCharacter(stripe(), id);
+                break;
+            case THREAD_LOCAL:
+                fillPerCharacter(threadLocalRandom.get(), id);
+                break;
+            default:
+                fillBulk(stripe(), id);
+        }
+        return new String(id);
+    }
+
+    private SecureRandom stripe() {
+        long threadId = Thread.currentThread().getId();
+        return stripes[(int) (threadId ^ (threadId >>> 16)) & stripeMask];
+    }
+
+    private static void fillPerCharacter(SecureRandom random, char[] id) {
+        for(int i=0; i<id.length; i++) {
+            id[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+    }
+
+    private static void fillBulk(SecureRandom random, char[] id) {
+        byte[] entropy = new byte[Long.BYTES];
+        int position = 0;
+        while (position < id.length) {
+            long draw;
+            do {
+                random.nextBytes(entropy);
+                draw = toLong(entropy);
+            } while (Long.compareUnsigned(draw, UNSIGNED_DRAW_BOUND) >= 0);
+            draw = Long.remainderUnsigned(draw, DRAW_RANGE);
+
+            for(int i=0; i<CHARS_PER_DRAW && position < id.length; i++) {
+                id[position++] = ALPHABET[(int) (draw % ALPHABET.length)];
+                draw /= ALPHABET.length;
+            }
+        }
+    }
+
+    //NativePRNG, the default on Linux, serializes all its instances on one shared lock, DRBG keeps state per instance
+    private static SecureRandom newSecureRandom() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+
+    private static long toLong(byte[] bytes) {
+        long value = 0;
+        for(byte b : bytes) {
+            value = (value << 8) | (b & 0xFF);
+        }
+        return value;
+    }
+
+    private static long pow(int base, int exponent) {
+        long result = 1;
+        for(int i=0; i<exponent; i++) {
+            result = Math.multiplyExact(result, base);
+        }
+        return result;
+    }
+}
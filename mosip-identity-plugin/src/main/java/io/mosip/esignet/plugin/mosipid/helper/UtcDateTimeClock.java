@@ -0,0 +1,46 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Current UTC time formatted as 2022-12-01T03:22:46.720Z. The formatted value is cached for the
+ * millisecond it was produced in, so concurrent requests within the same millisecond share one string.
+ */
+public final class UtcDateTimeClock {
+
+    public static final String UTC_DATETIME_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
+    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern(UTC_DATETIME_PATTERN)
+            .withZone(ZoneOffset.UTC);
+
+    private static volatile FormattedTime current = new FormattedTime(Long.MIN_VALUE, null);
+
+    private UtcDateTimeClock() {}
+
+    public static String now() {
+        long millis = System.currentTimeMillis();
+        FormattedTime formattedTime = current;
+        if(formattedTime.millis == millis)
+            return formattedTime.value;
+
+        formattedTime = new FormattedTime(millis, formatter.format(Instant.ofEpochMilli(millis)));
+        current = formattedTime;
+        return formattedTime.value;
+    }
+
+    private static final class FormattedTime {
+        private final long millis;
+        private final String value;
+
+        private FormattedTime(long millis, String value) {
+            this.millis = millis;
+            this.value = value;
+        }
+    }
+}
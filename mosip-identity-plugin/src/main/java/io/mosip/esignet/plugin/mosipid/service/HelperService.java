@@ -5,54 +5,61 @@
  */
 package io.mosip.esignet.plugin.mosipid.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.mosip.esignet.plugin.mosipid.dto.IdaKycAuthRequest;
 import io.mosip.esignet.plugin.mosipid.dto.IdaSendOtpRequest;
 import io.mosip.esignet.plugin.mosipid.dto.IdaSendOtpResponse;
 import io.mosip.esignet.plugin.mosipid.dto.KeyBindedToken;
+import io.mosip.esignet.plugin.mosipid.helper.BindingTransactionCache;
+import io.mosip.esignet.plugin.mosipid.helper.CryptoPrimitives;
+import io.mosip.esignet.plugin.mosipid.helper.IdaHttpClient;
+import io.mosip.esignet.plugin.mosipid.helper.IdaRoute;
+import io.mosip.esignet.plugin.mosipid.helper.IsoLanguageCodes;
+import io.mosip.esignet.plugin.mosipid.helper.JsonCodec;
+import io.mosip.esignet.plugin.mosipid.helper.JwsRequestSigner;
+import io.mosip.esignet.plugin.mosipid.helper.PartnerCertificateHolder;
+import io.mosip.esignet.plugin.mosipid.helper.RawJsonBytes;
+import io.mosip.esignet.plugin.mosipid.helper.RequestEnvelope;
+import io.mosip.esignet.plugin.mosipid.helper.ReusableByteArrayOutputStream;
+import io.mosip.esignet.plugin.mosipid.helper.SessionKeyPool;
+import io.mosip.esignet.plugin.mosipid.helper.TransactionIdGenerator;
+import io.mosip.esignet.plugin.mosipid.helper.UtcDateTimeClock;
 import io.mosip.esignet.api.dto.AuthChallenge;
 import io.mosip.esignet.api.dto.SendOtpResult;
 import io.mosip.esignet.api.exception.KycAuthException;
 import io.mosip.esignet.api.exception.SendOtpException;
-import io.mosip.kernel.core.util.CryptoUtil;
-import io.mosip.kernel.core.util.HMACUtils2;
 import io.mosip.kernel.crypto.jce.core.CryptoCore;
-import io.mosip.kernel.keygenerator.bouncycastle.util.KeyGeneratorUtils;
-import io.mosip.kernel.keymanagerservice.util.KeymanagerUtil;
-import io.mosip.kernel.partnercertservice.util.PartnerCertificateManagerUtil;
 import io.mosip.kernel.signature.dto.JWTSignatureRequestDto;
 import io.mosip.kernel.signature.dto.JWTSignatureResponseDto;
 import io.mosip.kernel.signature.service.SignatureService;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.NotImplementedException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.MediaType;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import javax.crypto.KeyGenerator;
+import javax.annotation.PostConstruct;
 import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
 import java.security.cert.Certificate;
-import java.security.cert.CertificateEncodingException;
-import java.security.cert.X509Certificate;
-import java.time.ZoneOffset;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 @Service
 @Slf4j
@@ -61,18 +68,21 @@ public class HelperService {
     public static final String CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
     public static final String SIGNATURE_HEADER_NAME = "signature";
     public static final String AUTHORIZATION_HEADER_NAME = "Authorization";
-    public static final String UTC_DATETIME_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
+    public static final String UTC_DATETIME_PATTERN = UtcDateTimeClock.UTC_DATETIME_PATTERN;
     public static final String INVALID_PARTNER_CERTIFICATE = "invalid_partner_cert";
     public static final String OIDC_PARTNER_APP_ID = "OIDC_PARTNER";
     public static final String BINDING_TRANSACTION = "bindingtransaction";
+    private static final int MAX_RETAINED_BUFFER_SIZE = 256 * 1024;
+    private static final Set<String> BIOMETRIC_FIELDS = Set.of("data", "hash", "sessionKey", "specVersion", "thumbprint");
+    private static final Type BIOMETRICS_TYPE = new TypeReference<List<IdaKycAuthRequest.Biometric>>(){}.getType();
+    private static final ThreadLocal<ReusableByteArrayOutputStream> requestBuffer =
+            ThreadLocal.withInitial(() -> new ReusableByteArrayOutputStream(4096));
     private static Base64.Encoder urlSafeEncoder;
     private static Base64.Decoder urlSafeDecoder;
-    private static SecureRandom secureRandom;
 
     static {
         urlSafeEncoder = Base64.getUrlEncoder().withoutPadding();
         urlSafeDecoder = Base64.getUrlDecoder();
-        secureRandom = new SecureRandom();
     }
 
     @Value("${mosip.esignet.authenticator.ida-send-otp-id:mosip.identity.otp}")
@@ -81,38 +91,63 @@ public class HelperService {
     @Value("${mosip.esignet.authenticator.ida-send-otp-version:1.0}")
     private String idaVersion;
 
-    @Value("${mosip.esignet.authenticator.ida.cert-url}")
-    private String idaPartnerCertificateUrl;
-
     @Value("${mosip.esignet.authenticator.ida.send-otp-url}")
     private String sendOtpUrl;
 
-    @Value("${mosip.kernel.keygenerator.symmetric-algorithm-name}")
-    private String symmetricAlgorithm;
+    @Value("${mosip.kernel.crypto.asymmetric-algorithm-name:" + CryptoPrimitives.DEFAULT_ASYMMETRIC_ALGORITHM + "}")
+    private String asymmetricAlgorithm;
 
-    @Value("${mosip.kernel.keygenerator.symmetric-key-length}")
-    private int symmetricKeyLength;
+    @Value("${mosip.esignet.authenticator.ida.bio-passthrough.enabled:true}")
+    private boolean bioPassthroughEnabled;
 
     @Autowired
-    private KeymanagerUtil keymanagerUtil;
+    private SignatureService signatureService;
 
     @Autowired
-    private SignatureService signatureService;
+    private CryptoCore cryptoCore;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private JsonCodec jsonCodec;
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private SessionKeyPool sessionKeyPool;
 
     @Autowired
-    private CryptoCore cryptoCore;
+    private PartnerCertificateHolder partnerCertificateHolder;
+
+    @Autowired
+    private JwsRequestSigner jwsRequestSigner;
+
+    @Autowired
+    private BindingTransactionCache bindingTransactionCache;
 
-    private Certificate idaPartnerCertificate;
+    @Autowired
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Autowired
+    private IdaHttpClient idaHttpClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private RequestEnvelope sendOtpEnvelope;
+    private boolean pooledAsymmetricAlgorithm;
+
+    @PostConstruct
+    public void init() throws IOException {
+        pooledAsymmetricAlgorithm = CryptoPrimitives.isPooledAsymmetricAlgorithm(asymmetricAlgorithm);
+        if(!pooledAsymmetricAlgorithm)
+            log.warn("Asymmetric algorithm {} is not pooled, session keys are encrypted with CryptoCore", asymmetricAlgorithm);
+        sendOtpEnvelope = RequestEnvelope.builder(jsonCodec.getObjectMapper(), IdaSendOtpRequest.class)
+                .field("id", sendOtpId)
+                .field("version", idaVersion)
+                .build();
+        idaHttpClient.setEndpoints(IdaRoute.SEND_OTP, sendOtpUrl);
+        IsoLanguageCodes.bindTo(meterRegistry, "ida.claim.locales.unknown");
+    }
 
-    @Cacheable(value = BINDING_TRANSACTION, key = "#idHash")
     public String getTransactionId(String idHash) {
-        return HelperService.generateTransactionId(10);
+        return bindingTransactionCache.get(idHash, () -> transactionIdGenerator.generate(10));
     }
 
     protected void setAuthRequest(List<AuthChallenge> challengeList, IdaKycAuthRequest idaKycAuthRequest) throws Exception {
@@ -122,37 +157,65 @@ public class HelperService {
                 .filter( auth -> auth != null &&  auth.getAuthFactorType() != null)
                 .forEach( auth -> { buildAuthRequest(auth, authRequest); });
 
-        KeyGenerator keyGenerator = KeyGeneratorUtils.getKeyGenerator(symmetricAlgorithm, symmetricKeyLength);
-        final SecretKey symmetricKey = keyGenerator.generateKey();
-        String request = objectMapper.writeValueAsString(authRequest);
-        String hexEncodedHash = HMACUtils2.digestAsPlainText(request.getBytes(StandardCharsets.UTF_8));
-        idaKycAuthRequest.setRequest(HelperService.b64Encode(CryptoUtil.symmetricEncrypt(symmetricKey,
-                request.getBytes(StandardCharsets.UTF_8))));
-        idaKycAuthRequest.setRequestHMAC(HelperService.b64Encode(CryptoUtil.symmetricEncrypt(symmetricKey,
-                hexEncodedHash.getBytes(StandardCharsets.UTF_8))));
-        Certificate certificate = getIdaPartnerCertificate();
-        idaKycAuthRequest.setThumbprint(HelperService.b64Encode(getCertificateThumbprint(certificate)));
+        final SecretKey symmetricKey = sessionKeyPool.take();
+        ReusableByteArrayOutputStream buffer = requestBuffer.get();
+        try {
+            jsonCodec.writer(IdaKycAuthRequest.AuthRequest.class).writeValue(buffer, authRequest);
+            idaKycAuthRequest.setRequest(CryptoPrimitives.symmetricEncrypt(symmetricKey, buffer.array(), buffer.size()));
+            byte[] hexEncodedHash = CryptoPrimitives.digestAsUpperHex(buffer.array(), buffer.size());
+            idaKycAuthRequest.setRequestHMAC(CryptoPrimitives.symmetricEncrypt(symmetricKey, hexEncodedHash, hexEncodedHash.length));
+        } finally {
+            buffer.reset();
+            if(buffer.capacity() > MAX_RETAINED_BUFFER_SIZE)
+                requestBuffer.remove();
+        }
+        PartnerCertificateHolder.CertificateSnapshot certificateSnapshot = partnerCertificateHolder.getSnapshot();
+        idaKycAuthRequest.setThumbprint(certificateSnapshot.getEncodedThumbprint());
         log.info("IDA certificate thumbprint {}", idaKycAuthRequest.getThumbprint());
-        idaKycAuthRequest.setRequestSessionKey(HelperService.b64Encode(
-                cryptoCore.asymmetricEncrypt(certificate.getPublicKey(), symmetricKey.getEncoded())));
+        byte[] encryptedSessionKey = pooledAsymmetricAlgorithm ?
+                CryptoPrimitives.asymmetricEncrypt(asymmetricAlgorithm, certificateSnapshot.getPublicKey(), symmetricKey.getEncoded()) :
+                cryptoCore.asymmetricEncrypt(certificateSnapshot.getPublicKey(), symmetricKey.getEncoded());
+        idaKycAuthRequest.setRequestSessionKey(encryptedSessionKey);
     }
 
 
     protected SendOtpResult sendOTP(String partnerId, String clientId, IdaSendOtpRequest idaSendOtpRequest)
-            throws SendOtpException, JsonProcessingException {
-        idaSendOtpRequest.setId(sendOtpId);
-        idaSendOtpRequest.setVersion(idaVersion);
-        idaSendOtpRequest.setRequestTime(getUTCDateTime());
-
-        //set signature header, body and invoke kyc exchange endpoint
-        String requestBody = objectMapper.writeValueAsString(idaSendOtpRequest);
-        RequestEntity requestEntity = RequestEntity
-                .post(UriComponentsBuilder.fromUriString(sendOtpUrl).pathSegment(partnerId, clientId).build().toUri())
+            throws SendOtpException, IOException {
+        Function<String, RequestEntity<?>> request = buildSendOtpRequest(partnerId, clientId, idaSendOtpRequest);
+        return IdaHttpClient.await(idaHttpClient.exchange(IdaRoute.SEND_OTP, request, IdaSendOtpResponse.class)
+                .thenApply(IdaHttpClient.unchecked(responseEntity -> toSendOtpResult(idaSendOtpRequest, responseEntity))),
+                SendOtpException.class);
+    }
+
+    /**
+     * Non-blocking variant of sendOTP, failures surface as the cause of the CompletionException.
+     */
+    protected CompletableFuture<SendOtpResult> sendOTPAsync(String partnerId, String clientId, IdaSendOtpRequest idaSendOtpRequest) {
+        Function<String, RequestEntity<?>> request;
+        try {
+            request = buildSendOtpRequest(partnerId, clientId, idaSendOtpRequest);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return idaHttpClient.exchange(IdaRoute.SEND_OTP, request, IdaSendOtpResponse.class)
+                .thenApply(IdaHttpClient.unchecked(responseEntity -> toSendOtpResult(idaSendOtpRequest, responseEntity)));
+    }
+
+    private Function<String, RequestEntity<?>> buildSendOtpRequest(String partnerId, String clientId,
+                                                                   IdaSendOtpRequest idaSendOtpRequest) throws IOException {
+        //set signature header, body and invoke send otp endpoint, signed once whichever endpoint it goes to
+        byte[] requestBody = sendOtpEnvelope.write(idaSendOtpRequest);
+        String signature = getRequestSignature(requestBody);
+        return baseUrl -> RequestEntity
+                .post(UriComponentsBuilder.fromUriString(baseUrl).pathSegment(partnerId, clientId).build().toUri())
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
-                .header(SIGNATURE_HEADER_NAME, getRequestSignature(requestBody))
+                .header(SIGNATURE_HEADER_NAME, signature)
                 .header(AUTHORIZATION_HEADER_NAME, AUTHORIZATION_HEADER_NAME)
                 .body(requestBody);
-        ResponseEntity<IdaSendOtpResponse> responseEntity = restTemplate.exchange(requestEntity, IdaSendOtpResponse.class);
+    }
+
+    private SendOtpResult toSendOtpResult(IdaSendOtpRequest idaSendOtpRequest, ResponseEntity<IdaSendOtpResponse> responseEntity)
+            throws SendOtpException {
         if(responseEntity.getStatusCode().is2xxSuccessful() && responseEntity.getBody() != null) {
             IdaSendOtpResponse idaSendOtpResponse = responseEntity.getBody();
             if(idaSendOtpRequest.getTransactionID().equals(idaSendOtpResponse.getTransactionID()) && idaSendOtpResponse.getResponse() != null){
@@ -168,6 +231,19 @@ public class HelperService {
     }
 
     protected String getRequestSignature(String request) {
+        return getRequestSignature(request.getBytes(StandardCharsets.UTF_8));
+    }
+
+    protected String getRequestSignature(byte[] request) {
+        if(jwsRequestSigner.isEnabled()) {
+            try {
+                return jwsRequestSigner.sign(OIDC_PARTNER_APP_ID, "", request);
+            } catch (Exception e) {
+                log.error("In-process request signing failed, falling back to keymanager jwtSign", e);
+                jwsRequestSigner.reset();
+            }
+        }
+
         JWTSignatureRequestDto jwtSignatureRequestDto = new JWTSignatureRequestDto();
         jwtSignatureRequestDto.setApplicationId(OIDC_PARTNER_APP_ID);
         jwtSignatureRequestDto.setReferenceId("");
@@ -180,30 +256,7 @@ public class HelperService {
     }
 
     protected Certificate getIdaPartnerCertificate() throws KycAuthException {
-        if(StringUtils.isEmpty(idaPartnerCertificate)) {
-            log.info("Fetching IDA partner certificate from : {}", idaPartnerCertificateUrl);
-            idaPartnerCertificate = keymanagerUtil.convertToCertificate(restTemplate.getForObject(idaPartnerCertificateUrl,
-                    String.class));
-        }
-        if(PartnerCertificateManagerUtil.isCertificateDatesValid((X509Certificate)idaPartnerCertificate))
-            return idaPartnerCertificate;
-
-        log.info("PARTNER CERTIFICATE IS NOT VALID, Downloading the certificate again");
-        idaPartnerCertificate = keymanagerUtil.convertToCertificate(restTemplate.getForObject(idaPartnerCertificateUrl,
-                String.class));
-        if(PartnerCertificateManagerUtil.isCertificateDatesValid((X509Certificate)idaPartnerCertificate))
-            return idaPartnerCertificate;
-
-        throw new KycAuthException(INVALID_PARTNER_CERTIFICATE);
-    }
-
-    protected byte[] getCertificateThumbprint(Certificate certificate) {
-        try {
-            return DigestUtils.sha256(certificate.getEncoded());
-        } catch (CertificateEncodingException e) {
-            log.error("Failed to get cert thumbprint", e);
-        }
-        return new byte[]{};
+        return partnerCertificateHolder.getCertificate();
     }
 
     /**
@@ -211,9 +264,7 @@ public class HelperService {
      * @return Formatted datetime
      */
     protected static String getUTCDateTime() {
-        return ZonedDateTime
-                .now(ZoneOffset.UTC)
-                .format(DateTimeFormatter.ofPattern(UTC_DATETIME_PATTERN));
+        return UtcDateTimeClock.now();
     }
 
     protected static String b64Encode(byte[] bytes) {
@@ -237,9 +288,12 @@ public class HelperService {
                 break;
             case "BIO" :
                 byte[] decodedBio = HelperService.b64Decode(authChallenge.getChallenge());
+                if(bioPassthroughEnabled && isValidBiometricCapture(decodedBio)) {
+                    authRequest.setRawBiometrics(new RawValue(new RawJsonBytes(decodedBio)));
+                    break;
+                }
                 try {
-                    List<IdaKycAuthRequest.Biometric> biometrics = objectMapper.readValue(decodedBio,
-                            new TypeReference<List<IdaKycAuthRequest.Biometric>>(){});
+                    List<IdaKycAuthRequest.Biometric> biometrics = jsonCodec.reader(BIOMETRICS_TYPE).readValue(decodedBio);
                     authRequest.setBiometrics(biometrics);
                 } catch (Exception e) {
                     log.error("Failed to parse biometric capture response", e);
@@ -261,19 +315,50 @@ public class HelperService {
         }
     }
 
-    protected static String generateTransactionId(int length) {
-        StringBuilder builder = new StringBuilder();
-        for(int i=0; i<length; i++) {
-            int index = secureRandom.nextInt(CHARACTERS.length());
-            builder.append(CHARACTERS.charAt(index));
+    /**
+     * Streams through the decoded capture without binding it, the capture must be strict UTF-8 without a BOM
+     * and an array of objects holding only the known biometric fields with string or null values. The parser
+     * reads the decoded characters, as on bytes it would detect and accept UTF-16 and UTF-32 too.
+     */
+    private boolean isValidBiometricCapture(byte[] capture) {
+        CharBuffer chars;
+        try {
+            chars = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(capture));
+        } catch (CharacterCodingException e) {
+            log.error("Biometric capture is not UTF-8, falling back to parse the capture");
+            return false;
+        }
+        if(chars.hasRemaining() && chars.get(chars.position()) == '\uFEFF')
+            return false;
+        try (JsonParser parser = jsonCodec.getObjectMapper().getFactory().createParser(chars.array(),
+                chars.arrayOffset() + chars.position(), chars.remaining())) {
+            if(parser.nextToken() != JsonToken.START_ARRAY)
+                return false;
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                    if(!BIOMETRIC_FIELDS.contains(parser.getCurrentName()))
+                        return false;
+                    token = parser.nextToken();
+                    if(token != JsonToken.VALUE_STRING && token != JsonToken.VALUE_NULL)
+                        return false;
+                }
+                if(token != JsonToken.END_OBJECT)
+                    return false;
+            }
+            return token == JsonToken.END_ARRAY && parser.nextToken() == null;
+        } catch (IOException e) {
+            log.error("Invalid biometric capture, falling back to parse the capture", e);
         }
-        return builder.toString();
+        return false;
     }
 
     protected static String generateHash(String value) {
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA3-256");
-            byte[] hash = digest.digest(value.getBytes(StandardCharsets.UTF_8));
+            byte[] hash = CryptoPrimitives.digest(CryptoPrimitives.SHA3_256, value.getBytes(StandardCharsets.UTF_8));
             return urlSafeEncoder.encodeToString(hash);
         } catch (NoSuchAlgorithmException ex) {
             log.error("Hashing failed", ex);
@@ -283,17 +368,7 @@ public class HelperService {
 
     //Converts an array of two-letter language codes to their corresponding ISO 639-2/T language codes.
     protected List<String> convertLangCodesToISO3LanguageCodes(String[] langCodes) {
-        if(langCodes == null || langCodes.length == 0)
-            return List.of();
-        return Arrays.stream(langCodes)
-                .map(langCode -> {
-                    try {
-                        return StringUtils.isEmpty(langCode) ? null : new Locale(langCode).getISO3Language();
-                    } catch (MissingResourceException ex) {}
-                    return null;
-                })
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        return IsoLanguageCodes.toISO3(langCodes);
     }
 
 }
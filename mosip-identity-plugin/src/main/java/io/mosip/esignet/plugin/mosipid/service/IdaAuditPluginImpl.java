@@ -5,32 +5,43 @@
  */
 package io.mosip.esignet.plugin.mosipid.service;
 
-import io.mosip.esignet.plugin.mosipid.dto.AuditRequest;
 import io.mosip.esignet.plugin.mosipid.dto.AuditResponse;
+import io.mosip.esignet.plugin.mosipid.helper.AuditEventEncoder;
+import io.mosip.esignet.plugin.mosipid.helper.AuditJournal;
+import io.mosip.esignet.plugin.mosipid.helper.AuditMetrics;
+import io.mosip.esignet.plugin.mosipid.helper.AuditPipeline;
 import io.mosip.esignet.plugin.mosipid.helper.AuthTransactionHelper;
-import org.json.JSONException;
-import org.json.JSONObject;
+import io.mosip.esignet.plugin.mosipid.helper.IdaCallRejectedException;
+import io.mosip.esignet.plugin.mosipid.helper.IdaHttpClient;
+import io.mosip.esignet.plugin.mosipid.helper.IdaRoute;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.mosip.esignet.api.dto.AuditDTO;
 import io.mosip.esignet.api.spi.AuditPlugin;
 import io.mosip.esignet.api.util.Action;
 import io.mosip.esignet.api.util.ActionStatus;
-import io.mosip.kernel.core.http.RequestWrapper;
 import io.mosip.kernel.core.http.ResponseWrapper;
-import io.mosip.kernel.core.util.DateUtils;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends audit events to auditmanager off the request thread: the request is encoded on the calling thread
+ * by the {@link AuditEventEncoder} and queued, the {@link AuditPipeline} dispatcher fetches the auth-token
+ * and sends it. With the journal enabled events are kept on disk until auditmanager has accepted them.
+ */
 @ConditionalOnProperty(value = "mosip.esignet.integration.audit-plugin", havingValue = "IdaAuditPluginImpl")
 @Component
 @Slf4j
@@ -40,18 +51,97 @@ public class IdaAuditPluginImpl implements AuditPlugin {
 
 	private static final String TRANSACTION = "transaction";
 
+	private static final ParameterizedTypeReference<ResponseWrapper> AUDIT_RESPONSE_TYPE =
+			new ParameterizedTypeReference<ResponseWrapper>() {};
+
 	@Autowired
 	private AuthTransactionHelper authTransactionHelper;
 
 	@Autowired
-	private ObjectMapper objectMapper;
+	private IdaHttpClient idaHttpClient;
 
 	@Autowired
-	private RestTemplate restTemplate;
+	private MeterRegistry meterRegistry;
 
 	@Value("${mosip.esignet.authenticator.ida.audit-manager-url}")
 	private String auditManagerUrl;
 
+	@Value("${mosip.esignet.authenticator.ida.audit.queue-capacity:10000}")
+	private int queueCapacity;
+
+	@Value("${mosip.esignet.authenticator.ida.audit.flush-size:50}")
+	private int flushSize;
+
+	@Value("${mosip.esignet.authenticator.ida.audit.flush-interval-ms:200}")
+	private long flushIntervalMs;
+
+	@Value("${mosip.esignet.authenticator.ida.audit.overflow-policy:BLOCK}")
+	private AuditPipeline.OverflowPolicy overflowPolicy;
+
+	@Value("${mosip.esignet.authenticator.ida.audit.block-timeout-ms:100}")
+	private long blockTimeoutMs;
+
+	@Value("${mosip.esignet.authenticator.ida.audit.drain-timeout-ms:10000}")
+	private long drainTimeoutMs;
+
+	@Value("${mosip.esignet.authenticator.ida.audit.spill-dir:${java.io.tmpdir}/esignet-audit}")
+	private String spillDir;
+
+	@Value("${mosip.esignet.authenticator.ida.audit.journal.enabled:false}")
+	private boolean journalEnabled;
+
+	@Value("${mosip.esignet.authenticator.ida.audit.journal.dir:${java.io.tmpdir}/esignet-audit/journal}")
+	private String journalDir;
+
+	@Value("${mosip.esignet.authenticator.ida.audit.journal.segment-size-bytes:16777216}")
+	private long journalSegmentSizeBytes;
+
+	@Value("${mosip.esignet.authenticator.ida.audit.journal.max-size-bytes:1073741824}")
+	private long journalMaxSizeBytes;
+
+	@Value("${mosip.esignet.authenticator.ida.audit.journal.fsync-interval-ms:1000}")
+	private long journalFsyncIntervalMs;
+
+	@Value("${mosip.esignet.authenticator.ida.audit.journal.retry-max-backoff-ms:30000}")
+	private long journalRetryMaxBackoffMs;
+
+	@Value("${mosip.esignet.authenticator.ida.audit.host-lookup-timeout-ms:2000}")
+	private long hostLookupTimeoutMs;
+
+	private AuditPipeline auditPipeline;
+
+	private AuditEventEncoder auditEventEncoder;
+
+	private AuditMetrics auditMetrics;
+
+	@PostConstruct
+	public void init() throws IOException {
+		AuditEventEncoder.Host host = AuditEventEncoder.resolveHost(hostLookupTimeoutMs);
+		auditEventEncoder = new AuditEventEncoder("ida", ESIGNET, IdaAuditPluginImpl.class.getSimpleName(), host);
+		log.info("Auditing as host : {} with ip : {}", host.getName(), host.getIp());
+		auditMetrics = new AuditMetrics(meterRegistry);
+		if(journalEnabled) {
+			AuditJournal journal = new AuditJournal(Path.of(journalDir), journalSegmentSizeBytes, journalMaxSizeBytes,
+					journalFsyncIntervalMs);
+			auditPipeline = new AuditPipeline(this::send, this::getMaxInFlight, auditMetrics, journal, flushSize, flushIntervalMs,
+					journalRetryMaxBackoffMs, drainTimeoutMs);
+			auditMetrics.monitor(auditPipeline);
+			log.info("Initialized journaled audit pipeline in {} with flush size : {}", journalDir, flushSize);
+			return;
+		}
+		auditPipeline = new AuditPipeline(this::send, this::getMaxInFlight, auditMetrics, queueCapacity, flushSize, flushIntervalMs,
+				overflowPolicy, blockTimeoutMs, drainTimeoutMs, Path.of(spillDir));
+		auditMetrics.monitor(auditPipeline);
+		log.info("Initialized audit pipeline with capacity : {} && flush size : {} && overflow policy : {}",
+				queueCapacity, flushSize, overflowPolicy);
+	}
+
+	@PreDestroy
+	public void destroy() {
+		if(auditPipeline != null)
+			auditPipeline.shutdown();
+	}
+
 	@Override
 	public void logAudit(Action action, ActionStatus status, AuditDTO audit, Throwable t) {
 		audit(null, action, status, audit);
@@ -64,41 +154,48 @@ public class IdaAuditPluginImpl implements AuditPlugin {
 
 	private void audit(String username, Action action, ActionStatus status, AuditDTO audit) {
 		try {
-			String authToken = authTransactionHelper.getAuthToken();
-
-			RequestWrapper<AuditRequest> request = new RequestWrapper<>();
-
-			AuditRequest auditRequest = new AuditRequest();
-			auditRequest.setEventId(action.name());
-			auditRequest.setEventName(action.name());
-			auditRequest.setEventType(status.name());
-			auditRequest.setActionTimeStamp(DateUtils.getUTCCurrentDateTime());
-			auditRequest.setHostName("localhost");
-			auditRequest.setHostIp("localhost");
-			auditRequest.setApplicationId(ESIGNET);
-			auditRequest.setApplicationName(ESIGNET);
-			auditRequest.setSessionUserId(StringUtils.isEmpty(username)?"no-user":username);
-			auditRequest.setSessionUserName(StringUtils.isEmpty(username)?"no-user":username);
-			auditRequest.setIdType(audit.getIdType());
-			auditRequest.setCreatedBy(this.getClass().getSimpleName());
-			auditRequest.setModuleName(action.getModule());
-			auditRequest.setModuleId(action.getModule());
-			auditRequest.setDescription(getAuditDescription(audit));
-			auditRequest.setId(audit.getTransactionId());
-
-			request.setRequest(auditRequest);
-			request.setId("ida");
-			request.setRequesttime(DateUtils.getUTCCurrentDateTime());
-
-			String requestBody = objectMapper.writeValueAsString(request);
-			RequestEntity requestEntity = RequestEntity
-					.post(UriComponentsBuilder.fromUriString(auditManagerUrl).build().toUri())
-					.contentType(MediaType.APPLICATION_JSON).header(HttpHeaders.COOKIE, "Authorization=" + authToken)
-					.body(requestBody);
-			ResponseEntity<ResponseWrapper> responseEntity = restTemplate.exchange(requestEntity,
-					new ParameterizedTypeReference<ResponseWrapper>() {
-					});
+			AuditPipeline.Event event = new AuditPipeline.Event(action.name(), status.name(),
+					auditEventEncoder.encode(username, action, status, audit));
+			auditMetrics.onAccepted(event);
+			auditPipeline.offer(event);
+		} catch (Exception e) {
+			log.error("LogAudit failed with error : {}", e);
+		}
+	}
+
+	private CompletableFuture<?> send(AuditPipeline.Event event) {
+		return post(event).whenComplete((result, e) -> {
+			if(e == null)
+				auditMetrics.onSent(event);
+			else if(!isDeferred(e))
+				auditMetrics.onFailed(event);
+		});
+	}
 
+	//rejected for want of capacity, the pipeline sends it again
+	private static boolean isDeferred(Throwable e) {
+		Throwable cause = IdaHttpClient.unwrap(e);
+		return cause instanceof IdaCallRejectedException && ((IdaCallRejectedException) cause).getKind().isTransient();
+	}
+
+	//audit sends are kept within what the audit route takes, a rejected send is only made again later
+	private int getMaxInFlight() {
+		return idaHttpClient.getMaxInFlight(IdaRoute.AUDIT);
+	}
+
+	private CompletableFuture<?> post(AuditPipeline.Event event) {
+		String authToken;
+		try {
+			authToken = authTransactionHelper.getAuthToken();
+		} catch (Exception e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		RequestEntity<String> requestEntity = RequestEntity
+				.post(UriComponentsBuilder.fromUriString(auditManagerUrl).build().toUri())
+				.contentType(MediaType.APPLICATION_JSON).header(HttpHeaders.COOKIE, "Authorization=" + authToken)
+				.body(event.getBody());
+		return idaHttpClient.exchange(IdaRoute.AUDIT, requestEntity, AUDIT_RESPONSE_TYPE).thenAccept(responseEntity -> {
+			auditMetrics.onResponse(responseEntity.getStatusCode());
 			if (responseEntity.getStatusCode().is2xxSuccessful() && responseEntity.getBody() != null) {
 				ResponseWrapper<AuditResponse> responseWrapper = responseEntity.getBody();
 				if (responseWrapper.getErrors() != null && !responseWrapper.getErrors().isEmpty()) {
@@ -111,24 +208,20 @@ public class IdaAuditPluginImpl implements AuditPlugin {
 					responseEntity.getStatusCode() == HttpStatus.UNAUTHORIZED) {
 				log.error("Audit call failed with error: {}, issue with auth-token hence purging the auth-token-cache",
 						responseEntity.getStatusCode());
-				authTransactionHelper.purgeAuthTokenCache();
+				authTransactionHelper.purgeAuthTokenCache(authToken);
+				auditMetrics.onTokenPurged(responseEntity.getStatusCode());
 			}
-		} catch (Exception e) {
-			log.error("LogAudit failed with error : {}", e);
-		}
+			if(isRejected(responseEntity.getStatusCode()))
+				throw new AuditPipeline.RejectedEventException("Audit event rejected with status : " + responseEntity.getStatusCode());
+			if(!responseEntity.getStatusCode().is2xxSuccessful())
+				throw new IllegalStateException("Audit call failed with status : " + responseEntity.getStatusCode());
+		});
 	}
 
-	private String getAuditDescription(AuditDTO audit) throws JSONException {
-		JSONObject json = new JSONObject();
-		json.put("clientId", audit.getClientId());
-		json.put("relyingPartyId", audit.getRelyingPartyId());
-		json.put("state", audit.getState());
-		json.put("codeHash", audit.getCodeHash());
-		json.put("accessTokenHash", audit.getAccessTokenHash());
-		json.put("linkCodeHash", audit.getLinkedCodeHash());
-		json.put("linkTransactionId", audit.getLinkedTransactionId());
-		json.put("authTransactionId", audit.getAuthTransactionId());
-		return json.toString();
+	//client errors other than these are about the event itself, it will not be accepted on a retry
+	private static boolean isRejected(HttpStatus status) {
+		return status.is4xxClientError() && status != HttpStatus.UNAUTHORIZED && status != HttpStatus.FORBIDDEN &&
+				status != HttpStatus.REQUEST_TIMEOUT && status != HttpStatus.TOO_MANY_REQUESTS;
 	}
 
 }
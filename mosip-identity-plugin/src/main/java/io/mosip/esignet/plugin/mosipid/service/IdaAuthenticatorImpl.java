@@ -5,26 +5,39 @@
  */
 package io.mosip.esignet.plugin.mosipid.service;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 import io.mosip.esignet.api.dto.*;
 import io.mosip.esignet.plugin.mosipid.dto.GetAllCertificatesResponse;
 import io.mosip.esignet.plugin.mosipid.dto.IdaKycAuthResponse;
 import io.mosip.esignet.plugin.mosipid.helper.AuthTransactionHelper;
+import io.mosip.esignet.plugin.mosipid.helper.IdaCallRejectedException;
+import io.mosip.esignet.plugin.mosipid.helper.IdaHttpClient;
+import io.mosip.esignet.plugin.mosipid.helper.IdaRoute;
+import io.mosip.esignet.plugin.mosipid.helper.JsonCodec;
+import io.mosip.esignet.plugin.mosipid.helper.KycSigningCertificateCache;
+import io.mosip.esignet.plugin.mosipid.helper.RequestEnvelope;
+import io.mosip.esignet.plugin.mosipid.helper.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.mosip.esignet.plugin.mosipid.dto.IdaKycAuthRequest;
 import io.mosip.esignet.plugin.mosipid.dto.IdaKycExchangeRequest;
@@ -40,6 +53,10 @@ import io.mosip.esignet.api.util.ErrorConstants;
 import io.mosip.kernel.core.http.ResponseWrapper;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+
 
 @ConditionalOnProperty(value = "mosip.esignet.integration.authenticator", havingValue = "IdaAuthenticatorImpl")
 @Component
@@ -50,6 +67,13 @@ public class IdaAuthenticatorImpl implements Authenticator {
     public static final String AUTHORIZATION_HEADER_NAME = "Authorization";
     public static final String KYC_EXCHANGE_TYPE = "oidc";
 
+    private static final ParameterizedTypeReference<IdaResponseWrapper<IdaKycAuthResponse>> KYC_AUTH_RESPONSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<IdaResponseWrapper<IdaKycExchangeResponse>> KYC_EXCHANGE_RESPONSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ResponseWrapper<GetAllCertificatesResponse>> CERTIFICATES_RESPONSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+
     @Value("${mosip.esignet.authenticator.ida-auth-id:mosip.identity.kycauth}")
     private String kycAuthId;
 
@@ -87,75 +111,167 @@ public class IdaAuthenticatorImpl implements Authenticator {
     private String clientId;
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private JsonCodec jsonCodec;
 
     @Autowired
-    private RestTemplate restTemplate;
+    HelperService helperService;
 
     @Autowired
-    HelperService helperService;
+    private IdaHttpClient idaHttpClient;
     
     @Autowired
     private AuthTransactionHelper authTransactionHelper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${mosip.esignet.authenticator.ida.kyc-exchange.single-flight.enabled:true}")
+    private boolean kycExchangeSingleFlightEnabled;
+
+    @Value("${mosip.esignet.authenticator.ida.certificate-cache.ttl-seconds:1800}")
+    private long certificateCacheTtlSeconds;
+
+    @Value("${mosip.esignet.authenticator.ida.certificate-cache.refresh-ahead-seconds:120}")
+    private long certificateCacheRefreshAheadSeconds;
+
+    @Value("${mosip.esignet.authenticator.ida.certificate-cache.max-stale-seconds:86400}")
+    private long certificateCacheMaxStaleSeconds;
+
+    private RequestEnvelope kycAuthEnvelope;
+    private RequestEnvelope kycExchangeEnvelope;
+    private KycSigningCertificateCache certificateCache;
+    private volatile String certificatesETag;
+    private final SingleFlight<List<Object>, KycExchangeResult> kycExchangeSingleFlight = new SingleFlight<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        certificateCache = new KycSigningCertificateCache(this::loadKycSigningCertificates,
+                Duration.ofSeconds(certificateCacheTtlSeconds), Duration.ofSeconds(certificateCacheRefreshAheadSeconds),
+                Duration.ofSeconds(certificateCacheMaxStaleSeconds));
+        kycAuthEnvelope = RequestEnvelope.builder(jsonCodec.getObjectMapper(), IdaKycAuthRequest.class)
+                .field("id", kycAuthId)
+                .field("version", idaVersion)
+                .field("domainUri", idaDomainUri)
+                .field("env", idaEnv)
+                .build();
+        kycExchangeEnvelope = RequestEnvelope.builder(jsonCodec.getObjectMapper(), IdaKycExchangeRequest.class)
+                .field("id", kycExchangeId)
+                .field("version", idaVersion)
+                .build();
+        idaHttpClient.setEndpoints(IdaRoute.KYC_AUTH, kycAuthUrl);
+        idaHttpClient.setEndpoints(IdaRoute.KYC_EXCHANGE, kycExchangeUrl);
+        FunctionCounter.builder("ida.kyc-exchange.single-flight.calls", kycExchangeSingleFlight, SingleFlight::getCalls)
+                .description("Kyc-exchange calls sent to IDA").register(meterRegistry);
+        FunctionCounter.builder("ida.kyc-exchange.single-flight.shared", kycExchangeSingleFlight, SingleFlight::getSharedCalls)
+                .description("Kyc-exchange calls answered by an identical call already in flight").register(meterRegistry);
+        Gauge.builder("ida.kyc-exchange.single-flight.in-flight", kycExchangeSingleFlight, SingleFlight::getInFlightCalls)
+                .description("Distinct kyc-exchange calls in flight").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if(certificateCache != null)
+            certificateCache.shutdown();
+    }
+
     @Override
     public KycAuthResult doKycAuth(String relyingPartyId, String clientId, KycAuthDto kycAuthDto)
             throws KycAuthException {
+        return IdaHttpClient.await(doKycAuthAsync(relyingPartyId, clientId, kycAuthDto), KycAuthException.class);
+    }
+
+    /**
+     * Non-blocking variant of doKycAuth, the returned future only ever fails with KycAuthException.
+     */
+    public CompletableFuture<KycAuthResult> doKycAuthAsync(String relyingPartyId, String clientId, KycAuthDto kycAuthDto) {
         log.info("Started to build kyc-auth request with transactionId : {} && clientId : {}",
                 kycAuthDto.getTransactionId(), clientId);
+        Function<String, RequestEntity<?>> request;
         try {
             IdaKycAuthRequest idaKycAuthRequest = new IdaKycAuthRequest();
-            idaKycAuthRequest.setId(kycAuthId);
-            idaKycAuthRequest.setVersion(idaVersion);
-            idaKycAuthRequest.setRequestTime(HelperService.getUTCDateTime());
-            idaKycAuthRequest.setDomainUri(idaDomainUri);
-            idaKycAuthRequest.setEnv(idaEnv);
             idaKycAuthRequest.setConsentObtained(true);
             idaKycAuthRequest.setIndividualId(kycAuthDto.getIndividualId());
             idaKycAuthRequest.setTransactionID(kycAuthDto.getTransactionId());
             helperService.setAuthRequest(kycAuthDto.getChallengeList(), idaKycAuthRequest);
 
             //set signature header, body and invoke kyc auth endpoint
-            String requestBody = objectMapper.writeValueAsString(idaKycAuthRequest);
-            RequestEntity requestEntity = RequestEntity
-                    .post(UriComponentsBuilder.fromUriString(kycAuthUrl).pathSegment(relyingPartyId, clientId).build().toUri())
+            byte[] requestBody = kycAuthEnvelope.write(idaKycAuthRequest);
+            String signature = helperService.getRequestSignature(requestBody);
+            request = baseUrl -> RequestEntity
+                    .post(UriComponentsBuilder.fromUriString(baseUrl).pathSegment(relyingPartyId, clientId).build().toUri())
                     .contentType(MediaType.APPLICATION_JSON_UTF8)
-                    .header(SIGNATURE_HEADER_NAME, helperService.getRequestSignature(requestBody))
+                    .header(SIGNATURE_HEADER_NAME, signature)
                     .header(AUTHORIZATION_HEADER_NAME, AUTHORIZATION_HEADER_NAME)
                     .body(requestBody);
-            ResponseEntity<IdaResponseWrapper<IdaKycAuthResponse>> responseEntity = restTemplate.exchange(requestEntity,
-                    new ParameterizedTypeReference<IdaResponseWrapper<IdaKycAuthResponse>>() {});
-
-            if(responseEntity.getStatusCode().is2xxSuccessful() && responseEntity.getBody() != null) {
-                IdaResponseWrapper<IdaKycAuthResponse> responseWrapper = responseEntity.getBody();
-                if(responseWrapper!=null && responseWrapper.getResponse() != null && responseWrapper.getResponse().isKycStatus() && responseWrapper.getResponse().getKycToken() != null) {
-                    return new KycAuthResult(responseWrapper.getResponse().getKycToken(),
-                            responseWrapper.getResponse().getAuthToken());
-                }
-                log.error("Error response received from IDA KycStatus : {} && Errors: {}",
-                        responseWrapper.getResponse().isKycStatus(), responseWrapper.getErrors());
-                throw new KycAuthException(CollectionUtils.isEmpty(responseWrapper.getErrors()) ?
-                         ErrorConstants.AUTH_FAILED : responseWrapper.getErrors().get(0).getErrorCode());
-            }
-
-            log.error("Error response received from IDA (Kyc-auth) with status : {}", responseEntity.getStatusCode());
-        } catch (KycAuthException e) { throw e; } catch (Exception e) {
+        } catch (KycAuthException e) {
+            return CompletableFuture.failedFuture(e);
+        } catch (Exception e) {
             log.error("KYC-auth failed with transactionId : {} && clientId : {}", kycAuthDto.getTransactionId(),
                     clientId, e);
+            return CompletableFuture.failedFuture(new KycAuthException(ErrorConstants.AUTH_FAILED));
         }
+
+        return idaHttpClient.exchange(IdaRoute.KYC_AUTH, request, KYC_AUTH_RESPONSE_TYPE)
+                .thenApply(IdaHttpClient.unchecked(this::toKycAuthResult))
+                .exceptionally(e -> {
+                    Throwable cause = IdaHttpClient.unwrap(e);
+                    if(cause instanceof KycAuthException)
+                        throw new CompletionException(cause);
+                    log.error("KYC-auth failed with transactionId : {} && clientId : {}", kycAuthDto.getTransactionId(),
+                            clientId, cause);
+                    throw new CompletionException(new KycAuthException(IdaCallRejectedException.getErrorCode(cause,
+                            ErrorConstants.AUTH_FAILED)));
+                });
+    }
+
+    private KycAuthResult toKycAuthResult(ResponseEntity<IdaResponseWrapper<IdaKycAuthResponse>> responseEntity)
+            throws KycAuthException {
+        if(responseEntity.getStatusCode().is2xxSuccessful() && responseEntity.getBody() != null) {
+            IdaResponseWrapper<IdaKycAuthResponse> responseWrapper = responseEntity.getBody();
+            if(responseWrapper!=null && responseWrapper.getResponse() != null && responseWrapper.getResponse().isKycStatus() && responseWrapper.getResponse().getKycToken() != null) {
+                return new KycAuthResult(responseWrapper.getResponse().getKycToken(),
+                        responseWrapper.getResponse().getAuthToken());
+            }
+            log.error("Error response received from IDA KycStatus : {} && Errors: {}",
+                    responseWrapper.getResponse().isKycStatus(), responseWrapper.getErrors());
+            throw new KycAuthException(CollectionUtils.isEmpty(responseWrapper.getErrors()) ?
+                     ErrorConstants.AUTH_FAILED : responseWrapper.getErrors().get(0).getErrorCode());
+        }
+
+        log.error("Error response received from IDA (Kyc-auth) with status : {}", responseEntity.getStatusCode());
         throw new KycAuthException(ErrorConstants.AUTH_FAILED);
     }
 
     @Override
     public KycExchangeResult doKycExchange(String relyingPartyId, String clientId, KycExchangeDto kycExchangeDto)
             throws KycExchangeException {
+        return IdaHttpClient.await(doKycExchangeAsync(relyingPartyId, clientId, kycExchangeDto), KycExchangeException.class);
+    }
+
+    /**
+     * Non-blocking variant of doKycExchange, the returned future only ever fails with KycExchangeException.
+     * Concurrent calls for the same transaction, kyc token and request details, e.g. from a relying party
+     * retrying the token endpoint, share one IDA call and its result.
+     */
+    public CompletableFuture<KycExchangeResult> doKycExchangeAsync(String relyingPartyId, String clientId,
+                                                                   KycExchangeDto kycExchangeDto) {
+        if(!kycExchangeSingleFlightEnabled)
+            return sendKycExchange(relyingPartyId, clientId, kycExchangeDto);
+
+        List<Object> key = Arrays.asList(relyingPartyId, clientId, kycExchangeDto.getTransactionId(),
+                kycExchangeDto.getKycToken(), kycExchangeDto.getIndividualId(), kycExchangeDto.getAcceptedClaims(),
+                kycExchangeDto.getClaimsLocales() == null ? null : Arrays.asList(kycExchangeDto.getClaimsLocales()),
+                kycExchangeDto.getUserInfoResponseType());
+        return kycExchangeSingleFlight.execute(key, () -> sendKycExchange(relyingPartyId, clientId, kycExchangeDto));
+    }
+
+    private CompletableFuture<KycExchangeResult> sendKycExchange(String relyingPartyId, String clientId,
+                                                                 KycExchangeDto kycExchangeDto) {
         log.info("Started to build kyc-exchange request with transactionId : {} && clientId : {}",
                 kycExchangeDto.getTransactionId(), clientId);
+        Function<String, RequestEntity<?>> request;
         try {
             IdaKycExchangeRequest idaKycExchangeRequest = new IdaKycExchangeRequest();
-            idaKycExchangeRequest.setId(kycExchangeId);
-            idaKycExchangeRequest.setVersion(idaVersion);
-            idaKycExchangeRequest.setRequestTime(HelperService.getUTCDateTime());
             idaKycExchangeRequest.setTransactionID(kycExchangeDto.getTransactionId());
             idaKycExchangeRequest.setKycToken(kycExchangeDto.getKycToken());
 	    if (!CollectionUtils.isEmpty(kycExchangeDto.getAcceptedClaims())) {
@@ -168,31 +284,45 @@ public class IdaAuthenticatorImpl implements Authenticator {
             idaKycExchangeRequest.setIndividualId(kycExchangeDto.getIndividualId());
 
             //set signature header, body and invoke kyc exchange endpoint
-            String requestBody = objectMapper.writeValueAsString(idaKycExchangeRequest);
-            RequestEntity requestEntity = RequestEntity
-                    .post(UriComponentsBuilder.fromUriString(kycExchangeUrl).pathSegment(relyingPartyId,
+            byte[] requestBody = kycExchangeEnvelope.write(idaKycExchangeRequest);
+            String signature = helperService.getRequestSignature(requestBody);
+            request = baseUrl -> RequestEntity
+                    .post(UriComponentsBuilder.fromUriString(baseUrl).pathSegment(relyingPartyId,
                             clientId).build().toUri())
                     .contentType(MediaType.APPLICATION_JSON_UTF8)
-                    .header(SIGNATURE_HEADER_NAME, helperService.getRequestSignature(requestBody))
+                    .header(SIGNATURE_HEADER_NAME, signature)
                     .header(AUTHORIZATION_HEADER_NAME, AUTHORIZATION_HEADER_NAME)
                     .body(requestBody);
-            ResponseEntity<IdaResponseWrapper<IdaKycExchangeResponse>> responseEntity = restTemplate.exchange(requestEntity,
-                    new ParameterizedTypeReference<IdaResponseWrapper<IdaKycExchangeResponse>>() {});
+        } catch (Exception e) {
+            log.error("IDA Kyc-exchange failed with clientId : {}", clientId, e);
+            return CompletableFuture.failedFuture(new KycExchangeException());
+        }
 
-            if(responseEntity.getStatusCode().is2xxSuccessful() && responseEntity.getBody() != null) {
-                IdaResponseWrapper<IdaKycExchangeResponse> responseWrapper = responseEntity.getBody();
-                if(responseWrapper.getResponse() != null && responseWrapper.getResponse().getEncryptedKyc() != null) {
-                    return new KycExchangeResult(responseWrapper.getResponse().getEncryptedKyc());
-                }
-                log.error("Errors in response received from IDA Kyc Exchange: {}", responseWrapper.getErrors());
-                throw new KycExchangeException(CollectionUtils.isEmpty(responseWrapper.getErrors()) ?
-                		ErrorConstants.DATA_EXCHANGE_FAILED : responseWrapper.getErrors().get(0).getErrorCode());
-            }
+        return idaHttpClient.exchange(IdaRoute.KYC_EXCHANGE, request, KYC_EXCHANGE_RESPONSE_TYPE)
+                .thenApply(IdaHttpClient.unchecked(this::toKycExchangeResult))
+                .exceptionally(e -> {
+                    Throwable cause = IdaHttpClient.unwrap(e);
+                    if(cause instanceof KycExchangeException)
+                        throw new CompletionException(cause);
+                    log.error("IDA Kyc-exchange failed with clientId : {}", clientId, cause);
+                    throw new CompletionException(new KycExchangeException(IdaCallRejectedException.getErrorCode(cause,
+                            ErrorConstants.DATA_EXCHANGE_FAILED)));
+                });
+    }
 
-            log.error("Error response received from IDA (Kyc-exchange) with status : {}", responseEntity.getStatusCode());
-        } catch (KycExchangeException e) { throw e; } catch (Exception e) {
-            log.error("IDA Kyc-exchange failed with clientId : {}", clientId, e);
+    private KycExchangeResult toKycExchangeResult(ResponseEntity<IdaResponseWrapper<IdaKycExchangeResponse>> responseEntity)
+            throws KycExchangeException {
+        if(responseEntity.getStatusCode().is2xxSuccessful() && responseEntity.getBody() != null) {
+            IdaResponseWrapper<IdaKycExchangeResponse> responseWrapper = responseEntity.getBody();
+            if(responseWrapper.getResponse() != null && responseWrapper.getResponse().getEncryptedKyc() != null) {
+                return new KycExchangeResult(responseWrapper.getResponse().getEncryptedKyc());
+            }
+            log.error("Errors in response received from IDA Kyc Exchange: {}", responseWrapper.getErrors());
+            throw new KycExchangeException(CollectionUtils.isEmpty(responseWrapper.getErrors()) ?
+            		ErrorConstants.DATA_EXCHANGE_FAILED : responseWrapper.getErrors().get(0).getErrorCode());
         }
+
+        log.error("Error response received from IDA (Kyc-exchange) with status : {}", responseEntity.getStatusCode());
         throw new KycExchangeException();
     }
 
@@ -201,17 +331,38 @@ public class IdaAuthenticatorImpl implements Authenticator {
         log.info("Started to build send-otp request with transactionId : {} && clientId : {}",
                 sendOtpDto.getTransactionId(), clientId);
         try {
-            IdaSendOtpRequest idaSendOtpRequest = new IdaSendOtpRequest();
-            idaSendOtpRequest.setOtpChannel(sendOtpDto.getOtpChannels());
-            idaSendOtpRequest.setIndividualId(sendOtpDto.getIndividualId());
-            idaSendOtpRequest.setTransactionID(sendOtpDto.getTransactionId());
-            return helperService.sendOTP(relyingPartyId, clientId, idaSendOtpRequest);
+            return helperService.sendOTP(relyingPartyId, clientId, buildSendOtpRequest(sendOtpDto));
         } catch (SendOtpException e) {
             throw e;
         } catch (Exception e) {
             log.error("send-otp failed with clientId : {}", clientId, e);
+            throw new SendOtpException(IdaCallRejectedException.getErrorCode(e, ErrorConstants.SEND_OTP_FAILED));
         }
-        throw new SendOtpException();
+    }
+
+    /**
+     * Non-blocking variant of sendOtp, the returned future only ever fails with SendOtpException.
+     */
+    public CompletableFuture<SendOtpResult> sendOtpAsync(String relyingPartyId, String clientId, SendOtpDto sendOtpDto) {
+        log.info("Started to build send-otp request with transactionId : {} && clientId : {}",
+                sendOtpDto.getTransactionId(), clientId);
+        return helperService.sendOTPAsync(relyingPartyId, clientId, buildSendOtpRequest(sendOtpDto))
+                .exceptionally(e -> {
+                    Throwable cause = IdaHttpClient.unwrap(e);
+                    if(cause instanceof SendOtpException)
+                        throw new CompletionException(cause);
+                    log.error("send-otp failed with clientId : {}", clientId, cause);
+                    throw new CompletionException(new SendOtpException(IdaCallRejectedException.getErrorCode(cause,
+                            ErrorConstants.SEND_OTP_FAILED)));
+                });
+    }
+
+    private IdaSendOtpRequest buildSendOtpRequest(SendOtpDto sendOtpDto) {
+        IdaSendOtpRequest idaSendOtpRequest = new IdaSendOtpRequest();
+        idaSendOtpRequest.setOtpChannel(sendOtpDto.getOtpChannels());
+        idaSendOtpRequest.setIndividualId(sendOtpDto.getIndividualId());
+        idaSendOtpRequest.setTransactionID(sendOtpDto.getTransactionId());
+        return idaSendOtpRequest;
     }
 
     @Override
@@ -221,21 +372,47 @@ public class IdaAuthenticatorImpl implements Authenticator {
 
     @Override
     public List<KycSigningCertificateData> getAllKycSigningCertificates() throws KycSigningCertificateException {
+        try {
+            return certificateCache.get();
+        } catch (KycSigningCertificateException e) { throw e; } catch (Exception e) {
+            log.error("getAllKycSigningCertificates failed with clientId : {}", clientId, e);
+        }
+        throw new KycSigningCertificateException();
+    }
+
+    private List<KycSigningCertificateData> loadKycSigningCertificates(List<KycSigningCertificateData> current)
+            throws KycSigningCertificateException {
     	try {
     		String authToken = authTransactionHelper.getAuthToken();
 
-            RequestEntity requestEntity = RequestEntity
+            RequestEntity.HeadersBuilder<?> requestBuilder = RequestEntity
                      .get(UriComponentsBuilder.fromUriString(getCertsUrl).queryParam("applicationId", applicationId).queryParam("referenceId", referenceId).build().toUri())
                      .header(AUTHORIZATION_HEADER_NAME, AUTHORIZATION_HEADER_NAME)
-                     .header(HttpHeaders.COOKIE, "Authorization=" + authToken)
-                     .build();
-            
-            ResponseEntity<ResponseWrapper<GetAllCertificatesResponse>> responseEntity = restTemplate.exchange(requestEntity,
-                     new ParameterizedTypeReference<ResponseWrapper<GetAllCertificatesResponse>>() {});
+                     .header(HttpHeaders.COOKIE, "Authorization=" + authToken);
+            //revalidate the certificates held when IDA tagged them
+            String eTag = certificatesETag;
+            if(current != null && eTag != null)
+                requestBuilder.ifNoneMatch(eTag);
             
+            ResponseEntity<ResponseWrapper<GetAllCertificatesResponse>> responseEntity = IdaHttpClient.await(
+                    idaHttpClient.exchange(IdaRoute.CERTIFICATE, requestBuilder.build(),
+                            CERTIFICATES_RESPONSE_TYPE), Exception.class);
+
+            if(responseEntity.getStatusCode() == HttpStatus.FORBIDDEN ||
+                    responseEntity.getStatusCode() == HttpStatus.UNAUTHORIZED) {
+                log.error("getAllSigningCertificates failed with status : {}, issue with auth-token hence purging it",
+                        responseEntity.getStatusCode());
+                authTransactionHelper.purgeAuthTokenCache(authToken);
+                throw new KycSigningCertificateException();
+            }
+            if(current != null && responseEntity.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                log.debug("KYC signing certificates not modified");
+                return current;
+            }
             if(responseEntity.getStatusCode().is2xxSuccessful() && responseEntity.getBody() != null) {
             	ResponseWrapper<GetAllCertificatesResponse> responseWrapper = responseEntity.getBody();
                 if(responseWrapper.getResponse() != null && responseWrapper.getResponse().getAllCertificates() != null) {
+                    certificatesETag = responseEntity.getHeaders().getETag();
                     return responseWrapper.getResponse().getAllCertificates();
                 }
                 log.error("Error response received from getAllSigningCertificates with errors: {}",
@@ -5,7 +5,7 @@
  */
 package io.mosip.esignet.plugin.mosipid.service;
 
-
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -15,6 +15,11 @@ import io.mosip.esignet.plugin.mosipid.dto.IdaResponseWrapper;
 import io.mosip.esignet.plugin.mosipid.dto.IdaSendOtpRequest;
 import io.mosip.esignet.plugin.mosipid.dto.KeyBindingRequest;
 import io.mosip.esignet.plugin.mosipid.dto.KeyBindingResponse;
+import io.mosip.esignet.plugin.mosipid.helper.IdaCallRejectedException;
+import io.mosip.esignet.plugin.mosipid.helper.IdaHttpClient;
+import io.mosip.esignet.plugin.mosipid.helper.IdaRoute;
+import io.mosip.esignet.plugin.mosipid.helper.JsonCodec;
+import io.mosip.esignet.plugin.mosipid.helper.RequestEnvelope;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -25,10 +30,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.mosip.esignet.api.dto.AuthChallenge;
 import io.mosip.esignet.api.dto.KeyBindingResult;
@@ -39,6 +42,8 @@ import io.mosip.esignet.api.spi.KeyBinder;
 import io.mosip.esignet.api.util.ErrorConstants;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.PostConstruct;
+
 @ConditionalOnProperty(value = "mosip.esignet.integration.key-binder", havingValue = "IdaKeyBinderImpl")
 @Component
 @Slf4j
@@ -57,6 +62,8 @@ public class IdaKeyBinderImpl implements KeyBinder {
     public static final String SIGNATURE_HEADER_NAME = "signature";
     public static final String AUTHORIZATION_HEADER_NAME = "Authorization";
     public static final String REQUIRED_HEADERS_MISSING = "required_header_missing";
+    private static final ParameterizedTypeReference<IdaResponseWrapper<KeyBindingResponse>> KEY_BINDING_RESPONSE_TYPE =
+            new ParameterizedTypeReference<>() {};
 
     @Value("${mosip.esignet.binder.ida.key-binding-url}")
     private String keyBinderUrl;
@@ -77,10 +84,22 @@ public class IdaKeyBinderImpl implements KeyBinder {
     private HelperService helperService;
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private JsonCodec jsonCodec;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private IdaHttpClient idaHttpClient;
+
+    private RequestEnvelope keyBindingEnvelope;
+
+    @PostConstruct
+    public void init() throws IOException {
+        keyBindingEnvelope = RequestEnvelope.builder(jsonCodec.getObjectMapper(), KeyBindingRequest.class)
+                .field("id", keyBindingId)
+                .field("version", idaVersion)
+                .field("domainUri", idaDomainUri)
+                .field("env", idaEnv)
+                .build();
+    }
 
     @Override
     public SendOtpResult sendBindingOtp(String individualId, List<String> otpChannels, Map<String, String> requestHeaders)
@@ -100,8 +119,8 @@ public class IdaKeyBinderImpl implements KeyBinder {
             throw e;
         } catch (Exception e) {
             log.error("send-binding-otp failed with requestHeaders : {}", requestHeaders, e);
+            throw new SendOtpException(IdaCallRejectedException.getErrorCode(e, ErrorConstants.SEND_OTP_FAILED));
         }
-        throw new SendOtpException();
     }
 
     @Override
@@ -113,11 +132,6 @@ public class IdaKeyBinderImpl implements KeyBinder {
 
         try {
             KeyBindingRequest keyBindingRequest = new KeyBindingRequest();
-            keyBindingRequest.setId(keyBindingId);
-            keyBindingRequest.setVersion(idaVersion);
-            keyBindingRequest.setRequestTime(HelperService.getUTCDateTime());
-            keyBindingRequest.setDomainUri(idaDomainUri);
-            keyBindingRequest.setEnv(idaEnv);
             keyBindingRequest.setConsentObtained(true);
             keyBindingRequest.setIndividualId(individualId);
             keyBindingRequest.setTransactionID(helperService.getTransactionId(HelperService.generateHash(individualId.trim())));
@@ -129,7 +143,7 @@ public class IdaKeyBinderImpl implements KeyBinder {
             keyBindingRequest.setIdentityKeyBinding(identityKeyBinding);
 
             //set signature header, body and invoke kyc auth endpoint
-            String requestBody = objectMapper.writeValueAsString(keyBindingRequest);
+            byte[] requestBody = keyBindingEnvelope.write(keyBindingRequest);
             RequestEntity requestEntity = RequestEntity
                     .post(UriComponentsBuilder.fromUriString(keyBinderUrl).pathSegment(requestHeaders.getOrDefault(PARTNER_ID_HEADER, PARTNER_ID_HEADER),
                             requestHeaders.getOrDefault(PARTNER_API_KEY_HEADER, PARTNER_API_KEY_HEADER)).build().toUri())
@@ -137,8 +151,9 @@ public class IdaKeyBinderImpl implements KeyBinder {
                     .header(SIGNATURE_HEADER_NAME, helperService.getRequestSignature(requestBody))
                     .header(AUTHORIZATION_HEADER_NAME, AUTHORIZATION_HEADER_NAME)
                     .body(requestBody);
-            ResponseEntity<IdaResponseWrapper<KeyBindingResponse>> responseEntity = restTemplate.exchange(requestEntity,
-                    new ParameterizedTypeReference<IdaResponseWrapper<KeyBindingResponse>>() {});
+            ResponseEntity<IdaResponseWrapper<KeyBindingResponse>> responseEntity = IdaHttpClient.await(
+                    idaHttpClient.exchange(IdaRoute.KEY_BINDING, requestEntity,
+                            KEY_BINDING_RESPONSE_TYPE), Exception.class);
 
             if(responseEntity.getStatusCode().is2xxSuccessful() && responseEntity.getBody() != null) {
                 IdaResponseWrapper<KeyBindingResponse> responseWrapper = responseEntity.getBody();
@@ -165,6 +180,7 @@ public class IdaKeyBinderImpl implements KeyBinder {
             throw e;
         } catch (Exception e) {
             log.error("Key-binding failed with headers: {}", requestHeaders, e);
+            throw new KeyBindingException(IdaCallRejectedException.getErrorCode(e, ErrorConstants.KEY_BINDING_FAILED));
         }
         throw new KeyBindingException(ErrorConstants.KEY_BINDING_FAILED);
     }
@@ -11,6 +11,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.node.TextNode;
 import io.micrometer.core.annotation.Timed;
+import io.mosip.esignet.plugin.mosipid.helper.RetryBudget;
+import io.mosip.esignet.plugin.mosipid.helper.RetryPolicy;
+import io.mosip.esignet.plugin.mosipid.helper.UtcDateTimeClock;
 import io.mosip.signup.plugin.mosipid.dto.*;
 import io.mosip.signup.plugin.mosipid.util.ErrorConstants;
 import io.mosip.signup.plugin.mosipid.util.ProfileCacheService;
@@ -35,12 +38,10 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import javax.annotation.PostConstruct;
 import javax.validation.constraints.NotNull;
 import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
-import java.time.ZoneOffset;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 import static io.mosip.signup.api.util.ErrorConstants.SERVER_UNREACHABLE;
@@ -54,9 +55,18 @@ public class IdrepoProfileRegistryPluginImpl implements ProfileRegistryPlugin {
     private static final String ID_SCHEMA_VERSION_FIELD_ID = "IDSchemaVersion";
     private static final String UIN = "UIN";
     private static final String SELECTED_HANDLES_FIELD_ID = "selectedHandles";
-    private static final String UTC_DATETIME_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
     private final Map<Double, SchemaResponse> schemaMap = new HashMap<>();
     private static final List<String> ACTIONS = Arrays.asList("CREATE", "UPDATE");
+    private static final ParameterizedTypeReference<ResponseWrapper<IdentityResponse>> IDENTITY_RESPONSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ResponseWrapper<SchemaResponse>> SCHEMA_RESPONSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ResponseWrapper<UINResponse>> UIN_RESPONSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ResponseWrapper<Password.PasswordHash>> PASSWORD_HASH_RESPONSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ResponseWrapper<IdentityStatusResponse>> IDENTITY_STATUS_RESPONSE_TYPE =
+            new ParameterizedTypeReference<>() {};
 
     @Value("#{'${mosip.signup.idrepo.default.selected-handles:phone}'.split(',')}")
     private List<String> defaultSelectedHandles;
@@ -112,6 +122,21 @@ public class IdrepoProfileRegistryPluginImpl implements ProfileRegistryPlugin {
     @Value("${mosip.signup.idrepo.get-identity-fallback-path}")
     private String getIdentityEndpointFallbackPath;
 
+    @Value("${mosip.signup.idrepo.retry.max-attempts:3}")
+    private int retryMaxAttempts;
+
+    @Value("${mosip.signup.idrepo.retry.initial-backoff-ms:100}")
+    private long retryInitialBackoffMs;
+
+    @Value("${mosip.signup.idrepo.retry.max-backoff-ms:2000}")
+    private long retryMaxBackoffMs;
+
+    @Value("${mosip.signup.idrepo.retry.budget.ratio:0.1}")
+    private double retryBudgetRatio;
+
+    @Value("${mosip.signup.idrepo.retry.budget.min-retries-per-second:5}")
+    private int retryBudgetMinRetriesPerSecond;
+
     @Autowired
     @Qualifier("selfTokenRestTemplate")
     private RestTemplate restTemplate;
@@ -122,6 +147,13 @@ public class IdrepoProfileRegistryPluginImpl implements ProfileRegistryPlugin {
     @Autowired
     private ProfileCacheService profileCacheService;
 
+    private RetryPolicy retryPolicy;
+
+    @PostConstruct
+    public void init() {
+        retryPolicy = new RetryPolicy(retryMaxAttempts, retryInitialBackoffMs, retryMaxBackoffMs,
+                new RetryBudget(retryBudgetRatio, retryBudgetMinRetriesPerSecond));
+    }
 
     @Override
     public void validate(String action, ProfileDto profileDto) throws InvalidProfileException {
@@ -239,12 +271,12 @@ public class IdrepoProfileRegistryPluginImpl implements ProfileRegistryPlugin {
                     idDTORequestWrapper.setRequest(requestByIdDTO);
                     idDTORequestWrapper.setRequesttime(getUTCDateTime());
                     responseWrapper = request(getIdentityEndpoint, HttpMethod.POST, idDTORequestWrapper,
-                            new ParameterizedTypeReference<ResponseWrapper<IdentityResponse>>() {});
+                            IDENTITY_RESPONSE_TYPE);
                     break;
                 case "get":
                     String path = String.format(getIdentityEndpointFallbackPath, individualId);
                     responseWrapper = request(getIdentityEndpoint+path, HttpMethod.GET, null,
-                            new ParameterizedTypeReference<ResponseWrapper<IdentityResponse>>() {});
+                            IDENTITY_RESPONSE_TYPE);
                     break;
             }
 
@@ -295,7 +327,7 @@ public class IdrepoProfileRegistryPluginImpl implements ProfileRegistryPlugin {
             return schemaMap.get(version);
 
         ResponseWrapper<SchemaResponse> responseWrapper = request(schemaUrl+version,
-                HttpMethod.GET, null, new ParameterizedTypeReference<ResponseWrapper<SchemaResponse>>() {});
+                HttpMethod.GET, null, SCHEMA_RESPONSE_TYPE, true);
         if (responseWrapper.getResponse().getSchemaJson()!=null) {
             SchemaResponse schemaResponse = new SchemaResponse();
             try {
@@ -314,7 +346,7 @@ public class IdrepoProfileRegistryPluginImpl implements ProfileRegistryPlugin {
     @Timed(value = "getuin.api.timer", percentiles = {0.9})
     private String getUniqueIdentifier() throws ProfileException {
         ResponseWrapper<UINResponse> responseWrapper = request(getUinEndpoint, HttpMethod.GET, null,
-                new ParameterizedTypeReference<ResponseWrapper<UINResponse>>() {});
+                UIN_RESPONSE_TYPE);
         if (!StringUtils.isEmpty(responseWrapper.getResponse().getUIN()) ) {
             return responseWrapper.getResponse().getUIN();
         }
@@ -328,7 +360,7 @@ public class IdrepoProfileRegistryPluginImpl implements ProfileRegistryPlugin {
         requestWrapper.setRequesttime(getUTCDateTime());
         requestWrapper.setRequest(new Password.PasswordPlaintext(password));
         ResponseWrapper<Password.PasswordHash> responseWrapper = request(generateHashEndpoint, HttpMethod.POST, requestWrapper,
-                new ParameterizedTypeReference<ResponseWrapper<Password.PasswordHash>>() {});
+                PASSWORD_HASH_RESPONSE_TYPE);
         if (!StringUtils.isEmpty(responseWrapper.getResponse().getHashValue()) &&
                 !StringUtils.isEmpty(responseWrapper.getResponse().getSalt())) {
             return new Password(responseWrapper.getResponse().getHashValue(),
@@ -346,7 +378,7 @@ public class IdrepoProfileRegistryPluginImpl implements ProfileRegistryPlugin {
         restRequest.setRequesttime(getUTCDateTime());
         restRequest.setRequest(identityRequest);
         ResponseWrapper<IdentityResponse> responseWrapper = request(identityEndpoint, HttpMethod.POST, restRequest,
-                new ParameterizedTypeReference<ResponseWrapper<IdentityResponse>>() {});
+                IDENTITY_RESPONSE_TYPE);
         return responseWrapper.getResponse();
     }
 
@@ -358,14 +390,14 @@ public class IdrepoProfileRegistryPluginImpl implements ProfileRegistryPlugin {
         restRequest.setRequesttime(getUTCDateTime());
         restRequest.setRequest(identityRequest);
         ResponseWrapper<IdentityResponse> responseWrapper = request(identityEndpoint, HttpMethod.PATCH, restRequest,
-                new ParameterizedTypeReference<ResponseWrapper<IdentityResponse>>() {});
+                IDENTITY_RESPONSE_TYPE);
         return responseWrapper.getResponse();
     }
 
     @Timed(value = "getstatus.api.timer", percentiles = {0.9})
     private ProfileCreateUpdateStatus getRequestStatusFromServer(String applicationId) {
         ResponseWrapper<IdentityStatusResponse> responseWrapper = request(getStatusEndpoint+applicationId,
-                HttpMethod.GET, null, new ParameterizedTypeReference<ResponseWrapper<IdentityStatusResponse>>() {});
+                HttpMethod.GET, null, IDENTITY_STATUS_RESPONSE_TYPE, true);
         if (responseWrapper != null && responseWrapper.getResponse() != null &&
                 !StringUtils.isEmpty(responseWrapper.getResponse().getStatusCode())) {
             switch (responseWrapper.getResponse().getStatusCode()) {
@@ -385,16 +417,25 @@ public class IdrepoProfileRegistryPluginImpl implements ProfileRegistryPlugin {
 
     private <T> ResponseWrapper<T> request(String url, HttpMethod method, Object request,
                                            ParameterizedTypeReference<ResponseWrapper<T>> responseType) {
+        return request(url, method, request, responseType, false);
+    }
+
+    /**
+     * @param idempotent true only for reads that can safely be repeated, they are retried on I/O errors
+     *                   and 502/503/504. UIN and hash generation are not, each call returns a new value.
+     */
+    private <T> ResponseWrapper<T> request(String url, HttpMethod method, Object request,
+                                           ParameterizedTypeReference<ResponseWrapper<T>> responseType,
+                                           boolean idempotent) {
         try {
             HttpEntity<?> httpEntity = null;
             if(request != null) {
                 httpEntity = new HttpEntity<>(request);
             }
-            ResponseWrapper<T> responseWrapper = restTemplate.exchange(
-                    url,
-                    method,
-                    httpEntity,
-                    responseType).getBody();
+            HttpEntity<?> requestEntity = httpEntity;
+            ResponseWrapper<T> responseWrapper = idempotent ?
+                    retryPolicy.execute(() -> restTemplate.exchange(url, method, requestEntity, responseType)).getBody() :
+                    restTemplate.exchange(url, method, requestEntity, responseType).getBody();
             if (responseWrapper != null && responseWrapper.getResponse() != null) {
                 return responseWrapper;
             }
@@ -443,9 +484,7 @@ public class IdrepoProfileRegistryPluginImpl implements ProfileRegistryPlugin {
     }
 
     private String getUTCDateTime() {
-        return ZonedDateTime
-                .now(ZoneOffset.UTC)
-                .format(DateTimeFormatter.ofPattern(UTC_DATETIME_PATTERN));
+        return UtcDateTimeClock.now();
     }
 
     private void validateValue(String keyName, SchemaFieldValidator validator, String value) {
@@ -0,0 +1,81 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    public void tryAcquire_overLimit_thenReject() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 1.5, 0.2, 600);
+        Assert.assertEquals(1, limiter.tryAcquire());
+        Assert.assertEquals(2, limiter.tryAcquire());
+        Assert.assertEquals(-1, limiter.tryAcquire());
+        Assert.assertEquals(1, limiter.getRejectedCalls());
+
+        limiter.onIgnore();
+        Assert.assertEquals(2, limiter.tryAcquire());
+    }
+
+    @Test
+    public void onSample_withSteadyLatencyAtLimit_thenGrowUpToMax() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 5, 50, 1.5, 0.2, 600);
+        for(int i=0; i<200; i++) {
+            saturate(limiter);
+        }
+        Assert.assertEquals(50, limiter.getLimit());
+    }
+
+    @Test
+    public void onSample_withUnderusedLimit_thenKeepLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 5, 50, 1.5, 0.2, 600);
+        for(int i=0; i<200; i++) {
+            int inFlight = limiter.tryAcquire();
+            limiter.onSample(RTT, inFlight, false);
+        }
+        Assert.assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    public void onSample_withRisingLatency_thenShrinkToMin() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(40, 5, 50, 1.5, 0.2, 600);
+        for(int i=0; i<20; i++) {
+            saturate(limiter);
+        }
+        int limitBefore = limiter.getLimit();
+
+        //ten times slower, IDA is queueing
+        for(int i=0; i<5; i++) {
+            int inFlight = limiter.getLimit();
+            for(int j=0; j<inFlight; j++)
+                limiter.tryAcquire();
+            for(int j=0; j<inFlight; j++)
+                limiter.onSample(RTT * 10, inFlight, false);
+        }
+        Assert.assertTrue(limiter.getLimit() < limitBefore / 2);
+        Assert.assertTrue(limiter.getLimit() >= 5);
+    }
+
+    @Test
+    public void onSample_withDroppedCalls_thenDecrease() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 5, 50, 1.5, 0.2, 600);
+        for(int i=0; i<30; i++) {
+            int inFlight = limiter.tryAcquire();
+            limiter.onSample(RTT, inFlight, true);
+        }
+        Assert.assertEquals(5, limiter.getLimit());
+        Assert.assertEquals(0, limiter.getInFlight());
+    }
+
+    private static void saturate(AdaptiveConcurrencyLimiter limiter) {
+        int limit = limiter.getLimit();
+        for(int i=0; i<limit; i++)
+            limiter.tryAcquire();
+        for(int i=0; i<limit; i++)
+            limiter.onSample(RTT, limit, false);
+    }
+}
@@ -0,0 +1,108 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.mosip.esignet.api.dto.AuditDTO;
+import io.mosip.esignet.api.util.Action;
+import io.mosip.esignet.api.util.ActionStatus;
+import io.mosip.kernel.core.http.RequestWrapper;
+import io.mosip.kernel.core.util.DateUtils;
+import org.json.JSONObject;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Time and allocation of encoding one audit event, with the streaming encoder against the org.json description
+ * plus ObjectMapper serialization it replaced. Not run by the build, run it from the test classpath:
+ * java -cp target/classes:target/test-classes:&lt;dependencies&gt; io.mosip.esignet.plugin.mosipid.helper.AuditEventEncoderBenchmark
+ */
+public class AuditEventEncoderBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 50_000;
+    private static final int ITERATIONS = 200_000;
+
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        AuditEventEncoder encoder = new AuditEventEncoder("ida", "eSignet", "IdaAuditPluginImpl",
+                new AuditEventEncoder.Host("esignet-0", "10.0.0.1"));
+        AuditDTO audit = new AuditDTO();
+        audit.setTransactionId("c1d9e8a6-31d4-4f0c-9b6e-2f1b8e7a4c5d");
+        audit.setIdType("transaction");
+        audit.setClientId("mock-oidc-client");
+        audit.setRelyingPartyId("mock-relying-party");
+        audit.setState("urlInfo1724138417665");
+        audit.setAuthTransactionId("c1d9e8a6-31d4-4f0c-9b6e-2f1b8e7a4c5d");
+
+        for(int round=0; round<3; round++) {
+            measure("org.json", () -> sink += encodeWithObjectMapper(objectMapper, "user-1", Action.AUTHENTICATE,
+                    ActionStatus.SUCCESS, audit).length());
+            measure("encoder ", () -> sink += encoder.encode("user-1", Action.AUTHENTICATE, ActionStatus.SUCCESS,
+                    audit).length());
+        }
+        System.out.println(sink == 0 ? "" : "done");
+    }
+
+    private static void measure(String name, Operation operation) throws Exception {
+        for(int i=0; i<WARMUP_ITERATIONS; i++) {
+            operation.run();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for(int i=0; i<ITERATIONS; i++) {
+            operation.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf("%s %8.1f ns/op %8d B/op%n", name, (double) elapsed / ITERATIONS, allocated / ITERATIONS);
+    }
+
+    //the request built by IdaAuditPluginImpl before the encoder, the removed AuditRequest fields as a map
+    private static String encodeWithObjectMapper(ObjectMapper objectMapper, String username, Action action,
+                                                 ActionStatus status, AuditDTO audit) throws Exception {
+        String user = username == null || username.isEmpty() ? "no-user" : username;
+        Map<String, Object> auditRequest = new LinkedHashMap<>();
+        auditRequest.put("eventId", action.name());
+        auditRequest.put("eventName", action.name());
+        auditRequest.put("eventType", status.name());
+        auditRequest.put("actionTimeStamp", DateUtils.getUTCCurrentDateTime());
+        auditRequest.put("hostName", "localhost");
+        auditRequest.put("hostIp", "localhost");
+        auditRequest.put("applicationId", "eSignet");
+        auditRequest.put("applicationName", "eSignet");
+        auditRequest.put("sessionUserId", user);
+        auditRequest.put("sessionUserName", user);
+        auditRequest.put("id", audit.getTransactionId());
+        auditRequest.put("idType", audit.getIdType());
+        auditRequest.put("createdBy", "IdaAuditPluginImpl");
+        auditRequest.put("moduleName", action.getModule());
+        auditRequest.put("moduleId", action.getModule());
+
+        JSONObject description = new JSONObject();
+        description.put("clientId", audit.getClientId());
+        description.put("relyingPartyId", audit.getRelyingPartyId());
+        description.put("state", audit.getState());
+        description.put("codeHash", audit.getCodeHash());
+        description.put("accessTokenHash", audit.getAccessTokenHash());
+        description.put("linkCodeHash", audit.getLinkedCodeHash());
+        description.put("linkTransactionId", audit.getLinkedTransactionId());
+        description.put("authTransactionId", audit.getAuthTransactionId());
+        auditRequest.put("description", description.toString());
+
+        RequestWrapper<Map<String, Object>> request = new RequestWrapper<>();
+        request.setRequest(auditRequest);
+        request.setId("ida");
+        request.setRequesttime(DateUtils.getUTCCurrentDateTime());
+        return objectMapper.writeValueAsString(request);
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void run() throws Exception;
+    }
+}
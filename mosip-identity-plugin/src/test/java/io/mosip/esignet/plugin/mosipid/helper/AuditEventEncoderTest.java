@@ -0,0 +1,111 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.mosip.esignet.api.dto.AuditDTO;
+import io.mosip.esignet.api.util.Action;
+import io.mosip.esignet.api.util.ActionStatus;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class AuditEventEncoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AuditEventEncoder encoder = new AuditEventEncoder("ida", "eSignet", "IdaAuditPluginImpl",
+            new AuditEventEncoder.Host("esignet-0", "10.0.0.1"));
+
+    @Test
+    public void encode_thenWriteAuditRequestInWrapper() throws Exception {
+        AuditDTO audit = new AuditDTO();
+        audit.setTransactionId("txn-1");
+        audit.setIdType("transaction");
+        audit.setClientId("client-1");
+        audit.setState("state \"quoted\"");
+        audit.setAuthTransactionId("auth-txn-1");
+
+        JsonNode json = objectMapper.readTree(encoder.encode("user-1", Action.AUTHENTICATE, ActionStatus.ERROR, audit));
+        Assert.assertEquals("ida", json.get("id").asText());
+        Assert.assertTrue(json.get("version").isNull());
+        Assert.assertTrue(json.get("requesttime").asText().matches("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d{3}Z"));
+
+        JsonNode request = json.get("request");
+        Assert.assertEquals("AUTHENTICATE", request.get("eventId").asText());
+        Assert.assertEquals("AUTHENTICATE", request.get("eventName").asText());
+        Assert.assertEquals("ERROR", request.get("eventType").asText());
+        Assert.assertEquals(Action.AUTHENTICATE.getModule(), request.get("moduleName").asText());
+        Assert.assertEquals(Action.AUTHENTICATE.getModule(), request.get("moduleId").asText());
+        Assert.assertEquals(json.get("requesttime").asText(), request.get("actionTimeStamp").asText());
+        Assert.assertEquals("esignet-0", request.get("hostName").asText());
+        Assert.assertEquals("10.0.0.1", request.get("hostIp").asText());
+        Assert.assertEquals("eSignet", request.get("applicationId").asText());
+        Assert.assertEquals("eSignet", request.get("applicationName").asText());
+        Assert.assertEquals("IdaAuditPluginImpl", request.get("createdBy").asText());
+        Assert.assertEquals("user-1", request.get("sessionUserId").asText());
+        Assert.assertEquals("user-1", request.get("sessionUserName").asText());
+        Assert.assertEquals("txn-1", request.get("id").asText());
+        Assert.assertEquals("transaction", request.get("idType").asText());
+
+        //the description is a JSON string holding the non-null fields only
+        Map<?, ?> description = objectMapper.readValue(request.get("description").asText(), Map.class);
+        Assert.assertEquals(Map.of("clientId", "client-1", "state", "state \"quoted\"", "authTransactionId", "auth-txn-1"),
+                description);
+    }
+
+    @Test
+    public void encode_withoutUsername_thenAuditAsNoUser() throws Exception {
+        JsonNode request = objectMapper.readTree(encoder.encode(null, Action.GENERATE_TOKEN, ActionStatus.SUCCESS,
+                new AuditDTO())).get("request");
+        Assert.assertEquals("no-user", request.get("sessionUserId").asText());
+        Assert.assertEquals("no-user", request.get("sessionUserName").asText());
+        Assert.assertTrue(request.get("id").isNull());
+        Assert.assertEquals("{}", request.get("description").asText());
+    }
+
+    @Test
+    public void resolveHost_thenUseLocalHostNameAndAddress() {
+        AuditEventEncoder.Host host = AuditEventEncoder.resolveHost(
+                () -> InetAddress.getByAddress("esignet-0", new byte[]{10, 0, 0, 1}), 1000);
+        Assert.assertEquals("esignet-0", host.getName());
+        Assert.assertEquals("10.0.0.1", host.getIp());
+    }
+
+    @Test
+    public void resolveHost_withFailedOrSlowLookup_thenFallBackToLocalhost() {
+        AuditEventEncoder.Host host = AuditEventEncoder.resolveHost(() -> {
+            throw new UnknownHostException("esignet-0");
+        }, 1000);
+        Assert.assertEquals("localhost", host.getName());
+        Assert.assertEquals("localhost", host.getIp());
+
+        long start = System.nanoTime();
+        host = AuditEventEncoder.resolveHost(() -> {
+            Thread.sleep(10_000);
+            return InetAddress.getLoopbackAddress();
+        }, 100);
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        Assert.assertEquals("localhost", host.getName());
+        Assert.assertEquals("localhost", host.getIp());
+    }
+
+    @Test
+    public void encode_repeatedly_thenNotShareBuffersBetweenResults() throws Exception {
+        AuditDTO large = new AuditDTO();
+        large.setState("s".repeat(100_000));
+        AuditDTO small = new AuditDTO();
+        small.setState("s");
+
+        String first = encoder.encode("user-1", Action.AUTHENTICATE, ActionStatus.SUCCESS, large);
+        String second = encoder.encode("user-2", Action.SEND_OTP, ActionStatus.SUCCESS, small);
+        Assert.assertTrue(first.length() > 100_000);
+        Assert.assertEquals("user-1", objectMapper.readTree(first).get("request").get("sessionUserId").asText());
+        JsonNode request = objectMapper.readTree(second).get("request");
+        Assert.assertEquals(List.of("user-2", "SEND_OTP", "{\"state\":\"s\"}"), List.of(request.get("sessionUserId").asText(),
+                request.get("eventId").asText(), request.get("description").asText()));
+    }
+}
@@ -0,0 +1,251 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class AuditJournalTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private AuditJournal journal;
+
+    @After
+    public void tearDown() {
+        if(journal != null)
+            journal.close();
+    }
+
+    @Test
+    public void read_withSeveralSegments_thenReturnEventsInOrder() throws Exception {
+        journal = open(256, 1 << 20);
+        for(int i=0; i<100; i++) {
+            Assert.assertTrue(journal.append(event(i)));
+        }
+        Assert.assertTrue(getSegments().size() > 5);
+        Assert.assertEquals(100, journal.await(1, 0));
+
+        Assert.assertEquals(bodies(0, 100), readAll(7));
+        Assert.assertEquals(0, journal.await(1, 0));
+        Assert.assertEquals(100, journal.getPendingEvents());
+    }
+
+    @Test
+    public void acknowledge_thenDeleteSegmentsBeforeIt() throws Exception {
+        journal = open(256, 1 << 20);
+        for(int i=0; i<100; i++) {
+            journal.append(event(i));
+        }
+        int segments = getSegments().size();
+        List<AuditJournal.Entry> entries = journal.read(50);
+        journal.acknowledge(entries.get(49), 50);
+        Assert.assertEquals(50, journal.getPendingEvents());
+        Assert.assertTrue(getSegments().size() < segments);
+
+        entries = journal.read(50);
+        journal.acknowledge(entries.get(49), 50);
+        Assert.assertEquals(0, journal.getPendingEvents());
+        Assert.assertEquals(1, getSegments().size());
+    }
+
+    @Test
+    public void rewind_thenReadAgainFromFirstNotAcknowledged() throws Exception {
+        journal = open(256, 1 << 20);
+        for(int i=0; i<20; i++) {
+            journal.append(event(i));
+        }
+        List<AuditJournal.Entry> entries = journal.read(10);
+        journal.acknowledge(entries.get(3), 4);
+        journal.read(10);
+        journal.rewind();
+        Assert.assertEquals(16, journal.await(1, 0));
+        Assert.assertEquals(bodies(4, 20), readAll(5));
+    }
+
+    @Test
+    public void open_afterClose_thenResumeFromAcknowledgedPosition() throws Exception {
+        journal = open(256, 1 << 20);
+        for(int i=0; i<30; i++) {
+            journal.append(event(i));
+        }
+        List<AuditJournal.Entry> entries = journal.read(30);
+        journal.acknowledge(entries.get(11), 12);
+        journal.close();
+
+        journal = open(256, 1 << 20);
+        Assert.assertEquals(18, journal.getPendingEvents());
+        journal.append(event(30));
+        Assert.assertEquals(bodies(12, 31), readAll(4));
+    }
+
+    @Test
+    public void open_withTornRecordAtTheEnd_thenTruncateIt() throws Exception {
+        journal = open(1 << 20, 1 << 20);
+        for(int i=0; i<3; i++) {
+            journal.append(event(i));
+        }
+        journal.close();
+        //length and crc of a record whose content was never written
+        ByteBuffer torn = ByteBuffer.allocate(12).putInt(100).putInt(12345).putInt(42);
+        Files.write(getSegments().get(0), torn.array(), StandardOpenOption.APPEND);
+
+        journal = open(1 << 20, 1 << 20);
+        Assert.assertEquals(3, journal.getPendingEvents());
+        journal.append(event(3));
+        Assert.assertEquals(bodies(0, 4), readAll(10));
+    }
+
+    @Test
+    public void read_withCorruptRecordInSegment_thenSkipRestOfSegmentAndStopCountingIt() throws Exception {
+        journal = open(1 << 20, 1 << 20);
+        for(int i=0; i<4; i++) {
+            journal.append(event(i));
+        }
+        //flip a byte in the content of the second record
+        Path segment = getSegments().get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        int second = 8 + ByteBuffer.wrap(bytes).getInt(0);
+        bytes[second + 8] ^= 1;
+        Files.write(segment, bytes);
+
+        Assert.assertEquals(bodies(0, 1), readAll(10));
+        Assert.assertEquals(1, journal.getPendingEvents());
+        long start = System.nanoTime();
+        Assert.assertEquals(0, journal.await(1, TimeUnit.MILLISECONDS.toNanos(100)));
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90));
+
+        //appended after the corrupt record, but not skipped with it
+        journal.append(event(4));
+        Assert.assertEquals(1, journal.await(1, 0));
+        List<AuditJournal.Entry> entries = journal.read(10);
+        Assert.assertEquals("body-4", entries.get(0).getEvent().getBody());
+        journal.acknowledge(entries.get(0), 2);
+        Assert.assertEquals(0, journal.getPendingEvents());
+        Assert.assertEquals(0, journal.await(1, 0));
+    }
+
+    @Test
+    public void append_withFullJournal_thenRefuse() throws Exception {
+        journal = open(256, 256);
+        int appended = 0;
+        while(journal.append(event(appended))) {
+            appended++;
+        }
+        Assert.assertTrue(appended > 0);
+        Assert.assertTrue(journal.getSizeBytes() >= 256);
+
+        List<AuditJournal.Entry> entries = journal.read(appended);
+        journal.acknowledge(entries.get(appended - 1), appended);
+        //room again once the acknowledged segment is deleted
+        Assert.assertTrue(journal.append(event(appended)));
+    }
+
+    @Test
+    public void open_whileAlreadyOpen_thenFail() throws Exception {
+        journal = open(256, 1 << 20);
+        journal.append(event(0));
+        Assert.assertThrows(IOException.class, () -> open(256, 1 << 20));
+        journal.close();
+
+        journal = open(256, 1 << 20);
+        Assert.assertEquals(1, journal.getPendingEvents());
+    }
+
+    @Test
+    public void open_afterProcessKilledWhileAppending_thenRecoverEveryWrittenEvent() throws Exception {
+        Path dir = temporaryFolder.getRoot().toPath();
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process writer = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                JournalWriter.class.getName(), dir.toString())
+                .redirectErrorStream(true)
+                .start();
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(writer.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while((line = out.readLine()) != null && !line.equals(JournalWriter.READY)) {
+                //skip logging of the child process
+            }
+            Assert.assertEquals(JournalWriter.READY, line);
+            //killed while still appending, nothing has been fsynced
+            writer.destroyForcibly();
+            Assert.assertTrue(writer.waitFor(30, TimeUnit.SECONDS));
+        } finally {
+            writer.destroyForcibly();
+        }
+
+        journal = open(4096, 1 << 30);
+        long pending = journal.getPendingEvents();
+        Assert.assertTrue(pending >= 1000);
+        Assert.assertEquals(bodies(0, (int) pending), readAll(500));
+
+        journal.append(event((int) pending));
+        Assert.assertEquals(bodies((int) pending, (int) pending + 1), readAll(10));
+    }
+
+    /**
+     * Appends events to the journal in the given directory until killed.
+     */
+    public static class JournalWriter {
+        static final String READY = "ready";
+
+        public static void main(String[] args) throws Exception {
+            AuditJournal journal = new AuditJournal(Paths.get(args[0]), 4096, 1 << 30, TimeUnit.HOURS.toMillis(1));
+            for(int i=0; ; i++) {
+                journal.append(event(i));
+                if(i == 1000) {
+                    System.out.println(READY);
+                    System.out.flush();
+                }
+            }
+        }
+    }
+
+    private AuditJournal open(long segmentSizeBytes, long maxSizeBytes) throws Exception {
+        return new AuditJournal(temporaryFolder.getRoot().toPath(), segmentSizeBytes, maxSizeBytes, 10);
+    }
+
+    private List<String> readAll(int batchSize) throws Exception {
+        List<String> bodies = new ArrayList<>();
+        List<AuditJournal.Entry> entries;
+        while(!(entries = journal.read(batchSize)).isEmpty()) {
+            Assert.assertTrue(entries.size() <= batchSize);
+            entries.forEach(entry -> bodies.add(entry.getEvent().getBody()));
+        }
+        return bodies;
+    }
+
+    private List<Path> getSegments() throws Exception {
+        try (Stream<Path> files = Files.list(temporaryFolder.getRoot().toPath())) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".seg")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> bodies(int from, int to) {
+        List<String> bodies = new ArrayList<>();
+        for(int i=from; i<to; i++) {
+            bodies.add("body-" + i);
+        }
+        return bodies;
+    }
+
+    private static AuditPipeline.Event event(int i) {
+        return new AuditPipeline.Event("AUTHENTICATE", "SUCCESS", "body-" + i);
+    }
+}
@@ -0,0 +1,448 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+public class AuditPipelineTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<String> sentBodies = new CopyOnWriteArrayList<>();
+    private final List<CompletableFuture<Void>> pendingSends = new ArrayList<>();
+    private boolean released;
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private final List<String> droppedBodies = new CopyOnWriteArrayList<>();
+    private final List<String> spilledBodies = new CopyOnWriteArrayList<>();
+    private final AuditPipeline.Listener listener = new AuditPipeline.Listener() {
+        @Override
+        public void onBatch(int size, long durationNanos) {
+            batchSizes.add(size);
+        }
+
+        @Override
+        public void onDropped(AuditPipeline.Event event) {
+            droppedBodies.add(event.getBody());
+        }
+
+        @Override
+        public void onSpilled(AuditPipeline.Event event) {
+            spilledBodies.add(event.getBody());
+        }
+    };
+    private AuditPipeline auditPipeline;
+
+    @After
+    public void tearDown() {
+        releaseSends();
+        if(auditPipeline != null)
+            auditPipeline.shutdown();
+    }
+
+    @Test
+    public void offer_withBurst_thenSendInBatchesOfFlushSize() throws Exception {
+        auditPipeline = getPipeline(AuditPipeline.OverflowPolicy.BLOCK, 100, 5, 1000, blockingSender());
+        for(int i=0; i<12; i++) {
+            auditPipeline.offer(event(i));
+        }
+        //one batch in flight, the next one waits for it
+        waitForQueueSize(7);
+        for(int i=0; i<200 && getPendingSends() < 5; i++) {
+            Thread.sleep(5);
+        }
+        Assert.assertEquals(5, getPendingSends());
+
+        releaseSends();
+        waitForSent(12);
+        Assert.assertEquals(12, auditPipeline.getSentEvents());
+        Assert.assertEquals(12, auditPipeline.getAcceptedEvents());
+        for(int i=0; i<200 && batchSizes.size() < 3; i++) {
+            Thread.sleep(5);
+        }
+        Assert.assertEquals(List.of(5, 5, 2), batchSizes);
+    }
+
+    @Test
+    public void offer_belowFlushSize_thenSendAfterFlushInterval() throws Exception {
+        auditPipeline = getPipeline(AuditPipeline.OverflowPolicy.BLOCK, 100, 50, 20, event -> {
+            sentBodies.add(event.getBody());
+            return CompletableFuture.completedFuture(null);
+        });
+        auditPipeline.offer(event(1));
+        auditPipeline.offer(event(2));
+        waitForSent(2);
+        Assert.assertEquals(List.of("body-1", "body-2"), sentBodies);
+    }
+
+    @Test
+    public void offer_withFullQueueAndDropOldest_thenKeepNewest() throws Exception {
+        auditPipeline = getPipeline(AuditPipeline.OverflowPolicy.DROP_OLDEST, 3, 1, 1, blockingSender());
+        //first event is taken by the dispatcher and held in flight
+        auditPipeline.offer(event(0));
+        waitForQueueSize(0);
+        for(int i=1; i<=5; i++) {
+            auditPipeline.offer(event(i));
+        }
+        Assert.assertEquals(2, auditPipeline.getDroppedEvents());
+        Assert.assertEquals(List.of("body-1", "body-2"), droppedBodies);
+        releaseSends();
+        waitForSent(4);
+        Assert.assertEquals(List.of("body-0", "body-3", "body-4", "body-5"), sentBodies);
+    }
+
+    @Test
+    public void offer_withFullQueueAndBlock_thenDropAfterTimeout() throws Exception {
+        auditPipeline = getPipeline(AuditPipeline.OverflowPolicy.BLOCK, 1, 1, 1, blockingSender());
+        auditPipeline.offer(event(0));
+        waitForQueueSize(0);
+        auditPipeline.offer(event(1));
+
+        long start = System.nanoTime();
+        auditPipeline.offer(event(2));
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        Assert.assertEquals(1, auditPipeline.getDroppedEvents());
+    }
+
+    @Test
+    public void offer_withFullQueueAndSpill_thenReplayInOrder() throws Exception {
+        auditPipeline = getPipeline(AuditPipeline.OverflowPolicy.SPILL, 2, 1, 1, blockingSender());
+        auditPipeline.offer(event(0));
+        waitForQueueSize(0);
+        for(int i=1; i<=6; i++) {
+            auditPipeline.offer(event(i));
+        }
+        Assert.assertEquals(4, auditPipeline.getSpilledEvents());
+        Assert.assertEquals(List.of("body-3", "body-4", "body-5", "body-6"), spilledBodies);
+        Assert.assertTrue(Files.exists(temporaryFolder.getRoot().toPath().resolve("audit-spill.dat")));
+
+        releaseSends();
+        waitForSent(7);
+        Assert.assertEquals(List.of("body-0", "body-1", "body-2", "body-3", "body-4", "body-5", "body-6"), sentBodies);
+        Assert.assertEquals(0, auditPipeline.getDroppedEvents());
+        Assert.assertFalse(Files.exists(temporaryFolder.getRoot().toPath().resolve("audit-spill.dat")));
+    }
+
+    @Test
+    public void shutdown_withQueuedEvents_thenDrainBeforeStopping() throws Exception {
+        auditPipeline = getPipeline(AuditPipeline.OverflowPolicy.BLOCK, 100, 5, 1000, event -> {
+            sentBodies.add(event.getBody());
+            return CompletableFuture.completedFuture(null);
+        });
+        for(int i=0; i<20; i++) {
+            auditPipeline.offer(event(i));
+        }
+        auditPipeline.shutdown();
+        Assert.assertEquals(20, sentBodies.size());
+        auditPipeline = null;
+    }
+
+    @Test
+    public void shutdown_withSpillPolicyAndStuckSender_thenSpillForNextStart() throws Exception {
+        auditPipeline = getPipeline(AuditPipeline.OverflowPolicy.SPILL, 100, 1, 1, blockingSender());
+        auditPipeline.offer(event(0));
+        waitForQueueSize(0);
+        auditPipeline.offer(event(1));
+        auditPipeline.offer(event(2));
+        auditPipeline.shutdown();
+        Assert.assertEquals(2, auditPipeline.getSpilledEvents());
+
+        sentBodies.clear();
+        auditPipeline = getPipeline(AuditPipeline.OverflowPolicy.SPILL, 100, 1, 1, event -> {
+            sentBodies.add(event.getBody());
+            return CompletableFuture.completedFuture(null);
+        });
+        waitForSent(2);
+        Assert.assertEquals(List.of("body-1", "body-2"), sentBodies);
+    }
+
+    @Test
+    public void offer_withBatchOverRouteLimit_thenKeepSendsWithinLimit() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peakInFlight = new AtomicInteger();
+        auditPipeline = getPipeline(AuditPipeline.OverflowPolicy.BLOCK, 100, 50, 1000, () -> 20,
+                limitedSender(20, inFlight, peakInFlight));
+        for(int i=0; i<50; i++) {
+            auditPipeline.offer(event(i));
+        }
+        waitForSent(50);
+        Assert.assertTrue(peakInFlight.get() <= 20);
+        Assert.assertEquals(List.of(50), batchSizes);
+        Assert.assertEquals(0, auditPipeline.getFailedEvents());
+        Assert.assertEquals(0, auditPipeline.getDeferredSends());
+        Assert.assertTrue(droppedBodies.isEmpty());
+    }
+
+    @Test
+    public void offer_withSendsRejectedByIdaClient_thenSendThemAgainLater() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peakInFlight = new AtomicInteger();
+        //the route's limit dropped below what the window was read as
+        auditPipeline = getPipeline(AuditPipeline.OverflowPolicy.BLOCK, 100, 50, 1000, () -> 50,
+                limitedSender(20, inFlight, peakInFlight));
+        for(int i=0; i<50; i++) {
+            auditPipeline.offer(event(i));
+        }
+        waitForSent(50);
+        Assert.assertTrue(peakInFlight.get() <= 20);
+        Assert.assertEquals(0, auditPipeline.getFailedEvents());
+        Assert.assertTrue(auditPipeline.getDeferredSends() > 0);
+        Assert.assertTrue(droppedBodies.isEmpty());
+    }
+
+    @Test
+    public void offer_withJournalAndSendsRejectedByIdaClient_thenSendAllWithoutFailures() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peakInFlight = new AtomicInteger();
+        auditPipeline = getJournaledPipeline(limitedSender(3, inFlight, peakInFlight));
+        for(int i=0; i<10; i++) {
+            auditPipeline.offer(event(i));
+        }
+        waitForSent(10);
+        waitForQueueSize(0);
+        Assert.assertEquals(0, auditPipeline.getFailedEvents());
+        Assert.assertTrue(auditPipeline.getDeferredSends() > 0);
+    }
+
+    @Test
+    public void offer_withCircuitOpen_thenFailWithoutSendingAgain() throws Exception {
+        CircuitBreaker circuitBreaker = getOpenCircuitBreaker(new AtomicLong());
+        AtomicInteger attempts = new AtomicInteger();
+        auditPipeline = getPipeline(AuditPipeline.OverflowPolicy.BLOCK, 100, 3, 1000,
+                circuitBreakerSender(circuitBreaker, attempts));
+        for(int i=0; i<3; i++) {
+            auditPipeline.offer(event(i));
+        }
+        for(int i=0; i<200 && auditPipeline.getFailedEvents() < 3; i++) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(200);
+        Assert.assertEquals(3, auditPipeline.getFailedEvents());
+        Assert.assertEquals(3, attempts.get());
+        Assert.assertEquals(0, auditPipeline.getDeferredSends());
+        Assert.assertTrue(sentBodies.isEmpty());
+    }
+
+    @Test
+    public void offer_withJournalAndCircuitOpen_thenKeepEventsUntilClosed() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        CircuitBreaker circuitBreaker = getOpenCircuitBreaker(clock);
+        AtomicInteger attempts = new AtomicInteger();
+        auditPipeline = getJournaledPipeline(circuitBreakerSender(circuitBreaker, attempts));
+        for(int i=0; i<3; i++) {
+            auditPipeline.offer(event(i));
+        }
+        for(int i=0; i<200 && auditPipeline.getFailedEvents() < 6; i++) {
+            Thread.sleep(5);
+        }
+        //retried at the journal's backoff, not sent again within the batch
+        Assert.assertTrue(auditPipeline.getFailedEvents() >= 6);
+        Assert.assertEquals(0, auditPipeline.getDeferredSends());
+        Assert.assertEquals(3, auditPipeline.getQueueSize());
+        Assert.assertTrue(attempts.get() < 30);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        waitForSent(3);
+        Assert.assertEquals(List.of("body-0", "body-1", "body-2"), sentBodies);
+        waitForQueueSize(0);
+    }
+
+    @Test
+    public void offer_withJournalAndOutage_thenReplayInOrderOnceRecovered() throws Exception {
+        AtomicBoolean available = new AtomicBoolean(false);
+        auditPipeline = getJournaledPipeline(event -> {
+            if(!available.get())
+                return CompletableFuture.failedFuture(new IllegalStateException("Connection refused"));
+            sentBodies.add(event.getBody());
+            return CompletableFuture.completedFuture(null);
+        });
+        for(int i=0; i<5; i++) {
+            auditPipeline.offer(event(i));
+        }
+        for(int i=0; i<200 && auditPipeline.getFailedEvents() < 10; i++) {
+            Thread.sleep(5);
+        }
+        Assert.assertTrue(auditPipeline.getFailedEvents() >= 10);
+        auditPipeline.offer(event(5));
+        Assert.assertEquals(6, auditPipeline.getQueueSize());
+
+        available.set(true);
+        waitForSent(6);
+        Assert.assertEquals(List.of("body-0", "body-1", "body-2", "body-3", "body-4", "body-5"), sentBodies);
+        waitForQueueSize(0);
+    }
+
+    @Test
+    public void offer_withJournalAndRejectedEvent_thenSkipIt() throws Exception {
+        auditPipeline = getJournaledPipeline(event -> {
+            if(event.getBody().equals("body-1"))
+                return CompletableFuture.failedFuture(new AuditPipeline.RejectedEventException("400 BAD_REQUEST"));
+            sentBodies.add(event.getBody());
+            return CompletableFuture.completedFuture(null);
+        });
+        for(int i=0; i<3; i++) {
+            auditPipeline.offer(event(i));
+        }
+        waitForSent(2);
+        Assert.assertEquals(List.of("body-0", "body-2"), sentBodies);
+        waitForQueueSize(0);
+        Assert.assertEquals(1, auditPipeline.getFailedEvents());
+    }
+
+    @Test
+    public void offer_withJournalAndDispatcherError_thenKeepDispatching() throws Exception {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        auditPipeline = getJournaledPipeline(() -> {
+            if(failing.getAndSet(false))
+                throw new IllegalStateException("route not configured");
+            return 100;
+        }, event -> {
+            sentBodies.add(event.getBody());
+            return CompletableFuture.completedFuture(null);
+        });
+        for(int i=0; i<3; i++) {
+            auditPipeline.offer(event(i));
+        }
+        waitForSent(3);
+        Assert.assertEquals(List.of("body-0", "body-1", "body-2"), sentBodies);
+        waitForQueueSize(0);
+
+        auditPipeline.offer(event(3));
+        waitForSent(4);
+        Assert.assertFalse(failing.get());
+    }
+
+    @Test
+    public void shutdown_withJournalDuringOutage_thenSendAfterNextStart() throws Exception {
+        auditPipeline = getJournaledPipeline(event -> CompletableFuture.failedFuture(new IllegalStateException("Connection refused")));
+        for(int i=0; i<3; i++) {
+            auditPipeline.offer(event(i));
+        }
+        auditPipeline.shutdown();
+        Assert.assertEquals(3, auditPipeline.getQueueSize());
+
+        auditPipeline = getJournaledPipeline(event -> {
+            sentBodies.add(event.getBody());
+            return CompletableFuture.completedFuture(null);
+        });
+        auditPipeline.offer(event(3));
+        waitForSent(4);
+        Assert.assertEquals(List.of("body-0", "body-1", "body-2", "body-3"), sentBodies);
+    }
+
+    private AuditPipeline getJournaledPipeline(AuditPipeline.Sender sender) throws Exception {
+        return getJournaledPipeline(() -> 100, sender);
+    }
+
+    private AuditPipeline getJournaledPipeline(IntSupplier maxInFlight, AuditPipeline.Sender sender) throws Exception {
+        AuditJournal journal = new AuditJournal(temporaryFolder.getRoot().toPath(), 4096, 1 << 20, 10);
+        return new AuditPipeline(sender, maxInFlight, listener, journal, 10, 5, 100, 200);
+    }
+
+    private AuditPipeline getPipeline(AuditPipeline.OverflowPolicy overflowPolicy, int capacity, int flushSize,
+                                      long flushIntervalMs, AuditPipeline.Sender sender) throws Exception {
+        return getPipeline(overflowPolicy, capacity, flushSize, flushIntervalMs, () -> 100, sender);
+    }
+
+    private AuditPipeline getPipeline(AuditPipeline.OverflowPolicy overflowPolicy, int capacity, int flushSize,
+                                      long flushIntervalMs, IntSupplier maxInFlight, AuditPipeline.Sender sender) throws Exception {
+        return new AuditPipeline(sender, maxInFlight, listener, capacity, flushSize, flushIntervalMs, overflowPolicy, 50, 200,
+                temporaryFolder.getRoot().toPath());
+    }
+
+    //completes every send after a few milliseconds, rejecting the ones over limit in flight as the IDA client does
+    private AuditPipeline.Sender limitedSender(int limit, AtomicInteger inFlight, AtomicInteger peakInFlight) {
+        return event -> {
+            if(inFlight.incrementAndGet() > limit) {
+                inFlight.decrementAndGet();
+                return CompletableFuture.failedFuture(new IdaCallRejectedException(IdaRoute.AUDIT,
+                        IdaCallRejectedException.Kind.CONCURRENCY_LIMIT));
+            }
+            peakInFlight.accumulateAndGet(inFlight.get(), Math::max);
+            return CompletableFuture.runAsync(() -> {
+                sentBodies.add(event.getBody());
+                inFlight.decrementAndGet();
+            }, CompletableFuture.delayedExecutor(5, TimeUnit.MILLISECONDS));
+        };
+    }
+
+    private static CircuitBreaker getOpenCircuitBreaker(AtomicLong clock) {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(50, 1, 1, 60_000, 1, clock::get);
+        circuitBreaker.tryAcquire();
+        circuitBreaker.onFailure();
+        Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        return circuitBreaker;
+    }
+
+    //rejects the sends while the circuit is open as the IDA client does
+    private AuditPipeline.Sender circuitBreakerSender(CircuitBreaker circuitBreaker, AtomicInteger attempts) {
+        return event -> {
+            attempts.incrementAndGet();
+            if(!circuitBreaker.tryAcquire())
+                return CompletableFuture.failedFuture(new IdaCallRejectedException(IdaRoute.AUDIT,
+                        IdaCallRejectedException.Kind.CIRCUIT_OPEN));
+            circuitBreaker.onSuccess();
+            sentBodies.add(event.getBody());
+            return CompletableFuture.completedFuture(null);
+        };
+    }
+
+    //sends complete once released
+    private AuditPipeline.Sender blockingSender() {
+        return event -> {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            synchronized (pendingSends) {
+                if(released)
+                    future.complete(null);
+                else
+                    pendingSends.add(future);
+            }
+            return future.thenRun(() -> sentBodies.add(event.getBody()));
+        };
+    }
+
+    private int getPendingSends() {
+        synchronized (pendingSends) {
+            return pendingSends.size();
+        }
+    }
+
+    private void releaseSends() {
+        synchronized (pendingSends) {
+            released = true;
+            pendingSends.forEach(future -> future.complete(null));
+            pendingSends.clear();
+        }
+    }
+
+    private void waitForSent(int count) throws InterruptedException {
+        for(int i=0; i<200 && (sentBodies.size() < count || auditPipeline.getSentEvents() < count); i++) {
+            Thread.sleep(25);
+        }
+        Assert.assertEquals(count, sentBodies.size());
+    }
+
+    private void waitForQueueSize(int size) throws InterruptedException {
+        for(int i=0; i<200 && auditPipeline.getQueueSize() != size; i++) {
+            Thread.sleep(5);
+        }
+        Assert.assertEquals(size, auditPipeline.getQueueSize());
+    }
+
+    private static AuditPipeline.Event event(int i) {
+        return new AuditPipeline.Event("AUTHENTICATE", "SUCCESS", "body-" + i);
+    }
+}
@@ -0,0 +1,190 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AuthTokenManagerTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private AuthTokenManager authTokenManager;
+
+    @After
+    public void tearDown() {
+        if(authTokenManager != null)
+            authTokenManager.shutdown();
+    }
+
+    @Test
+    public void get_beforeExpiry_thenFetchOnce() throws Exception {
+        authTokenManager = getManager(() -> jwt("token-" + loads.incrementAndGet(), Instant.now().plusSeconds(600)), 0.8);
+        Assert.assertTrue(authTokenManager.get().startsWith(header()));
+        Assert.assertEquals(authTokenManager.get(), authTokenManager.get());
+        Assert.assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void get_afterExpiry_thenFetchAgain() throws Exception {
+        Instant now = Instant.now();
+        AtomicLong millis = new AtomicLong(now.toEpochMilli());
+        authTokenManager = new AuthTokenManager(() -> jwt("token-" + loads.incrementAndGet(), now.plusSeconds(60)),
+                new ObjectMapper(), 0.8, Duration.ofMinutes(30), Duration.ofSeconds(10), getClock(millis));
+        String first = authTokenManager.get();
+        millis.addAndGet(TimeUnit.SECONDS.toMillis(49));
+        Assert.assertEquals(first, authTokenManager.get());
+        Assert.assertEquals(1, loads.get());
+
+        //within the expiry margin the token counts as expired
+        millis.addAndGet(TimeUnit.SECONDS.toMillis(2));
+        Assert.assertNotEquals(first, authTokenManager.get());
+        Assert.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void get_afterRefreshPoint_thenRefreshInBackground() throws Exception {
+        authTokenManager = getManager(() -> jwt("token-" + loads.incrementAndGet(), Instant.now().plusSeconds(3)), 0.5);
+        String first = authTokenManager.get();
+        for(int i=0; i<100 && loads.get() < 2; i++) {
+            Assert.assertNotNull(authTokenManager.get());
+            Thread.sleep(50);
+        }
+        Assert.assertEquals(2, loads.get());
+        Assert.assertNotEquals(first, authTokenManager.get());
+    }
+
+    @Test
+    public void get_withConcurrentMisses_thenFetchOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        authTokenManager = getManager(() -> {
+            loads.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return jwt("token", Instant.now().plusSeconds(600));
+        }, 0.8);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for(int i=0; i<8; i++) {
+                futures.add(executorService.submit(authTokenManager::get));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for(Future<String> future : futures) {
+                Assert.assertNotNull(future.get(5, TimeUnit.SECONDS));
+            }
+            Assert.assertEquals(1, loads.get());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void invalidate_withRejectedToken_thenFetchOnlyOnce() throws Exception {
+        authTokenManager = getManager(() -> jwt("token-" + loads.incrementAndGet(), Instant.now().plusSeconds(600)), 0.8);
+        String rejected = authTokenManager.get();
+        authTokenManager.invalidate(rejected);
+        String current = authTokenManager.get();
+        Assert.assertNotEquals(rejected, current);
+
+        //a late report of the old token does not drop the new one
+        authTokenManager.invalidate(rejected);
+        Assert.assertEquals(current, authTokenManager.get());
+        Assert.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void invalidate_withConcurrentCallers_thenFetchOnce() throws Exception {
+        authTokenManager = getManager(() -> {
+            Thread.sleep(20);
+            return jwt("token-" + loads.incrementAndGet(), Instant.now().plusSeconds(600));
+        }, 0.8);
+        String dropped = authTokenManager.get();
+        authTokenManager.invalidate();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for(int i=0; i<64; i++) {
+                futures.add(executorService.submit(() -> {
+                    start.await(5, TimeUnit.SECONDS);
+                    return authTokenManager.get();
+                }));
+            }
+            start.countDown();
+            for(Future<String> future : futures) {
+                Assert.assertNotEquals(dropped, future.get(5, TimeUnit.SECONDS));
+            }
+            Assert.assertEquals(2, loads.get());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void get_withTokenNotJwt_thenUseFallbackLifetime() throws Exception {
+        authTokenManager = getManager(() -> "opaque-token-" + loads.incrementAndGet(), 0.8);
+        Assert.assertEquals("opaque-token-1", authTokenManager.get());
+        Assert.assertEquals("opaque-token-1", authTokenManager.get());
+    }
+
+    @Test
+    public void get_withFetchFailure_thenThrow() {
+        authTokenManager = getManager(() -> {
+            throw new IllegalStateException("authmanager unavailable");
+        }, 0.8);
+        Assert.assertThrows(IllegalStateException.class, () -> authTokenManager.get());
+    }
+
+    private AuthTokenManager getManager(AuthTokenManager.Loader loader, double refreshAt) {
+        return new AuthTokenManager(loader, new ObjectMapper(), refreshAt, Duration.ofMinutes(30), Duration.ZERO);
+    }
+
+    private static Clock getClock(AtomicLong millis) {
+        return new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(millis.get());
+            }
+        };
+    }
+
+    private static String header() {
+        return encode("{\"alg\":\"RS256\",\"typ\":\"JWT\"}");
+    }
+
+    private static String jwt(String subject, Instant expiresAt) {
+        return header() + "." + encode("{\"sub\":\"" + subject + "\",\"exp\":" + expiresAt.getEpochSecond() + "}") +
+                ".signature";
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -2,6 +2,8 @@ package io.mosip.esignet.plugin.mosipid.helper;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.mosip.esignet.core.dto.ResponseWrapper;
+import io.mosip.esignet.plugin.mosipid.service.TestUtil;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -13,6 +15,7 @@ import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import static org.mockito.Mockito.when;
 
@@ -33,7 +36,10 @@ public class AuthTransactionHelperTest {
         ReflectionTestUtils.setField(authTransactionHelper, "authTokenUrl", "test");
         ReflectionTestUtils.setField(authTransactionHelper, "clientId", "test");
         ReflectionTestUtils.setField(authTransactionHelper,"secretKey","test");
-        ReflectionTestUtils.setField(authTransactionHelper,"appId","test");        String expectedAuthToken = "testAuthToken";
+        ReflectionTestUtils.setField(authTransactionHelper,"appId","test");
+        ReflectionTestUtils.setField(authTransactionHelper, "idaHttpClient", TestUtil.getIdaHttpClient(restTemplate, new ObjectMapper()));
+        initTokenManager();
+        String expectedAuthToken = "testAuthToken";
 
         ResponseEntity<ResponseWrapper> responseEntity = ResponseEntity.ok()
                 .header("authorization", expectedAuthToken)
@@ -43,4 +49,69 @@ public class AuthTransactionHelperTest {
         String authToken = authTransactionHelper.getAuthToken();
         Assert.assertEquals(expectedAuthToken, authToken);
     }
+
+    @Test
+    public void getAuthToken_withRejectedToken_thenFetchNewToken() throws Exception {
+        ReflectionTestUtils.setField(authTransactionHelper, "authTokenUrl", "test");
+        ReflectionTestUtils.setField(authTransactionHelper, "idaHttpClient", TestUtil.getIdaHttpClient(restTemplate, new ObjectMapper()));
+        initTokenManager();
+
+        when(restTemplate.exchange(Mockito.any(RequestEntity.class), Mockito.any(ParameterizedTypeReference.class)))
+                .thenReturn(ResponseEntity.ok().header("authorization", "firstAuthToken").build())
+                .thenReturn(ResponseEntity.ok().header("authorization", "secondAuthToken").build());
+        Assert.assertEquals("firstAuthToken", authTransactionHelper.getAuthToken());
+        Assert.assertEquals("firstAuthToken", authTransactionHelper.getAuthToken());
+
+        authTransactionHelper.purgeAuthTokenCache("firstAuthToken");
+        Assert.assertEquals("secondAuthToken", authTransactionHelper.getAuthToken());
+        Mockito.verify(restTemplate, Mockito.times(2)).exchange(Mockito.any(RequestEntity.class),
+                Mockito.any(ParameterizedTypeReference.class));
+    }
+
+    @Test
+    public void getAuthToken_afterPurge_thenFetchNewToken() throws Exception {
+        ReflectionTestUtils.setField(authTransactionHelper, "authTokenUrl", "test");
+        ReflectionTestUtils.setField(authTransactionHelper, "idaHttpClient", TestUtil.getIdaHttpClient(restTemplate, new ObjectMapper()));
+        initTokenManager();
+
+        when(restTemplate.exchange(Mockito.any(RequestEntity.class), Mockito.any(ParameterizedTypeReference.class)))
+                .thenReturn(ResponseEntity.ok().header("authorization", "firstAuthToken").build())
+                .thenReturn(ResponseEntity.ok().header("authorization", "secondAuthToken").build());
+        Assert.assertEquals("firstAuthToken", authTransactionHelper.getAuthToken());
+
+        authTransactionHelper.purgeAuthTokenCache();
+        Assert.assertEquals("secondAuthToken", authTransactionHelper.getAuthToken());
+        Assert.assertEquals("secondAuthToken", authTransactionHelper.getAuthToken());
+        Mockito.verify(restTemplate, Mockito.times(2)).exchange(Mockito.any(RequestEntity.class),
+                Mockito.any(ParameterizedTypeReference.class));
+    }
+
+    @Test
+    public void getAuthToken_withIdaUnreachableOnce_thenRetry() throws Exception {
+        ReflectionTestUtils.setField(authTransactionHelper, "authTokenUrl", "test");
+        ReflectionTestUtils.setField(authTransactionHelper, "idaHttpClient", TestUtil.getIdaHttpClient(restTemplate, new ObjectMapper()));
+        initTokenManager();
+
+        ResponseEntity<ResponseWrapper> responseEntity = ResponseEntity.ok()
+                .header("authorization", "testAuthToken")
+                .build();
+        when(restTemplate.exchange(Mockito.any(RequestEntity.class), Mockito.any(ParameterizedTypeReference.class)))
+                .thenThrow(new ResourceAccessException("Connection refused"))
+                .thenReturn(responseEntity);
+        Assert.assertEquals("testAuthToken", authTransactionHelper.getAuthToken());
+        Mockito.verify(restTemplate, Mockito.times(2)).exchange(Mockito.any(RequestEntity.class),
+                Mockito.any(ParameterizedTypeReference.class));
+    }
+
+    private void initTokenManager() {
+        ReflectionTestUtils.setField(authTransactionHelper, "refreshAt", 0.8);
+        ReflectionTestUtils.setField(authTransactionHelper, "fallbackLifetimeSeconds", 1800L);
+        ReflectionTestUtils.setField(authTransactionHelper, "expiryMarginSeconds", 30L);
+        authTransactionHelper.init();
+    }
+
+    @After
+    public void tearDown() {
+        authTransactionHelper.destroy();
+    }
 }
@@ -0,0 +1,88 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BindingTransactionCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BindingTransactionCache bindingTransactionCache;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bindingTransactionCache = getCache(5, 600);
+    }
+
+    @Test
+    public void get_withSameHash_thenReturnCachedTransactionId() {
+        AtomicInteger counter = new AtomicInteger();
+        String transactionId = bindingTransactionCache.get("hash-1", () -> "txn-" + counter.incrementAndGet());
+        Assert.assertEquals("txn-1", transactionId);
+        Assert.assertEquals("txn-1", bindingTransactionCache.get("hash-1", () -> "txn-" + counter.incrementAndGet()));
+        Assert.assertEquals("txn-2", bindingTransactionCache.get("hash-2", () -> "txn-" + counter.incrementAndGet()));
+
+        Assert.assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count(), 0);
+        Assert.assertEquals(2.0, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count(), 0);
+    }
+
+    @Test
+    public void get_beyondMaxSize_thenEvict() {
+        for(int i=0; i<20; i++) {
+            final int index = i;
+            bindingTransactionCache.get("hash-" + i, () -> "txn-" + index);
+        }
+        Assert.assertTrue(bindingTransactionCache.size() <= 5);
+        Assert.assertTrue(meterRegistry.get("cache.evictions").functionCounter().count() >= 15);
+    }
+
+    @Test
+    public void get_afterExpiry_thenGenerateNewTransactionId() throws Exception {
+        bindingTransactionCache = getCache(5, 1);
+        Assert.assertEquals("txn-1", bindingTransactionCache.get("hash-1", () -> "txn-1"));
+        Thread.sleep(1100);
+        Assert.assertEquals("txn-2", bindingTransactionCache.get("hash-1", () -> "txn-2"));
+    }
+
+    @Test
+    public void get_withConcurrentMisses_thenGenerateOnce() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for(int i=0; i<32; i++) {
+                futures.add(executorService.submit(() -> bindingTransactionCache.get("hash-1", () -> {
+                    counter.incrementAndGet();
+                    return "txn-1";
+                })));
+            }
+            for(Future<String> future : futures) {
+                Assert.assertEquals("txn-1", future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        Assert.assertEquals(1, counter.get());
+    }
+
+    private BindingTransactionCache getCache(long maxSize, long expireAfterWriteSeconds) {
+        meterRegistry = new SimpleMeterRegistry();
+        BindingTransactionCache cache = new BindingTransactionCache();
+        ReflectionTestUtils.setField(cache, "maxSize", maxSize);
+        ReflectionTestUtils.setField(cache, "expireAfterWriteSeconds", expireAfterWriteSeconds);
+        ReflectionTestUtils.setField(cache, "meterRegistry", meterRegistry);
+        cache.init();
+        return cache;
+    }
+}
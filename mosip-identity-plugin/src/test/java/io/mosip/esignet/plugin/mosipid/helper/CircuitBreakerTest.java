@@ -0,0 +1,99 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private CircuitBreaker circuitBreaker;
+
+    @Before
+    public void setUp() {
+        circuitBreaker = new CircuitBreaker(50, 10, 4, 1000, 2, clock::get);
+    }
+
+    @Test
+    public void onFailure_belowMinimumCalls_thenStayClosed() {
+        for(int i=0; i<3; i++) {
+            Assert.assertTrue(circuitBreaker.tryAcquire());
+            circuitBreaker.onFailure();
+        }
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        Assert.assertEquals(-1f, circuitBreaker.getFailureRate(), 0);
+    }
+
+    @Test
+    public void onFailure_atThreshold_thenOpenAndReject() {
+        record(true, false, true, false);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Assert.assertFalse(circuitBreaker.tryAcquire());
+        Assert.assertFalse(circuitBreaker.tryAcquire());
+        Assert.assertEquals(2, circuitBreaker.getRejectedCalls());
+    }
+
+    @Test
+    public void onFailure_oldFailuresOutOfWindow_thenStayClosed() {
+        record(true, false, false, false, false, false, false, false, false, false);
+        Assert.assertEquals(10f, circuitBreaker.getFailureRate(), 0);
+        //the first failure slides out of the window of 10
+        record(false, true, true, true);
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        Assert.assertEquals(30f, circuitBreaker.getFailureRate(), 0);
+    }
+
+    @Test
+    public void tryAcquire_afterOpenDuration_thenAllowTrialCalls() {
+        record(true, true, true, true);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        Assert.assertFalse(circuitBreaker.tryAcquire());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        Assert.assertTrue(circuitBreaker.tryAcquire());
+        Assert.assertTrue(circuitBreaker.tryAcquire());
+        Assert.assertFalse(circuitBreaker.tryAcquire());
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        Assert.assertEquals(-1f, circuitBreaker.getFailureRate(), 0);
+    }
+
+    @Test
+    public void onFailure_duringTrial_thenOpenAgain() {
+        record(true, true, true, true);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        Assert.assertTrue(circuitBreaker.tryAcquire());
+        circuitBreaker.onFailure();
+        Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Assert.assertFalse(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void onIgnore_duringTrial_thenReturnTrialPermit() {
+        record(true, true, true, true);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        Assert.assertTrue(circuitBreaker.tryAcquire());
+        Assert.assertTrue(circuitBreaker.tryAcquire());
+        Assert.assertFalse(circuitBreaker.tryAcquire());
+
+        circuitBreaker.onIgnore();
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        Assert.assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    private void record(boolean... failures) {
+        for(boolean failure : failures) {
+            Assert.assertTrue(circuitBreaker.tryAcquire());
+            if(failure)
+                circuitBreaker.onFailure();
+            else
+                circuitBreaker.onSuccess();
+        }
+    }
+}
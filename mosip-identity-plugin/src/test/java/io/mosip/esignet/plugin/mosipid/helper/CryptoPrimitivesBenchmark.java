@@ -0,0 +1,100 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+import java.lang.management.ManagementFactory;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.MGF1ParameterSpec;
+
+/**
+ * Time and allocation of the plugin crypto operations with pooled instances against a provider lookup on
+ * every call, as the kernel CryptoUtil, CryptoCore and HMACUtils2 methods do. Not run by the build, run it
+ * from the test classpath:
+ * java -cp target/classes:target/test-classes io.mosip.esignet.plugin.mosipid.helper.CryptoPrimitivesBenchmark
+ */
+public class CryptoPrimitivesBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 50_000;
+    private static final int ITERATIONS = 200_000;
+    private static final int RSA_ITERATIONS = 5_000;
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        byte[] kycHashInput = new byte[32];
+        byte[] request = new byte[1024];
+        SECURE_RANDOM.nextBytes(kycHashInput);
+        SECURE_RANDOM.nextBytes(request);
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(256);
+        SecretKey key = keyGenerator.generateKey();
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        PublicKey publicKey = keyPairGenerator.generateKeyPair().getPublic();
+
+        for(int round=0; round<3; round++) {
+            measure("lookup SHA3-256 32 B    ", ITERATIONS, () -> sink += MessageDigest.getInstance(CryptoPrimitives.SHA3_256)
+                    .digest(kycHashInput).length);
+            measure("pooled SHA3-256 32 B    ", ITERATIONS, () -> sink += CryptoPrimitives.digest(CryptoPrimitives.SHA3_256,
+                    kycHashInput).length);
+            measure("lookup AES/GCM 1 KiB    ", ITERATIONS, () -> sink += symmetricEncryptWithLookup(key, request).length);
+            measure("pooled AES/GCM 1 KiB    ", ITERATIONS, () -> sink += CryptoPrimitives.symmetricEncrypt(key, request,
+                    request.length).length);
+            measure("lookup RSA-OAEP 32 B    ", RSA_ITERATIONS, () -> sink += asymmetricEncryptWithLookup(publicKey,
+                    kycHashInput).length);
+            measure("pooled RSA-OAEP 32 B    ", RSA_ITERATIONS, () -> sink += CryptoPrimitives.asymmetricEncrypt(
+                    CryptoPrimitives.DEFAULT_ASYMMETRIC_ALGORITHM, publicKey, kycHashInput).length);
+        }
+        System.out.println(sink == 0 ? "" : "done");
+    }
+
+    private static void measure(String name, int iterations, Operation operation) throws Exception {
+        for(int i=0; i<Math.min(WARMUP_ITERATIONS, iterations); i++) {
+            operation.run();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for(int i=0; i<iterations; i++) {
+            operation.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf("%s %10.1f ns/op %8d B/op%n", name, (double) elapsed / iterations, allocated / iterations);
+    }
+
+    //CryptoUtil.symmetricEncrypt, a new Cipher and one shared SecureRandom per call
+    private static byte[] symmetricEncryptWithLookup(SecretKey key, byte[] data) throws Exception {
+        Cipher cipher = Cipher.getInstance(CryptoPrimitives.SYMMETRIC_ALGORITHM);
+        byte[] iv = new byte[cipher.getBlockSize()];
+        SECURE_RANDOM.nextBytes(iv);
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, iv));
+        byte[] encrypted = cipher.doFinal(data);
+        byte[] output = new byte[encrypted.length + iv.length];
+        System.arraycopy(encrypted, 0, output, 0, encrypted.length);
+        System.arraycopy(iv, 0, output, encrypted.length, iv.length);
+        return output;
+    }
+
+    //CryptoCore.asymmetricEncrypt, a new Cipher per call
+    private static byte[] asymmetricEncryptWithLookup(PublicKey publicKey, byte[] data) throws Exception {
+        Cipher cipher = Cipher.getInstance(CryptoPrimitives.DEFAULT_ASYMMETRIC_ALGORITHM);
+        cipher.init(Cipher.ENCRYPT_MODE, publicKey, new OAEPParameterSpec("SHA-256", "MGF1",
+                MGF1ParameterSpec.SHA256, PSource.PSpecified.DEFAULT));
+        return cipher.doFinal(data);
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,122 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import io.mosip.kernel.core.util.HMACUtils2;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.MGF1ParameterSpec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class CryptoPrimitivesTest {
+
+    @Test
+    public void digestAsUpperHex_matchesKernelDigest_thenPass() throws Exception {
+        byte[] data = "{\"otp\":\"111333\",\"timestamp\":\"2024-01-01T00:00:00.000Z\"}".getBytes(StandardCharsets.UTF_8);
+        byte[] buffer = new byte[data.length + 10];
+        System.arraycopy(data, 0, buffer, 0, data.length);
+        Assert.assertEquals(HMACUtils2.digestAsPlainText(data),
+                new String(CryptoPrimitives.digestAsUpperHex(buffer, data.length), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void digest_withSHA3_thenPass() throws Exception {
+        byte[] data = "individual-id".getBytes(StandardCharsets.UTF_8);
+        Assert.assertArrayEquals(MessageDigest.getInstance("SHA3-256").digest(data),
+                CryptoPrimitives.digest(CryptoPrimitives.SHA3_256, data));
+        Assert.assertArrayEquals(MessageDigest.getInstance("SHA3-256").digest(data),
+                CryptoPrimitives.digest(CryptoPrimitives.SHA3_256, data));
+        Assert.assertTrue(CryptoPrimitives.idleDigests(CryptoPrimitives.SHA3_256) > 0);
+    }
+
+    @Test
+    public void symmetricEncrypt_withSessionKey_thenDecrypt() throws Exception {
+        SecretKey key = getSecretKey();
+        byte[] data = "test-request".getBytes(StandardCharsets.UTF_8);
+        byte[] first = CryptoPrimitives.symmetricEncrypt(key, data, data.length);
+        byte[] second = CryptoPrimitives.symmetricEncrypt(key, data, data.length);
+        Assert.assertFalse(new String(first, StandardCharsets.ISO_8859_1).equals(new String(second, StandardCharsets.ISO_8859_1)));
+        Assert.assertArrayEquals(data, symmetricDecrypt(key, first));
+        Assert.assertArrayEquals(data, symmetricDecrypt(key, second));
+        Assert.assertTrue(CryptoPrimitives.idleCiphers(CryptoPrimitives.SYMMETRIC_ALGORITHM) > 0);
+    }
+
+    @Test
+    public void asymmetricEncrypt_withPublicKey_thenDecrypt() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+        byte[] data = getSecretKey().getEncoded();
+
+        byte[] encrypted = CryptoPrimitives.asymmetricEncrypt(CryptoPrimitives.DEFAULT_ASYMMETRIC_ALGORITHM,
+                keyPair.getPublic(), data);
+        Cipher cipher = Cipher.getInstance(CryptoPrimitives.DEFAULT_ASYMMETRIC_ALGORITHM);
+        cipher.init(Cipher.DECRYPT_MODE, keyPair.getPrivate(), new OAEPParameterSpec("SHA-256", "MGF1",
+                MGF1ParameterSpec.SHA256, PSource.PSpecified.DEFAULT));
+        Assert.assertArrayEquals(data, cipher.doFinal(encrypted));
+    }
+
+    @Test
+    public void asymmetricEncrypt_withUnsupportedAlgorithm_thenFail() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+
+        Assert.assertTrue(CryptoPrimitives.isPooledAsymmetricAlgorithm("rsa/ecb/oaepwithsha-256andmgf1padding"));
+        Assert.assertFalse(CryptoPrimitives.isPooledAsymmetricAlgorithm("RSA/ECB/OAEPWITHSHA-1ANDMGF1PADDING"));
+        Assert.assertFalse(CryptoPrimitives.isPooledAsymmetricAlgorithm(null));
+        Assert.assertThrows(NoSuchAlgorithmException.class, () -> CryptoPrimitives.asymmetricEncrypt(
+                "RSA/ECB/PKCS1Padding", keyPair.getPublic(), new byte[32]));
+    }
+
+    @Test
+    public void symmetricEncrypt_withConcurrentCallers_thenPass() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for(int i=0; i<200; i++) {
+                final byte[] data = ("request-" + i).getBytes(StandardCharsets.UTF_8);
+                futures.add(executorService.submit(() -> {
+                    SecretKey key = getSecretKey();
+                    byte[] encrypted = CryptoPrimitives.symmetricEncrypt(key, data, data.length);
+                    byte[] hex = CryptoPrimitives.digestAsUpperHex(data, data.length);
+                    return new String(data, StandardCharsets.UTF_8).equals(new String(symmetricDecrypt(key, encrypted), StandardCharsets.UTF_8)) &&
+                            HMACUtils2.digestAsPlainText(data).equals(new String(hex, StandardCharsets.US_ASCII));
+                }));
+            }
+            for(Future<Boolean> future : futures) {
+                Assert.assertTrue(future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static SecretKey getSecretKey() throws Exception {
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(256);
+        return keyGenerator.generateKey();
+    }
+
+    private static byte[] symmetricDecrypt(SecretKey key, byte[] data) throws Exception {
+        Cipher cipher = Cipher.getInstance(CryptoPrimitives.SYMMETRIC_ALGORITHM);
+        int ivLength = cipher.getBlockSize();
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(128, data, data.length - ivLength, ivLength));
+        return cipher.doFinal(data, 0, data.length - ivLength);
+    }
+}
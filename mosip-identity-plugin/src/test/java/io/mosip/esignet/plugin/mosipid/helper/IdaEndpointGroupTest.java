@@ -0,0 +1,147 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IdaEndpointGroupTest {
+
+    private static final ResponseEntity<String> OK = new ResponseEntity<>(HttpStatus.OK);
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    public void select_withLeastOutstanding_thenPickIdleEndpoint() {
+        IdaEndpointGroup group = getGroup(IdaEndpointGroup.Selection.LEAST_OUTSTANDING, 3);
+        IdaEndpointGroup.Endpoint first = group.select();
+        IdaEndpointGroup.Endpoint second = group.select();
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(1, first.getOutstanding());
+
+        group.onComplete(first, RTT, OK, null);
+        Assert.assertEquals(0, first.getOutstanding());
+        Assert.assertSame(first, group.select());
+        Assert.assertEquals(1, second.getOutstanding());
+    }
+
+    @Test
+    public void select_withEwmaLatency_thenPreferFasterEndpoint() {
+        IdaEndpointGroup group = getGroup(IdaEndpointGroup.Selection.EWMA_LATENCY, 3);
+        IdaEndpointGroup.Endpoint fast = group.select();
+        IdaEndpointGroup.Endpoint slow = group.select();
+        Assert.assertNotSame(fast, slow);
+        group.onComplete(fast, RTT, OK, null);
+        group.onComplete(slow, RTT * 9 / 2, OK, null);
+
+        for(int i=0; i<10; i++) {
+            Assert.assertSame(fast, group.select());
+            group.onComplete(fast, RTT, OK, null);
+        }
+        Assert.assertEquals(50.0, fast.getEwmaRttMillis(), 0.001);
+
+        //the fast endpoint loaded with calls loses to the idle slow one
+        for(int i=0; i<4; i++) {
+            Assert.assertSame(fast, group.select());
+        }
+        Assert.assertSame(slow, group.select());
+    }
+
+    @Test
+    public void onComplete_withConsecutiveFailures_thenEjectEndpoint() {
+        IdaEndpointGroup group = getGroup(IdaEndpointGroup.Selection.LEAST_OUTSTANDING, 2);
+        IdaEndpointGroup.Endpoint zoneA = group.getEndpoints().get(0);
+        IdaEndpointGroup.Endpoint zoneB = group.getEndpoints().get(1);
+
+        complete(group, zoneA, new ResourceAccessException("Connection refused"));
+        //a success in between resets the count, client errors are not failures of the endpoint
+        complete(group, zoneA, null);
+        complete(group, zoneA, new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+        complete(group, zoneA, new ResourceAccessException("Connection refused"));
+        Assert.assertFalse(zoneA.isEjected());
+
+        group.onComplete(select(group, zoneA), RTT, new ResponseEntity<>(HttpStatus.BAD_GATEWAY), null);
+        Assert.assertTrue(zoneA.isEjected());
+        for(int i=0; i<10; i++) {
+            IdaEndpointGroup.Endpoint endpoint = group.select();
+            Assert.assertSame(zoneB, endpoint);
+            group.onComplete(endpoint, RTT, OK, null);
+        }
+    }
+
+    @Test
+    public void select_withAllEndpointsEjected_thenSpreadOverAll() {
+        IdaEndpointGroup group = getGroup(IdaEndpointGroup.Selection.LEAST_OUTSTANDING, 1);
+        for(IdaEndpointGroup.Endpoint endpoint : group.getEndpoints()) {
+            complete(group, endpoint, new ResourceAccessException("Connection refused"));
+            Assert.assertTrue(endpoint.isEjected());
+        }
+        IdaEndpointGroup.Endpoint first = group.select();
+        IdaEndpointGroup.Endpoint second = group.select();
+        Assert.assertNotSame(first, second);
+
+        //a call that gets through brings the endpoint back
+        group.onComplete(first, RTT, OK, null);
+        Assert.assertFalse(first.isEjected());
+        Assert.assertTrue(second.isEjected());
+    }
+
+    @Test
+    public void probe_withHealthyEndpoint_thenReinstate() throws Exception {
+        AtomicInteger status = new AtomicInteger(503);
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/health", exchange -> {
+            exchange.sendResponseHeaders(status.get(), -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/kyc-auth/license-key/";
+            IdaEndpointGroup group = new IdaEndpointGroup(IdaRoute.KYC_AUTH, List.of(baseUrl, "http://localhost:1/kyc-auth/"),
+                    IdaEndpointGroup.Selection.LEAST_OUTSTANDING, 1, "/health");
+            IdaEndpointGroup.Endpoint endpoint = group.getEndpoints().get(0);
+            Assert.assertEquals("/health", endpoint.getProbeUri().getPath());
+            complete(group, endpoint, new ResourceAccessException("Connection refused"));
+            complete(group, group.getEndpoints().get(1), new ResourceAccessException("Connection refused"));
+
+            HttpClient httpClient = HttpClient.newHttpClient();
+            group.probe(httpClient, Duration.ofSeconds(1));
+            Assert.assertTrue(endpoint.isEjected());
+
+            status.set(200);
+            group.probe(httpClient, Duration.ofSeconds(1));
+            Assert.assertFalse(endpoint.isEjected());
+            //nothing listens on the other endpoint, it stays out
+            Assert.assertTrue(group.getEndpoints().get(1).isEjected());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private IdaEndpointGroup getGroup(IdaEndpointGroup.Selection selection, int ejectionFailures) {
+        return new IdaEndpointGroup(IdaRoute.KYC_AUTH, List.of("http://zone-a.ida/kyc-auth/", "http://zone-b.ida/kyc-auth/"),
+                selection, ejectionFailures, "/health");
+    }
+
+    private IdaEndpointGroup.Endpoint select(IdaEndpointGroup group, IdaEndpointGroup.Endpoint expected) {
+        IdaEndpointGroup.Endpoint endpoint = group.select();
+        while(endpoint != expected) {
+            group.onComplete(endpoint, RTT, OK, null);
+            endpoint = group.select();
+        }
+        return endpoint;
+    }
+
+    private void complete(IdaEndpointGroup group, IdaEndpointGroup.Endpoint expected, Exception e) {
+        group.onComplete(select(group, expected), RTT, e == null ? OK : null, e);
+    }
+}
@@ -0,0 +1,431 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.esignet.api.exception.KycAuthException;
+import io.mosip.esignet.plugin.mosipid.dto.IdaKycAuthResponse;
+import io.mosip.esignet.plugin.mosipid.dto.IdaResponseWrapper;
+import io.mosip.esignet.plugin.mosipid.service.TestUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+public class IdaHttpClientTest {
+
+    private static final ParameterizedTypeReference<IdaResponseWrapper<IdaKycAuthResponse>> KYC_AUTH_RESPONSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+
+    private HttpServer server;
+    private RestTemplate restTemplate;
+    private final AtomicReference<String> receivedBody = new AtomicReference<>();
+    private final AtomicReference<String> receivedSignature = new AtomicReference<>();
+    private final CountDownLatch releaseSlowResponse = new CountDownLatch(1);
+    private final AtomicBoolean failing = new AtomicBoolean(true);
+    private final AtomicInteger flakyCalls = new AtomicInteger();
+    private final AtomicInteger unavailableCalls = new AtomicInteger();
+    private final MockEnvironment environment = new MockEnvironment();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/kyc-auth", exchange -> {
+            receivedBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            receivedSignature.set(exchange.getRequestHeaders().getFirst("signature"));
+            byte[] response = "{\"response\":{\"kycStatus\":true,\"kycToken\":\"kyc-token\",\"authToken\":\"auth-token\"}}"
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(response);
+            }
+        });
+        server.createContext("/slow", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            try {
+                releaseSlowResponse.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.createContext("/flaky", exchange -> {
+            flakyCalls.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(failing.get() ? 500 : 204, -1);
+            exchange.close();
+        });
+        server.createContext("/unavailable", exchange -> {
+            unavailableCalls.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.createContext("/proxy-error", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(599, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        restTemplate = Mockito.mock(RestTemplate.class);
+    }
+
+    @After
+    public void tearDown() {
+        releaseSlowResponse.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    public void exchange_withAsyncEnabled_thenReturnParsedResponse() throws Exception {
+        IdaHttpClient idaHttpClient = getClient(true);
+        ResponseEntity<IdaResponseWrapper<IdaKycAuthResponse>> responseEntity = idaHttpClient
+                .exchange(IdaRoute.KYC_AUTH, getRequest("/kyc-auth"), KYC_AUTH_RESPONSE_TYPE)
+                .get(5, TimeUnit.SECONDS);
+
+        Assert.assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        Assert.assertTrue(responseEntity.getBody().getResponse().isKycStatus());
+        Assert.assertEquals("kyc-token", responseEntity.getBody().getResponse().getKycToken());
+        Assert.assertEquals("{\"id\":\"test\"}", receivedBody.get());
+        Assert.assertEquals("test-signature", receivedSignature.get());
+        Mockito.verifyZeroInteractions(restTemplate);
+    }
+
+    @Test
+    public void exchange_withErrorStatus_thenCompleteWithoutBody() throws Exception {
+        IdaHttpClient idaHttpClient = getClient(true);
+        ResponseEntity<IdaResponseWrapper<IdaKycAuthResponse>> responseEntity = idaHttpClient
+                .exchange(IdaRoute.KYC_AUTH, getRequest("/unavailable"), KYC_AUTH_RESPONSE_TYPE)
+                .get(5, TimeUnit.SECONDS);
+
+        Assert.assertEquals(HttpStatus.SERVICE_UNAVAILABLE, responseEntity.getStatusCode());
+        Assert.assertNull(responseEntity.getBody());
+    }
+
+    @Test
+    public void exchange_withUnknownStatus_thenFail() throws Exception {
+        IdaHttpClient idaHttpClient = getClient(true);
+        try {
+            idaHttpClient.exchange(IdaRoute.KYC_AUTH, getRequest("/proxy-error"), KYC_AUTH_RESPONSE_TYPE).join();
+            Assert.fail();
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof UnknownHttpStatusCodeException);
+            Assert.assertEquals(599, ((UnknownHttpStatusCodeException) e.getCause()).getRawStatusCode());
+        }
+    }
+
+    @Test
+    public void exchange_withAsyncDisabled_thenDelegateToRestTemplate() throws Exception {
+        IdaHttpClient idaHttpClient = getClient(false);
+        RequestEntity<byte[]> requestEntity = getRequest("/kyc-auth");
+        IdaResponseWrapper<IdaKycAuthResponse> responseWrapper = new IdaResponseWrapper<>();
+        Mockito.when(restTemplate.exchange(requestEntity, KYC_AUTH_RESPONSE_TYPE))
+                .thenReturn(new ResponseEntity<>(responseWrapper, HttpStatus.OK));
+
+        CompletableFuture<ResponseEntity<IdaResponseWrapper<IdaKycAuthResponse>>> future =
+                idaHttpClient.exchange(IdaRoute.KYC_AUTH, requestEntity, KYC_AUTH_RESPONSE_TYPE);
+        Assert.assertTrue(future.isDone());
+        Assert.assertSame(responseWrapper, future.get().getBody());
+        Assert.assertNull(receivedBody.get());
+    }
+
+    @Test
+    public void exchange_withRouteAtMaxConnections_thenRejectOnlyThatRoute() throws Exception {
+        environment.setProperty("mosip.esignet.authenticator.ida.http.send-otp.max-connections", "1");
+        IdaHttpClient idaHttpClient = getClient(true);
+
+        CompletableFuture<ResponseEntity<String>> inFlight = idaHttpClient.exchange(IdaRoute.SEND_OTP,
+                getRequest("/slow"), String.class);
+        CompletableFuture<ResponseEntity<String>> rejected = idaHttpClient.exchange(IdaRoute.SEND_OTP,
+                getRequest("/slow"), String.class);
+        //rejected without waiting, and not held against IDA by the limiter or the circuit breaker
+        Assert.assertTrue(rejected.isCompletedExceptionally());
+        try {
+            rejected.join();
+            Assert.fail();
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof IdaCallRejectedException);
+        }
+        Assert.assertEquals(40.0, meterRegistry.get("ida.concurrency.limit").tag("route", "send-otp").gauge().value(), 0);
+        Assert.assertEquals(1.0, meterRegistry.get("ida.concurrency.in-flight").tag("route", "send-otp").gauge().value(), 0);
+        Assert.assertEquals(-1.0, meterRegistry.get("ida.circuitbreaker.failure.rate").tag("route", "send-otp").gauge().value(), 0);
+        Assert.assertEquals(1.0, meterRegistry.get("ida.http.connections.active").tag("route", "send-otp").gauge().value(), 0);
+        Assert.assertEquals(1.0, meterRegistry.get("ida.http.connections.max").tag("route", "send-otp").gauge().value(), 0);
+        Assert.assertEquals(1.0, meterRegistry.get("ida.http.connections.rejected").tag("route", "send-otp").functionCounter().count(), 0);
+
+        //other routes keep their own connections
+        Assert.assertEquals(HttpStatus.OK, idaHttpClient.exchange(IdaRoute.KYC_AUTH, getRequest("/kyc-auth"),
+                KYC_AUTH_RESPONSE_TYPE).get(5, TimeUnit.SECONDS).getStatusCode());
+        Assert.assertEquals(50.0, meterRegistry.get("ida.http.connections.max").tag("route", "kyc-auth").gauge().value(), 0);
+
+        releaseSlowResponse.countDown();
+        Assert.assertEquals(HttpStatus.NO_CONTENT, inFlight.get(5, TimeUnit.SECONDS).getStatusCode());
+        Assert.assertEquals(0.0, meterRegistry.get("ida.http.connections.active").tag("route", "send-otp").gauge().value(), 0);
+    }
+
+    @Test
+    public void exchange_withFailingRoute_thenOpenCircuitAndRecover() throws Exception {
+        IdaHttpClient idaHttpClient = getClient(true);
+        for(int i=0; i<4; i++) {
+            Assert.assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, idaHttpClient.exchange(IdaRoute.KYC_AUTH,
+                    getRequest("/flaky"), String.class).get(5, TimeUnit.SECONDS).getStatusCode());
+        }
+        Assert.assertEquals(1.0, meterRegistry.get("ida.circuitbreaker.state").tag("route", "kyc-auth")
+                .tag("state", "open").gauge().value(), 0);
+
+        //fails fast without reaching IDA, other routes are not affected
+        try {
+            idaHttpClient.exchange(IdaRoute.KYC_AUTH, getRequest("/flaky"), String.class).join();
+            Assert.fail();
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof IdaCallRejectedException);
+        }
+        Assert.assertEquals(4, flakyCalls.get());
+        Assert.assertEquals(1.0, meterRegistry.get("ida.circuitbreaker.rejected").tag("route", "kyc-auth")
+                .functionCounter().count(), 0);
+        Assert.assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, idaHttpClient.exchange(IdaRoute.KYC_EXCHANGE,
+                getRequest("/flaky"), String.class).get(5, TimeUnit.SECONDS).getStatusCode());
+
+        //trial call after the open duration closes the circuit again
+        failing.set(false);
+        Thread.sleep(250);
+        Assert.assertEquals(HttpStatus.NO_CONTENT, idaHttpClient.exchange(IdaRoute.KYC_AUTH,
+                getRequest("/flaky"), String.class).get(5, TimeUnit.SECONDS).getStatusCode());
+        Assert.assertEquals(1.0, meterRegistry.get("ida.circuitbreaker.state").tag("route", "kyc-auth")
+                .tag("state", "closed").gauge().value(), 0);
+    }
+
+    @Test
+    public void exchange_withFullBulkhead_thenRejectWithoutWaiting() throws Exception {
+        environment.setProperty("mosip.esignet.authenticator.ida.http.kyc-exchange.bulkhead.max-concurrent-calls", "1");
+        IdaHttpClient idaHttpClient = getClient(true);
+
+        CompletableFuture<ResponseEntity<String>> inFlight = idaHttpClient.exchange(IdaRoute.KYC_EXCHANGE,
+                getRequest("/slow"), String.class);
+        CompletableFuture<ResponseEntity<String>> rejected = idaHttpClient.exchange(IdaRoute.KYC_EXCHANGE,
+                getRequest("/slow"), String.class);
+        Assert.assertTrue(rejected.isCompletedExceptionally());
+        Assert.assertEquals(1.0, meterRegistry.get("ida.bulkhead.rejected").tag("route", "kyc-exchange")
+                .functionCounter().count(), 0);
+        Assert.assertEquals(0.0, meterRegistry.get("ida.bulkhead.available").tag("route", "kyc-exchange")
+                .gauge().value(), 0);
+
+        releaseSlowResponse.countDown();
+        Assert.assertEquals(HttpStatus.NO_CONTENT, inFlight.get(5, TimeUnit.SECONDS).getStatusCode());
+        Assert.assertEquals(1.0, meterRegistry.get("ida.bulkhead.available").tag("route", "kyc-exchange")
+                .gauge().value(), 0);
+    }
+
+    @Test
+    public void exchange_withRouteAtConcurrencyLimit_thenRejectWithDistinctErrorCode() throws Exception {
+        environment.setProperty("mosip.esignet.authenticator.ida.http.kyc-auth.concurrency-limit.initial-limit", "1");
+        environment.setProperty("mosip.esignet.authenticator.ida.http.kyc-auth.concurrency-limit.min-limit", "1");
+        environment.setProperty("mosip.esignet.authenticator.ida.http.kyc-auth.concurrency-limit.max-limit", "1");
+        IdaHttpClient idaHttpClient = getClient(true);
+
+        CompletableFuture<ResponseEntity<String>> inFlight = idaHttpClient.exchange(IdaRoute.KYC_AUTH,
+                getRequest("/slow"), String.class);
+        CompletableFuture<ResponseEntity<String>> rejected = idaHttpClient.exchange(IdaRoute.KYC_AUTH,
+                getRequest("/slow"), String.class);
+        Assert.assertTrue(rejected.isCompletedExceptionally());
+        try {
+            rejected.join();
+            Assert.fail();
+        } catch (CompletionException e) {
+            Assert.assertEquals(IdaCallRejectedException.CONCURRENCY_LIMIT_EXCEEDED,
+                    IdaCallRejectedException.getErrorCode(e, "auth_failed"));
+        }
+        Assert.assertEquals(1.0, meterRegistry.get("ida.concurrency.limit").tag("route", "kyc-auth").gauge().value(), 0);
+        Assert.assertEquals(1.0, meterRegistry.get("ida.concurrency.rejected").tag("route", "kyc-auth")
+                .functionCounter().count(), 0);
+        Assert.assertEquals(40.0, meterRegistry.get("ida.concurrency.limit").tag("route", "send-otp").gauge().value(), 0);
+
+        releaseSlowResponse.countDown();
+        Assert.assertEquals(HttpStatus.NO_CONTENT, inFlight.get(5, TimeUnit.SECONDS).getStatusCode());
+        Assert.assertEquals(0.0, meterRegistry.get("ida.concurrency.in-flight").tag("route", "kyc-auth").gauge().value(), 0);
+    }
+
+    @Test
+    public void init_withMaxLimitOverMaxConnections_thenCapLimitAtMaxConnections() {
+        environment.setProperty("mosip.esignet.authenticator.ida.http.kyc-auth.max-connections", "10");
+        environment.setProperty("mosip.esignet.authenticator.ida.http.kyc-auth.concurrency-limit.max-limit", "100");
+        IdaHttpClient idaHttpClient = getClient(true);
+
+        Assert.assertEquals(10.0, meterRegistry.get("ida.concurrency.limit").tag("route", "kyc-auth").gauge().value(), 0);
+        Assert.assertEquals(10, idaHttpClient.getMaxInFlight(IdaRoute.KYC_AUTH));
+        Assert.assertEquals(40, idaHttpClient.getMaxInFlight(IdaRoute.SEND_OTP));
+    }
+
+    @Test
+    public void exchange_withUnavailableIda_thenRetryOnlyIdempotentRoutes() throws Exception {
+        IdaHttpClient idaHttpClient = getClient(true);
+        Assert.assertEquals(HttpStatus.SERVICE_UNAVAILABLE, idaHttpClient.exchange(IdaRoute.CERTIFICATE,
+                getRequest("/unavailable"), String.class).get(5, TimeUnit.SECONDS).getStatusCode());
+        Assert.assertEquals(3, unavailableCalls.get());
+        Assert.assertEquals(2.0, meterRegistry.get("ida.retry.retries").functionCounter().count(), 0);
+
+        unavailableCalls.set(0);
+        Assert.assertEquals(HttpStatus.SERVICE_UNAVAILABLE, idaHttpClient.exchange(IdaRoute.KYC_AUTH,
+                getRequest("/unavailable"), String.class).get(5, TimeUnit.SECONDS).getStatusCode());
+        Assert.assertEquals(HttpStatus.SERVICE_UNAVAILABLE, idaHttpClient.exchange(IdaRoute.SEND_OTP,
+                getRequest("/unavailable"), String.class).get(5, TimeUnit.SECONDS).getStatusCode());
+        Assert.assertEquals(2, unavailableCalls.get());
+    }
+
+    @Test
+    public void exchange_withAsyncDisabled_thenRetryIdempotentRouteOnCallerThread() {
+        IdaHttpClient idaHttpClient = getClient(false);
+        RequestEntity<byte[]> requestEntity = getRequest("/certificate");
+        Mockito.when(restTemplate.exchange(requestEntity, String.class))
+                .thenThrow(new ResourceAccessException("Connection refused"))
+                .thenReturn(new ResponseEntity<>("certificate", HttpStatus.OK));
+
+        CompletableFuture<ResponseEntity<String>> future = idaHttpClient.exchange(IdaRoute.CERTIFICATE, requestEntity, String.class);
+        Assert.assertTrue(future.isDone());
+        Assert.assertEquals("certificate", future.join().getBody());
+        Mockito.verify(restTemplate, Mockito.times(2)).exchange(requestEntity, String.class);
+    }
+
+    @Test
+    public void exchange_withFailingZone_thenEjectUntilProbeSucceeds() throws Exception {
+        //zone a is the stub server, failing on /flaky until it recovers, zone b always answers
+        server.createContext("/health", exchange -> {
+            exchange.sendResponseHeaders(failing.get() ? 503 : 200, -1);
+            exchange.close();
+        });
+        AtomicInteger zoneBCalls = new AtomicInteger();
+        HttpServer zoneB = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        zoneB.createContext("/kyc-exchange", exchange -> {
+            zoneBCalls.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        zoneB.start();
+        IdaHttpClient idaHttpClient = getClient(true);
+        try {
+            idaHttpClient.setEndpoints(IdaRoute.KYC_EXCHANGE, "http://localhost:" + server.getAddress().getPort() + "/flaky, " +
+                    "http://localhost:" + zoneB.getAddress().getPort() + "/kyc-exchange");
+            Function<String, RequestEntity<?>> request = baseUrl -> RequestEntity.post(URI.create(baseUrl))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body("{\"id\":\"test\"}".getBytes(StandardCharsets.UTF_8));
+            Gauge ejected = meterRegistry.get("ida.endpoint.ejected").tag("route", "kyc-exchange")
+                    .tag("endpoint", "localhost:" + server.getAddress().getPort()).gauge();
+
+            for(int i=0; i<50 && flakyCalls.get() == 0; i++) {
+                idaHttpClient.exchange(IdaRoute.KYC_EXCHANGE, request, String.class).get(5, TimeUnit.SECONDS);
+            }
+            Assert.assertEquals(1, flakyCalls.get());
+            Assert.assertEquals(1.0, ejected.value(), 0);
+
+            zoneBCalls.set(0);
+            for(int i=0; i<10; i++) {
+                Assert.assertEquals(HttpStatus.NO_CONTENT, idaHttpClient.exchange(IdaRoute.KYC_EXCHANGE, request,
+                        String.class).get(5, TimeUnit.SECONDS).getStatusCode());
+            }
+            Assert.assertEquals(10, zoneBCalls.get());
+            Assert.assertEquals(1, flakyCalls.get());
+
+            failing.set(false);
+            for(int i=0; i<100 && ejected.value() == 1.0; i++) {
+                Thread.sleep(50);
+            }
+            Assert.assertEquals(0.0, ejected.value(), 0);
+            for(int i=0; i<50 && flakyCalls.get() == 1; i++) {
+                Assert.assertEquals(HttpStatus.NO_CONTENT, idaHttpClient.exchange(IdaRoute.KYC_EXCHANGE, request,
+                        String.class).get(5, TimeUnit.SECONDS).getStatusCode());
+            }
+            Assert.assertEquals(2, flakyCalls.get());
+        } finally {
+            idaHttpClient.destroy();
+            zoneB.stop(0);
+        }
+    }
+
+    @Test
+    public void await_withTypedFailure_thenRethrowCause() {
+        CompletableFuture<String> future = CompletableFuture.<String>completedFuture("value")
+                .thenApply(IdaHttpClient.unchecked(value -> {
+                    throw new KycAuthException("test_error");
+                }));
+
+        KycAuthException exception = Assert.assertThrows(KycAuthException.class,
+                () -> IdaHttpClient.await(future, KycAuthException.class));
+        Assert.assertEquals("test_error", exception.getErrorCode());
+    }
+
+    private IdaHttpClient getClient(boolean asyncEnabled) {
+        IdaHttpClient idaHttpClient = new IdaHttpClient();
+        ReflectionTestUtils.setField(idaHttpClient, "asyncEnabled", asyncEnabled);
+        ReflectionTestUtils.setField(idaHttpClient, "maxConnections", 50);
+        ReflectionTestUtils.setField(idaHttpClient, "connectTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(idaHttpClient, "requestTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(idaHttpClient, "environment", environment);
+        ReflectionTestUtils.setField(idaHttpClient, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(idaHttpClient, "maxConcurrentCalls", 100);
+        ReflectionTestUtils.setField(idaHttpClient, "failureRateThreshold", 50);
+        ReflectionTestUtils.setField(idaHttpClient, "slidingWindowSize", 10);
+        ReflectionTestUtils.setField(idaHttpClient, "minimumCalls", 4);
+        ReflectionTestUtils.setField(idaHttpClient, "openDurationMs", 200L);
+        ReflectionTestUtils.setField(idaHttpClient, "halfOpenCalls", 1);
+        ReflectionTestUtils.setField(idaHttpClient, "concurrencyLimitEnabled", true);
+        ReflectionTestUtils.setField(idaHttpClient, "concurrencyLimitInitial", 40);
+        ReflectionTestUtils.setField(idaHttpClient, "concurrencyLimitMin", 5);
+        ReflectionTestUtils.setField(idaHttpClient, "concurrencyLimitMax", 50);
+        ReflectionTestUtils.setField(idaHttpClient, "concurrencyLimitRttTolerance", 1.5);
+        ReflectionTestUtils.setField(idaHttpClient, "concurrencyLimitSmoothing", 0.2);
+        ReflectionTestUtils.setField(idaHttpClient, "concurrencyLimitLongWindow", 600);
+        ReflectionTestUtils.setField(idaHttpClient, "retryMaxAttempts", 3);
+        ReflectionTestUtils.setField(idaHttpClient, "retryInitialBackoffMs", 1L);
+        ReflectionTestUtils.setField(idaHttpClient, "retryMaxBackoffMs", 10L);
+        ReflectionTestUtils.setField(idaHttpClient, "retryBudgetRatio", 0.1);
+        ReflectionTestUtils.setField(idaHttpClient, "retryBudgetMinRetriesPerSecond", 5);
+        ReflectionTestUtils.setField(idaHttpClient, "endpointSelection", IdaEndpointGroup.Selection.LEAST_OUTSTANDING);
+        ReflectionTestUtils.setField(idaHttpClient, "endpointEjectionFailures", 1);
+        ReflectionTestUtils.setField(idaHttpClient, "endpointProbePath", "/health");
+        ReflectionTestUtils.setField(idaHttpClient, "endpointProbeIntervalMs", 50L);
+        ReflectionTestUtils.setField(idaHttpClient, "endpointProbeTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(idaHttpClient, "jsonCodec", TestUtil.getJsonCodec(new ObjectMapper()));
+        ReflectionTestUtils.setField(idaHttpClient, "restTemplate", restTemplate);
+        idaHttpClient.init();
+        return idaHttpClient;
+    }
+
+    private RequestEntity<byte[]> getRequest(String path) {
+        return RequestEntity
+                .post(URI.create("http://localhost:" + server.getAddress().getPort() + path))
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("signature", "test-signature")
+                .body("{\"id\":\"test\"}".getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,65 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.MissingResourceException;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Time and allocation of the claim locale conversion made for every kyc-exchange request, with the lookup table
+ * against the Locale based conversion it replaced. Not run by the build, run it from the test classpath:
+ * java -cp target/classes:target/test-classes:&lt;dependencies&gt; io.mosip.esignet.plugin.mosipid.helper.IsoLanguageCodesBenchmark
+ */
+public class IsoLanguageCodesBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+    private static final String[][] CLAIM_LOCALES = {{"en", "km", "fr"}, {"en", "km", "fr", "e1"}};
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        for(String[] claimLocales : CLAIM_LOCALES) {
+            for(int round=0; round<3; round++) {
+                measure("locale", claimLocales, () -> sink += toISO3WithLocale(claimLocales).size());
+                measure("table ", claimLocales, () -> sink += IsoLanguageCodes.toISO3(claimLocales).size());
+            }
+        }
+        System.out.println(sink == 0 ? "" : "done");
+    }
+
+    private static void measure(String name, String[] claimLocales, Runnable conversion) {
+        for(int i=0; i<WARMUP_ITERATIONS; i++) {
+            conversion.run();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for(int i=0; i<ITERATIONS; i++) {
+            conversion.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf("%s %-22s %8.1f ns/op %8d B/op%n", name, String.join(",", claimLocales),
+                (double) elapsed / ITERATIONS, allocated / ITERATIONS);
+    }
+
+    //the conversion made before the lookup table
+    private static List<String> toISO3WithLocale(String[] langCodes) {
+        if(langCodes == null || langCodes.length == 0)
+            return List.of();
+        return Arrays.stream(langCodes)
+                .map(langCode -> {
+                    try {
+                        return langCode == null || langCode.isEmpty() ? null : new Locale(langCode).getISO3Language();
+                    } catch (MissingResourceException ex) {}
+                    return null;
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,100 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.mosip.esignet.plugin.mosipid.dto.IdaKycAuthRequest;
+import io.mosip.esignet.plugin.mosipid.dto.IdaKycAuthResponse;
+import io.mosip.esignet.plugin.mosipid.dto.IdaKycExchangeResponse;
+import io.mosip.esignet.plugin.mosipid.dto.IdaResponseWrapper;
+import io.mosip.esignet.plugin.mosipid.service.TestUtil;
+import org.springframework.core.ParameterizedTypeReference;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Time and allocation of binding the IDA DTOs through the JsonCodec readers and writers, against the
+ * application ObjectMapper with a new type reference on every call as before. Not run by the build, run it
+ * from the test classpath:
+ * java -cp target/classes:target/test-classes:&lt;dependencies&gt; io.mosip.esignet.plugin.mosipid.helper.JsonCodecBenchmark
+ */
+public class JsonCodecBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+    private static final ParameterizedTypeReference<IdaResponseWrapper<IdaKycAuthResponse>> KYC_AUTH_RESPONSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<IdaResponseWrapper<IdaKycExchangeResponse>> KYC_EXCHANGE_RESPONSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonCodec jsonCodec = TestUtil.getJsonCodec(objectMapper);
+        byte[] kycAuthResponse = getResponse("mosip.identity.kycauth", "{\"kycStatus\":true,\"kycToken\":\"" +
+                "k".repeat(64) + "\",\"authToken\":\"" + "a".repeat(64) + "\"}");
+        byte[] kycExchangeResponse = getResponse("mosip.identity.kycexchange", "{\"encryptedKyc\":\"" +
+                "e".repeat(2048) + "\"}");
+        IdaKycAuthRequest.AuthRequest authRequest = new IdaKycAuthRequest.AuthRequest();
+        authRequest.setOtp("111111");
+        authRequest.setTimestamp("2024-01-01T00:00:00.000Z");
+
+        for(int round=0; round<3; round++) {
+            measure("mapper read  kyc-auth response    ", () -> sink += readKycAuthResponse(objectMapper, kycAuthResponse)
+                    .getResponse().getKycToken().length());
+            measure("codec  read  kyc-auth response    ", () -> sink += jsonCodec.reader(KYC_AUTH_RESPONSE_TYPE)
+                    .<IdaResponseWrapper<IdaKycAuthResponse>>readValue(kycAuthResponse)
+                    .getResponse().getKycToken().length());
+            measure("mapper read  kyc-exchange response", () -> sink += readKycExchangeResponse(objectMapper,
+                    kycExchangeResponse).getResponse().getEncryptedKyc().length());
+            measure("codec  read  kyc-exchange response", () -> sink += jsonCodec.reader(KYC_EXCHANGE_RESPONSE_TYPE)
+                    .<IdaResponseWrapper<IdaKycExchangeResponse>>readValue(kycExchangeResponse)
+                    .getResponse().getEncryptedKyc().length());
+            measure("mapper write auth request         ", () -> sink += objectMapper.writeValueAsBytes(authRequest).length);
+            measure("codec  write auth request         ", () -> sink += jsonCodec.writer(IdaKycAuthRequest.AuthRequest.class)
+                    .writeValueAsBytes(authRequest).length);
+        }
+        System.out.println(sink == 0 ? "" : "done");
+    }
+
+    private static void measure(String name, Operation operation) throws Exception {
+        for(int i=0; i<WARMUP_ITERATIONS; i++) {
+            operation.run();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for(int i=0; i<ITERATIONS; i++) {
+            operation.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf("%s %8.1f ns/op %8d B/op%n", name, (double) elapsed / ITERATIONS, allocated / ITERATIONS);
+    }
+
+    private static byte[] getResponse(String id, String response) {
+        return ("{\"id\":\"" + id + "\",\"version\":\"1.0\",\"transactionID\":\"1234567890\"," +
+                "\"responseTime\":\"2024-01-01T00:00:00.000Z\",\"response\":" + response + ",\"errors\":null}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    //a new type reference on every call, as the RestTemplate exchanges were made before the codec
+    private static IdaResponseWrapper<IdaKycAuthResponse> readKycAuthResponse(ObjectMapper objectMapper, byte[] body)
+            throws IOException {
+        return objectMapper.readValue(body, objectMapper.constructType(
+                new ParameterizedTypeReference<IdaResponseWrapper<IdaKycAuthResponse>>() {}.getType()));
+    }
+
+    private static IdaResponseWrapper<IdaKycExchangeResponse> readKycExchangeResponse(ObjectMapper objectMapper, byte[] body)
+            throws IOException {
+        return objectMapper.readValue(body, objectMapper.constructType(
+                new ParameterizedTypeReference<IdaResponseWrapper<IdaKycExchangeResponse>>() {}.getType()));
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,73 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.BeanSerializer;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import io.mosip.esignet.api.dto.KycSigningCertificateData;
+import io.mosip.esignet.plugin.mosipid.dto.IdaKycAuthRequest;
+import io.mosip.esignet.plugin.mosipid.dto.IdaKycAuthResponse;
+import io.mosip.esignet.plugin.mosipid.dto.IdaResponseWrapper;
+import io.mosip.esignet.plugin.mosipid.service.TestUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.core.ParameterizedTypeReference;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+
+public class JsonCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonCodec jsonCodec = TestUtil.getJsonCodec(objectMapper);
+
+    @Test
+    public void reader_withGenericResponse_thenBindLikeObjectMapper() throws Exception {
+        byte[] body = "{\"id\":\"mosip.identity.kycauth\",\"response\":{\"kycStatus\":true,\"kycToken\":\"kyc-token\",\"authToken\":\"auth-token\"}}"
+                .getBytes(StandardCharsets.UTF_8);
+        ParameterizedTypeReference<IdaResponseWrapper<IdaKycAuthResponse>> responseType = new ParameterizedTypeReference<>() {};
+
+        IdaResponseWrapper<IdaKycAuthResponse> response = jsonCodec.reader(responseType).readValue(body);
+        Assert.assertEquals("mosip.identity.kycauth", response.getId());
+        Assert.assertTrue(response.getResponse().isKycStatus());
+        Assert.assertEquals("kyc-token", response.getResponse().getKycToken());
+        Assert.assertEquals("auth-token", response.getResponse().getAuthToken());
+    }
+
+    @Test
+    public void writer_withPluginDto_thenWriteLikeObjectMapper() throws Exception {
+        IdaKycAuthRequest.AuthRequest authRequest = new IdaKycAuthRequest.AuthRequest();
+        authRequest.setOtp("111111");
+        authRequest.setTimestamp("2024-01-01T00:00:00.000Z");
+
+        JsonNode expected = objectMapper.readTree(objectMapper.writeValueAsBytes(authRequest));
+        JsonNode actual = objectMapper.readTree(jsonCodec.writer(IdaKycAuthRequest.AuthRequest.class).writeValueAsBytes(authRequest));
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void reader_sameType_thenReuseReader() {
+        Assert.assertSame(jsonCodec.reader(IdaKycAuthResponse.class), jsonCodec.reader(IdaKycAuthResponse.class));
+        Assert.assertSame(jsonCodec.writer(IdaKycAuthResponse.class), jsonCodec.writer(IdaKycAuthResponse.class));
+        Assert.assertSame(jsonCodec.reader(new ParameterizedTypeReference<List<IdaKycAuthResponse>>() {}),
+                jsonCodec.reader(new ParameterizedTypeReference<List<IdaKycAuthResponse>>() {}));
+    }
+
+    @Test
+    public void init_thenGenerateAccessorsOnlyForPluginDtos() throws Exception {
+        Assert.assertTrue(usesGeneratedAccessors(jsonCodec.getObjectMapper(), IdaKycAuthResponse.class));
+        Assert.assertFalse(usesGeneratedAccessors(jsonCodec.getObjectMapper(), KycSigningCertificateData.class));
+        //the application ObjectMapper is left as it is
+        Assert.assertFalse(usesGeneratedAccessors(objectMapper, IdaKycAuthResponse.class));
+    }
+
+    private static boolean usesGeneratedAccessors(ObjectMapper mapper, Class<?> type) throws Exception {
+        JsonSerializer<Object> serializer = mapper.getSerializerProviderInstance().findValueSerializer(type);
+        Assert.assertTrue(serializer instanceof BeanSerializer);
+        Iterator<PropertyWriter> properties = serializer.properties();
+        Assert.assertTrue(properties.hasNext());
+        return properties.next().getClass().getName().contains("afterburner");
+    }
+}
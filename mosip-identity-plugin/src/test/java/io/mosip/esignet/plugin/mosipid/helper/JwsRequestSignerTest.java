@@ -0,0 +1,141 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import io.mosip.kernel.core.keymanager.model.CertificateEntry;
+import io.mosip.kernel.keymanagerservice.dto.SignatureCertificate;
+import io.mosip.kernel.keymanagerservice.service.KeymanagerService;
+import io.mosip.kernel.keymanagerservice.util.KeymanagerUtil;
+import io.mosip.kernel.signature.util.SignatureUtil;
+import org.bouncycastle.x509.X509V3CertificateGenerator;
+import org.jose4j.jws.JsonWebSignature;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.security.auth.x500.X500Principal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Optional;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JwsRequestSignerTest {
+
+    private static final String APP_ID = "OIDC_PARTNER";
+    private static final String REQUEST = "{\"id\":\"mosip.identity.kycauth\",\"individualId\":\"8267411571\"}";
+
+    @InjectMocks
+    private JwsRequestSigner jwsRequestSigner;
+
+    @Mock
+    private KeymanagerService keymanagerService;
+
+    @Mock
+    private KeymanagerUtil keymanagerUtil;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(jwsRequestSigner, "enabled", true);
+        ReflectionTestUtils.setField(jwsRequestSigner, "keyCheckIntervalSeconds", 300L);
+        ReflectionTestUtils.setField(jwsRequestSigner, "signAlgorithm", "RS256");
+        ReflectionTestUtils.setField(jwsRequestSigner, "includeKeyId", true);
+    }
+
+    @Test
+    public void sign_matchesKeymanagerDetachedJws_thenPass() throws Exception {
+        SignatureCertificate signatureCertificate = getSignatureCertificate("6a2b1c");
+        Mockito.when(keymanagerService.getSignatureCertificate(Mockito.eq(APP_ID), Mockito.eq(Optional.of("")),
+                Mockito.anyString())).thenReturn(signatureCertificate);
+
+        String signature = jwsRequestSigner.sign(APP_ID, "", REQUEST);
+        Assert.assertEquals(getKeymanagerSignature(signatureCertificate), signature);
+
+        String[] parts = signature.split("\\.");
+        Assert.assertEquals(3, parts.length);
+        Assert.assertTrue(parts[1].isEmpty());
+        Signature verifier = Signature.getInstance("SHA256withRSA");
+        verifier.initVerify(signatureCertificate.getCertificateEntry().getChain()[0].getPublicKey());
+        verifier.update((parts[0] + "." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(REQUEST.getBytes(StandardCharsets.UTF_8))).getBytes(StandardCharsets.US_ASCII));
+        Assert.assertTrue(verifier.verify(Base64.getUrlDecoder().decode(parts[2])));
+    }
+
+    @Test
+    public void sign_withCachedKey_thenResolveKeyOnce() throws Exception {
+        SignatureCertificate signatureCertificate = getSignatureCertificate("6a2b1c");
+        Mockito.when(keymanagerService.getSignatureCertificate(Mockito.eq(APP_ID), Mockito.eq(Optional.of("")),
+                Mockito.anyString())).thenReturn(signatureCertificate);
+
+        for(int i=0; i<10; i++) {
+            Assert.assertNotNull(jwsRequestSigner.sign(APP_ID, "", REQUEST + i));
+        }
+        Mockito.verify(keymanagerService, Mockito.times(1)).getSignatureCertificate(Mockito.anyString(),
+                Mockito.any(), Mockito.anyString());
+    }
+
+    @Test
+    public void sign_afterKeyRotation_thenUseNewKey() throws Exception {
+        ReflectionTestUtils.setField(jwsRequestSigner, "keyCheckIntervalSeconds", 0L);
+        SignatureCertificate oldCertificate = getSignatureCertificate("6a2b1c");
+        SignatureCertificate newCertificate = getSignatureCertificate("7b3c2d");
+        Mockito.when(keymanagerService.getSignatureCertificate(Mockito.eq(APP_ID), Mockito.eq(Optional.of("")),
+                Mockito.anyString())).thenReturn(oldCertificate, newCertificate);
+
+        Assert.assertEquals(getKeymanagerSignature(oldCertificate), jwsRequestSigner.sign(APP_ID, "", REQUEST));
+        Assert.assertEquals(getKeymanagerSignature(newCertificate), jwsRequestSigner.sign(APP_ID, "", REQUEST));
+    }
+
+    @Test
+    public void sign_withInvalidCertificate_thenFail() throws Exception {
+        SignatureCertificate signatureCertificate = getSignatureCertificate("6a2b1c");
+        Mockito.when(keymanagerService.getSignatureCertificate(Mockito.eq(APP_ID), Mockito.eq(Optional.of("")),
+                Mockito.anyString())).thenReturn(signatureCertificate);
+        Mockito.doThrow(RuntimeException.class).when(keymanagerUtil).isCertificateValid(Mockito.any(), Mockito.any());
+        Assert.assertThrows(RuntimeException.class, () -> jwsRequestSigner.sign(APP_ID, "", REQUEST));
+    }
+
+    private String getKeymanagerSignature(SignatureCertificate signatureCertificate) throws Exception {
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setCertificateChainHeaderValue(signatureCertificate.getCertificateEntry().getChain()[0]);
+        jws.setKeyIdHeaderValue(SignatureUtil.convertHexToBase64(signatureCertificate.getUniqueIdentifier()));
+        jws.setPayload(REQUEST);
+        jws.setAlgorithmHeaderValue("RS256");
+        jws.setKey(signatureCertificate.getCertificateEntry().getPrivateKey());
+        jws.setDoKeyValidation(false);
+        return jws.getDetachedContentCompactSerialization();
+    }
+
+    private SignatureCertificate getSignatureCertificate(String uniqueIdentifier) throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+        X509V3CertificateGenerator generator = new X509V3CertificateGenerator();
+        X500Principal dnName = new X500Principal("CN=Test");
+        generator.setSubjectDN(dnName);
+        generator.setIssuerDN(dnName);
+        generator.setNotBefore(new Date(System.currentTimeMillis() - 24 * 60 * 60 * 1000));
+        generator.setNotAfter(new Date(System.currentTimeMillis() + 24 * 60 * 60 * 1000));
+        generator.setPublicKey(keyPair.getPublic());
+        generator.setSignatureAlgorithm("SHA256WITHRSA");
+        generator.setSerialNumber(new BigInteger(String.valueOf(System.nanoTime())));
+        X509Certificate certificate = generator.generate(keyPair.getPrivate());
+
+        SignatureCertificate signatureCertificate = new SignatureCertificate();
+        signatureCertificate.setAlias(uniqueIdentifier);
+        signatureCertificate.setUniqueIdentifier(uniqueIdentifier);
+        signatureCertificate.setCertificateEntry(new CertificateEntry<X509Certificate, PrivateKey>(
+                new X509Certificate[]{certificate}, keyPair.getPrivate()));
+        return signatureCertificate;
+    }
+}
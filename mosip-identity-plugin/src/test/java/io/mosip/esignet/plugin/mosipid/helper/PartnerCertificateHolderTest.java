@@ -0,0 +1,171 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.mosip.esignet.api.exception.KycAuthException;
+import io.mosip.esignet.plugin.mosipid.service.HelperService;
+import io.mosip.esignet.plugin.mosipid.service.TestUtil;
+import io.mosip.kernel.keymanagerservice.util.KeymanagerUtil;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PartnerCertificateHolderTest {
+
+    private static final String CERT_URL = "https://test/test";
+    private static final RequestEntity<Void> CERT_REQUEST = RequestEntity.get(URI.create(CERT_URL)).build();
+
+    @Mock
+    private KeymanagerUtil keymanagerUtil;
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private PartnerCertificateHolder partnerCertificateHolder;
+
+    @Before
+    public void setUp() {
+        partnerCertificateHolder = new PartnerCertificateHolder();
+        ReflectionTestUtils.setField(partnerCertificateHolder, "idaPartnerCertificateUrl", CERT_URL);
+        ReflectionTestUtils.setField(partnerCertificateHolder, "refreshAheadSeconds", 86400L);
+        ReflectionTestUtils.setField(partnerCertificateHolder, "refreshRetrySeconds", 300L);
+        ReflectionTestUtils.setField(partnerCertificateHolder, "idaHttpClient", TestUtil.getIdaHttpClient(restTemplate, new ObjectMapper()));
+        ReflectionTestUtils.setField(partnerCertificateHolder, "keymanagerUtil", keymanagerUtil);
+        partnerCertificateHolder.init();
+    }
+
+    @After
+    public void tearDown() {
+        partnerCertificateHolder.shutdown();
+    }
+
+    @Test
+    public void getSnapshot_withValidCertificate_thenPass() throws Exception {
+        X509Certificate certificate = TestUtil.getCertificate();
+        Mockito.when(restTemplate.exchange(CERT_REQUEST, String.class)).thenReturn(ResponseEntity.ok("test-certificate"));
+        Mockito.when(keymanagerUtil.convertToCertificate("test-certificate")).thenReturn(certificate);
+
+        PartnerCertificateHolder.CertificateSnapshot snapshot = partnerCertificateHolder.getSnapshot();
+        Assert.assertEquals(certificate, snapshot.getCertificate());
+        Assert.assertEquals(certificate.getPublicKey(), snapshot.getPublicKey());
+        Assert.assertArrayEquals(DigestUtils.sha256(certificate.getEncoded()), snapshot.getThumbprint());
+        Assert.assertEquals(Base64.getUrlEncoder().withoutPadding().encodeToString(DigestUtils.sha256(certificate.getEncoded())),
+                snapshot.getEncodedThumbprint());
+
+        Assert.assertSame(snapshot, partnerCertificateHolder.getSnapshot());
+        Mockito.verify(restTemplate, Mockito.times(1)).exchange(CERT_REQUEST, String.class);
+    }
+
+    @Test
+    public void getSnapshot_withExpiredCertificates_thenFail() throws Exception {
+        Mockito.when(restTemplate.exchange(CERT_REQUEST, String.class)).thenReturn(ResponseEntity.ok("test-certificate"));
+        Mockito.when(keymanagerUtil.convertToCertificate("test-certificate")).thenReturn(TestUtil.getExpiredCertificate());
+        try {
+            partnerCertificateHolder.getSnapshot();
+            Assert.fail();
+        } catch (KycAuthException e) {
+            Assert.assertEquals(HelperService.INVALID_PARTNER_CERTIFICATE, e.getErrorCode());
+        }
+        Mockito.verify(restTemplate, Mockito.times(2)).exchange(CERT_REQUEST, String.class);
+    }
+
+    @Test
+    public void getSnapshot_withFailedDownload_thenFail() {
+        Mockito.when(restTemplate.exchange(CERT_REQUEST, String.class))
+                .thenReturn(ResponseEntity.notFound().build())
+                .thenThrow(new ResourceAccessException("Connection refused"));
+
+        KycAuthException exception = Assert.assertThrows(KycAuthException.class, () -> partnerCertificateHolder.getSnapshot());
+        Assert.assertEquals(HelperService.INVALID_PARTNER_CERTIFICATE, exception.getErrorCode());
+        exception = Assert.assertThrows(KycAuthException.class, () -> partnerCertificateHolder.getSnapshot());
+        Assert.assertEquals(HelperService.INVALID_PARTNER_CERTIFICATE, exception.getErrorCode());
+    }
+
+    @Test
+    public void getSnapshot_withRepeatedDownloads_thenKeepOneScheduledRefresh() throws Exception {
+        Mockito.when(restTemplate.exchange(CERT_REQUEST, String.class)).thenReturn(ResponseEntity.ok("test-certificate"));
+        Mockito.when(keymanagerUtil.convertToCertificate("test-certificate")).thenReturn(TestUtil.getCertificate());
+
+        partnerCertificateHolder.getSnapshot();
+        for(int i=0; i<3; i++) {
+            ReflectionTestUtils.invokeMethod(partnerCertificateHolder, "refresh");
+        }
+        ScheduledThreadPoolExecutor scheduler = (ScheduledThreadPoolExecutor) ReflectionTestUtils.getField(
+                partnerCertificateHolder, "scheduler");
+        Assert.assertEquals(1, scheduler.getQueue().size());
+    }
+
+    @Test
+    public void getSnapshot_withConcurrentMisses_thenDownloadOnce() throws Exception {
+        X509Certificate certificate = TestUtil.getCertificate();
+        CountDownLatch downloadStarted = new CountDownLatch(1);
+        CountDownLatch releaseDownload = new CountDownLatch(1);
+        Mockito.when(restTemplate.exchange(CERT_REQUEST, String.class)).thenAnswer(invocation -> {
+            downloadStarted.countDown();
+            releaseDownload.await(5, TimeUnit.SECONDS);
+            return ResponseEntity.ok("test-certificate");
+        });
+        Mockito.when(keymanagerUtil.convertToCertificate("test-certificate")).thenReturn(certificate);
+
+        int callers = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<PartnerCertificateHolder.CertificateSnapshot>> futures = new ArrayList<>();
+            for(int i=0; i<callers; i++) {
+                futures.add(executorService.submit(() -> partnerCertificateHolder.getSnapshot()));
+            }
+            Assert.assertTrue(downloadStarted.await(5, TimeUnit.SECONDS));
+            //give the remaining callers time to join the in-flight download
+            Thread.sleep(200);
+            releaseDownload.countDown();
+            for(Future<PartnerCertificateHolder.CertificateSnapshot> future : futures) {
+                Assert.assertEquals(certificate, future.get(5, TimeUnit.SECONDS).getCertificate());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        Mockito.verify(restTemplate, Mockito.times(1)).exchange(CERT_REQUEST, String.class);
+    }
+
+    @Test
+    public void getSnapshot_refreshesAheadOfExpiry_thenPass() throws Exception {
+        X509Certificate certificate = TestUtil.getCertificate();
+        X509Certificate renewedCertificate = TestUtil.getCertificate();
+        long expiresInSeconds = TimeUnit.MILLISECONDS.toSeconds(certificate.getNotAfter().getTime() - System.currentTimeMillis());
+        ReflectionTestUtils.setField(partnerCertificateHolder, "refreshAheadSeconds", expiresInSeconds - 1);
+        ReflectionTestUtils.setField(partnerCertificateHolder, "refreshRetrySeconds", 1L);
+        Mockito.when(restTemplate.exchange(CERT_REQUEST, String.class)).thenReturn(ResponseEntity.ok("test-certificate"), ResponseEntity.ok("renewed-certificate"));
+        Mockito.when(keymanagerUtil.convertToCertificate("test-certificate")).thenReturn(certificate);
+        Mockito.when(keymanagerUtil.convertToCertificate("renewed-certificate")).thenReturn(renewedCertificate);
+
+        Assert.assertEquals(certificate, partnerCertificateHolder.getCertificate());
+        Mockito.verify(restTemplate, Mockito.timeout(5000).times(2)).exchange(CERT_REQUEST, String.class);
+        for(int i=0; i<100 && partnerCertificateHolder.getCertificate() != renewedCertificate; i++) {
+            Thread.sleep(20);
+        }
+        Assert.assertEquals(renewedCertificate, partnerCertificateHolder.getCertificate());
+    }
+}
@@ -0,0 +1,92 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.mosip.esignet.plugin.mosipid.dto.IdaKycAuthRequest;
+import io.mosip.esignet.plugin.mosipid.dto.IdaKycExchangeRequest;
+import io.mosip.esignet.plugin.mosipid.dto.KeyBindingRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+public class RequestEnvelopeTest {
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void write_kycAuthRequest_matchesObjectMapperOutput() throws Exception {
+        RequestEnvelope envelope = RequestEnvelope.builder(objectMapper, IdaKycAuthRequest.class)
+                .field("id", "mosip.identity.kycauth")
+                .field("version", "1.0")
+                .field("domainUri", "https://api.\"mosip\".net")
+                .field("env", null)
+                .build();
+
+        IdaKycAuthRequest request = new IdaKycAuthRequest();
+        request.setConsentObtained(true);
+        request.setIndividualId("8267411571");
+        request.setTransactionID("1234567890");
+        request.setRequest("request".getBytes(StandardCharsets.UTF_8));
+        request.setAllowedKycAttributes(List.of("name", "email"));
+
+        JsonNode actual = objectMapper.readTree(envelope.write(request));
+        Assert.assertTrue(actual.get("requestTime").asText().matches("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d{3}Z"));
+
+        request.setId("mosip.identity.kycauth");
+        request.setVersion("1.0");
+        request.setDomainUri("https://api.\"mosip\".net");
+        request.setRequestTime(actual.get("requestTime").asText());
+        Assert.assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(request)), actual);
+        Assert.assertFalse(actual.has("env"));
+    }
+
+    @Test
+    public void write_keyBindingRequest_thenPass() throws Exception {
+        RequestEnvelope envelope = RequestEnvelope.builder(objectMapper, KeyBindingRequest.class)
+                .field("id", "mosip.identity.keybinding")
+                .field("version", "1.0")
+                .build();
+
+        KeyBindingRequest request = new KeyBindingRequest();
+        KeyBindingRequest.IdentityKeyBinding identityKeyBinding = new KeyBindingRequest.IdentityKeyBinding();
+        identityKeyBinding.setAuthFactorType("WLA");
+        identityKeyBinding.setPublicKeyJWK(Map.of("kty", "RSA"));
+        request.setIdentityKeyBinding(identityKeyBinding);
+
+        ObjectNode actual = (ObjectNode) objectMapper.readTree(envelope.write(request));
+        Assert.assertEquals("mosip.identity.keybinding", actual.get("id").asText());
+        Assert.assertEquals("1.0", actual.get("version").asText());
+        Assert.assertEquals("WLA", actual.get("identityKeyBinding").get("authFactorType").asText());
+        Assert.assertEquals("RSA", actual.get("identityKeyBinding").get("publicKeyJWK").get("kty").asText());
+    }
+
+    @Test
+    public void write_withoutRequestFields_thenPass() throws Exception {
+        RequestEnvelope envelope = RequestEnvelope.builder(objectMapper, IdaKycExchangeRequest.class)
+                .field("id", "mosip.identity.kycexchange")
+                .build();
+
+        JsonNode actual = objectMapper.readTree(envelope.write(new IdaKycExchangeRequest()));
+        Assert.assertEquals(2, actual.size());
+        Assert.assertEquals("mosip.identity.kycexchange", actual.get("id").asText());
+        Assert.assertTrue(actual.has("requestTime"));
+    }
+
+    @Test
+    public void now_matchesFormatterOutput() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(UtcDateTimeClock.UTC_DATETIME_PATTERN).withZone(ZoneOffset.UTC);
+        long before = System.currentTimeMillis();
+        String now = UtcDateTimeClock.now();
+        long after = System.currentTimeMillis();
+        long parsed = Instant.parse(now).toEpochMilli();
+        Assert.assertTrue(parsed >= before && parsed <= after);
+        Assert.assertEquals(formatter.format(Instant.ofEpochMilli(parsed)), now);
+    }
+}
@@ -0,0 +1,128 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.ConnectException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RetryPolicyTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    @Test
+    public void execute_withTransientFailure_thenRetry() {
+        RetryPolicy retryPolicy = new RetryPolicy(3, 1, 10, new RetryBudget(0.1, 5, nanoTime::get));
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = retryPolicy.execute(() -> {
+            if(calls.incrementAndGet() < 3)
+                throw new ResourceAccessException("Connection refused");
+            return "ok";
+        });
+        Assert.assertEquals("ok", result);
+        Assert.assertEquals(3, calls.get());
+        Assert.assertEquals(2, retryPolicy.getRetries());
+    }
+
+    @Test
+    public void execute_withPersistentFailure_thenStopAtMaxAttempts() {
+        RetryPolicy retryPolicy = new RetryPolicy(3, 1, 10, new RetryBudget(0.1, 5, nanoTime::get));
+        AtomicInteger calls = new AtomicInteger();
+
+        Assert.assertThrows(HttpServerErrorException.class, () -> retryPolicy.execute(() -> {
+            calls.incrementAndGet();
+            throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+        }));
+        Assert.assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void execute_withNonRetryableFailure_thenFailOnFirstAttempt() {
+        RetryPolicy retryPolicy = new RetryPolicy(3, 1, 10, new RetryBudget(0.1, 5, nanoTime::get));
+        AtomicInteger calls = new AtomicInteger();
+
+        Assert.assertThrows(HttpClientErrorException.class, () -> retryPolicy.execute(() -> {
+            calls.incrementAndGet();
+            throw new HttpClientErrorException(HttpStatus.BAD_REQUEST);
+        }));
+        Assert.assertThrows(IdaCallRejectedException.class, () -> retryPolicy.execute(() -> {
+            calls.incrementAndGet();
+            throw new IdaCallRejectedException(IdaRoute.CERTIFICATE, IdaCallRejectedException.Kind.CIRCUIT_OPEN);
+        }));
+        Assert.assertThrows(HttpServerErrorException.class, () -> retryPolicy.execute(() -> {
+            calls.incrementAndGet();
+            throw new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR);
+        }));
+        Assert.assertEquals(3, calls.get());
+        Assert.assertEquals(0, retryPolicy.getRetries());
+    }
+
+    @Test
+    public void execute_withBudgetSpent_thenStopRetrying() {
+        RetryBudget budget = new RetryBudget(0, 1, nanoTime::get);
+        RetryPolicy retryPolicy = new RetryPolicy(3, 0, 0, budget);
+        AtomicInteger calls = new AtomicInteger();
+
+        //an outage drains the ten initial tokens, then every call is made only once
+        for(int i=0; i<20; i++) {
+            Assert.assertThrows(ResourceAccessException.class, () -> retryPolicy.execute(() -> {
+                calls.incrementAndGet();
+                throw new ResourceAccessException("Connection refused");
+            }));
+        }
+        Assert.assertEquals(10, retryPolicy.getRetries());
+        Assert.assertEquals(30, calls.get());
+        Assert.assertTrue(budget.getRejectedRetries() > 0);
+
+        //the floor refills the budget over time
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        Assert.assertTrue(budget.tryRetry());
+    }
+
+    @Test
+    public void executeAsync_withRetryableResponse_thenRetryAfterBackoff() throws Exception {
+        RetryPolicy retryPolicy = new RetryPolicy(3, 1, 10, new RetryBudget(0.1, 5, nanoTime::get));
+        AtomicInteger calls = new AtomicInteger();
+
+        ResponseEntity<String> responseEntity = retryPolicy.<ResponseEntity<String>>executeAsync(() ->
+                CompletableFuture.supplyAsync(() -> calls.incrementAndGet() == 1 ?
+                        new ResponseEntity<>(HttpStatus.BAD_GATEWAY) : new ResponseEntity<>("ok", HttpStatus.OK)))
+                .get(5, TimeUnit.SECONDS);
+        Assert.assertEquals("ok", responseEntity.getBody());
+        Assert.assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void executeAsync_withIoFailure_thenCompleteWithLastFailure() {
+        RetryPolicy retryPolicy = new RetryPolicy(2, 1, 10, new RetryBudget(0.1, 5, nanoTime::get));
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> future = retryPolicy.executeAsync(() -> CompletableFuture.supplyAsync(() -> {
+            calls.incrementAndGet();
+            throw new CompletionException(new ConnectException("Connection refused"));
+        }));
+        CompletionException exception = Assert.assertThrows(CompletionException.class, future::join);
+        Assert.assertTrue(exception.getCause() instanceof ConnectException);
+        Assert.assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void backoffMs_thenStayWithinExponentialCeiling() {
+        RetryPolicy retryPolicy = new RetryPolicy(5, 100, 1000, new RetryBudget(0.1, 5, nanoTime::get));
+        for(int i=0; i<100; i++) {
+            Assert.assertTrue(retryPolicy.backoffMs(1) <= 100);
+            Assert.assertTrue(retryPolicy.backoffMs(3) <= 400);
+            Assert.assertTrue(retryPolicy.backoffMs(40) <= 1000);
+        }
+    }
+}
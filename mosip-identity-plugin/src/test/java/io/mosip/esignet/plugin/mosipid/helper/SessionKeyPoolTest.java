@@ -0,0 +1,78 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public class SessionKeyPoolTest {
+
+    private SessionKeyPool sessionKeyPool;
+    private SimpleMeterRegistry meterRegistry;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sessionKeyPool = new SessionKeyPool();
+        ReflectionTestUtils.setField(sessionKeyPool, "symmetricAlgorithm", "AES");
+        ReflectionTestUtils.setField(sessionKeyPool, "symmetricKeyLength", 256);
+        ReflectionTestUtils.setField(sessionKeyPool, "poolSize", 8);
+        ReflectionTestUtils.setField(sessionKeyPool, "refillThreshold", 2);
+        ReflectionTestUtils.setField(sessionKeyPool, "meterRegistry", meterRegistry);
+        sessionKeyPool.init();
+    }
+
+    @After
+    public void tearDown() {
+        sessionKeyPool.shutdown();
+    }
+
+    @Test
+    public void take_withPrefilledPool_thenPass() throws Exception {
+        waitForRefill(8);
+        SecretKey secretKey = sessionKeyPool.take();
+        Assert.assertNotNull(secretKey);
+        Assert.assertEquals("AES", secretKey.getAlgorithm());
+        Assert.assertEquals(32, secretKey.getEncoded().length);
+        Assert.assertEquals(0, sessionKeyPool.getMissCount());
+    }
+
+    @Test
+    public void take_keysAreNeverReused_thenPass() {
+        Set<String> keys = new HashSet<>();
+        for(int i=0; i<100; i++) {
+            Assert.assertTrue(keys.add(Arrays.toString(sessionKeyPool.take().getEncoded())));
+        }
+    }
+
+    @Test
+    public void take_withDrainedPool_thenGenerateInlineAndRefill() throws Exception {
+        waitForRefill(8);
+        for(int i=0; i<20; i++) {
+            Assert.assertNotNull(sessionKeyPool.take());
+        }
+        //refill is only triggered once the pool drops to the threshold
+        waitForRefill(3);
+        Assert.assertTrue(sessionKeyPool.size() > 2);
+    }
+
+    @Test
+    public void metrics_areRegistered_thenPass() throws Exception {
+        waitForRefill(8);
+        Assert.assertEquals(8.0, meterRegistry.get("ida.session.key.pool.depth").gauge().value(), 0);
+        Assert.assertEquals(0.0, meterRegistry.get("ida.session.key.pool.miss").functionCounter().count(), 0);
+    }
+
+    private void waitForRefill(int expected) throws InterruptedException {
+        for(int i=0; i<250 && sessionKeyPool.size() < expected; i++) {
+            Thread.sleep(20);
+        }
+    }
+}
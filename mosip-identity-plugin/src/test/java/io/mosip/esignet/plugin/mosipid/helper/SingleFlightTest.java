@@ -0,0 +1,55 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    public void execute_withCallInFlight_thenShareOutcome() {
+        CompletableFuture<String> call = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> first = singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            return call;
+        });
+        CompletableFuture<String> second = singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        CompletableFuture<String> otherKey = singleFlight.execute("other-key",
+                () -> CompletableFuture.completedFuture("other"));
+        Assert.assertEquals(1, singleFlight.getInFlightCalls());
+
+        //one caller giving up does not cancel the call for the others
+        second.cancel(true);
+        call.complete("value");
+        Assert.assertEquals("value", first.join());
+        Assert.assertEquals("other", otherKey.join());
+        Assert.assertEquals(1, calls.get());
+        Assert.assertEquals(2, singleFlight.getCalls());
+        Assert.assertEquals(1, singleFlight.getSharedCalls());
+        Assert.assertEquals(0, singleFlight.getInFlightCalls());
+    }
+
+    @Test
+    public void execute_withFailedCall_thenShareFailureAndReleaseKey() {
+        CompletableFuture<String> call = new CompletableFuture<>();
+        CompletableFuture<String> first = singleFlight.execute("key", () -> call);
+        CompletableFuture<String> second = singleFlight.execute("key", () -> call);
+
+        call.completeExceptionally(new IllegalStateException("failed"));
+        Assert.assertTrue(Assert.assertThrows(CompletionException.class, first::join).getCause() instanceof IllegalStateException);
+        Assert.assertTrue(Assert.assertThrows(CompletionException.class, second::join).getCause() instanceof IllegalStateException);
+
+        Assert.assertEquals("retried", singleFlight.execute("key", () -> CompletableFuture.completedFuture("retried")).join());
+        Assert.assertEquals(2, singleFlight.getCalls());
+    }
+}
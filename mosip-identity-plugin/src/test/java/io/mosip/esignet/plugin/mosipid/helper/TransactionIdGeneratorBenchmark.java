@@ -0,0 +1,87 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import io.mosip.esignet.plugin.mosipid.service.HelperService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+/**
+ * Throughput of the transaction id strategies under 64 concurrent threads, against the single shared
+ * SecureRandom they replaced. Not run by the build, run it from the test classpath:
+ * java -cp target/classes:target/test-classes:&lt;dependencies&gt; io.mosip.esignet.plugin.mosipid.helper.TransactionIdGeneratorBenchmark
+ */
+public class TransactionIdGeneratorBenchmark {
+
+    private static final int THREADS = 64;
+    private static final int WARMUP_IDS_PER_THREAD = 2_000;
+    private static final int IDS_PER_THREAD = 10_000;
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        try {
+            for(int round=0; round<3; round++) {
+                measure(executorService, "legacy      ", TransactionIdGeneratorBenchmark::generateWithSharedRandom);
+                for(TransactionIdGenerator.Strategy strategy : TransactionIdGenerator.Strategy.values()) {
+                    TransactionIdGenerator generator = new TransactionIdGenerator();
+                    ReflectionTestUtils.setField(generator, "strategy", strategy);
+                    generator.init();
+                    measure(executorService, String.format("%-12s", strategy), generator::generate);
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        System.out.println(sink == 0 ? "" : "done");
+    }
+
+    private static void measure(ExecutorService executorService, String name, IntFunction<String> generator)
+            throws Exception {
+        sink += run(executorService, generator, WARMUP_IDS_PER_THREAD);
+        long start = System.nanoTime();
+        sink += run(executorService, generator, IDS_PER_THREAD);
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%s %6.2fM ids/s%n", name, THREADS * IDS_PER_THREAD * 1e3 / elapsed);
+    }
+
+    private static long run(ExecutorService executorService, IntFunction<String> generator, int idsPerThread)
+            throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> futures = new ArrayList<>();
+        for(int t=0; t<THREADS; t++) {
+            futures.add(executorService.submit(() -> {
+                start.await();
+                long length = 0;
+                for(int i=0; i<idsPerThread; i++) {
+                    length += generator.apply(10).length();
+                }
+                return length;
+            }));
+        }
+        start.countDown();
+        long length = 0;
+        for(Future<Long> future : futures) {
+            length += future.get();
+        }
+        return length;
+    }
+
+    //HelperService.generateTransactionId before the generator, every thread drawing from one SecureRandom
+    private static String generateWithSharedRandom(int length) {
+        StringBuilder builder = new StringBuilder();
+        for(int i=0; i<length; i++) {
+            int index = SECURE_RANDOM.nextInt(HelperService.CHARACTERS.length());
+            builder.append(HelperService.CHARACTERS.charAt(index));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,104 @@
+package io.mosip.esignet.plugin.mosipid.helper;
+
+import io.mosip.esignet.plugin.mosipid.service.HelperService;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class TransactionIdGeneratorTest {
+
+    private static final int THREADS = 64;
+    private static final int IDS_PER_THREAD = 2000;
+
+    @Test
+    public void generate_withStripedStrategy_thenNoCollisions() throws Exception {
+        assertCollisionFree(getGenerator(TransactionIdGenerator.Strategy.STRIPED));
+    }
+
+    @Test
+    public void generate_withThreadLocalStrategy_thenNoCollisions() throws Exception {
+        assertCollisionFree(getGenerator(TransactionIdGenerator.Strategy.THREAD_LOCAL));
+    }
+
+    @Test
+    public void generate_withBulkStrategy_thenNoCollisions() throws Exception {
+        assertCollisionFree(getGenerator(TransactionIdGenerator.Strategy.BULK));
+    }
+
+    @Test
+    public void generate_withLongerIds_thenPass() {
+        for(TransactionIdGenerator.Strategy strategy : TransactionIdGenerator.Strategy.values()) {
+            TransactionIdGenerator generator = getGenerator(strategy);
+            Assert.assertEquals(1, generator.generate(1).length());
+            Assert.assertEquals(25, generator.generate(25).length());
+            Assert.assertTrue(generator.generate(25).chars().allMatch(c -> HelperService.CHARACTERS.indexOf(c) >= 0));
+        }
+    }
+
+    /**
+     * Generates ids from 64 threads released together, checks that no id repeats and that every
+     * alphabet character shows up at each position close to the expected uniform rate.
+     */
+    private void assertCollisionFree(TransactionIdGenerator generator) throws Exception {
+        int length = 10;
+        int alphabetSize = HelperService.CHARACTERS.length();
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        AtomicLongArray frequencies = new AtomicLongArray(length * alphabetSize);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for(int t=0; t<THREADS; t++) {
+                futures.add(executorService.submit(() -> {
+                    start.await();
+                    int duplicates = 0;
+                    for(int i=0; i<IDS_PER_THREAD; i++) {
+                        String id = generator.generate(length);
+                        Assert.assertEquals(length, id.length());
+                        for(int p=0; p<length; p++) {
+                            int index = HelperService.CHARACTERS.indexOf(id.charAt(p));
+                            Assert.assertTrue(index >= 0);
+                            frequencies.incrementAndGet(p * alphabetSize + index);
+                        }
+                        if(!ids.add(id))
+                            duplicates++;
+                    }
+                    return duplicates;
+                }));
+            }
+            start.countDown();
+            int duplicates = 0;
+            for(Future<Integer> future : futures) {
+                duplicates += future.get(30, TimeUnit.SECONDS);
+            }
+            //62^10 ids, the birthday bound for this sample is well below one in a million
+            Assert.assertEquals(0, duplicates);
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        double expected = (double) THREADS * IDS_PER_THREAD / alphabetSize;
+        for(int i=0; i<frequencies.length(); i++) {
+            Assert.assertEquals("Skewed frequency at position " + (i / alphabetSize), expected,
+                    frequencies.get(i), expected * 0.25);
+        }
+    }
+
+    private TransactionIdGenerator getGenerator(TransactionIdGenerator.Strategy strategy) {
+        TransactionIdGenerator generator = new TransactionIdGenerator();
+        ReflectionTestUtils.setField(generator, "strategy", strategy);
+        generator.init();
+        return generator;
+    }
+}
@@ -0,0 +1,205 @@
+package io.mosip.esignet.plugin.mosipid.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.esignet.api.dto.AuthChallenge;
+import io.mosip.esignet.plugin.mosipid.dto.IdaKycAuthRequest;
+import io.mosip.esignet.plugin.mosipid.helper.IdaHttpClient;
+import io.mosip.esignet.plugin.mosipid.helper.JsonCodec;
+import io.mosip.esignet.plugin.mosipid.helper.PartnerCertificateHolder;
+import io.mosip.esignet.plugin.mosipid.helper.SessionKeyPool;
+import io.mosip.kernel.core.util.CryptoUtil;
+import io.mosip.kernel.core.util.HMACUtils2;
+import io.mosip.kernel.keymanagerservice.util.KeymanagerUtil;
+import org.mockito.Mockito;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.spec.MGF1ParameterSpec;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time and allocation of building an encrypted kyc-auth request, setAuthRequest plus the outer request
+ * serialization, with the single buffer pipeline against the String based one it replaced, and BIO captures
+ * passed through verbatim against parsed and written back. Not run by the build, run it from the test classpath:
+ * java -cp target/classes:target/test-classes:&lt;dependencies&gt; io.mosip.esignet.plugin.mosipid.service.AuthRequestBenchmark
+ */
+public class AuthRequestBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5_000;
+    private static final int ITERATIONS = 20_000;
+    private static final int[] CHALLENGE_SIZES = {64, 64 * 1024};
+    private static final int BIO_ENTRIES = 10;
+    private static final int BIO_DATA_SIZE = 30 * 1024;
+
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        HelperService helperService = getHelperService(objectMapper);
+        PartnerCertificateHolder partnerCertificateHolder = (PartnerCertificateHolder) ReflectionTestUtils.getField(
+                helperService, "partnerCertificateHolder");
+        SessionKeyPool sessionKeyPool = (SessionKeyPool) ReflectionTestUtils.getField(helperService, "sessionKeyPool");
+        JsonCodec jsonCodec = (JsonCodec) ReflectionTestUtils.getField(helperService, "jsonCodec");
+
+        for(int size : CHALLENGE_SIZES) {
+            List<AuthChallenge> challengeList = List.of(getChallenge("pwd", "p".repeat(size)));
+            for(int round=0; round<3; round++) {
+                measure("string", size + " B challenge", () -> sink += setAuthRequestWithStrings(objectMapper,
+                        sessionKeyPool, partnerCertificateHolder, challengeList).length);
+                measure("buffer", size + " B challenge", () -> sink += writeAuthRequest(helperService, jsonCodec,
+                        challengeList).length);
+            }
+        }
+
+        List<AuthChallenge> bioChallengeList = List.of(getChallenge("bio", HelperService.b64Encode(getCapture(objectMapper))));
+        String label = BIO_ENTRIES + " x " + BIO_DATA_SIZE + " B bio";
+        for(int round=0; round<3; round++) {
+            ReflectionTestUtils.setField(helperService, "bioPassthroughEnabled", false);
+            measure("parse      ", label, () -> sink += writeAuthRequest(helperService, jsonCodec, bioChallengeList).length);
+            ReflectionTestUtils.setField(helperService, "bioPassthroughEnabled", true);
+            measure("passthrough", label, () -> sink += writeAuthRequest(helperService, jsonCodec, bioChallengeList).length);
+        }
+        System.out.println(sink == 0 ? "" : "done");
+        System.exit(0);
+    }
+
+    private static void measure(String name, String label, Operation operation) throws Exception {
+        for(int i=0; i<WARMUP_ITERATIONS; i++) {
+            operation.run();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for(int i=0; i<ITERATIONS; i++) {
+            operation.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf("%s %-22s %12.1f ns/op %10d B/op%n", name, label,
+                (double) elapsed / ITERATIONS, allocated / ITERATIONS);
+    }
+
+    private static byte[] writeAuthRequest(HelperService helperService, JsonCodec jsonCodec,
+                                           List<AuthChallenge> challengeList) throws Exception {
+        IdaKycAuthRequest idaKycAuthRequest = getOuterRequest();
+        helperService.setAuthRequest(challengeList, idaKycAuthRequest);
+        return jsonCodec.writer(IdaKycAuthRequest.class).writeValueAsBytes(idaKycAuthRequest);
+    }
+
+    //the request built before the single buffer pipeline, outer fields as Strings
+    private static byte[] setAuthRequestWithStrings(ObjectMapper objectMapper, SessionKeyPool sessionKeyPool,
+                                                    PartnerCertificateHolder partnerCertificateHolder,
+                                                    List<AuthChallenge> challengeList) throws Exception {
+        IdaKycAuthRequest.AuthRequest authRequest = new IdaKycAuthRequest.AuthRequest();
+        authRequest.setTimestamp(HelperService.getUTCDateTime());
+        authRequest.setPassword(challengeList.get(0).getChallenge());
+        SecretKey symmetricKey = sessionKeyPool.take();
+        String request = objectMapper.writeValueAsString(authRequest);
+        String hexEncodedHash = HMACUtils2.digestAsPlainText(request.getBytes(StandardCharsets.UTF_8));
+        PartnerCertificateHolder.CertificateSnapshot certificateSnapshot = partnerCertificateHolder.getSnapshot();
+        //CryptoCore.asymmetricEncrypt looked up a new OAEP cipher on every call
+        Cipher cipher = Cipher.getInstance("RSA/ECB/OAEPWITHSHA-256ANDMGF1PADDING");
+        cipher.init(Cipher.ENCRYPT_MODE, certificateSnapshot.getPublicKey(), new OAEPParameterSpec("SHA-256", "MGF1",
+                MGF1ParameterSpec.SHA256, PSource.PSpecified.DEFAULT));
+
+        Map<String, Object> idaKycAuthRequest = new LinkedHashMap<>();
+        idaKycAuthRequest.put("individualId", "8267411571");
+        idaKycAuthRequest.put("transactionID", "1234567890");
+        idaKycAuthRequest.put("consentObtained", true);
+        idaKycAuthRequest.put("request", HelperService.b64Encode(CryptoUtil.symmetricEncrypt(symmetricKey,
+                request.getBytes(StandardCharsets.UTF_8))));
+        idaKycAuthRequest.put("requestHMAC", HelperService.b64Encode(CryptoUtil.symmetricEncrypt(symmetricKey,
+                hexEncodedHash.getBytes(StandardCharsets.UTF_8))));
+        idaKycAuthRequest.put("thumbprint", certificateSnapshot.getEncodedThumbprint());
+        idaKycAuthRequest.put("requestSessionKey", HelperService.b64Encode(cipher.doFinal(symmetricKey.getEncoded())));
+        return objectMapper.writeValueAsString(idaKycAuthRequest).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static IdaKycAuthRequest getOuterRequest() {
+        IdaKycAuthRequest idaKycAuthRequest = new IdaKycAuthRequest();
+        idaKycAuthRequest.setIndividualId("8267411571");
+        idaKycAuthRequest.setTransactionID("1234567890");
+        idaKycAuthRequest.setConsentObtained(true);
+        return idaKycAuthRequest;
+    }
+
+    private static String getCapture(ObjectMapper objectMapper) throws Exception {
+        List<IdaKycAuthRequest.Biometric> biometrics = new ArrayList<>();
+        for(int i=0; i<BIO_ENTRIES; i++) {
+            byte[] data = new byte[BIO_DATA_SIZE * 3 / 4];
+            ThreadLocalRandom.current().nextBytes(data);
+            IdaKycAuthRequest.Biometric biometric = new IdaKycAuthRequest.Biometric();
+            biometric.setSpecVersion("1.0");
+            biometric.setData(HelperService.b64Encode(data));
+            biometric.setHash("AB12CD34EF56AB12CD34EF56AB12CD34EF56AB12CD34EF56AB12CD34EF56AB12");
+            biometric.setSessionKey(HelperService.b64Encode("session-key-" + i));
+            biometric.setThumbprint(HelperService.b64Encode("thumbprint"));
+            biometrics.add(biometric);
+        }
+        return objectMapper.writeValueAsString(biometrics);
+    }
+
+    private static AuthChallenge getChallenge(String authFactorType, String challenge) {
+        AuthChallenge authChallenge = new AuthChallenge();
+        authChallenge.setAuthFactorType(authFactorType);
+        authChallenge.setChallenge(challenge);
+        return authChallenge;
+    }
+
+    //wired the same way as in HelperServiceTest, with the certificate download stubbed
+    private static HelperService getHelperService(ObjectMapper objectMapper) throws Exception {
+        RestTemplate restTemplate = Mockito.mock(RestTemplate.class);
+        KeymanagerUtil keymanagerUtil = Mockito.mock(KeymanagerUtil.class);
+        Mockito.when(restTemplate.exchange(RequestEntity.get(URI.create("https://test/test")).build(), String.class))
+                .thenReturn(ResponseEntity.ok("test-certificate"));
+        Mockito.when(keymanagerUtil.convertToCertificate(Mockito.any(String.class)))
+                .thenReturn(TestUtil.getCertificate(TestUtil.generateJWK_RSA()));
+        IdaHttpClient idaHttpClient = TestUtil.getIdaHttpClient(restTemplate, objectMapper);
+
+        PartnerCertificateHolder partnerCertificateHolder = new PartnerCertificateHolder();
+        ReflectionTestUtils.setField(partnerCertificateHolder, "idaPartnerCertificateUrl", "https://test/test");
+        ReflectionTestUtils.setField(partnerCertificateHolder, "refreshAheadSeconds", 86400L);
+        ReflectionTestUtils.setField(partnerCertificateHolder, "refreshRetrySeconds", 300L);
+        ReflectionTestUtils.setField(partnerCertificateHolder, "idaHttpClient", idaHttpClient);
+        ReflectionTestUtils.setField(partnerCertificateHolder, "keymanagerUtil", keymanagerUtil);
+
+        SessionKeyPool sessionKeyPool = new SessionKeyPool();
+        ReflectionTestUtils.setField(sessionKeyPool, "symmetricAlgorithm", "AES");
+        ReflectionTestUtils.setField(sessionKeyPool, "symmetricKeyLength", 256);
+        ReflectionTestUtils.setField(sessionKeyPool, "poolSize", 256);
+        ReflectionTestUtils.setField(sessionKeyPool, "refillThreshold", 128);
+        ReflectionTestUtils.setField(sessionKeyPool, "meterRegistry", new SimpleMeterRegistry());
+        sessionKeyPool.init();
+
+        HelperService helperService = new HelperService();
+        ReflectionTestUtils.setField(helperService, "sendOtpUrl", "https://test/test");
+        ReflectionTestUtils.setField(helperService, "idaHttpClient", idaHttpClient);
+        ReflectionTestUtils.setField(helperService, "partnerCertificateHolder", partnerCertificateHolder);
+        ReflectionTestUtils.setField(helperService, "sessionKeyPool", sessionKeyPool);
+        ReflectionTestUtils.setField(helperService, "jsonCodec", TestUtil.getJsonCodec(objectMapper));
+        ReflectionTestUtils.setField(helperService, "asymmetricAlgorithm", "RSA/ECB/OAEPWITHSHA-256ANDMGF1PADDING");
+        ReflectionTestUtils.setField(helperService, "meterRegistry", new SimpleMeterRegistry());
+        helperService.init();
+        return helperService;
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void run() throws Exception;
+    }
+}
@@ -1,12 +1,22 @@
 package io.mosip.esignet.plugin.mosipid.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.jwk.JWK;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.mosip.esignet.api.dto.AuthChallenge;
 import io.mosip.esignet.api.dto.SendOtpResult;
 import io.mosip.esignet.api.exception.SendOtpException;
 import io.mosip.esignet.plugin.mosipid.dto.*;
 import io.mosip.esignet.plugin.mosipid.dto.Error;
+import io.mosip.esignet.plugin.mosipid.helper.BindingTransactionCache;
+import io.mosip.esignet.plugin.mosipid.helper.IdaHttpClient;
+import io.mosip.esignet.plugin.mosipid.helper.IsoLanguageCodes;
+import io.mosip.esignet.plugin.mosipid.helper.JwsRequestSigner;
+import io.mosip.esignet.plugin.mosipid.helper.PartnerCertificateHolder;
+import io.mosip.esignet.plugin.mosipid.helper.SessionKeyPool;
+import io.mosip.esignet.plugin.mosipid.helper.TransactionIdGenerator;
+import io.mosip.kernel.core.util.HMACUtils2;
 import io.mosip.kernel.crypto.jce.core.CryptoCore;
 import io.mosip.kernel.keymanagerservice.util.KeymanagerUtil;
 import io.mosip.kernel.signature.dto.JWTSignatureResponseDto;
@@ -27,7 +37,16 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.RestTemplate;
 
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.security.cert.Certificate;
+import java.security.spec.MGF1ParameterSpec;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -45,26 +64,62 @@ public class HelperServiceTest {
     @Mock
     private SignatureService signatureService;
 
+    @Mock
+    private CryptoCore cryptoCore;
+
     @Mock
     private RestTemplate restTemplate;
 
     @Mock
-    private CryptoCore cryptoCore;
+    private JwsRequestSigner jwsRequestSigner;
 
     String partnerId = "test";
     String partnerAPIKey = "test-api-key";
 
     ObjectMapper objectMapper = new ObjectMapper();
 
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static final RequestEntity<Void> CERT_REQUEST = RequestEntity.get(URI.create("https://test/test")).build();
+
+    JWK partnerJWK = TestUtil.generateJWK_RSA();
+
 
     @Before
-    public void setUp() {
+    public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
         ReflectionTestUtils.setField(helperService, "sendOtpUrl", "https://test/test");
-        ReflectionTestUtils.setField(helperService, "idaPartnerCertificateUrl", "https://test/test");
-        ReflectionTestUtils.setField(helperService, "symmetricAlgorithm", "AES");
-        ReflectionTestUtils.setField(helperService, "symmetricKeyLength", 256);
-        ReflectionTestUtils.setField(helperService, "objectMapper", objectMapper);
+        PartnerCertificateHolder partnerCertificateHolder = new PartnerCertificateHolder();
+        ReflectionTestUtils.setField(partnerCertificateHolder, "idaPartnerCertificateUrl", "https://test/test");
+        ReflectionTestUtils.setField(partnerCertificateHolder, "refreshAheadSeconds", 86400L);
+        ReflectionTestUtils.setField(partnerCertificateHolder, "refreshRetrySeconds", 300L);
+        IdaHttpClient idaHttpClient = TestUtil.getIdaHttpClient(restTemplate, objectMapper);
+        ReflectionTestUtils.setField(helperService, "idaHttpClient", idaHttpClient);
+        ReflectionTestUtils.setField(partnerCertificateHolder, "idaHttpClient", idaHttpClient);
+        ReflectionTestUtils.setField(partnerCertificateHolder, "keymanagerUtil", keymanagerUtil);
+        ReflectionTestUtils.setField(helperService, "partnerCertificateHolder", partnerCertificateHolder);
+        SessionKeyPool sessionKeyPool = new SessionKeyPool();
+        ReflectionTestUtils.setField(sessionKeyPool, "symmetricAlgorithm", "AES");
+        ReflectionTestUtils.setField(sessionKeyPool, "symmetricKeyLength", 256);
+        ReflectionTestUtils.setField(sessionKeyPool, "poolSize", 4);
+        ReflectionTestUtils.setField(sessionKeyPool, "refillThreshold", 1);
+        ReflectionTestUtils.setField(sessionKeyPool, "meterRegistry", new SimpleMeterRegistry());
+        sessionKeyPool.init();
+        ReflectionTestUtils.setField(helperService, "sessionKeyPool", sessionKeyPool);
+        BindingTransactionCache bindingTransactionCache = new BindingTransactionCache();
+        ReflectionTestUtils.setField(bindingTransactionCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(bindingTransactionCache, "expireAfterWriteSeconds", 600L);
+        ReflectionTestUtils.setField(bindingTransactionCache, "meterRegistry", new SimpleMeterRegistry());
+        bindingTransactionCache.init();
+        ReflectionTestUtils.setField(helperService, "bindingTransactionCache", bindingTransactionCache);
+        TransactionIdGenerator transactionIdGenerator = new TransactionIdGenerator();
+        ReflectionTestUtils.setField(transactionIdGenerator, "strategy", TransactionIdGenerator.Strategy.BULK);
+        transactionIdGenerator.init();
+        ReflectionTestUtils.setField(helperService, "transactionIdGenerator", transactionIdGenerator);
+        ReflectionTestUtils.setField(helperService, "jsonCodec", TestUtil.getJsonCodec(objectMapper));
+        ReflectionTestUtils.setField(helperService, "asymmetricAlgorithm", "RSA/ECB/OAEPWITHSHA-256ANDMGF1PADDING");
+        ReflectionTestUtils.setField(helperService, "meterRegistry", meterRegistry);
+        helperService.init();
     }
 
     @Test
@@ -133,7 +188,7 @@ public class HelperServiceTest {
             helperService.sendOTP(partnerId, partnerAPIKey, sendOtpRequest);
         } catch (SendOtpException e) {
             Assert.assertEquals("otp-error", e.getErrorCode());
-        } catch (JsonProcessingException e) {
+        } catch (IOException e) {
             Assert.fail();
         }
     }
@@ -158,9 +213,8 @@ public class HelperServiceTest {
         authChallenge.setFormat("numeric");
         challengeList.add(authChallenge);
 
-        Mockito.when(restTemplate.getForObject("https://test/test", String.class)).thenReturn("test-certificate");
-        Mockito.when(keymanagerUtil.convertToCertificate(Mockito.any(String.class))).thenReturn(TestUtil.getCertificate());
-        Mockito.when(cryptoCore.asymmetricEncrypt(Mockito.any(), Mockito.any())).thenReturn("test".getBytes());
+        Mockito.when(restTemplate.exchange(CERT_REQUEST, String.class)).thenReturn(ResponseEntity.ok("test-certificate"));
+        Mockito.when(keymanagerUtil.convertToCertificate(Mockito.any(String.class))).thenReturn(TestUtil.getCertificate(partnerJWK));
 
         IdaKycAuthRequest idaKycAuthRequest = new IdaKycAuthRequest();
         helperService.setAuthRequest(challengeList, idaKycAuthRequest);
@@ -170,6 +224,53 @@ public class HelperServiceTest {
         Assert.assertNotNull(idaKycAuthRequest.getThumbprint());
     }
 
+    @Test
+    public void setAuthRequest_withOTPChallengeType_thenDecryptWithSessionKey() throws Exception {
+        List<AuthChallenge> challengeList = new ArrayList<>();
+        AuthChallenge authChallenge = new AuthChallenge();
+        authChallenge.setChallenge("111333");
+        authChallenge.setAuthFactorType("otp");
+        challengeList.add(authChallenge);
+
+        Mockito.when(restTemplate.exchange(CERT_REQUEST, String.class)).thenReturn(ResponseEntity.ok("test-certificate"));
+        Mockito.when(keymanagerUtil.convertToCertificate(Mockito.any(String.class))).thenReturn(TestUtil.getCertificate(partnerJWK));
+
+        IdaKycAuthRequest idaKycAuthRequest = new IdaKycAuthRequest();
+        helperService.setAuthRequest(challengeList, idaKycAuthRequest);
+
+        SecretKeySpec sessionKey = decryptSessionKey(idaKycAuthRequest.getRequestSessionKey());
+        byte[] request = symmetricDecrypt(sessionKey, idaKycAuthRequest.getRequest());
+        Assert.assertEquals("111333", objectMapper.readTree(request).get("otp").asText());
+        Assert.assertEquals(HMACUtils2.digestAsPlainText(request),
+                new String(symmetricDecrypt(sessionKey, idaKycAuthRequest.getRequestHMAC()), StandardCharsets.UTF_8));
+
+        JsonNode requestBody = objectMapper.readTree(objectMapper.writeValueAsBytes(idaKycAuthRequest));
+        Assert.assertEquals(HelperService.b64Encode(idaKycAuthRequest.getRequest()), requestBody.get("request").asText());
+        Assert.assertEquals(HelperService.b64Encode(idaKycAuthRequest.getRequestHMAC()), requestBody.get("requestHMAC").asText());
+        Assert.assertEquals(HelperService.b64Encode(idaKycAuthRequest.getRequestSessionKey()), requestBody.get("requestSessionKey").asText());
+    }
+
+    @Test
+    public void setAuthRequest_withNotPooledAsymmetricAlgorithm_thenEncryptWithCryptoCore() throws Exception {
+        ReflectionTestUtils.setField(helperService, "asymmetricAlgorithm", "RSA/ECB/OAEPWITHSHA-1ANDMGF1PADDING");
+        helperService.init();
+        List<AuthChallenge> challengeList = new ArrayList<>();
+        AuthChallenge authChallenge = new AuthChallenge();
+        authChallenge.setChallenge("111333");
+        authChallenge.setAuthFactorType("otp");
+        challengeList.add(authChallenge);
+
+        Mockito.when(restTemplate.exchange(CERT_REQUEST, String.class)).thenReturn(ResponseEntity.ok("test-certificate"));
+        Mockito.when(keymanagerUtil.convertToCertificate(Mockito.any(String.class))).thenReturn(TestUtil.getCertificate(partnerJWK));
+        byte[] encryptedSessionKey = "encrypted-session-key".getBytes(StandardCharsets.UTF_8);
+        Mockito.when(cryptoCore.asymmetricEncrypt(Mockito.any(), Mockito.any())).thenReturn(encryptedSessionKey);
+
+        IdaKycAuthRequest idaKycAuthRequest = new IdaKycAuthRequest();
+        helperService.setAuthRequest(challengeList, idaKycAuthRequest);
+        Assert.assertArrayEquals(encryptedSessionKey, idaKycAuthRequest.getRequestSessionKey());
+        Mockito.verify(cryptoCore).asymmetricEncrypt(Mockito.any(), Mockito.any());
+    }
+
     @Test
     public void setAuthRequest_withPWDChallengeType_thenPass() throws Exception {
         List<AuthChallenge> challengeList = new ArrayList<>();
@@ -179,9 +280,8 @@ public class HelperServiceTest {
         authChallenge.setFormat("numeric");
         challengeList.add(authChallenge);
 
-        Mockito.when(restTemplate.getForObject("https://test/test", String.class)).thenReturn("test-certificate");
-        Mockito.when(keymanagerUtil.convertToCertificate(Mockito.any(String.class))).thenReturn(TestUtil.getCertificate());
-        Mockito.when(cryptoCore.asymmetricEncrypt(Mockito.any(), Mockito.any())).thenReturn("test".getBytes());
+        Mockito.when(restTemplate.exchange(CERT_REQUEST, String.class)).thenReturn(ResponseEntity.ok("test-certificate"));
+        Mockito.when(keymanagerUtil.convertToCertificate(Mockito.any(String.class))).thenReturn(TestUtil.getCertificate(partnerJWK));
 
         IdaKycAuthRequest idaKycAuthRequest = new IdaKycAuthRequest();
         helperService.setAuthRequest(challengeList, idaKycAuthRequest);
@@ -200,9 +300,8 @@ public class HelperServiceTest {
         authChallenge.setFormat("numeric");
         challengeList.add(authChallenge);
 
-        Mockito.when(restTemplate.getForObject("https://test/test", String.class)).thenReturn("test-certificate");
-        Mockito.when(keymanagerUtil.convertToCertificate(Mockito.any(String.class))).thenReturn(TestUtil.getCertificate());
-        Mockito.when(cryptoCore.asymmetricEncrypt(Mockito.any(), Mockito.any())).thenReturn("test".getBytes());
+        Mockito.when(restTemplate.exchange(CERT_REQUEST, String.class)).thenReturn(ResponseEntity.ok("test-certificate"));
+        Mockito.when(keymanagerUtil.convertToCertificate(Mockito.any(String.class))).thenReturn(TestUtil.getCertificate(partnerJWK));
 
         IdaKycAuthRequest idaKycAuthRequest = new IdaKycAuthRequest();
         helperService.setAuthRequest(challengeList, idaKycAuthRequest);
@@ -227,9 +326,8 @@ public class HelperServiceTest {
         authChallenge.setFormat("numeric");
         challengeList.add(authChallenge);
 
-        Mockito.when(restTemplate.getForObject("https://test/test", String.class)).thenReturn("test-certificate");
-        Mockito.when(keymanagerUtil.convertToCertificate(Mockito.any(String.class))).thenReturn(TestUtil.getCertificate());
-        Mockito.when(cryptoCore.asymmetricEncrypt(Mockito.any(), Mockito.any())).thenReturn("test".getBytes());
+        Mockito.when(restTemplate.exchange(CERT_REQUEST, String.class)).thenReturn(ResponseEntity.ok("test-certificate"));
+        Mockito.when(keymanagerUtil.convertToCertificate(Mockito.any(String.class))).thenReturn(TestUtil.getCertificate(partnerJWK));
 
         IdaKycAuthRequest idaKycAuthRequest = new IdaKycAuthRequest();
         helperService.setAuthRequest(challengeList, idaKycAuthRequest);
@@ -239,6 +337,80 @@ public class HelperServiceTest {
         Assert.assertNotNull(idaKycAuthRequest.getThumbprint());
     }
 
+    @Test
+    public void setAuthRequest_withBIOPassthrough_thenEmbedCaptureVerbatim() throws Exception {
+        ReflectionTestUtils.setField(helperService, "bioPassthroughEnabled", true);
+        String capture = "[ {\"specVersion\" : \"1.0\", \"data\" : \"eyJhbGciOiJIUzI1NiJ9.e30.c2ln\", \"hash\" : \"AB12\"," +
+                " \"sessionKey\" : \"a2V5\", \"thumbprint\" : null} ]";
+
+        List<AuthChallenge> challengeList = new ArrayList<>();
+        AuthChallenge authChallenge = new AuthChallenge();
+        authChallenge.setChallenge(HelperService.b64Encode(capture));
+        authChallenge.setAuthFactorType("BIO");
+        challengeList.add(authChallenge);
+
+        Mockito.when(restTemplate.exchange(CERT_REQUEST, String.class)).thenReturn(ResponseEntity.ok("test-certificate"));
+        Mockito.when(keymanagerUtil.convertToCertificate(Mockito.any(String.class))).thenReturn(TestUtil.getCertificate(partnerJWK));
+
+        IdaKycAuthRequest idaKycAuthRequest = new IdaKycAuthRequest();
+        helperService.setAuthRequest(challengeList, idaKycAuthRequest);
+
+        String request = new String(symmetricDecrypt(decryptSessionKey(idaKycAuthRequest.getRequestSessionKey()),
+                idaKycAuthRequest.getRequest()), StandardCharsets.UTF_8);
+        Assert.assertTrue(request.contains("\"biometrics\":" + capture));
+        JsonNode biometrics = objectMapper.readTree(request).get("biometrics");
+        Assert.assertEquals(1, biometrics.size());
+        Assert.assertEquals("AB12", biometrics.get(0).get("hash").asText());
+    }
+
+    @Test
+    public void setAuthRequest_withBIOPassthroughAndUnknownField_thenParseCapture() throws Exception {
+        ReflectionTestUtils.setField(helperService, "bioPassthroughEnabled", true);
+        String capture = "[{\"data\":\"eyJhbGciOiJIUzI1NiJ9.e30.c2ln\",\"unknown\":{\"nested\":1}}]";
+
+        List<AuthChallenge> challengeList = new ArrayList<>();
+        AuthChallenge authChallenge = new AuthChallenge();
+        authChallenge.setChallenge(HelperService.b64Encode(capture));
+        authChallenge.setAuthFactorType("BIO");
+        challengeList.add(authChallenge);
+
+        Mockito.when(restTemplate.exchange(CERT_REQUEST, String.class)).thenReturn(ResponseEntity.ok("test-certificate"));
+        Mockito.when(keymanagerUtil.convertToCertificate(Mockito.any(String.class))).thenReturn(TestUtil.getCertificate(partnerJWK));
+
+        IdaKycAuthRequest idaKycAuthRequest = new IdaKycAuthRequest();
+        helperService.setAuthRequest(challengeList, idaKycAuthRequest);
+
+        String request = new String(symmetricDecrypt(decryptSessionKey(idaKycAuthRequest.getRequestSessionKey()),
+                idaKycAuthRequest.getRequest()), StandardCharsets.UTF_8);
+        Assert.assertFalse(request.contains("unknown"));
+    }
+
+    @Test
+    public void setAuthRequest_withBIOPassthroughAndUTF16Capture_thenParseCapture() throws Exception {
+        ReflectionTestUtils.setField(helperService, "bioPassthroughEnabled", true);
+        String capture = "[{\"specVersion\":\"1.0\",\"data\":\"eyJhbGciOiJIUzI1NiJ9.e30.c2ln\",\"hash\":\"AB12\"}]";
+
+        List<AuthChallenge> challengeList = new ArrayList<>();
+        AuthChallenge authChallenge = new AuthChallenge();
+        authChallenge.setChallenge(HelperService.b64Encode(capture.getBytes(StandardCharsets.UTF_16)));
+        authChallenge.setAuthFactorType("BIO");
+        challengeList.add(authChallenge);
+
+        Mockito.when(restTemplate.exchange(CERT_REQUEST, String.class)).thenReturn(ResponseEntity.ok("test-certificate"));
+        Mockito.when(keymanagerUtil.convertToCertificate(Mockito.any(String.class))).thenReturn(TestUtil.getCertificate(partnerJWK));
+
+        IdaKycAuthRequest idaKycAuthRequest = new IdaKycAuthRequest();
+        helperService.setAuthRequest(challengeList, idaKycAuthRequest);
+
+        //not embedded as is, the parsed capture is written back as UTF-8
+        String request = new String(symmetricDecrypt(decryptSessionKey(idaKycAuthRequest.getRequestSessionKey()),
+                idaKycAuthRequest.getRequest()), StandardCharsets.UTF_8);
+        Assert.assertFalse(request.contains("\u0000"));
+        JsonNode biometrics = objectMapper.readTree(request).get("biometrics");
+        Assert.assertEquals(1, biometrics.size());
+        Assert.assertEquals("AB12", biometrics.get(0).get("hash").asText());
+    }
+
     @Test
     public void setAuthRequest_withWLAChallengeType_thenPass() throws Exception {
         List<AuthChallenge> challengeList = new ArrayList<>();
@@ -248,9 +420,8 @@ public class HelperServiceTest {
         authChallenge.setFormat("jwt");
         challengeList.add(authChallenge);
 
-        Mockito.when(restTemplate.getForObject("https://test/test", String.class)).thenReturn("test-certificate");
-        Mockito.when(keymanagerUtil.convertToCertificate(Mockito.any(String.class))).thenReturn(TestUtil.getCertificate());
-        Mockito.when(cryptoCore.asymmetricEncrypt(Mockito.any(), Mockito.any())).thenReturn("test".getBytes());
+        Mockito.when(restTemplate.exchange(CERT_REQUEST, String.class)).thenReturn(ResponseEntity.ok("test-certificate"));
+        Mockito.when(keymanagerUtil.convertToCertificate(Mockito.any(String.class))).thenReturn(TestUtil.getCertificate(partnerJWK));
 
         IdaKycAuthRequest idaKycAuthRequest = new IdaKycAuthRequest();
         helperService.setAuthRequest(challengeList, idaKycAuthRequest);
@@ -262,7 +433,7 @@ public class HelperServiceTest {
 
     @Test
     public void getIdaPartnerCertificate_withUnsetPartnerCertificate_thenPass() throws Exception {
-        Mockito.when(restTemplate.getForObject("https://test/test", String.class)).thenReturn("test-certificate");
+        Mockito.when(restTemplate.exchange(CERT_REQUEST, String.class)).thenReturn(ResponseEntity.ok("test-certificate"));
         Certificate certificate = TestUtil.getCertificate();
         Mockito.when(keymanagerUtil.convertToCertificate(Mockito.any(String.class))).thenReturn(certificate);
         Assert.assertEquals(certificate, helperService.getIdaPartnerCertificate());
@@ -270,7 +441,7 @@ public class HelperServiceTest {
 
     @Test
     public void getIdaPartnerCertificate_withExpiredPartnerCertificate_thenPass() throws Exception {
-        Mockito.when(restTemplate.getForObject("https://test/test", String.class)).thenReturn("test-certificate", "test-certificate");
+        Mockito.when(restTemplate.exchange(CERT_REQUEST, String.class)).thenReturn(ResponseEntity.ok("test-certificate"), ResponseEntity.ok("test-certificate"));
         Certificate certificate = TestUtil.getCertificate();
         Mockito.when(keymanagerUtil.convertToCertificate(Mockito.any(String.class))).thenReturn(TestUtil.getExpiredCertificate(), certificate);
         Assert.assertEquals(certificate, helperService.getIdaPartnerCertificate());
@@ -284,9 +455,32 @@ public class HelperServiceTest {
         Assert.assertEquals("test-jwt", helperService.getRequestSignature("test-request-value"));
     }
 
+    @Test
+    public void getRequestSignature_withInProcessSigning_thenPass() throws Exception {
+        Mockito.when(jwsRequestSigner.isEnabled()).thenReturn(true);
+        Mockito.when(jwsRequestSigner.sign(Mockito.eq(HelperService.OIDC_PARTNER_APP_ID), Mockito.eq(""),
+                Mockito.eq("test-request-value".getBytes(StandardCharsets.UTF_8)))).thenReturn("test-jws");
+        Assert.assertEquals("test-jws", helperService.getRequestSignature("test-request-value"));
+        Mockito.verifyZeroInteractions(signatureService);
+    }
+
+    @Test
+    public void getRequestSignature_withInProcessSigningFailure_thenFallback() throws Exception {
+        Mockito.when(jwsRequestSigner.isEnabled()).thenReturn(true);
+        Mockito.when(jwsRequestSigner.sign(Mockito.anyString(), Mockito.anyString(), Mockito.any(byte[].class))).thenThrow(RuntimeException.class);
+        JWTSignatureResponseDto jwtSignatureResponseDto = new JWTSignatureResponseDto();
+        jwtSignatureResponseDto.setJwtSignedData("test-jwt");
+        Mockito.when(signatureService.jwtSign(Mockito.any())).thenReturn(jwtSignatureResponseDto);
+        Assert.assertEquals("test-jwt", helperService.getRequestSignature("test-request-value"));
+        Mockito.verify(jwsRequestSigner).reset();
+    }
+
     @Test
     public void getTransactionId_test() {
-        Assert.assertNotNull(helperService.getTransactionId("idhash"));
+        String transactionId = helperService.getTransactionId("idhash");
+        Assert.assertNotNull(transactionId);
+        Assert.assertEquals(transactionId, helperService.getTransactionId("idhash"));
+        Assert.assertNotEquals(transactionId, helperService.getTransactionId("other-idhash"));
     }
 
     @Test
@@ -295,6 +489,8 @@ public class HelperServiceTest {
         Assert.assertTrue(helperService.convertLangCodesToISO3LanguageCodes(new String[]{}).isEmpty());
         Assert.assertTrue(helperService.convertLangCodesToISO3LanguageCodes(new String[]{"", ""}).isEmpty());
         Assert.assertTrue(helperService.convertLangCodesToISO3LanguageCodes(new String[]{"e1"}).isEmpty());
+        Assert.assertEquals(IsoLanguageCodes.getUnknownCount(),
+                meterRegistry.get("ida.claim.locales.unknown").functionCounter().count(), 0);
     }
 
     @Test
@@ -304,4 +500,19 @@ public class HelperServiceTest {
         Assert.assertEquals(langCodes.get(0), "eng");
         Assert.assertEquals(langCodes.get(1), "khm");
     }
+
+    private SecretKeySpec decryptSessionKey(byte[] requestSessionKey) throws Exception {
+        Cipher cipher = Cipher.getInstance("RSA/ECB/OAEPWITHSHA-256ANDMGF1PADDING");
+        cipher.init(Cipher.DECRYPT_MODE, partnerJWK.toRSAKey().toPrivateKey(), new OAEPParameterSpec("SHA-256",
+                "MGF1", MGF1ParameterSpec.SHA256, PSource.PSpecified.DEFAULT));
+        return new SecretKeySpec(cipher.doFinal(requestSessionKey), "AES");
+    }
+
+    //Reverse of CryptoUtil.symmetricEncrypt, IV is appended to the cipher text
+    private static byte[] symmetricDecrypt(SecretKeySpec key, byte[] data) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/GCM/PKCS5Padding");
+        int ivLength = cipher.getBlockSize();
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(128, data, data.length - ivLength, ivLength));
+        return cipher.doFinal(data, 0, data.length - ivLength);
+    }
 }
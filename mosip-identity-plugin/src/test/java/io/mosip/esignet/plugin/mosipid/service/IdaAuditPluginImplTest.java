@@ -4,14 +4,18 @@ import io.mosip.esignet.api.dto.AuditDTO;
 import io.mosip.esignet.api.util.Action;
 import io.mosip.esignet.api.util.ActionStatus;
 import io.mosip.esignet.plugin.mosipid.dto.AuditResponse;
+import io.mosip.esignet.plugin.mosipid.helper.AuditPipeline;
 import io.mosip.esignet.plugin.mosipid.helper.AuthTransactionHelper;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
+import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.MockitoJUnitRunner;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.mosip.kernel.core.http.ResponseWrapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.mockito.*;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
@@ -26,9 +30,28 @@ public class IdaAuditPluginImplTest {
     @Mock
     private AuthTransactionHelper authTransactionHelper;
     @Mock
-    private ObjectMapper objectMapper;
-    @Mock
     private RestTemplate restTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    @Before
+    public void setUp() throws Exception {
+        ReflectionTestUtils.setField(idaAuditPlugin, "idaHttpClient", TestUtil.getIdaHttpClient(restTemplate, new ObjectMapper()));
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(idaAuditPlugin, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(idaAuditPlugin, "queueCapacity", 100);
+        ReflectionTestUtils.setField(idaAuditPlugin, "flushSize", 10);
+        ReflectionTestUtils.setField(idaAuditPlugin, "flushIntervalMs", 10L);
+        ReflectionTestUtils.setField(idaAuditPlugin, "overflowPolicy", AuditPipeline.OverflowPolicy.BLOCK);
+        ReflectionTestUtils.setField(idaAuditPlugin, "blockTimeoutMs", 100L);
+        ReflectionTestUtils.setField(idaAuditPlugin, "drainTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(idaAuditPlugin, "hostLookupTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(idaAuditPlugin, "spillDir", System.getProperty("java.io.tmpdir"));
+        idaAuditPlugin.init();
+    }
+
+    @After
+    public void tearDown() {
+        idaAuditPlugin.destroy();
+    }
     @Test
     public void logAudit_WithValidDetails_ThenPass() {
         Action action = Action.AUTHENTICATE;
@@ -95,17 +118,33 @@ public class IdaAuditPluginImplTest {
                 new ParameterizedTypeReference<ResponseWrapper>() {
                 };
         Mockito.when(authTransactionHelper.getAuthToken()).thenReturn("authToken");
-        Mockito.when(objectMapper.writeValueAsString(any())).thenReturn("requestBody");
         Mockito.when(restTemplate.exchange(
                 Mockito.any(RequestEntity.class),
                 Mockito.eq(responseType)
         )).thenReturn(responseEntity);
         try {
             idaAuditPlugin.logAudit(username,action, status, auditDTO, null);
+            //sent by the dispatcher, drained on shutdown
+            idaAuditPlugin.destroy();
             Assert.assertTrue(true);
         } catch (Exception e) {
             Assert.fail();
         }
+        ArgumentCaptor<RequestEntity> requestCaptor = ArgumentCaptor.forClass(RequestEntity.class);
+        Mockito.verify(restTemplate).exchange(requestCaptor.capture(), Mockito.eq(responseType));
+        String body = (String) requestCaptor.getValue().getBody();
+        Assert.assertTrue(body.contains("\"eventId\":\"SAVE_CONSENT\""));
+        Assert.assertTrue(body.contains("\"sessionUserId\":\"username\""));
+
+        Assert.assertEquals(1.0, meterRegistry.get("ida.audit.events.accepted")
+                .tags("action", "SAVE_CONSENT", "status", "SUCCESS").counter().count(), 0);
+        Assert.assertEquals(1.0, meterRegistry.get("ida.audit.events.sent")
+                .tags("action", "SAVE_CONSENT", "status", "SUCCESS").counter().count(), 0);
+        Assert.assertEquals(1, meterRegistry.get("ida.audit.events.latency")
+                .tags("action", "SAVE_CONSENT", "status", "SUCCESS").timer().count());
+        Assert.assertEquals(1.0, meterRegistry.get("ida.audit.responses").tag("code", "200").counter().count(), 0);
+        Assert.assertEquals(1, meterRegistry.get("ida.audit.batch.size").summary().count());
+        Assert.assertEquals(0.0, meterRegistry.get("ida.audit.queue.depth").gauge().value(), 0);
     }
     @Test
     public void logAudit_WithUnauthorizedStatus_ThenPass() throws Exception {
@@ -120,17 +159,22 @@ public class IdaAuditPluginImplTest {
                 new ParameterizedTypeReference<ResponseWrapper>() {
                 };
         Mockito.when(authTransactionHelper.getAuthToken()).thenReturn("authToken");
-        Mockito.when(objectMapper.writeValueAsString(any())).thenReturn("requestBody");
         Mockito.when(restTemplate.exchange(
                 Mockito.any(RequestEntity.class),
                 Mockito.eq(responseType)
         )).thenReturn(responseEntity);
         try {
             idaAuditPlugin.logAudit(username,action, status, auditDTO, null);
+            //sent by the dispatcher, drained on shutdown
+            idaAuditPlugin.destroy();
             Assert.assertTrue(true);
         } catch (Exception e) {
             Assert.fail();
         }
+        Mockito.verify(authTransactionHelper).purgeAuthTokenCache("authToken");
+        Assert.assertEquals(1.0, meterRegistry.get("ida.audit.token.purges").tag("code", "401").counter().count(), 0);
+        Assert.assertEquals(1.0, meterRegistry.get("ida.audit.events.failed")
+                .tags("action", "SAVE_CONSENT", "status", "SUCCESS").counter().count(), 0);
     }
     @Test
     public void logAudit_WithForbiddenStatus_ThenPass() throws Exception {
@@ -145,13 +189,14 @@ public class IdaAuditPluginImplTest {
                 new ParameterizedTypeReference<ResponseWrapper>() {
                 };
         Mockito.when(authTransactionHelper.getAuthToken()).thenReturn("authToken");
-        Mockito.when(objectMapper.writeValueAsString(any())).thenReturn("requestBody");
         Mockito.when(restTemplate.exchange(
                 Mockito.any(RequestEntity.class),
                 Mockito.eq(responseType)
         )).thenReturn(responseEntity);
         try {
             idaAuditPlugin.logAudit(username,action, status, auditDTO, null);
+            //sent by the dispatcher, drained on shutdown
+            idaAuditPlugin.destroy();
             Assert.assertTrue(true);
         } catch (Exception e) {
             Assert.fail();
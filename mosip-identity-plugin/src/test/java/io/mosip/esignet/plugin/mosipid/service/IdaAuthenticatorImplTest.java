@@ -10,6 +10,12 @@ import static org.mockito.ArgumentMatchers.any;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 import io.mosip.esignet.api.util.ErrorConstants;
 import io.mosip.esignet.plugin.mosipid.dto.GetAllCertificatesResponse;
@@ -22,6 +28,7 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -29,10 +36,12 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -62,6 +71,8 @@ public class IdaAuthenticatorImplTest {
 
 	ObjectMapper mapper = new ObjectMapper();;
 
+	SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
 	@Mock
 	RestTemplate restTemplate;
 
@@ -73,20 +84,21 @@ public class IdaAuthenticatorImplTest {
 
 
 	@Before
-	public void setUp() {
+	public void setUp() throws Exception {
 		MockitoAnnotations.initMocks(this);
 
 		ReflectionTestUtils.setField(helperService, "sendOtpUrl", "https:/");
-		ReflectionTestUtils.setField(helperService, "idaPartnerCertificateUrl", "https://test");
-		ReflectionTestUtils.setField(helperService, "symmetricAlgorithm", "AES");
-		ReflectionTestUtils.setField(helperService, "symmetricKeyLength", 256);
 
 		ReflectionTestUtils.setField(idaAuthenticatorImpl, "kycExchangeUrl", "https://dev.mosip.net");
 		ReflectionTestUtils.setField(idaAuthenticatorImpl, "idaVersion", "VersionIDA");
 		ReflectionTestUtils.setField(idaAuthenticatorImpl, "kycAuthUrl", "https://testkycAuthUrl");
 		ReflectionTestUtils.setField(idaAuthenticatorImpl, "getCertsUrl", "https://testGetCertsUrl");
 		ReflectionTestUtils.setField(idaAuthenticatorImpl, "otpChannels", Arrays.asList("otp", "pin", "bio"));
-		ReflectionTestUtils.setField(idaAuthenticatorImpl, "objectMapper", mapper);
+		ReflectionTestUtils.setField(idaAuthenticatorImpl, "jsonCodec", TestUtil.getJsonCodec(mapper));
+		ReflectionTestUtils.setField(idaAuthenticatorImpl, "idaHttpClient", TestUtil.getIdaHttpClient(restTemplate, mapper));
+		ReflectionTestUtils.setField(idaAuthenticatorImpl, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(idaAuthenticatorImpl, "kycExchangeSingleFlightEnabled", true);
+		idaAuthenticatorImpl.init();
 	}
 
 	@Test
@@ -143,6 +155,30 @@ public class IdaAuthenticatorImplTest {
 		Assert.assertEquals(kycAuthResult.getKycToken(), kycAuthResult.getKycToken());
 	}
 
+	@Test
+	public void doKycAuth_withIdaUnavailable_thenFailFastOnOpenCircuit() throws Exception {
+		KycAuthDto kycAuthDto = new KycAuthDto();
+		kycAuthDto.setIndividualId("IND1234");
+		kycAuthDto.setTransactionId("TRAN1234");
+		AuthChallenge authChallenge = new AuthChallenge();
+		authChallenge.setAuthFactorType("OTP");
+		authChallenge.setChallenge("111111");
+		kycAuthDto.setChallengeList(List.of(authChallenge));
+
+		Mockito.when(restTemplate.exchange(Mockito.<RequestEntity<Void>>any(),
+				Mockito.<ParameterizedTypeReference<IdaResponseWrapper<IdaKycAuthResponse>>>any()))
+				.thenThrow(new ResourceAccessException("Connection refused"));
+
+		//default minimum of 10 calls before the circuit can open
+		for(int i=0; i<11; i++) {
+			KycAuthException exception = Assert.assertThrows(KycAuthException.class,
+					() -> idaAuthenticatorImpl.doKycAuth("relyingId", "clientId", kycAuthDto));
+			Assert.assertEquals(ErrorConstants.AUTH_FAILED, exception.getErrorCode());
+		}
+		Mockito.verify(restTemplate, Mockito.times(10)).exchange(Mockito.<RequestEntity<Void>>any(),
+				Mockito.<ParameterizedTypeReference<IdaResponseWrapper<IdaKycAuthResponse>>>any());
+	}
+
 	@Test
 	public void doKycAuth_withInValidResponseDetails_thenFail() throws Exception {
 		KycAuthDto kycAuthDto = new KycAuthDto();
@@ -308,6 +344,57 @@ public class IdaAuthenticatorImplTest {
 	}
 
 
+	@Test
+	public void doKycExchange_withConcurrentDuplicates_thenShareOneIdaCall() throws Exception {
+		KycExchangeDto kycExchangeDto = new KycExchangeDto();
+		kycExchangeDto.setIndividualId("IND1234");
+		kycExchangeDto.setKycToken("KYCT123");
+		kycExchangeDto.setTransactionId("TRAN123");
+		kycExchangeDto.setAcceptedClaims(List.of("name"));
+		kycExchangeDto.setClaimsLocales(new String[] { "eng" });
+
+		IdaKycExchangeResponse idaKycExchangeResponse = new IdaKycExchangeResponse();
+		idaKycExchangeResponse.setEncryptedKyc("ENCRKYC123");
+		IdaResponseWrapper<IdaKycExchangeResponse> idaResponseWrapper = new IdaResponseWrapper<>();
+		idaResponseWrapper.setResponse(idaKycExchangeResponse);
+		CountDownLatch inFlight = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Mockito.when(restTemplate.exchange(Mockito.<RequestEntity<Void>>any(),
+				Mockito.<ParameterizedTypeReference<IdaResponseWrapper<IdaKycExchangeResponse>>>any()))
+				.thenAnswer(invocation -> {
+					inFlight.countDown();
+					release.await(5, TimeUnit.SECONDS);
+					return new ResponseEntity<>(idaResponseWrapper, HttpStatus.OK);
+				});
+
+		//blocking calls run on the caller thread, so the first call is made from another one
+		CompletableFuture<KycExchangeResult> first = CompletableFuture.supplyAsync(() ->
+				idaAuthenticatorImpl.doKycExchangeAsync("relyingPartyId", "clientId", kycExchangeDto).join());
+		Assert.assertTrue(inFlight.await(5, TimeUnit.SECONDS));
+
+		KycExchangeDto duplicate = new KycExchangeDto();
+		duplicate.setIndividualId("IND1234");
+		duplicate.setKycToken("KYCT123");
+		duplicate.setTransactionId("TRAN123");
+		duplicate.setAcceptedClaims(List.of("name"));
+		duplicate.setClaimsLocales(new String[] { "eng" });
+		CompletableFuture<KycExchangeResult> second = idaAuthenticatorImpl.doKycExchangeAsync("relyingPartyId",
+				"clientId", duplicate);
+		Assert.assertFalse(second.isDone());
+
+		release.countDown();
+		Assert.assertEquals("ENCRKYC123", first.get(5, TimeUnit.SECONDS).getEncryptedKyc());
+		Assert.assertEquals("ENCRKYC123", second.get(5, TimeUnit.SECONDS).getEncryptedKyc());
+		Mockito.verify(restTemplate, Mockito.times(1)).exchange(Mockito.<RequestEntity<Void>>any(),
+				Mockito.<ParameterizedTypeReference<IdaResponseWrapper<IdaKycExchangeResponse>>>any());
+		Assert.assertEquals(1.0, meterRegistry.get("ida.kyc-exchange.single-flight.shared").functionCounter().count(), 0);
+
+		//once completed, the same request goes to IDA again
+		idaAuthenticatorImpl.doKycExchange("relyingPartyId", "clientId", duplicate);
+		Mockito.verify(restTemplate, Mockito.times(2)).exchange(Mockito.<RequestEntity<Void>>any(),
+				Mockito.<ParameterizedTypeReference<IdaResponseWrapper<IdaKycExchangeResponse>>>any());
+	}
+
 	@Test
 	public void doKycExchange_withValidDetailsEmptyAcceptedClaims_thenPass() throws Exception {
 		KycExchangeDto kycExchangeDto = new KycExchangeDto();
@@ -428,6 +515,25 @@ public class IdaAuthenticatorImplTest {
 		}
 	}
 
+	@Test
+	public void sendOtpAsync_withErrorResponse_thenCompleteExceptionally() throws Exception {
+		SendOtpDto sendOtpDto = new SendOtpDto();
+		sendOtpDto.setIndividualId("1234");
+		sendOtpDto.setTransactionId("4567");
+		sendOtpDto.setOtpChannels(List.of("channel"));
+
+		Mockito.when(helperService.sendOTPAsync(any(),any(),any()))
+				.thenReturn(CompletableFuture.failedFuture(new RuntimeException("connection reset")));
+
+		CompletableFuture<SendOtpResult> future = idaAuthenticatorImpl.sendOtpAsync("rly123", "cli123", sendOtpDto);
+		try {
+			future.join();
+			Assert.fail();
+		} catch (CompletionException e) {
+			Assert.assertTrue(e.getCause() instanceof SendOtpException);
+		}
+	}
+
 	@Test
 	public void isSupportedOtpChannel_withInvalidChannel_thenFail() {
 		Assert.assertFalse(idaAuthenticatorImpl.isSupportedOtpChannel("test"));
@@ -460,7 +566,34 @@ public class IdaAuthenticatorImplTest {
 
 		signingCertificates = idaAuthenticatorImpl.getAllKycSigningCertificates();
 
-		Assert.assertSame(signingCertificates, getAllCertificatesResponse.getAllCertificates());
+		Assert.assertEquals(signingCertificates, getAllCertificatesResponse.getAllCertificates());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void getAllKycSigningCertificates_withNotModifiedResponse_thenReturnCachedCertificates() throws Exception {
+		Mockito.when(authTransactionHelper.getAuthToken()).thenReturn("test-token");
+
+		GetAllCertificatesResponse getAllCertificatesResponse = new GetAllCertificatesResponse();
+		getAllCertificatesResponse.setAllCertificates(List.of(new KycSigningCertificateData("keyId", "certificateData", null, null)));
+		ResponseWrapper<GetAllCertificatesResponse> certsResponseWrapper = new ResponseWrapper<GetAllCertificatesResponse>();
+		certsResponseWrapper.setResponse(getAllCertificatesResponse);
+		HttpHeaders headers = new HttpHeaders();
+		headers.setETag("\"v1\"");
+
+		Mockito.when(restTemplate.exchange(Mockito.<RequestEntity<Void>>any(),
+				Mockito.<ParameterizedTypeReference<ResponseWrapper<GetAllCertificatesResponse>>>any()))
+				.thenReturn(new ResponseEntity<>(certsResponseWrapper, headers, HttpStatus.OK))
+				.thenReturn(new ResponseEntity<>(HttpStatus.NOT_MODIFIED));
+
+		Assert.assertEquals(getAllCertificatesResponse.getAllCertificates(), idaAuthenticatorImpl.getAllKycSigningCertificates());
+		Assert.assertEquals(getAllCertificatesResponse.getAllCertificates(), idaAuthenticatorImpl.getAllKycSigningCertificates());
+
+		ArgumentCaptor<RequestEntity<Void>> requestCaptor = ArgumentCaptor.forClass(RequestEntity.class);
+		Mockito.verify(restTemplate, Mockito.times(2)).exchange(requestCaptor.capture(),
+				Mockito.<ParameterizedTypeReference<ResponseWrapper<GetAllCertificatesResponse>>>any());
+		Assert.assertTrue(requestCaptor.getAllValues().get(0).getHeaders().getIfNoneMatch().isEmpty());
+		Assert.assertEquals(List.of("\"v1\""), requestCaptor.getAllValues().get(1).getHeaders().getIfNoneMatch());
 	}
 
 	@Test
@@ -505,6 +638,7 @@ public class IdaAuthenticatorImplTest {
 
 		Assert.assertThrows(KycSigningCertificateException.class,
 				() -> idaAuthenticatorImpl.getAllKycSigningCertificates());
+		Mockito.verify(authTransactionHelper).purgeAuthTokenCache("test-token");
 	}
 
 	@SuppressWarnings("rawtypes")
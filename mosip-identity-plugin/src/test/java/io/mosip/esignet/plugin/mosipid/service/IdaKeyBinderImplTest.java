@@ -47,10 +47,12 @@ public class IdaKeyBinderImplTest {
     private static final String PARTNER_API_KEY_HEADER = "partner-api-key";
 
     @Before
-    public void setUp() {
+    public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
         ReflectionTestUtils.setField(idaKeyBinderImpl, "keyBinderUrl", "https://localhost/identity-key-binding/mispLK/");
-        ReflectionTestUtils.setField(idaKeyBinderImpl, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(idaKeyBinderImpl, "jsonCodec", TestUtil.getJsonCodec(objectMapper));
+        ReflectionTestUtils.setField(idaKeyBinderImpl, "idaHttpClient", TestUtil.getIdaHttpClient(restTemplate, objectMapper));
+        idaKeyBinderImpl.init();
     }
 
     @Test
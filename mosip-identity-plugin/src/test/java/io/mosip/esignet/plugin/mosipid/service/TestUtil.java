@@ -13,15 +13,24 @@ import java.security.cert.X509Certificate;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.KeyUse;
 import com.nimbusds.jose.jwk.RSAKey;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.esignet.plugin.mosipid.helper.IdaEndpointGroup;
+import io.mosip.esignet.plugin.mosipid.helper.IdaHttpClient;
+import io.mosip.esignet.plugin.mosipid.helper.JsonCodec;
 import lombok.extern.slf4j.Slf4j;
 import org.bouncycastle.x509.X509V3CertificateGenerator;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
 
 import javax.security.auth.x500.X500Principal;
 
@@ -47,7 +56,10 @@ public class TestUtil {
     }
 
     public static X509Certificate getCertificate() throws Exception {
-        JWK clientJWK = TestUtil.generateJWK_RSA();
+        return getCertificate(TestUtil.generateJWK_RSA());
+    }
+
+    public static X509Certificate getCertificate(JWK clientJWK) throws Exception {
         X509V3CertificateGenerator generator = new X509V3CertificateGenerator();
         X500Principal dnName = new X500Principal("CN=Test");
         generator.setSubjectDN(dnName);
@@ -73,4 +85,44 @@ public class TestUtil {
         generator.setSerialNumber(new BigInteger(String.valueOf(System.currentTimeMillis())));
         return generator.generate(clientJWK.toRSAKey().toPrivateKey());
     }
+
+    public static JsonCodec getJsonCodec(ObjectMapper objectMapper) {
+        JsonCodec jsonCodec = new JsonCodec();
+        ReflectionTestUtils.setField(jsonCodec, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(jsonCodec, "bytecodeAccessorsEnabled", true);
+        ReflectionTestUtils.setField(jsonCodec, "bytecodeAccessorPackages",
+                List.of("io.mosip.esignet.plugin.mosipid.dto", "io.mosip.signup.plugin.mosipid.dto"));
+        jsonCodec.init();
+        return jsonCodec;
+    }
+
+    /**
+     * IDA http client that sends every route through the given RestTemplate.
+     */
+    public static IdaHttpClient getIdaHttpClient(RestTemplate restTemplate, ObjectMapper objectMapper) {
+        IdaHttpClient idaHttpClient = new IdaHttpClient();
+        ReflectionTestUtils.setField(idaHttpClient, "asyncEnabled", false);
+        ReflectionTestUtils.setField(idaHttpClient, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(idaHttpClient, "jsonCodec", getJsonCodec(objectMapper));
+        ReflectionTestUtils.setField(idaHttpClient, "environment", new MockEnvironment());
+        ReflectionTestUtils.setField(idaHttpClient, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(idaHttpClient, "maxConcurrentCalls", 100);
+        ReflectionTestUtils.setField(idaHttpClient, "failureRateThreshold", 50);
+        ReflectionTestUtils.setField(idaHttpClient, "slidingWindowSize", 20);
+        ReflectionTestUtils.setField(idaHttpClient, "minimumCalls", 10);
+        ReflectionTestUtils.setField(idaHttpClient, "openDurationMs", 30000L);
+        ReflectionTestUtils.setField(idaHttpClient, "halfOpenCalls", 3);
+        ReflectionTestUtils.setField(idaHttpClient, "retryMaxAttempts", 3);
+        ReflectionTestUtils.setField(idaHttpClient, "retryInitialBackoffMs", 1L);
+        ReflectionTestUtils.setField(idaHttpClient, "retryMaxBackoffMs", 10L);
+        ReflectionTestUtils.setField(idaHttpClient, "retryBudgetRatio", 0.1);
+        ReflectionTestUtils.setField(idaHttpClient, "retryBudgetMinRetriesPerSecond", 5);
+        ReflectionTestUtils.setField(idaHttpClient, "endpointSelection", IdaEndpointGroup.Selection.LEAST_OUTSTANDING);
+        ReflectionTestUtils.setField(idaHttpClient, "endpointEjectionFailures", 5);
+        ReflectionTestUtils.setField(idaHttpClient, "endpointProbePath", "/health");
+        ReflectionTestUtils.setField(idaHttpClient, "endpointProbeIntervalMs", 10000L);
+        ReflectionTestUtils.setField(idaHttpClient, "endpointProbeTimeoutMs", 1000L);
+        idaHttpClient.init();
+        return idaHttpClient;
+    }
 }
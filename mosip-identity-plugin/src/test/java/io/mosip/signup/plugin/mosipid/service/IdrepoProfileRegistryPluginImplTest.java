@@ -23,10 +23,13 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.*;
 
+import static io.mosip.signup.api.util.ErrorConstants.SERVER_UNREACHABLE;
+
 @RunWith(MockitoJUnitRunner.class)
 public class IdrepoProfileRegistryPluginImplTest {
 
@@ -61,6 +64,12 @@ public class IdrepoProfileRegistryPluginImplTest {
         ReflectionTestUtils.setField(idrepoProfileRegistryPlugin, "mandatoryLanguages",List.of("eng"));
         ReflectionTestUtils.setField(idrepoProfileRegistryPlugin, "getIdentityEndpointMethod", "POST");
         ReflectionTestUtils.setField(idrepoProfileRegistryPlugin, "getStatusEndpoint","http://localhost:8080/identity/v1/identity/");
+        ReflectionTestUtils.setField(idrepoProfileRegistryPlugin, "retryMaxAttempts", 3);
+        ReflectionTestUtils.setField(idrepoProfileRegistryPlugin, "retryInitialBackoffMs", 1L);
+        ReflectionTestUtils.setField(idrepoProfileRegistryPlugin, "retryMaxBackoffMs", 10L);
+        ReflectionTestUtils.setField(idrepoProfileRegistryPlugin, "retryBudgetRatio", 0.1);
+        ReflectionTestUtils.setField(idrepoProfileRegistryPlugin, "retryBudgetMinRetriesPerSecond", 5);
+        idrepoProfileRegistryPlugin.init();
     }
 
     @Test
@@ -499,6 +508,50 @@ public class IdrepoProfileRegistryPluginImplTest {
         }
     }
 
+    @Test
+    public void getProfileCreateUpdateStatus_withIdrepoUnreachableOnce_thenRetry(){
+        Mockito.when(profileCacheService.getHandleRequestIds(ArgumentMatchers.anyString())).thenReturn(List.of("requestId"));
+
+        ResponseWrapper<IdentityStatusResponse> responseWrapper = new ResponseWrapper<>();
+        IdentityStatusResponse identityStatusResponse = new IdentityStatusResponse();
+        identityStatusResponse.setStatusCode("STORED");
+        responseWrapper.setResponse(identityStatusResponse);
+        ResponseEntity<ResponseWrapper<IdentityStatusResponse>> responseEntity=new ResponseEntity<>(responseWrapper, HttpStatus.OK);
+        Mockito.when(restTemplate.exchange(
+                "http://localhost:8080/identity/v1/identity/requestId",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<ResponseWrapper<IdentityStatusResponse>>() {}
+        )).thenThrow(new ResourceAccessException("Connection refused")).thenReturn(responseEntity);
+
+        Assert.assertEquals(ProfileCreateUpdateStatus.COMPLETED, idrepoProfileRegistryPlugin.getProfileCreateUpdateStatus("requestId"));
+        Mockito.verify(restTemplate, Mockito.times(2)).exchange(
+                "http://localhost:8080/identity/v1/identity/requestId",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<ResponseWrapper<IdentityStatusResponse>>() {});
+    }
+
+    @Test
+    public void getProfileCreateUpdateStatus_withIdrepoUnreachable_thenFailAfterMaxAttempts(){
+        Mockito.when(profileCacheService.getHandleRequestIds(ArgumentMatchers.anyString())).thenReturn(List.of("requestId"));
+        Mockito.when(restTemplate.exchange(
+                "http://localhost:8080/identity/v1/identity/requestId",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<ResponseWrapper<IdentityStatusResponse>>() {}
+        )).thenThrow(new ResourceAccessException("Connection refused"));
+
+        ProfileException exception = Assert.assertThrows(ProfileException.class,
+                () -> idrepoProfileRegistryPlugin.getProfileCreateUpdateStatus("requestId"));
+        Assert.assertEquals(SERVER_UNREACHABLE, exception.getErrorCode());
+        Mockito.verify(restTemplate, Mockito.times(3)).exchange(
+                "http://localhost:8080/identity/v1/identity/requestId",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<ResponseWrapper<IdentityStatusResponse>>() {});
+    }
+
     @Test
     public void isMatch_withValidDetails_thenPass(){
         ReflectionTestUtils.setField(idrepoProfileRegistryPlugin, "objectMapper",objectMapper);
@@ -15,6 +15,7 @@ import io.mosip.esignet.api.exception.SendOtpException;
 import io.mosip.esignet.api.spi.Authenticator;
 import io.mosip.esignet.api.util.ErrorConstants;
 import io.mosip.esignet.plugin.sunbirdrc.dto.RegistrySearchRequestDto;
+import io.mosip.esignet.plugin.sunbirdrc.util.KycSigningCertificateCache;
 import io.mosip.kernel.keymanagerservice.dto.AllCertificatesDataResponseDto;
 import io.mosip.kernel.keymanagerservice.dto.CertificateDataResponseDto;
 import io.mosip.kernel.keymanagerservice.service.KeymanagerService;
@@ -39,10 +40,12 @@ import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
 
 
@@ -73,6 +76,15 @@ public class SunbirdRCAuthenticationService implements Authenticator {
     @Value("#{${mosip.esignet.authenticator.sunbird-rc.identity-openid-claims-mapping}}")
     private Map<String,String> oidcClaimsMapping;
 
+    @Value("${mosip.esignet.authenticator.sunbird-rc.certificate-cache.ttl-seconds:1800}")
+    private long certificateCacheTtlSeconds;
+
+    @Value("${mosip.esignet.authenticator.sunbird-rc.certificate-cache.refresh-ahead-seconds:120}")
+    private long certificateCacheRefreshAheadSeconds;
+
+    @Value("${mosip.esignet.authenticator.sunbird-rc.certificate-cache.max-stale-seconds:86400}")
+    private long certificateCacheMaxStaleSeconds;
+
     @Autowired
     private RestTemplate restTemplate;
 
@@ -89,6 +101,8 @@ public class SunbirdRCAuthenticationService implements Authenticator {
 
     public static final String APPLICATION_ID = "OIDC_PARTNER";
 
+    private KycSigningCertificateCache certificateCache;
+
 
     @PostConstruct
     public void initialize() throws KycAuthException {
@@ -108,6 +122,15 @@ public class SunbirdRCAuthenticationService implements Authenticator {
             log.error("Invalid configuration: The 'individual-id-field' '{}' is not available in 'field-details'.", idField);
             throw new KycAuthException("Invalid configuration: individual-id-field is not available in field-details.");
         }
+        certificateCache = new KycSigningCertificateCache(this::loadKycSigningCertificates,
+                Duration.ofSeconds(certificateCacheTtlSeconds), Duration.ofSeconds(certificateCacheRefreshAheadSeconds),
+                Duration.ofSeconds(certificateCacheMaxStaleSeconds));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if(certificateCache != null)
+            certificateCache.shutdown();
     }
 
     @Validated
@@ -240,6 +263,16 @@ public class SunbirdRCAuthenticationService implements Authenticator {
 
     @Override
     public List<KycSigningCertificateData> getAllKycSigningCertificates() {
+        try {
+            return certificateCache.get();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<KycSigningCertificateData> loadKycSigningCertificates(List<KycSigningCertificateData> current) {
         List<KycSigningCertificateData> certs = new ArrayList<>();
         AllCertificatesDataResponseDto allCertificatesDataResponseDto = keymanagerService.getAllCertificates(APPLICATION_ID,
                 Optional.empty());
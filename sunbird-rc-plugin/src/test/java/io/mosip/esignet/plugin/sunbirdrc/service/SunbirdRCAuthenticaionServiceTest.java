@@ -370,7 +370,10 @@ public class SunbirdRCAuthenticaionServiceTest {
     }
 
     @Test
-    public void getAllKycSigningCertificates_shouldReturnCertificates_thenPass() {
+    public void getAllKycSigningCertificates_shouldReturnCertificates_thenPass() throws KycAuthException {
+        ReflectionTestUtils.setField(sunbirdRCAuthenticationService, "fieldDetailList", List.of(Map.of("id","policyNumber")));
+        ReflectionTestUtils.setField(sunbirdRCAuthenticationService, "idField", "policyNumber");
+        sunbirdRCAuthenticationService.initialize();
         List<CertificateDataResponseDto> mockCertificates = new ArrayList<>();
         mockCertificates.add(new CertificateDataResponseDto());
         CertificateDataResponseDto[] certificatesArray = mockCertificates.toArray(new CertificateDataResponseDto[0]);
@@ -382,4 +385,23 @@ public class SunbirdRCAuthenticaionServiceTest {
         Assert.assertNotNull(result);
     }
 
+    @Test
+    public void getAllKycSigningCertificates_withinTtl_thenServedFromCache() throws KycAuthException {
+        ReflectionTestUtils.setField(sunbirdRCAuthenticationService, "fieldDetailList", List.of(Map.of("id","policyNumber")));
+        ReflectionTestUtils.setField(sunbirdRCAuthenticationService, "idField", "policyNumber");
+        ReflectionTestUtils.setField(sunbirdRCAuthenticationService, "certificateCacheTtlSeconds", 60L);
+        sunbirdRCAuthenticationService.initialize();
+        AllCertificatesDataResponseDto allCertificatesDataResponseDto=new AllCertificatesDataResponseDto();
+        allCertificatesDataResponseDto.setAllCertificates(new CertificateDataResponseDto[] { new CertificateDataResponseDto() });
+        Mockito.when(keymanagerService.getAllCertificates(Mockito.any(), Mockito.any(Optional.class)))
+                .thenReturn(allCertificatesDataResponseDto);
+        try {
+            Assert.assertEquals(1, sunbirdRCAuthenticationService.getAllKycSigningCertificates().size());
+            Assert.assertEquals(1, sunbirdRCAuthenticationService.getAllKycSigningCertificates().size());
+            Mockito.verify(keymanagerService, Mockito.times(1)).getAllCertificates(Mockito.any(), Mockito.any(Optional.class));
+        } finally {
+            sunbirdRCAuthenticationService.destroy();
+        }
+    }
+
 }